@@ -0,0 +1,70 @@
+package de.justeazy.jmdflib;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+
+/**
+ * <p>
+ * Bytes of a MDF file holding its blocks, as read by {@link MDFParser}:
+ * either the whole file in one buffer, or the ranges of the file read by a
+ * {@link MetadataPrefetcher} (see {@link PrefetchedContent}).
+ * </p>
+ *
+ * @author Henrik Peters <henrik.peters@tu-clausthal.de>
+ */
+abstract class BlockContent {
+
+	/**
+	 * <p>
+	 * Returns a private view of the bytes of the block at {@code pointer},
+	 * starting at position 0. The view keeps the byte order of the content.
+	 * </p>
+	 *
+	 * @param pointer
+	 *            position of the block in the file
+	 * @return view holding at least the block
+	 * @throws IOException
+	 *             if {@code pointer} is outside of the file or its bytes are
+	 *             not available
+	 */
+	abstract ByteBuffer at(long pointer) throws IOException;
+
+	/**
+	 * <p>
+	 * Creates the content of a file held completely in {@code content}.
+	 * </p>
+	 *
+	 * @param content
+	 *            file content, starting at position 0
+	 * @return content
+	 */
+	static BlockContent of(ByteBuffer content) {
+		return new Whole(content);
+	}
+
+	static ByteBuffer slice(ByteBuffer buffer, long position) {
+		ByteBuffer b = buffer.duplicate();
+		b.position((int) position);
+		return b.slice().order(buffer.order());
+	}
+
+	private static class Whole extends BlockContent {
+
+		private final ByteBuffer content;
+
+		Whole(ByteBuffer content) {
+			this.content = content;
+		}
+
+		@Override
+		ByteBuffer at(long pointer) throws IOException {
+			if (pointer < 0 || pointer >= content.limit()) {
+				throw new IOException(
+						"Block position " + pointer + " is outside of the file (" + content.limit() + ").");
+			}
+			return slice(content, pointer);
+		}
+
+	}
+
+}
@@ -0,0 +1,170 @@
+package de.justeazy.jmdflib;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+
+import de.justeazy.jmdflib.blocktypes.CGBlock;
+import de.justeazy.jmdflib.blocktypes.CNBlock;
+import de.justeazy.jmdflib.enums.SignalDataType;
+import de.justeazy.jmdflib.text.ByteString;
+import de.justeazy.jmdflib.text.StringDictionary;
+
+/**
+ * <p>
+ * Decodes the values of a string or byte array channel directly from the data
+ * records of its channel group.
+ * </p>
+ *
+ * <p>
+ * Values are returned as views of the data buffer: {@link #getBytes(int)}
+ * as a read-only {@link ByteBuffer}, {@link #getString(int)} as a
+ * {@link ByteString}. Neither copies any bytes, so values can be compared or
+ * grouped without creating a {@link String} per record. Like
+ * {@link ChannelDecoder}, a {@code ByteChannelDecoder} is not thread-safe.
+ * </p>
+ *
+ * @author Henrik Peters <henrik.peters@tu-clausthal.de>
+ */
+public class ByteChannelDecoder {
+
+	/**
+	 * Data buffer, read-only
+	 */
+	private final ByteBuffer data;
+
+	/**
+	 * Position of the first byte of the channel in the first record
+	 */
+	private final int firstPosition;
+
+	private final int recordSize;
+
+	private final int numberOfRecords;
+
+	/**
+	 * Number of bytes of a value
+	 */
+	private final int length;
+
+	private final CNBlock cnBlock;
+
+	/**
+	 * <p>
+	 * Creates a decoder for the string or byte array channel {@code cnBlock}
+	 * of the channel group {@code cgBlock}, whose records start at
+	 * {@code dataOffset}.
+	 * </p>
+	 *
+	 * @param data
+	 *            buffer holding the data records
+	 * @param dataOffset
+	 *            position of the first record in {@code data}
+	 * @param cgBlock
+	 *            channel group of the channel
+	 * @param cnBlock
+	 *            channel to decode
+	 * @throws IOException
+	 *             if the channel is no string or byte array channel or does
+	 *             not start at a byte boundary
+	 */
+	public ByteChannelDecoder(ByteBuffer data, int dataOffset, CGBlock cgBlock, CNBlock cnBlock) throws IOException {
+		if (cnBlock.getSignalDataType() != SignalDataType.STRING
+				&& cnBlock.getSignalDataType() != SignalDataType.BYTE_ARRAY) {
+			throw new IOException("Signal data type " + cnBlock.getSignalDataType() + " is no string or byte array.");
+		}
+		if (cnBlock.getStartOffsetInBits() % 8 != 0 || cnBlock.getNumberOfBits() % 8 != 0) {
+			throw new IOException("String channel with " + cnBlock.getNumberOfBits() + " bits at bit offset "
+					+ cnBlock.getStartOffsetInBits() + " not implemented yet.");
+		}
+		if (cgBlock.getNumberOfRecords() > Integer.MAX_VALUE) {
+			throw new IOException("Too many records (" + cgBlock.getNumberOfRecords() + ").");
+		}
+		this.data = data.asReadOnlyBuffer();
+		this.firstPosition = dataOffset + cnBlock.getAdditionalByteOffset() + cnBlock.getStartOffsetInBits() / 8;
+		this.recordSize = cgBlock.getSizeOfDataRecord();
+		this.numberOfRecords = (int) cgBlock.getNumberOfRecords();
+		this.length = cnBlock.getNumberOfBits() / 8;
+		this.cnBlock = cnBlock;
+		if (numberOfRecords > 0
+				&& (long) firstPosition + (long) (numberOfRecords - 1) * recordSize + length > data.limit()) {
+			throw new IOException("Data records of channel " + cnBlock.getShortSignalName().trim()
+					+ " exceed the data buffer.");
+		}
+	}
+
+	/**
+	 * <p>
+	 * Returns the channel.
+	 * </p>
+	 *
+	 * @return CNBlock
+	 */
+	public CNBlock getCNBlock() {
+		return cnBlock;
+	}
+
+	/**
+	 * <p>
+	 * Returns the number of records.
+	 * </p>
+	 *
+	 * @return number of records
+	 */
+	public int getNumberOfRecords() {
+		return numberOfRecords;
+	}
+
+	/**
+	 * <p>
+	 * Returns the number of bytes of a value.
+	 * </p>
+	 *
+	 * @return number of bytes
+	 */
+	public int getLength() {
+		return length;
+	}
+
+	/**
+	 * <p>
+	 * Returns the bytes of a value.
+	 * </p>
+	 *
+	 * @param record
+	 *            index of the record
+	 * @return read-only view of the bytes, from position 0 to the limit
+	 */
+	public ByteBuffer getBytes(int record) {
+		ByteBuffer result = data.duplicate();
+		int position = firstPosition + record * recordSize;
+		result.limit(position + length);
+		result.position(position);
+		return result.slice();
+	}
+
+	/**
+	 * <p>
+	 * Returns a value as text, up to the first zero byte.
+	 * </p>
+	 *
+	 * @param record
+	 *            index of the record
+	 * @return view of the text
+	 */
+	public ByteString getString(int record) {
+		return ByteString.terminated(data, firstPosition + record * recordSize, length);
+	}
+
+	/**
+	 * <p>
+	 * Encodes the values of all records with a dictionary of the distinct
+	 * values.
+	 * </p>
+	 *
+	 * @return dictionary encoded values
+	 */
+	public StringDictionary encode() {
+		return StringDictionary.encode(this);
+	}
+
+}
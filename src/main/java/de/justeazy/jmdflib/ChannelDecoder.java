@@ -0,0 +1,491 @@
+package de.justeazy.jmdflib;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+
+import de.justeazy.jmdflib.blocktypes.CCBlock;
+import de.justeazy.jmdflib.blocktypes.CCBlockLinear2Parameters;
+import de.justeazy.jmdflib.blocktypes.CCBlockOneToOne;
+import de.justeazy.jmdflib.blocktypes.CGBlock;
+import de.justeazy.jmdflib.blocktypes.CNBlock;
+import de.justeazy.jmdflib.metrics.MDFMetrics;
+import de.justeazy.jmdflib.metrics.MetricsTimer;
+
+/**
+ * <p>
+ * Decodes the values of one channel directly from the data records of its
+ * channel group.
+ * </p>
+ *
+ * <p>
+ * A {@code ChannelDecoder} reads from its own view of the data buffer and
+ * does not copy any data. It is not thread-safe; every thread should use its
+ * own decoder.
+ * </p>
+ *
+ * @author Henrik Peters <henrik.peters@tu-clausthal.de>
+ */
+public class ChannelDecoder {
+
+	private final static int UNSIGNED = 0;
+
+	private final static int SIGNED = 1;
+
+	private final static int FLOAT = 2;
+
+	private final static int DOUBLE = 3;
+
+	/**
+	 * Number of values decoded at once by {@link #readMinMax(int, int)}
+	 */
+	private final static int BLOCK_SIZE = 4096;
+
+	/**
+	 * Data buffer in the byte order of the channel
+	 */
+	private final ByteBuffer data;
+
+	/**
+	 * Position of the first byte of the channel in the first record
+	 */
+	private final int firstPosition;
+
+	/**
+	 * Size of a record in bytes
+	 */
+	private final int recordSize;
+
+	/**
+	 * Number of records
+	 */
+	private final int numberOfRecords;
+
+	private final CNBlock cnBlock;
+
+	private final CCBlock ccBlock;
+
+	/**
+	 * One of {@code UNSIGNED}, {@code SIGNED}, {@code FLOAT} or {@code DOUBLE}
+	 */
+	private final int type;
+
+	/**
+	 * Bit offset inside the first byte
+	 */
+	private final int bitShift;
+
+	private final int numberOfBits;
+
+	/**
+	 * Number of bytes covering the channel in a record
+	 */
+	private final int byteCount;
+
+	/**
+	 * Whether the value can be read by a single aligned access
+	 */
+	private final boolean aligned;
+
+	/**
+	 * <p>
+	 * Creates a decoder for the channel {@code cnBlock} of the channel group
+	 * {@code cgBlock}, whose records start at {@code dataOffset}.
+	 * </p>
+	 *
+	 * @param data
+	 *            buffer holding the data records
+	 * @param dataOffset
+	 *            position of the first record in {@code data}
+	 * @param cgBlock
+	 *            channel group of the channel
+	 * @param cnBlock
+	 *            channel to decode
+	 * @param defaultByteOrder
+	 *            default byte order of the file
+	 * @throws IOException
+	 *             if the signal data type or layout of the channel is not
+	 *             supported
+	 */
+	public ChannelDecoder(ByteBuffer data, int dataOffset, CGBlock cgBlock, CNBlock cnBlock,
+			ByteOrder defaultByteOrder) throws IOException {
+		this(data, dataOffset, cgBlock.getSizeOfDataRecord(), toInt(cgBlock.getNumberOfRecords()), cnBlock,
+				defaultByteOrder);
+	}
+
+	/**
+	 * <p>
+	 * Creates a decoder for the channel {@code cnBlock} in
+	 * {@code numberOfRecords} records of {@code recordSize} bytes each, e. g.
+	 * the records of a sample reduction, which only contain every third record.
+	 * </p>
+	 *
+	 * @param data
+	 *            buffer holding the data records
+	 * @param dataOffset
+	 *            position of the first record in {@code data}
+	 * @param recordSize
+	 *            distance between two records in bytes
+	 * @param numberOfRecords
+	 *            number of records
+	 * @param cnBlock
+	 *            channel to decode
+	 * @param defaultByteOrder
+	 *            default byte order of the file
+	 * @throws IOException
+	 *             if the signal data type or layout of the channel is not
+	 *             supported
+	 */
+	public ChannelDecoder(ByteBuffer data, int dataOffset, int recordSize, int numberOfRecords, CNBlock cnBlock,
+			ByteOrder defaultByteOrder) throws IOException {
+		this.cnBlock = cnBlock;
+		this.ccBlock = cnBlock.getCcBlock();
+		this.recordSize = recordSize;
+		this.numberOfRecords = numberOfRecords;
+		this.numberOfBits = cnBlock.getNumberOfBits();
+		this.bitShift = cnBlock.getStartOffsetInBits() % 8;
+		this.firstPosition = dataOffset + cnBlock.getAdditionalByteOffset() + cnBlock.getStartOffsetInBits() / 8;
+		this.byteCount = (bitShift + numberOfBits + 7) / 8;
+
+		ByteOrder byteOrder;
+		switch (cnBlock.getSignalDataType()) {
+		case UNSIGNED_INTEGER:
+			type = UNSIGNED;
+			byteOrder = defaultByteOrder;
+			break;
+		case SIGNED_INTEGER:
+			type = SIGNED;
+			byteOrder = defaultByteOrder;
+			break;
+		case IEEE_754_FLOATING_POINT_FORMAT_FLOAT:
+		case IEEE_754_FLOATING_POINT_FORMAT_DOUBLE:
+			type = numberOfBits == 32 ? FLOAT : DOUBLE;
+			byteOrder = defaultByteOrder;
+			break;
+		case UNSIGNED_INTEGER_BIG_ENDIAN:
+			type = UNSIGNED;
+			byteOrder = ByteOrder.BIG_ENDIAN;
+			break;
+		case SIGNED_INTEGER_BIG_ENDIAN:
+			type = SIGNED;
+			byteOrder = ByteOrder.BIG_ENDIAN;
+			break;
+		case IEEE_754_FLOATING_POINT_FORMAT_FLOAT_BIG_ENDIAN:
+		case IEEE_754_FLOATING_POINT_FORMAT_DOUBLE_BIG_ENDIAN:
+			type = numberOfBits == 32 ? FLOAT : DOUBLE;
+			byteOrder = ByteOrder.BIG_ENDIAN;
+			break;
+		case UNSIGNED_INTEGER_LITTLE_ENDIAN:
+			type = UNSIGNED;
+			byteOrder = ByteOrder.LITTLE_ENDIAN;
+			break;
+		case SIGNED_INTEGER_LITTLE_ENDIAN:
+			type = SIGNED;
+			byteOrder = ByteOrder.LITTLE_ENDIAN;
+			break;
+		case IEEE_754_FLOATING_POINT_FORMAT_FLOAT_LITTLE_ENDIAN:
+		case IEEE_754_FLOATING_POINT_FORMAT_DOUBLE_LITTLE_ENDIAN:
+			type = numberOfBits == 32 ? FLOAT : DOUBLE;
+			byteOrder = ByteOrder.LITTLE_ENDIAN;
+			break;
+		default:
+			throw new IOException("Signal data type " + cnBlock.getSignalDataType() + " not implemented yet.");
+		}
+		this.data = data.duplicate().order(byteOrder);
+
+		this.aligned = bitShift == 0
+				&& (numberOfBits == 8 || numberOfBits == 16 || numberOfBits == 32 || numberOfBits == 64);
+		if (type == FLOAT || type == DOUBLE) {
+			if (!aligned || (numberOfBits != 32 && numberOfBits != 64)) {
+				throw new IOException("Floating point channel with " + numberOfBits + " bits at bit offset "
+						+ cnBlock.getStartOffsetInBits() + " not implemented yet.");
+			}
+		} else if (numberOfBits < 1 || numberOfBits > 64 || byteCount > 8) {
+			throw new IOException("Integer channel with " + numberOfBits + " bits at bit offset "
+					+ cnBlock.getStartOffsetInBits() + " not implemented yet.");
+		} else if (!aligned && byteOrder == ByteOrder.BIG_ENDIAN) {
+			throw new IOException("Unaligned big endian integers not implemented yet.");
+		}
+		if (numberOfRecords > 0 && (long) firstPosition + (long) (numberOfRecords - 1) * recordSize
+				+ byteCount > data.limit()) {
+			throw new IOException("Data records of channel " + cnBlock.getShortSignalName().trim()
+					+ " exceed the data buffer.");
+		}
+	}
+
+	private ChannelDecoder(ChannelDecoder decoder) {
+		this.data = decoder.data.duplicate().order(decoder.data.order());
+		this.firstPosition = decoder.firstPosition;
+		this.recordSize = decoder.recordSize;
+		this.numberOfRecords = decoder.numberOfRecords;
+		this.cnBlock = decoder.cnBlock;
+		this.ccBlock = decoder.ccBlock;
+		this.type = decoder.type;
+		this.bitShift = decoder.bitShift;
+		this.numberOfBits = decoder.numberOfBits;
+		this.byteCount = decoder.byteCount;
+		this.aligned = decoder.aligned;
+	}
+
+	private static int toInt(long numberOfRecords) throws IOException {
+		if (numberOfRecords > Integer.MAX_VALUE) {
+			throw new IOException("Too many records (" + numberOfRecords + ").");
+		}
+		return (int) numberOfRecords;
+	}
+
+	/**
+	 * <p>
+	 * Creates an independent decoder for the same channel, e. g. for another
+	 * thread.
+	 * </p>
+	 *
+	 * @return new decoder
+	 */
+	public ChannelDecoder copy() {
+		return new ChannelDecoder(this);
+	}
+
+	/**
+	 * <p>
+	 * Returns the channel.
+	 * </p>
+	 *
+	 * @return CNBlock
+	 */
+	public CNBlock getCNBlock() {
+		return cnBlock;
+	}
+
+	/**
+	 * <p>
+	 * Returns the number of records.
+	 * </p>
+	 *
+	 * @return number of records
+	 */
+	public int getNumberOfRecords() {
+		return numberOfRecords;
+	}
+
+	/**
+	 * <p>
+	 * Returns whether the channel holds integer values.
+	 * </p>
+	 *
+	 * @return {@code true} for integer channels, {@code false} for floating
+	 *         point channels
+	 */
+	public boolean isInteger() {
+		return type == UNSIGNED || type == SIGNED;
+	}
+
+	/**
+	 * <p>
+	 * Returns whether the channel holds signed integer values.
+	 * </p>
+	 *
+	 * @return {@code true} for signed integer channels
+	 */
+	public boolean isSigned() {
+		return type == SIGNED;
+	}
+
+	/**
+	 * <p>
+	 * Reads the raw bits of an integer channel, sign-extended for signed
+	 * integers. For floating point channels, the raw IEEE 754 bits are
+	 * returned.
+	 * </p>
+	 *
+	 * @param record
+	 *            index of the record
+	 * @return raw value
+	 */
+	public long getRaw(int record) {
+		int position = firstPosition + record * recordSize;
+		long value;
+		if (aligned) {
+			switch (numberOfBits) {
+			case 8:
+				value = data.get(position);
+				break;
+			case 16:
+				value = data.getShort(position);
+				break;
+			case 32:
+				value = data.getInt(position);
+				break;
+			default:
+				return data.getLong(position);
+			}
+			if (type == SIGNED) {
+				return value;
+			}
+			return value & (-1L >>> (64 - numberOfBits));
+		}
+		value = 0;
+		for (int i = byteCount - 1; i >= 0; i--) {
+			value = (value << 8) | (data.get(position + i) & 0xFF);
+		}
+		value >>>= bitShift;
+		if (type == SIGNED) {
+			return (value << (64 - numberOfBits)) >> (64 - numberOfBits);
+		}
+		return numberOfBits == 64 ? value : value & (-1L >>> (64 - numberOfBits));
+	}
+
+	/**
+	 * <p>
+	 * Reads the raw value as double, i. e. the value before conversion.
+	 * </p>
+	 *
+	 * @param record
+	 *            index of the record
+	 * @return raw value
+	 */
+	public double getValue(int record) {
+		switch (type) {
+		case DOUBLE:
+			return data.getDouble(firstPosition + record * recordSize);
+		case FLOAT:
+			return data.getFloat(firstPosition + record * recordSize);
+		case SIGNED:
+			return getRaw(record);
+		default:
+			long raw = getRaw(record);
+			return raw >= 0 ? raw : (double) (raw & Long.MAX_VALUE) + 0x1.0p63;
+		}
+	}
+
+	/**
+	 * <p>
+	 * Reads the physical value, i. e. the raw value converted by the CCBlock
+	 * of the channel.
+	 * </p>
+	 *
+	 * @param record
+	 *            index of the record
+	 * @return physical value
+	 */
+	public double getPhysical(int record) {
+		double value = getValue(record);
+		return ccBlock == null ? value : ccBlock.convert(value);
+	}
+
+	/**
+	 * <p>
+	 * Searches the first record whose physical value is not less than
+	 * {@code value}. The physical values must be sorted in ascending order,
+	 * like those of a time channel.
+	 * </p>
+	 *
+	 * @param value
+	 *            physical value to search
+	 * @return index of the record, {@link #getNumberOfRecords()} if all values
+	 *         are less than {@code value}
+	 */
+	public int search(double value) {
+		int low = 0;
+		int high = numberOfRecords;
+		while (low < high) {
+			int middle = (low + high) >>> 1;
+			if (getPhysical(middle) < value) {
+				low = middle + 1;
+			} else {
+				high = middle;
+			}
+		}
+		return low;
+	}
+
+	/**
+	 * <p>
+	 * Reads the physical values of the records {@code from} (inclusive) to
+	 * {@code to} (exclusive) into {@code destination}.
+	 * </p>
+	 *
+	 * @param from
+	 *            index of the first record
+	 * @param to
+	 *            index after the last record
+	 * @param destination
+	 *            array to write to
+	 * @param offset
+	 *            position of the first value in {@code destination}
+	 */
+	public void readPhysical(int from, int to, double[] destination, int offset) {
+		MetricsTimer start = MDFMetrics.startDecodeTimer();
+		int count = to - from;
+		if (count > 0 && (from < 0 || to > numberOfRecords)) {
+			throw new IndexOutOfBoundsException("Records " + from + " to " + to + " of " + numberOfRecords + ".");
+		}
+		int position = firstPosition + from * recordSize;
+		Kernels kernels = Kernels.INSTANCE;
+		if (type == DOUBLE) {
+			kernels.gatherDoubles(data, position, recordSize, count, destination, offset);
+		} else if (type == FLOAT) {
+			kernels.gatherFloats(data, position, recordSize, count, destination, offset);
+		} else if (aligned && (type == SIGNED || numberOfBits < 64)) {
+			kernels.gatherIntegers(data, position, recordSize, numberOfBits / 8, type == SIGNED, count, destination,
+					offset);
+		} else {
+			for (int i = 0; i < count; i++) {
+				destination[offset + i] = getValue(from + i);
+			}
+		}
+		if (ccBlock instanceof CCBlockLinear2Parameters) {
+			CCBlockLinear2Parameters linear = (CCBlockLinear2Parameters) ccBlock;
+			kernels.linear(destination, offset, count, linear.getP1(), linear.getP2());
+		} else if (ccBlock != null && !(ccBlock instanceof CCBlockOneToOne)) {
+			for (int i = offset; i < offset + count; i++) {
+				destination[i] = ccBlock.convert(destination[i]);
+			}
+		}
+		if (MDFMetrics.isEnabled()) {
+			MDFMetrics.channelDecoded(cnBlock.getShortSignalNameText().intern(), count, start);
+		}
+	}
+
+	/**
+	 * <p>
+	 * Returns the minimum and maximum physical value of the records
+	 * {@code from} (inclusive) to {@code to} (exclusive), ignoring NaN values.
+	 * </p>
+	 *
+	 * @param from
+	 *            index of the first record
+	 * @param to
+	 *            index after the last record
+	 * @return minimum and maximum, NaN if there is no value
+	 */
+	public double[] readMinMax(int from, int to) {
+		double[] block = new double[Math.max(0, Math.min(BLOCK_SIZE, to - from))];
+		double minimum = Double.NaN;
+		double maximum = Double.NaN;
+		for (int first = from; first < to; first += BLOCK_SIZE) {
+			int last = Math.min(to, first + BLOCK_SIZE);
+			readPhysical(first, last, block, 0);
+			double[] range = Kernels.INSTANCE.minMax(block, 0, last - first);
+			if (!Double.isNaN(range[0])) {
+				minimum = Double.isNaN(minimum) ? range[0] : Math.min(minimum, range[0]);
+				maximum = Double.isNaN(maximum) ? range[1] : Math.max(maximum, range[1]);
+			}
+		}
+		return new double[] { minimum, maximum };
+	}
+
+	/**
+	 * <p>
+	 * Reads the physical values of all records.
+	 * </p>
+	 *
+	 * @return physical values
+	 */
+	public double[] readPhysical() {
+		double[] result = new double[numberOfRecords];
+		readPhysical(0, numberOfRecords, result, 0);
+		return result;
+	}
+
+}
@@ -0,0 +1,73 @@
+package de.justeazy.jmdflib;
+
+import java.util.Arrays;
+import java.util.HashSet;
+import java.util.Set;
+import java.util.function.Predicate;
+import java.util.regex.Pattern;
+
+import de.justeazy.jmdflib.blocktypes.CNBlock;
+
+/**
+ * <p>
+ * Factory methods for channel projections, i. e. predicates selecting the
+ * channels to be parsed completely and decoded.
+ * </p>
+ *
+ * <p>
+ * A projection is evaluated right after the fixed fields of a CNBlock have
+ * been read, so it may only rely on those fields (names, channel type, signal
+ * data type, bit layout, value range, sampling rate, pointers). The CCBlock,
+ * CEBlock, CDBlock and TXBlocks of the channel are not available yet. Time
+ * channels are always kept, regardless of the projection.
+ * </p>
+ *
+ * @author Henrik Peters <henrik.peters@tu-clausthal.de>
+ */
+public final class ChannelProjection {
+
+	private ChannelProjection() {
+	}
+
+	/**
+	 * <p>
+	 * Returns a projection keeping all channels.
+	 * </p>
+	 *
+	 * @return projection
+	 */
+	public static Predicate<CNBlock> all() {
+		return cnBlock -> true;
+	}
+
+	/**
+	 * <p>
+	 * Returns a projection keeping channels whose trimmed short signal name
+	 * matches the regular expression {@code regex}.
+	 * </p>
+	 *
+	 * @param regex
+	 *            regular expression
+	 * @return projection
+	 */
+	public static Predicate<CNBlock> byName(String regex) {
+		Pattern pattern = Pattern.compile(regex);
+		return cnBlock -> pattern.matcher(cnBlock.getShortSignalNameText().trim()).matches();
+	}
+
+	/**
+	 * <p>
+	 * Returns a projection keeping channels whose trimmed short signal name is
+	 * one of {@code names}.
+	 * </p>
+	 *
+	 * @param names
+	 *            names of the channels
+	 * @return projection
+	 */
+	public static Predicate<CNBlock> byNames(String... names) {
+		Set<String> set = new HashSet<String>(Arrays.asList(names));
+		return cnBlock -> set.contains(cnBlock.getShortSignalNameText().trim());
+	}
+
+}
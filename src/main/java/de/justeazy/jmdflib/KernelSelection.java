@@ -0,0 +1,20 @@
+package de.justeazy.jmdflib;
+
+/**
+ * <p>
+ * Selects the {@link Kernels} of this JVM. Replaced in
+ * {@code META-INF/versions/17} by a selection of the Vector API kernels.
+ * </p>
+ *
+ * @author Henrik Peters <henrik.peters@tu-clausthal.de>
+ */
+final class KernelSelection {
+
+	private KernelSelection() {
+	}
+
+	static Kernels select() {
+		return new ScalarKernels();
+	}
+
+}
@@ -0,0 +1,80 @@
+package de.justeazy.jmdflib;
+
+import java.nio.ByteBuffer;
+
+/**
+ * <p>
+ * Loops decoding and reducing many values at once.
+ * </p>
+ *
+ * <p>
+ * The kernels are selected once by {@link KernelSelection}: the portable
+ * {@link ScalarKernels} on every Java version, or kernels using the Vector
+ * API on Java 17 and later if the module {@code jdk.incubator.vector} is
+ * added ({@code --add-modules jdk.incubator.vector}). These are compiled
+ * into {@code META-INF/versions/17} of the multi-release JAR.
+ * </p>
+ *
+ * @author Henrik Peters <henrik.peters@tu-clausthal.de>
+ */
+abstract class Kernels {
+
+	/**
+	 * Kernels of this JVM
+	 */
+	static final Kernels INSTANCE = KernelSelection.select();
+
+	/**
+	 * <p>
+	 * Returns whether the kernels use SIMD instructions.
+	 * </p>
+	 *
+	 * @return {@code true} for the Vector API kernels
+	 */
+	abstract boolean isVectorized();
+
+	/**
+	 * <p>
+	 * Reads {@code count} doubles at {@code position}, {@code position + stride},
+	 * ... in the byte order of {@code data}.
+	 * </p>
+	 */
+	abstract void gatherDoubles(ByteBuffer data, int position, int stride, int count, double[] destination,
+			int offset);
+
+	/**
+	 * <p>
+	 * Reads {@code count} floats at {@code position}, {@code position + stride},
+	 * ... in the byte order of {@code data}.
+	 * </p>
+	 */
+	abstract void gatherFloats(ByteBuffer data, int position, int stride, int count, double[] destination,
+			int offset);
+
+	/**
+	 * <p>
+	 * Reads {@code count} integers of {@code bytes} (1, 2, 4 or 8) bytes at
+	 * {@code position}, {@code position + stride}, ... in the byte order of
+	 * {@code data}. Unsigned integers of 8 bytes are not supported.
+	 * </p>
+	 */
+	abstract void gatherIntegers(ByteBuffer data, int position, int stride, int bytes, boolean signed, int count,
+			double[] destination, int offset);
+
+	/**
+	 * <p>
+	 * Replaces {@code count} values by {@code values[i] * p2 + p1}.
+	 * </p>
+	 */
+	abstract void linear(double[] values, int offset, int count, double p1, double p2);
+
+	/**
+	 * <p>
+	 * Returns the minimum and maximum of {@code count} values, ignoring NaN.
+	 * </p>
+	 *
+	 * @return minimum and maximum, NaN if all values are NaN
+	 */
+	abstract double[] minMax(double[] values, int offset, int count);
+
+}
@@ -0,0 +1,548 @@
+package de.justeazy.jmdflib;
+
+import java.io.IOException;
+import java.math.BigInteger;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.IdentityHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.Executor;
+import java.util.function.Predicate;
+
+import org.apache.logging.log4j.LogManager;
+import org.apache.logging.log4j.Logger;
+
+import de.justeazy.jmdflib.blocktypes.CCBlock;
+import de.justeazy.jmdflib.blocktypes.CCBlockLinear2Parameters;
+import de.justeazy.jmdflib.blocktypes.CCBlockOneToOne;
+import de.justeazy.jmdflib.blocktypes.CGBlock;
+import de.justeazy.jmdflib.blocktypes.CNBlock;
+import de.justeazy.jmdflib.blocktypes.DGBlock;
+import de.justeazy.jmdflib.blocktypes.HDBlock;
+import de.justeazy.jmdflib.blocktypes.IDBlock;
+import de.justeazy.jmdflib.blocktypes.TXBlock;
+import de.justeazy.jmdflib.enums.ChannelType;
+import de.justeazy.jmdflib.enums.ConversionType;
+import de.justeazy.jmdflib.enums.NumberOfRecordIDs;
+import de.justeazy.jmdflib.enums.SignalDataType;
+import de.justeazy.jmdflib.enums.TimeQualityClass;
+import de.justeazy.jmdflib.metrics.MDFMetrics;
+
+/**
+ * <p>
+ * Parser for MDF 4.x files.
+ * </p>
+ *
+ * <p>
+ * The blocks are mapped onto the block types of MDF 3.x, so a MDF 4.x file
+ * is read through the same API: pointers become the links of the MDF 4.x
+ * blocks, names and comments the texts of their TX (or MD) blocks. The data
+ * blocks of a data group (DT, or DZ and DT blocks in a DL list) are not
+ * read, but described by a {@link RecordData}, which inflates them on
+ * demand.
+ * </p>
+ *
+ * <p>
+ * Sorted data groups without record IDs, the data types of MDF 3.x and 1:1
+ * and linear conversions are supported.
+ * </p>
+ *
+ * @author Henrik Peters <henrik.peters@tu-clausthal.de>
+ */
+class MDF4Parser {
+
+	/**
+	 * Logger
+	 */
+	private static Logger l = LogManager.getLogger(MDF4Parser.class);
+
+	/**
+	 * Size of the common header of all blocks
+	 */
+	private final static int HEADER_SIZE = 24;
+
+	/**
+	 * File content
+	 */
+	private final ByteBuffer content;
+
+	/**
+	 * Channels to read completely
+	 */
+	private final Predicate<CNBlock> projection;
+
+	/**
+	 * Executor inflating compressed data blocks
+	 */
+	private final Executor executor;
+
+	private IDBlock idBlock;
+
+	private HDBlock hdBlock;
+
+	private ArrayList<DGBlock> dgBlocks;
+
+	private final Map<DGBlock, RecordData> recordData = new IdentityHashMap<DGBlock, RecordData>();
+
+	/**
+	 * <p>
+	 * Common header and links of a MDF 4.x block.
+	 * </p>
+	 */
+	static class Block {
+
+		final String id;
+
+		final int position;
+
+		final long length;
+
+		final long[] links;
+
+		/**
+		 * View positioned at the data section of the block
+		 */
+		final ByteBuffer data;
+
+		Block(String id, int position, long length, long[] links, ByteBuffer data) {
+			this.id = id;
+			this.position = position;
+			this.length = length;
+			this.links = links;
+			this.data = data;
+		}
+
+		long link(int index) {
+			return index < links.length ? links[index] : 0;
+		}
+
+		/**
+		 * @return number of bytes of the data section
+		 */
+		long dataLength() {
+			return length - HEADER_SIZE - 8L * links.length;
+		}
+
+	}
+
+	MDF4Parser(ByteBuffer content, Predicate<CNBlock> projection, Executor executor) {
+		this.content = content.duplicate().order(ByteOrder.LITTLE_ENDIAN);
+		this.projection = projection;
+		this.executor = executor;
+	}
+
+	/**
+	 * <p>
+	 * Parses the ID, HD, DG, CG, CN, CC and TX blocks and describes the data
+	 * blocks of every data group.
+	 * </p>
+	 *
+	 * @throws IOException
+	 *             if the file is no MDF 4.x file or uses unsupported features
+	 */
+	void parse() throws IOException {
+		idBlock = MDFParser.readIDBlock(content, true);
+		if (idBlock.getVersionNumber() < 400) {
+			throw new IOException("Wrong version number (should be at least 400, but was \""
+					+ idBlock.getVersionNumber() + "\").");
+		}
+
+		hdBlock = readHDBlock(64);
+		dgBlocks = new ArrayList<DGBlock>();
+		long pointer = hdBlock.getPointerToFirstDGBlock();
+		while (pointer != 0) {
+			Block block = readBlock(pointer, "DG");
+			DGBlock dgBlock = readDGBlock(block);
+			dgBlocks.add(dgBlock);
+			recordData.put(dgBlock, readRecordData(dgBlock.getPointerToDataBlock()));
+			pointer = dgBlock.getPointerToNextDGBlock();
+		}
+		hdBlock.setNumberOfDataGroups(dgBlocks.size());
+	}
+
+	IDBlock getIDBlock() {
+		return idBlock;
+	}
+
+	HDBlock getHDBlock() {
+		return hdBlock;
+	}
+
+	ArrayList<DGBlock> getDGBlocks() {
+		return dgBlocks;
+	}
+
+	/**
+	 * <p>
+	 * Returns the data records of the data groups.
+	 * </p>
+	 *
+	 * @return records by data group
+	 */
+	Map<DGBlock, RecordData> getRecordData() {
+		return recordData;
+	}
+
+	/**
+	 * <p>
+	 * Reads the common header and the links of a block.
+	 * </p>
+	 *
+	 * @param pointer
+	 *            position of the block
+	 * @param expected
+	 *            expected block type identifiers without "##"
+	 * @return block
+	 * @throws IOException
+	 *             if the block is outside of the file or of another type
+	 */
+	Block readBlock(long pointer, String... expected) throws IOException {
+		if (pointer < 0 || pointer + HEADER_SIZE > content.limit()) {
+			throw new IOException("Block position " + pointer + " is outside of the file (" + content.limit() + ").");
+		}
+		int position = (int) pointer;
+		ByteBuffer b = content.duplicate().order(ByteOrder.LITTLE_ENDIAN);
+		b.position(position);
+		byte[] identifier = new byte[4];
+		b.get(identifier);
+		String id = new String(identifier, StandardCharsets.ISO_8859_1);
+		boolean known = false;
+		for (String e : expected) {
+			known |= id.equals("##" + e);
+		}
+		if (!known) {
+			throw new IOException("Wrong block type identifier at " + position + " (should be one of "
+					+ String.join(", ", expected) + ", but was \"" + id + "\").");
+		}
+		MDFMetrics.blockParsed(id.substring(2));
+		b.getInt();
+		long length = b.getLong();
+		long linkCount = b.getLong();
+		if (length < HEADER_SIZE + 8 * linkCount || pointer + length > content.limit()) {
+			throw new IOException("Block " + id + " at " + position + " exceeds the file.");
+		}
+		long[] links = new long[(int) linkCount];
+		for (int i = 0; i < links.length; i++) {
+			links[i] = b.getLong();
+		}
+		l.trace("{} at {}: length = {}, links = {}", id, position, length, links.length);
+		return new Block(id, position, length, links, b);
+	}
+
+	/**
+	 * <p>
+	 * Reads the text of a TX or MD block.
+	 * </p>
+	 *
+	 * @param pointer
+	 *            position of the block, may be 0
+	 * @return TXBlock or {@code null} if {@code pointer} is 0
+	 * @throws IOException
+	 */
+	TXBlock readTXBlock(long pointer) throws IOException {
+		if (pointer == 0) {
+			return null;
+		}
+		Block block = readBlock(pointer, "TX", "MD");
+		byte[] bytes = new byte[(int) block.dataLength()];
+		block.data.get(bytes);
+		int n = 0;
+		while (n < bytes.length && bytes[n] != 0) {
+			n++;
+		}
+		TXBlock txBlock = new TXBlock();
+		txBlock.setBlockTypeIdentifier(block.id.substring(2));
+		txBlock.setBlockSize((int) block.length);
+		txBlock.setText(new String(bytes, 0, n, StandardCharsets.UTF_8));
+		return txBlock;
+	}
+
+	private String readText(long pointer) throws IOException {
+		TXBlock txBlock = readTXBlock(pointer);
+		return txBlock == null ? "" : txBlock.getText();
+	}
+
+	private HDBlock readHDBlock(int offset) throws IOException {
+		Block block = readBlock(offset, "HD");
+		HDBlock hdBlock = new HDBlock();
+		hdBlock.setBlockTypeIdentifier("HD");
+		hdBlock.setBlockSize((int) block.length);
+		hdBlock.setPointerToFirstDGBlock(block.link(0));
+		hdBlock.setPointerToTXBlock(block.link(5));
+		hdBlock.setTXBlock(readTXBlock(block.link(5)));
+
+		ByteBuffer b = block.data;
+		long startTime = b.getLong();
+		hdBlock.setRecordingStartTimestamp(new BigInteger(Long.toUnsignedString(startTime)));
+		short timeZoneOffset = b.getShort();
+		hdBlock.setUtcTimeOffset(timeZoneOffset / 60);
+		b.getShort();
+		b.get();
+		int timeClass = b.get() & 0xFF;
+		switch (timeClass) {
+		case 0:
+			hdBlock.setTimeQualityClass(TimeQualityClass.LOCAL_PC_REFERENCE_TIME);
+			break;
+		case 10:
+			hdBlock.setTimeQualityClass(TimeQualityClass.EXTERNAL_TIME_SOURCE);
+			break;
+		case 16:
+			hdBlock.setTimeQualityClass(TimeQualityClass.EXTERNAL_ABSOLUTE_SYNCHRONIZED_TIME);
+			break;
+		default:
+			throw new IOException("Wrong time class (" + timeClass + ").");
+		}
+		l.trace("hdBlock.recordingStartTimestamp = {}", hdBlock.getRecordingStartTimestamp());
+		return hdBlock;
+	}
+
+	private DGBlock readDGBlock(Block block) throws IOException {
+		DGBlock dgBlock = new DGBlock();
+		dgBlock.setBlockTypeIdentifier("DG");
+		dgBlock.setBlockSize((int) block.length);
+		dgBlock.setPointerToNextDGBlock(block.link(0));
+		dgBlock.setPointerToFirstCGBlock(block.link(1));
+		dgBlock.setPointerToDataBlock(block.link(2));
+
+		int recordIDSize = block.data.get() & 0xFF;
+		if (recordIDSize != 0) {
+			throw new IOException("Wrong record ID size (should be \"0\", but was \"" + recordIDSize
+					+ "\"). Not implemented yet.");
+		}
+		dgBlock.setNumberOfRecordIDs(NumberOfRecordIDs.DATA_RECORDS_WITHOUT_RECORD_ID);
+
+		ArrayList<CGBlock> cgBlocks = new ArrayList<CGBlock>();
+		long pointer = dgBlock.getPointerToFirstCGBlock();
+		while (pointer != 0) {
+			CGBlock cgBlock = readCGBlock(readBlock(pointer, "CG"));
+			cgBlocks.add(cgBlock);
+			pointer = cgBlock.getPointerToNextCGBlock();
+		}
+		dgBlock.setNumberOfChannelGroups(cgBlocks.size());
+		dgBlock.setCGBlocks(cgBlocks.isEmpty() ? null : cgBlocks);
+		return dgBlock;
+	}
+
+	private CGBlock readCGBlock(Block block) throws IOException {
+		CGBlock cgBlock = new CGBlock();
+		cgBlock.setBlockTypeIdentifier("CG");
+		cgBlock.setBlockSize((int) block.length);
+		cgBlock.setPointerToNextCGBlock(block.link(0));
+		cgBlock.setPointerToFirstCNBlock(block.link(1));
+		cgBlock.setPointerToTXBlock(block.link(5));
+
+		ByteBuffer b = block.data;
+		cgBlock.setRecordID((int) b.getLong());
+		cgBlock.setNumberOfRecords(b.getLong());
+		int flags = b.getShort() & 0xFFFF;
+		if ((flags & 1) != 0) {
+			throw new IOException("Variable length signal data channel groups not implemented yet.");
+		}
+		b.getShort();
+		b.getInt();
+		long dataBytes = b.getInt() & 0xFFFFFFFFL;
+		long invalidationBytes = b.getInt() & 0xFFFFFFFFL;
+		if (dataBytes + invalidationBytes > Integer.MAX_VALUE) {
+			throw new IOException("Data records too large (" + (dataBytes + invalidationBytes) + " bytes).");
+		}
+		cgBlock.setSizeOfDataRecord((int) (dataBytes + invalidationBytes));
+
+		ArrayList<CNBlock> cnBlocks = new ArrayList<CNBlock>();
+		long pointer = cgBlock.getPointerToFirstCNBlock();
+		while (pointer != 0) {
+			CNBlock cnBlock = readCNBlock(readBlock(pointer, "CN"));
+			cnBlocks.add(cnBlock);
+			pointer = cnBlock.getPointerToNextCNBlock();
+		}
+		cgBlock.setNumberOfChannels(cnBlocks.size());
+		cgBlock.setCNBlocks(cnBlocks.isEmpty() ? null : cnBlocks);
+		return cgBlock;
+	}
+
+	private CNBlock readCNBlock(Block block) throws IOException {
+		CNBlock cnBlock = new CNBlock();
+		cnBlock.setBlockTypeIdentifier("CN");
+		cnBlock.setBlockSize((int) block.length);
+		cnBlock.setPointerToNextCNBlock(block.link(0));
+		cnBlock.setPointerToTXBlockLongSignalName(block.link(2));
+		cnBlock.setPointerToCCBlock(block.link(4));
+		cnBlock.setPointerToTXBlock(block.link(7));
+
+		ByteBuffer b = block.data;
+		int channelType = b.get() & 0xFF;
+		int syncType = b.get() & 0xFF;
+		int dataType = b.get() & 0xFF;
+		int bitOffset = b.get() & 0xFF;
+		long byteOffset = b.getInt() & 0xFFFFFFFFL;
+		long bitCount = b.getInt() & 0xFFFFFFFFL;
+		int flags = b.getInt();
+		b.getInt();
+		b.get();
+		b.get();
+		b.getShort();
+		double minimum = b.getDouble();
+		double maximum = b.getDouble();
+
+		cnBlock.setChannelType((channelType == 2 || channelType == 3) && syncType == 1 ? ChannelType.TIME_CHANNEL
+				: ChannelType.DATA_CHANNEL);
+		if (byteOffset * 8 + bitOffset > Integer.MAX_VALUE || bitCount > Integer.MAX_VALUE) {
+			throw new IOException("Channel at byte offset " + byteOffset + " with " + bitCount
+					+ " bits not implemented yet.");
+		}
+		cnBlock.setStartOffsetInBits((int) (byteOffset * 8 + bitOffset));
+		cnBlock.setNumberOfBits((int) bitCount);
+		cnBlock.setSignalDataType(toSignalDataType(dataType, bitCount));
+		cnBlock.setValueRangeValid((flags & 0x08) != 0);
+		cnBlock.setMinimumSignalValue(minimum);
+		cnBlock.setMaximumSignalValue(maximum);
+
+		TXBlock name = readTXBlock(block.link(2));
+		cnBlock.setTxBlockLongSignalName(name);
+		cnBlock.setShortSignalName(name == null ? "" : name.getText());
+		l.trace("cnBlock.shortSignalName = \"{}\"", cnBlock.getShortSignalNameText());
+
+		// channels outside the projection keep the fixed fields only
+		if (cnBlock.getChannelType() != ChannelType.TIME_CHANNEL && !projection.test(cnBlock)) {
+			cnBlock.setProjected(false);
+			return cnBlock;
+		}
+		cnBlock.setTxBlock(readTXBlock(block.link(7)));
+		cnBlock.setSignalDescription(cnBlock.getTXBlock() == null ? "" : cnBlock.getTXBlock().getText());
+		cnBlock.setCcBlock(block.link(4) != 0 ? readCCBlock(readBlock(block.link(4), "CC")) : null);
+		return cnBlock;
+	}
+
+	private static SignalDataType toSignalDataType(int dataType, long bitCount) throws IOException {
+		switch (dataType) {
+		case 0:
+			return SignalDataType.UNSIGNED_INTEGER_LITTLE_ENDIAN;
+		case 1:
+			return SignalDataType.UNSIGNED_INTEGER_BIG_ENDIAN;
+		case 2:
+			return SignalDataType.SIGNED_INTEGER_LITTLE_ENDIAN;
+		case 3:
+			return SignalDataType.SIGNED_INTEGER_BIG_ENDIAN;
+		case 4:
+			return bitCount == 32 ? SignalDataType.IEEE_754_FLOATING_POINT_FORMAT_FLOAT_LITTLE_ENDIAN
+					: SignalDataType.IEEE_754_FLOATING_POINT_FORMAT_DOUBLE_LITTLE_ENDIAN;
+		case 5:
+			return bitCount == 32 ? SignalDataType.IEEE_754_FLOATING_POINT_FORMAT_FLOAT_BIG_ENDIAN
+					: SignalDataType.IEEE_754_FLOATING_POINT_FORMAT_DOUBLE_BIG_ENDIAN;
+		case 6:
+		case 7:
+		case 8:
+		case 9:
+			return SignalDataType.STRING;
+		case 10:
+			return SignalDataType.BYTE_ARRAY;
+		default:
+			throw new IOException("Wrong data type (" + dataType + "). Not implemented yet.");
+		}
+	}
+
+	private CCBlock readCCBlock(Block block) throws IOException {
+		ByteBuffer b = block.data;
+		int conversionType = b.get() & 0xFF;
+		b.get();
+		int flags = b.getShort() & 0xFFFF;
+		b.getShort();
+		int valueCount = b.getShort() & 0xFFFF;
+		double minimum = b.getDouble();
+		double maximum = b.getDouble();
+
+		CCBlock result;
+		switch (conversionType) {
+		case 0:
+			result = new CCBlockOneToOne();
+			result.setConversionType(ConversionType.ONE_TO_ONE_FORMULA);
+			break;
+		case 1:
+			if (valueCount != 2) {
+				throw new IOException("Wrong number of values (" + valueCount + "). Not implemented yet.");
+			}
+			result = new CCBlockLinear2Parameters();
+			((CCBlockLinear2Parameters) result).setP1(b.getDouble());
+			((CCBlockLinear2Parameters) result).setP2(b.getDouble());
+			result.setConversionType(ConversionType.PARAMETRIC_LINEAR);
+			break;
+		default:
+			throw new IOException("Wrong conversion type (" + conversionType + "). Not implemented yet.");
+		}
+		result.setBlockTypeIdentifier("CC");
+		result.setBlockSize((int) block.length);
+		result.setPhysicalValueRangeValid((flags & 0x02) != 0);
+		result.setMinimumPhysicalSignalValue(minimum);
+		result.setMaximumPhysicalSignalValue(maximum);
+		result.setPhysicalUnit(readText(block.link(1)));
+		result.setSizeInformation(valueCount);
+		return result;
+	}
+
+	/**
+	 * <p>
+	 * Collects the DT and DZ blocks of a data group, following DL lists and
+	 * HL blocks, without inflating them.
+	 * </p>
+	 *
+	 * @param pointer
+	 *            data link of the DGBlock
+	 * @return records of the data group
+	 * @throws IOException
+	 *             if a data block is of an unsupported type
+	 */
+	RecordData readRecordData(long pointer) throws IOException {
+		List<RecordData.Fragment> fragments = new ArrayList<RecordData.Fragment>();
+		if (pointer != 0) {
+			Block block = readBlock(pointer, "DT", "DZ", "DL", "HL");
+			if (block.id.equals("##HL")) {
+				block = block.link(0) == 0 ? null : readBlock(block.link(0), "DL");
+			}
+			if (block != null && block.id.equals("##DL")) {
+				while (block != null) {
+					int count = block.links.length - 1;
+					for (int i = 1; i <= count; i++) {
+						if (block.links[i] != 0) {
+							fragments.add(readFragment(readBlock(block.links[i], "DT", "DZ")));
+						}
+					}
+					block = block.link(0) == 0 ? null : readBlock(block.link(0), "DL");
+				}
+			} else if (block != null) {
+				fragments.add(readFragment(block));
+			}
+		}
+		return RecordData.fragmented(content, fragments, executor);
+	}
+
+	private RecordData.Fragment readFragment(Block block) throws IOException {
+		int position = block.position + HEADER_SIZE + 8 * block.links.length;
+		if (block.id.equals("##DT")) {
+			return new RecordData.Fragment(position, (int) block.dataLength(), (int) block.dataLength(), -1, 0);
+		}
+		ByteBuffer b = block.data;
+		byte[] originalType = new byte[2];
+		b.get(originalType);
+		if (originalType[0] != 'D' || originalType[1] != 'T') {
+			throw new IOException("Compressed " + new String(originalType, StandardCharsets.ISO_8859_1)
+					+ " blocks not implemented yet.");
+		}
+		int zipType = b.get() & 0xFF;
+		if (zipType > 1) {
+			throw new IOException("Wrong zip type (" + zipType + "). Not implemented yet.");
+		}
+		b.get();
+		long zipParameter = b.getInt() & 0xFFFFFFFFL;
+		long originalLength = b.getLong();
+		long length = b.getLong();
+		if (originalLength > Integer.MAX_VALUE || length > block.dataLength() - 24) {
+			throw new IOException("DZBlock at " + block.position + " with " + length + " compressed and "
+					+ originalLength + " original bytes not supported.");
+		}
+		return new RecordData.Fragment(position + 24, (int) length, (int) originalLength, zipType,
+				(int) Math.min(zipParameter, Integer.MAX_VALUE));
+	}
+
+}
@@ -0,0 +1,617 @@
+package de.justeazy.jmdflib;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.channels.FileChannel;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.IdentityHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.Executor;
+import java.util.function.Predicate;
+import java.util.stream.DoubleStream;
+import java.util.stream.Stream;
+
+import de.justeazy.jmdflib.blocktypes.CGBlock;
+import de.justeazy.jmdflib.blocktypes.CNBlock;
+import de.justeazy.jmdflib.blocktypes.DGBlock;
+import de.justeazy.jmdflib.blocktypes.HDBlock;
+import de.justeazy.jmdflib.blocktypes.IDBlock;
+import de.justeazy.jmdflib.blocktypes.PRBlock;
+import de.justeazy.jmdflib.blocktypes.SRBlock;
+import de.justeazy.jmdflib.enums.NumberOfRecordIDs;
+import de.justeazy.jmdflib.metrics.MDFMetrics;
+import de.justeazy.jmdflib.metrics.MetricsTimer;
+import de.justeazy.jmdflib.reduction.ReducedChannel;
+import de.justeazy.jmdflib.source.DataSource;
+import de.justeazy.jmdflib.source.MappedFileSource;
+import de.justeazy.jmdflib.reduction.SampleReduction;
+import de.justeazy.jmdflib.stream.ChannelStreams;
+import de.justeazy.jmdflib.stream.Record;
+import de.justeazy.jmdflib.trigger.TriggerWindow;
+import de.justeazy.jmdflib.trigger.TriggerWindows;
+import de.justeazy.jmdflib.writer.UnsortedFiles;
+
+/**
+ * <p>
+ * Thread-safe handle of an opened MDF file.
+ * </p>
+ *
+ * <p>
+ * The file is mapped into memory and its block structure is parsed once by
+ * {@link #open(File)}, the channel groups concurrently. Afterwards, the
+ * handle is never modified, so one instance can be shared by any number of
+ * threads. Channels are read by
+ * {@link ChannelDecoder}s, which are cheap to create and act as per-thread
+ * cursors over the shared mapping.
+ * </p>
+ *
+ * <p>
+ * MDF 4.x files are mapped onto the same block types. Their compressed data
+ * blocks are inflated in parallel on the executor when a channel of the data
+ * group is decoded for the first time, and only the blocks covering the
+ * requested records for time range reads (see
+ * {@link #readChannel(DGBlock, CGBlock, CNBlock, double, double)}).
+ * </p>
+ *
+ * <p>
+ * The returned block objects are shared as well and must not be modified by
+ * callers.
+ * </p>
+ *
+ * @author Henrik Peters <henrik.peters@tu-clausthal.de>
+ */
+public final class MDFFile {
+
+	/**
+	 * MDF file
+	 */
+	private final File file;
+
+	/**
+	 * Name of the file or description of its source, for messages
+	 */
+	private final String name;
+
+	/**
+	 * File content, read-only, {@code null} if the blocks were prefetched
+	 * from a {@link DataSource}
+	 */
+	private final ByteBuffer content;
+
+	private final IDBlock idBlock;
+
+	private final HDBlock hdBlock;
+
+	private final PRBlock prBlock;
+
+	private final List<DGBlock> dgBlocks;
+
+	/**
+	 * Data records by data group
+	 */
+	private final Map<DGBlock, RecordData> recordData;
+
+	private MDFFile(File file, String name, ByteBuffer content, IDBlock idBlock, HDBlock hdBlock, PRBlock prBlock,
+			List<DGBlock> dgBlocks, Map<DGBlock, RecordData> recordData) {
+		this.file = file;
+		this.name = name;
+		this.content = content;
+		this.idBlock = idBlock;
+		this.hdBlock = hdBlock;
+		this.prBlock = prBlock;
+		this.dgBlocks = dgBlocks == null ? Collections.<DGBlock> emptyList()
+				: Collections.unmodifiableList(new ArrayList<DGBlock>(dgBlocks));
+		this.recordData = recordData;
+	}
+
+	/**
+	 * <p>
+	 * Maps and parses a MDF file.
+	 * </p>
+	 *
+	 * @param file
+	 *            MDF file
+	 * @return handle of the file
+	 * @throws IOException
+	 *             if the file cannot be read or is not a supported MDF file
+	 */
+	public static MDFFile open(File file) throws IOException {
+		return open(file, ChannelProjection.all());
+	}
+
+	/**
+	 * <p>
+	 * Maps and parses a MDF file, reading only the channels matching
+	 * {@code projection} completely (see {@link ChannelProjection}).
+	 * </p>
+	 *
+	 * @param file
+	 *            MDF file
+	 * @param projection
+	 *            channels to read completely
+	 * @return handle of the file
+	 * @throws IOException
+	 *             if the file cannot be read, is too large or is not a
+	 *             supported MDF file
+	 */
+	public static MDFFile open(File file, Predicate<CNBlock> projection) throws IOException {
+		return open(file, projection, MDFParser.DEFAULT_EXECUTOR);
+	}
+
+	/**
+	 * <p>
+	 * Maps and parses a MDF file like {@link #open(File, Predicate)}. The
+	 * channel groups are parsed and compressed data blocks are inflated
+	 * concurrently on {@code executor}.
+	 * </p>
+	 *
+	 * @param file
+	 *            MDF file
+	 * @param projection
+	 *            channels to read completely
+	 * @param executor
+	 *            executor parsing the channels of the channel groups and
+	 *            inflating compressed data blocks
+	 * @return handle of the file
+	 * @throws IOException
+	 *             if the file cannot be read, is too large or is not a
+	 *             supported MDF file
+	 */
+	public static MDFFile open(File file, Predicate<CNBlock> projection, Executor executor) throws IOException {
+		ByteBuffer content;
+		MetricsTimer start = MDFMetrics.startReadTimer();
+		FileChannel channel = FileChannel.open(file.toPath(), StandardOpenOption.READ);
+		try {
+			if (channel.size() >= Integer.MAX_VALUE) {
+				throw new IOException("File too large.");
+			}
+			content = channel.map(FileChannel.MapMode.READ_ONLY, 0, channel.size());
+		} finally {
+			channel.close();
+		}
+		MDFMetrics.bytesMapped(file.getPath(), content.capacity(), start);
+		return open(file, file.getName(), content, projection, executor);
+	}
+
+	/**
+	 * <p>
+	 * Parses a MDF file from a {@link DataSource}, e. g. a buffer in memory or
+	 * a store read by ranges.
+	 * </p>
+	 *
+	 * @param source
+	 *            source of the file, not closed
+	 * @return handle of the file
+	 * @throws IOException
+	 *             if the source cannot be read or is not a supported MDF file
+	 */
+	public static MDFFile open(DataSource source) throws IOException {
+		return open(source, ChannelProjection.all(), MDFParser.DEFAULT_EXECUTOR);
+	}
+
+	/**
+	 * <p>
+	 * Parses a MDF file from a {@link DataSource} like
+	 * {@link #open(File, Predicate, Executor)}. Sources holding the file in
+	 * memory (see {@link DataSource#getBuffer()}) are parsed without copying.
+	 * From other sources, the blocks of MDF 3.x files are read by a few large
+	 * reads, and the data block of a data group when one of its channels is
+	 * read for the first time; MDF 4.x files are read completely.
+	 * </p>
+	 *
+	 * @param source
+	 *            source of the file, not closed
+	 * @param projection
+	 *            channels to read completely
+	 * @param executor
+	 *            executor parsing the channels of the channel groups and
+	 *            inflating compressed data blocks
+	 * @return handle of the file, whose {@link #getFile()} is {@code null}
+	 *         unless the source is a {@link MappedFileSource}
+	 * @throws IOException
+	 *             if the source cannot be read, is too large or is not a
+	 *             supported MDF file
+	 */
+	public static MDFFile open(DataSource source, Predicate<CNBlock> projection, Executor executor)
+			throws IOException {
+		File file = source instanceof MappedFileSource ? ((MappedFileSource) source).getFile() : null;
+		ByteBuffer buffer = source.getBuffer();
+		String name = file == null ? source.toString() : file.getName();
+		if (buffer != null) {
+			return open(file, name, buffer, projection, executor);
+		}
+		MetricsTimer start = MDFMetrics.startReadTimer();
+		MetadataPrefetcher prefetcher = new MetadataPrefetcher(source, projection);
+		PrefetchedContent content = prefetcher.prefetch();
+		MDFMetrics.bytesRead(source.toString(), prefetcher.getBytesRead(), start);
+		if (prefetcher.isComplete()) {
+			return open(file, name, content.getBuffer(), projection, executor);
+		}
+
+		MDFParser parser = new MDFParser(content, projection, executor);
+		parser.parse();
+		ByteOrder byteOrder = parser.getIDBlock().getDefaultByteOrder() == null ? ByteOrder.LITTLE_ENDIAN
+				: parser.getIDBlock().getDefaultByteOrder();
+		Map<DGBlock, RecordData> recordData = new IdentityHashMap<DGBlock, RecordData>();
+		if (parser.getDGBlocks() != null) {
+			for (DGBlock dgBlock : parser.getDGBlocks()) {
+				recordData.put(dgBlock, RecordData.lazy(source, content.size(), getDataRegions(dgBlock), byteOrder));
+			}
+		}
+		return new MDFFile(file, name, null, parser.getIDBlock(), parser.getHDBlock(), parser.getPRBlock(),
+				parser.getDGBlocks(), recordData);
+	}
+
+	/**
+	 * <p>
+	 * Returns the data block of a data group and the data blocks of the
+	 * sample reductions of its channel groups.
+	 * </p>
+	 *
+	 * @return positions and ends of the data blocks
+	 */
+	private static List<long[]> getDataRegions(DGBlock dgBlock) {
+		ArrayList<long[]> result = new ArrayList<long[]>();
+		long length = 0;
+		// no, one or two record IDs of one byte each
+		int idBytes = dgBlock.getNumberOfRecordIDs().ordinal();
+		if (dgBlock.getCgBlocks() != null) {
+			for (CGBlock cgBlock : dgBlock.getCgBlocks()) {
+				length += (long) (cgBlock.getSizeOfDataRecord() + idBytes) * cgBlock.getNumberOfRecords();
+			}
+		}
+		result.add(new long[] { dgBlock.getPointerToDataBlock(), dgBlock.getPointerToDataBlock() + length });
+		if (dgBlock.getCgBlocks() != null) {
+			for (CGBlock cgBlock : dgBlock.getCgBlocks()) {
+				if (cgBlock.getSRBlocks() != null) {
+					for (SRBlock srBlock : cgBlock.getSRBlocks()) {
+						long pointer = srBlock.getPointerToDataBlock();
+						result.add(new long[] { pointer,
+								pointer + 3L * cgBlock.getSizeOfDataRecord() * srBlock.getNumberOfReducedSamples() });
+					}
+				}
+			}
+		}
+		return result;
+	}
+
+	private static MDFFile open(File file, String name, ByteBuffer content, Predicate<CNBlock> projection,
+			Executor executor) throws IOException {
+		if (MDFParser.readIDBlock(content, false).getVersionNumber() >= 400) {
+			MDF4Parser parser = new MDF4Parser(content, projection, executor);
+			parser.parse();
+			return new MDFFile(file, name, content, parser.getIDBlock(), parser.getHDBlock(), null,
+					parser.getDGBlocks(), parser.getRecordData());
+		}
+		MDFParser parser = new MDFParser(content, projection, executor);
+		parser.parse();
+		Map<DGBlock, RecordData> recordData = new IdentityHashMap<DGBlock, RecordData>();
+		if (parser.getDGBlocks() != null) {
+			for (DGBlock dgBlock : parser.getDGBlocks()) {
+				recordData.put(dgBlock, RecordData.contiguous(content, (int) dgBlock.getPointerToDataBlock()));
+			}
+		}
+		return new MDFFile(file, name, content, parser.getIDBlock(), parser.getHDBlock(), parser.getPRBlock(),
+				parser.getDGBlocks(), recordData);
+	}
+
+	/**
+	 * @return MDF file, {@code null} if the file was read from a
+	 *         {@link DataSource} other than a {@link MappedFileSource}
+	 */
+	public File getFile() {
+		return file;
+	}
+
+	public IDBlock getIDBlock() {
+		return idBlock;
+	}
+
+	public HDBlock getHDBlock() {
+		return hdBlock;
+	}
+
+	public PRBlock getPRBlock() {
+		return prBlock;
+	}
+
+	/**
+	 * <p>
+	 * Returns the DGBlocks.
+	 * </p>
+	 *
+	 * @return unmodifiable list of DGBlocks, empty if there are none
+	 */
+	public List<DGBlock> getDGBlocks() {
+		return dgBlocks;
+	}
+
+	/**
+	 * <p>
+	 * Creates a new decoder for the values of a channel. Every call returns an
+	 * independent decoder, so each thread should create its own.
+	 * </p>
+	 *
+	 * @param dgBlock
+	 *            data group of the channel
+	 * @param cgBlock
+	 *            channel group of the channel
+	 * @param cnBlock
+	 *            channel
+	 * @return decoder reading directly from the mapped file, or from the
+	 *         inflated data blocks of a MDF 4.x file
+	 * @throws IOException
+	 *             if the channel cannot be decoded or is not part of the
+	 *             projection
+	 */
+	public ChannelDecoder getChannelDecoder(DGBlock dgBlock, CGBlock cgBlock, CNBlock cnBlock) throws IOException {
+		checkProjected(cnBlock);
+		RecordData records = getRecordData(dgBlock);
+		return new ChannelDecoder(records.getBuffer(), records.getOffset(), cgBlock, cnBlock, getByteOrder());
+	}
+
+	/**
+	 * <p>
+	 * Creates a new decoder for the values of a string or byte array channel,
+	 * returning views of the data instead of copies.
+	 * </p>
+	 *
+	 * @param dgBlock
+	 *            data group of the channel
+	 * @param cgBlock
+	 *            channel group of the channel
+	 * @param cnBlock
+	 *            string or byte array channel
+	 * @return decoder reading directly from the mapped file, or from the
+	 *         inflated data blocks of a MDF 4.x file
+	 * @throws IOException
+	 *             if the channel is no string or byte array channel or is not
+	 *             part of the projection
+	 */
+	public ByteChannelDecoder getByteChannelDecoder(DGBlock dgBlock, CGBlock cgBlock, CNBlock cnBlock)
+			throws IOException {
+		checkProjected(cnBlock);
+		RecordData records = getRecordData(dgBlock);
+		return new ByteChannelDecoder(records.getBuffer(), records.getOffset(), cgBlock, cnBlock);
+	}
+
+	private RecordData getRecordData(DGBlock dgBlock) throws IOException {
+		RecordData records = recordData.get(dgBlock);
+		if (records == null) {
+			throw new IllegalArgumentException("Data group is not part of " + name + ".");
+		}
+		if (dgBlock.getNumberOfRecordIDs() != NumberOfRecordIDs.DATA_RECORDS_WITHOUT_RECORD_ID) {
+			throw new IOException("Data records with record IDs not implemented yet. Sort the file first (see "
+					+ UnsortedFiles.class.getName() + ").");
+		}
+		return records;
+	}
+
+	private static void checkProjected(CNBlock cnBlock) throws IOException {
+		if (!cnBlock.isProjected()) {
+			throw new IOException(
+					"Channel " + cnBlock.getShortSignalName().trim() + " is not part of the projection.");
+		}
+	}
+
+	private ByteOrder getByteOrder() {
+		return idBlock.getDefaultByteOrder() == null ? ByteOrder.LITTLE_ENDIAN : idBlock.getDefaultByteOrder();
+	}
+
+	/**
+	 * <p>
+	 * Reads the physical values of a channel.
+	 * </p>
+	 *
+	 * @param dgBlock
+	 *            data group of the channel
+	 * @param cgBlock
+	 *            channel group of the channel
+	 * @param cnBlock
+	 *            channel
+	 * @return physical values, one per record
+	 * @throws IOException
+	 *             if the channel cannot be decoded or is not part of the
+	 *             projection
+	 */
+	public double[] readChannel(DGBlock dgBlock, CGBlock cgBlock, CNBlock cnBlock) throws IOException {
+		return getChannelDecoder(dgBlock, cgBlock, cnBlock).readPhysical();
+	}
+
+	/**
+	 * <p>
+	 * Reads the physical values of a channel between {@code start} and
+	 * {@code end} (both inclusive). The records are found by a binary search
+	 * on the time channel, so compressed data blocks of a MDF 4.x file are
+	 * only inflated where they are needed.
+	 * </p>
+	 *
+	 * @param dgBlock
+	 *            data group of the channel
+	 * @param cgBlock
+	 *            channel group of the channel
+	 * @param cnBlock
+	 *            channel
+	 * @param start
+	 *            first time in seconds
+	 * @param end
+	 *            last time in seconds
+	 * @return physical values, one per record in the time range
+	 * @throws IOException
+	 *             if the channel group has no time channel, the channel cannot
+	 *             be decoded or is not part of the projection
+	 */
+	public double[] readChannel(DGBlock dgBlock, CGBlock cgBlock, CNBlock cnBlock, double start, double end)
+			throws IOException {
+		checkProjected(cnBlock);
+		CNBlock timeChannel = cgBlock.getTimeChannel();
+		if (timeChannel == null) {
+			throw new IOException("Channel group without time channel.");
+		}
+		int from = searchTime(dgBlock, cgBlock, timeChannel, start);
+		int to = searchTime(dgBlock, cgBlock, timeChannel, Math.nextUp(end));
+		return readRecords(dgBlock, cgBlock, cnBlock, from, Math.max(from, to));
+	}
+
+	/**
+	 * <p>
+	 * Reads the physical values of the records {@code from} (inclusive) to
+	 * {@code to} (exclusive) of a channel, inflating only the data blocks
+	 * holding them.
+	 * </p>
+	 */
+	double[] readRecords(DGBlock dgBlock, CGBlock cgBlock, CNBlock cnBlock, int from, int to) throws IOException {
+		checkProjected(cnBlock);
+		if (to <= from) {
+			return new double[0];
+		}
+		int recordSize = cgBlock.getSizeOfDataRecord();
+		ByteBuffer range = getRecordData(dgBlock).range((long) from * recordSize, (long) to * recordSize);
+		return new ChannelDecoder(range, 0, recordSize, to - from, cnBlock, getByteOrder()).readPhysical();
+	}
+
+	/**
+	 * <p>
+	 * Reads the physical value of a single record of a channel.
+	 * </p>
+	 */
+	double readRecord(DGBlock dgBlock, CGBlock cgBlock, CNBlock cnBlock, int record) throws IOException {
+		int recordSize = cgBlock.getSizeOfDataRecord();
+		ByteBuffer range = getRecordData(dgBlock).range((long) record * recordSize, (long) (record + 1) * recordSize);
+		return new ChannelDecoder(range, 0, recordSize, 1, cnBlock, getByteOrder()).getPhysical(0);
+	}
+
+	/**
+	 * <p>
+	 * Returns the index of the first record whose time is not smaller than
+	 * {@code time}, reading single records only.
+	 * </p>
+	 */
+	int searchTime(DGBlock dgBlock, CGBlock cgBlock, CNBlock timeChannel, double time) throws IOException {
+		int low = 0;
+		int high = (int) Math.min(cgBlock.getNumberOfRecords(), Integer.MAX_VALUE);
+		while (low < high) {
+			int middle = (low + high) >>> 1;
+			if (readRecord(dgBlock, cgBlock, timeChannel, middle) < time) {
+				low = middle + 1;
+			} else {
+				high = middle;
+			}
+		}
+		return low;
+	}
+
+	/**
+	 * <p>
+	 * Creates a stream of the physical values of a channel. The stream splits
+	 * evenly by record index, so it can be processed in parallel (see
+	 * {@link ChannelStreams}).
+	 * </p>
+	 *
+	 * @param dgBlock
+	 *            data group of the channel
+	 * @param cgBlock
+	 *            channel group of the channel
+	 * @param cnBlock
+	 *            channel
+	 * @return sequential stream of physical values
+	 * @throws IOException
+	 *             if the channel cannot be decoded or is not part of the
+	 *             projection
+	 */
+	public DoubleStream streamChannel(DGBlock dgBlock, CGBlock cgBlock, CNBlock cnBlock) throws IOException {
+		return ChannelStreams.physical(getChannelDecoder(dgBlock, cgBlock, cnBlock));
+	}
+
+	/**
+	 * <p>
+	 * Creates a stream of the records of a channel group, holding the given
+	 * channels (see {@link ChannelStreams}).
+	 * </p>
+	 *
+	 * @param dgBlock
+	 *            data group of the channels
+	 * @param cgBlock
+	 *            channel group of the channels
+	 * @param cnBlocks
+	 *            channels of the records
+	 * @return sequential stream of records
+	 * @throws IOException
+	 *             if a channel cannot be decoded or is not part of the
+	 *             projection
+	 */
+	public Stream<Record> streamRecords(DGBlock dgBlock, CGBlock cgBlock, CNBlock... cnBlocks) throws IOException {
+		ChannelDecoder[] decoders = new ChannelDecoder[cnBlocks.length];
+		for (int i = 0; i < cnBlocks.length; i++) {
+			decoders[i] = getChannelDecoder(dgBlock, cgBlock, cnBlocks[i]);
+		}
+		return ChannelStreams.records(decoders);
+	}
+
+	/**
+	 * <p>
+	 * Reads a channel between {@code start} and {@code end} at the given
+	 * resolution, using the coarsest sample reduction of the channel group
+	 * that is fine enough (see {@link SampleReduction}).
+	 * </p>
+	 *
+	 * @param dgBlock
+	 *            data group of the channel
+	 * @param cgBlock
+	 *            channel group of the channel
+	 * @param cnBlock
+	 *            channel
+	 * @param start
+	 *            first time in seconds
+	 * @param end
+	 *            last time in seconds
+	 * @param resolution
+	 *            longest acceptable interval in seconds
+	 * @return mean, minimum and maximum per interval
+	 * @throws IOException
+	 *             if the channel cannot be decoded or is not part of the
+	 *             projection
+	 */
+	public ReducedChannel readReduced(DGBlock dgBlock, CGBlock cgBlock, CNBlock cnBlock, double start, double end,
+			double resolution) throws IOException {
+		checkProjected(cnBlock);
+		RecordData records = getRecordData(dgBlock);
+		return SampleReduction.read(records.getBuffer(), records.getOffset(), dgBlock, cgBlock, cnBlock, getByteOrder(),
+				start, end, resolution);
+	}
+
+	/**
+	 * <p>
+	 * Reads channels around a trigger event of their data group (see
+	 * {@link TriggerWindows}).
+	 * </p>
+	 *
+	 * @param dgBlock
+	 *            data group of the channels
+	 * @param cgBlock
+	 *            channel group of the channels
+	 * @param trigger
+	 *            index of the trigger event
+	 * @param cnBlocks
+	 *            channels to read
+	 * @return records in the window of the trigger event
+	 * @throws IOException
+	 *             if a channel cannot be decoded or is not part of the
+	 *             projection
+	 */
+	public TriggerWindow readTriggerWindow(DGBlock dgBlock, CGBlock cgBlock, int trigger, CNBlock... cnBlocks)
+			throws IOException {
+		for (CNBlock cnBlock : cnBlocks) {
+			checkProjected(cnBlock);
+		}
+		RecordData records = getRecordData(dgBlock);
+		return TriggerWindows.read(records.getBuffer(), records.getOffset(), dgBlock, cgBlock, getByteOrder(), trigger,
+				cnBlocks);
+	}
+
+}
@@ -0,0 +1,142 @@
+package de.justeazy.jmdflib;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.channels.FileChannel;
+import java.nio.file.StandardOpenOption;
+
+import de.justeazy.jmdflib.blocktypes.HDBlock;
+import de.justeazy.jmdflib.blocktypes.IDBlock;
+import de.justeazy.jmdflib.metrics.MDFMetrics;
+import de.justeazy.jmdflib.metrics.MetricsTimer;
+
+/**
+ * <p>
+ * Identification and header of a MDF file, read without reading the rest of
+ * the file.
+ * </p>
+ *
+ * <p>
+ * {@link #probe(File)} reads the 64 bytes of the IDBlock with a single read
+ * into a small buffer, {@link #probe(File, boolean)} optionally the HDBlock
+ * following it. This is meant for classifying many files, e. g. by version,
+ * program identifier and byte order. Files using features which are not
+ * implemented yet (big endian byte order, unfinalized files) are probed as
+ * well, only files which are not MDF files are rejected.
+ * </p>
+ *
+ * @author Henrik Peters <henrik.peters@tu-clausthal.de>
+ */
+public final class MDFHeader {
+
+	/**
+	 * Size of the IDBlock
+	 */
+	private final static int ID_BLOCK_SIZE = 64;
+
+	/**
+	 * Size of the HDBlock of MDF 3.x
+	 */
+	private final static int HD_BLOCK_SIZE = 208;
+
+	private final IDBlock idBlock;
+
+	private final HDBlock hdBlock;
+
+	private MDFHeader(IDBlock idBlock, HDBlock hdBlock) {
+		this.idBlock = idBlock;
+		this.hdBlock = hdBlock;
+	}
+
+	/**
+	 * <p>
+	 * Reads the IDBlock of a file.
+	 * </p>
+	 *
+	 * @param file
+	 *            file to probe
+	 * @return header without HDBlock
+	 * @throws IOException
+	 *             if the file cannot be read or is not a MDF file
+	 */
+	public static MDFHeader probe(File file) throws IOException {
+		return probe(file, false);
+	}
+
+	/**
+	 * <p>
+	 * Reads the IDBlock and optionally the HDBlock of a file. The HDBlock is
+	 * only read for MDF 3.x files with little endian byte order.
+	 * </p>
+	 *
+	 * @param file
+	 *            file to probe
+	 * @param readHDBlock
+	 *            whether to read the HDBlock as well
+	 * @return header
+	 * @throws IOException
+	 *             if the file cannot be read or is not a MDF file
+	 */
+	public static MDFHeader probe(File file, boolean readHDBlock) throws IOException {
+		MetricsTimer start = MDFMetrics.startReadTimer();
+		ByteBuffer buffer = ByteBuffer.allocate(readHDBlock ? ID_BLOCK_SIZE + HD_BLOCK_SIZE : ID_BLOCK_SIZE);
+		FileChannel channel = FileChannel.open(file.toPath(), StandardOpenOption.READ);
+		try {
+			while (buffer.hasRemaining() && channel.read(buffer, buffer.position()) >= 0) {
+				// read until the buffer is full or the file ends
+			}
+		} finally {
+			channel.close();
+		}
+		buffer.flip();
+		MDFMetrics.bytesRead(file.getPath(), buffer.limit(), start);
+		if (buffer.limit() < ID_BLOCK_SIZE) {
+			throw new IOException("File too short for an IDBlock (" + buffer.limit() + " bytes).");
+		}
+
+		IDBlock idBlock = MDFParser.readIDBlock(buffer, false);
+		HDBlock hdBlock = null;
+		if (readHDBlock && idBlock.getVersionNumber() < 400
+				&& idBlock.getDefaultByteOrder() == ByteOrder.LITTLE_ENDIAN) {
+			if (buffer.limit() < ID_BLOCK_SIZE + HD_BLOCK_SIZE) {
+				throw new IOException("File too short for a HDBlock (" + buffer.limit() + " bytes).");
+			}
+			hdBlock = MDFParser.readHDBlock(buffer.order(ByteOrder.LITTLE_ENDIAN), ID_BLOCK_SIZE);
+		}
+		return new MDFHeader(idBlock, hdBlock);
+	}
+
+	public IDBlock getIDBlock() {
+		return idBlock;
+	}
+
+	/**
+	 * <p>
+	 * Returns the HDBlock without its comment.
+	 * </p>
+	 *
+	 * @return HDBlock or {@code null} if it was not read
+	 */
+	public HDBlock getHDBlock() {
+		return hdBlock;
+	}
+
+	/**
+	 * <p>
+	 * Returns whether the file can be opened by {@link MDFFile}, as far as
+	 * the header tells.
+	 * </p>
+	 *
+	 * @return {@code true} for finalized MDF 3.x files in little endian byte
+	 *         order and finalized MDF 4.x files
+	 */
+	public boolean isSupported() {
+		int version = idBlock.getVersionNumber();
+		return (version < 400 && idBlock.getDefaultByteOrder() == ByteOrder.LITTLE_ENDIAN
+				|| version >= 400 && version < 500) && idBlock.getStandardFlags() == 0
+				&& idBlock.getCustomFlags() == 0;
+	}
+
+}
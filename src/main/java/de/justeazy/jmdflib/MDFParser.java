@@ -0,0 +1,1427 @@
+package de.justeazy.jmdflib;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.math.BigInteger;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.charset.Charset;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.Executor;
+import java.util.concurrent.ForkJoinPool;
+import java.util.function.Predicate;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+import org.apache.logging.log4j.LogManager;
+import org.apache.logging.log4j.Logger;
+
+import de.justeazy.jmdflib.blocktypes.CCBlock;
+import de.justeazy.jmdflib.blocktypes.CCBlockLinear2Parameters;
+import de.justeazy.jmdflib.blocktypes.CCBlockOneToOne;
+import de.justeazy.jmdflib.blocktypes.CDBlock;
+import de.justeazy.jmdflib.blocktypes.CEBlock;
+import de.justeazy.jmdflib.blocktypes.CGBlock;
+import de.justeazy.jmdflib.blocktypes.CNBlock;
+import de.justeazy.jmdflib.blocktypes.DGBlock;
+import de.justeazy.jmdflib.blocktypes.HDBlock;
+import de.justeazy.jmdflib.blocktypes.IDBlock;
+import de.justeazy.jmdflib.blocktypes.PRBlock;
+import de.justeazy.jmdflib.blocktypes.SRBlock;
+import de.justeazy.jmdflib.blocktypes.TRBlock;
+import de.justeazy.jmdflib.blocktypes.TXBlock;
+import de.justeazy.jmdflib.enums.ChannelType;
+import de.justeazy.jmdflib.enums.ConversionType;
+import de.justeazy.jmdflib.enums.FloatingPointFormat;
+import de.justeazy.jmdflib.enums.NumberOfRecordIDs;
+import de.justeazy.jmdflib.enums.SignalDataType;
+import de.justeazy.jmdflib.enums.TimeQualityClass;
+import de.justeazy.jmdflib.metrics.MDFMetrics;
+import de.justeazy.jmdflib.text.BlockText;
+
+/**
+ * <p>
+ * Parses the block structure of a MDF file held in a {@link ByteBuffer} or
+ * in the ranges read by a {@link MetadataPrefetcher}.
+ * </p>
+ * 
+ * <p>
+ * Every block is read by a static {@code readXXBlock(source, offset)}
+ * function, which only depends on its arguments and does not follow any
+ * pointers. {@link #parse()} walks the block tree: the DG and CG chains are
+ * walked sequentially, afterwards the CN chains of all CGs are parsed
+ * concurrently on the executor of the parser.
+ * </p>
+ * 
+ * <p>
+ * All functions read from private views of the source, so the same buffer
+ * may be shared by any number of threads.
+ * </p>
+ * 
+ * <p>
+ * Text fields (names, descriptions and the text of TXBlocks) are not decoded
+ * while parsing. The blocks keep {@link BlockText}s referring to the source,
+ * which decode the fields with the code page of the IDBlock when they are
+ * requested.
+ * </p>
+ * 
+ * @author Henrik Peters <henrik.peters@tu-clausthal.de>
+ */
+class MDFParser {
+
+	/**
+	 * Logging framework
+	 */
+	private static Logger l = LogManager.getLogger(MDFParser.class);
+
+	/**
+	 * Format identifier of the IDBlock, e. g. "3.30    "
+	 */
+	private final static Pattern FORMAT_IDENTIFIER = Pattern.compile("\\d+\\x2E\\d{2}\\s{4}");
+
+	/**
+	 * Executor used if none is given
+	 */
+	final static Executor DEFAULT_EXECUTOR = ForkJoinPool.commonPool();
+
+	/**
+	 * Character set of files without code page
+	 */
+	final static Charset DEFAULT_CHARSET = StandardCharsets.ISO_8859_1;
+
+	/**
+	 * File content
+	 */
+	private final BlockContent content;
+
+	/**
+	 * Default byte order of the file
+	 */
+	private ByteOrder byteOrder;
+
+	/**
+	 * Executor parsing the CN chains
+	 */
+	private final Executor executor;
+
+	/**
+	 * Channels to read completely
+	 */
+	private final Predicate<CNBlock> projection;
+
+	/**
+	 * IDBlock
+	 */
+	private IDBlock idBlock;
+
+	/**
+	 * Character set of the text fields
+	 */
+	private Charset charset;
+
+	/**
+	 * HDBlock
+	 */
+	private HDBlock hdBlock;
+
+	/**
+	 * PRBlock
+	 */
+	private PRBlock prBlock;
+
+	/**
+	 * DGBlocks
+	 */
+	private ArrayList<DGBlock> dgBlocks;
+
+	/**
+	 * <p>
+	 * Creates a parser for the file content {@code content}.
+	 * </p>
+	 * 
+	 * @param content
+	 *            file content, starting at position 0
+	 * @param projection
+	 *            channels to read completely
+	 * @param executor
+	 *            executor parsing the CN chains of the CGs
+	 */
+	MDFParser(ByteBuffer content, Predicate<CNBlock> projection, Executor executor) {
+		this(BlockContent.of(content), projection, executor);
+	}
+
+	/**
+	 * <p>
+	 * Creates a parser for the blocks of a file, e. g. read by a
+	 * {@link MetadataPrefetcher}.
+	 * </p>
+	 * 
+	 * @param content
+	 *            bytes of the blocks of the file
+	 * @param projection
+	 *            channels to read completely
+	 * @param executor
+	 *            executor parsing the CN chains of the CGs
+	 */
+	MDFParser(BlockContent content, Predicate<CNBlock> projection, Executor executor) {
+		this.content = content;
+		this.projection = projection;
+		this.executor = executor;
+	}
+
+	/**
+	 * <p>
+	 * Parses the file.
+	 * </p>
+	 * 
+	 * @throws IOException
+	 *             if there is an error parsing the file
+	 * 
+	 */
+	void parse() throws IOException {
+		idBlock = readIDBlock(content.at(0), true);
+		byteOrder = idBlock.getDefaultByteOrder();
+		charset = charset(idBlock.getCodePage());
+
+		hdBlock = readHDBlock(block(64), 0, charset);
+		if (hdBlock.getPointerToTXBlock() != 0) {
+			hdBlock.setTXBlock(readTXBlock(block(hdBlock.getPointerToTXBlock()), 0, charset));
+		} else {
+			hdBlock.setTXBlock(null);
+		}
+
+		if (hdBlock.getPointerToPRBlock() != 0) {
+			prBlock = readPRBlock(block(hdBlock.getPointerToPRBlock()), 0);
+		} else {
+			prBlock = null;
+		}
+
+		dgBlocks = readDGBlocks();
+		readCNBlocks(dgBlocks);
+	}
+
+	/**
+	 * <p>
+	 * Returns a view of the block at {@code pointer} in the default byte
+	 * order, starting at position 0.
+	 * </p>
+	 * 
+	 * @param pointer
+	 *            position of the block in the file
+	 * @return view of the block
+	 * @throws IOException
+	 *             if the block is outside of the file
+	 */
+	private ByteBuffer block(long pointer) throws IOException {
+		return content.at(pointer).order(byteOrder);
+	}
+
+	/**
+	 * <p>
+	 * Reads the identification block (identification of the file as MDF file
+	 * and MDF version).
+	 * </p>
+	 * 
+	 * <p>
+	 * If {@code strict} is {@code false}, the block is read completely even
+	 * if the file uses features which are not implemented yet, like big
+	 * endian byte order or unfinalized files. Only files which are not MDF
+	 * files at all are rejected.
+	 * </p>
+	 * 
+	 * @param source
+	 *            file content
+	 * @param strict
+	 *            whether to reject files which cannot be parsed completely
+	 * @return IDBlock
+	 * @throws IOException
+	 */
+	static IDBlock readIDBlock(ByteBuffer source, boolean strict) throws IOException {
+		ByteBuffer b = view(source.duplicate().order(ByteOrder.LITTLE_ENDIAN), 0);
+		Matcher m;
+		IDBlock idBlock = new IDBlock();
+
+		// file identifier
+		String fileIdentifier = readChar(b, 8);
+		if (!fileIdentifier.equals("MDF     ")) {
+			throw new IOException("Wrong file identifier (should be \"MDF     \", but was \"" + fileIdentifier + "\")");
+		}
+		idBlock.setFileIdentifier(fileIdentifier);
+		MDFMetrics.blockParsed("ID");
+		l.trace("fileIdentifier = {}", fileIdentifier);
+
+		// format identifier
+		String formatIdentifier = readChar(b, 8);
+		m = FORMAT_IDENTIFIER.matcher(formatIdentifier);
+		if (!m.find()) {
+			throw new IOException("Wrong format identifier (" + formatIdentifier + ").");
+		}
+		idBlock.setFormatIdentifier(formatIdentifier);
+		l.trace("formatIdentifier = \"{}\"", formatIdentifier);
+
+		// program identifier
+		String programIdentifier = readChar(b, 8);
+		idBlock.setProgramIdentifier(programIdentifier);
+		l.trace("programIdentifier = \"{}\"", programIdentifier);
+
+		// default byte order
+		ByteOrder defaultByteOrder = readUint16(b) == 0 ? ByteOrder.LITTLE_ENDIAN : ByteOrder.BIG_ENDIAN;
+		idBlock.setDefaultByteOrder(defaultByteOrder);
+		l.trace("defaultByteOrder = {}", defaultByteOrder);
+		b.order(defaultByteOrder);
+		if (strict && defaultByteOrder != ByteOrder.LITTLE_ENDIAN) {
+			throw new IOException(
+					"Wrong byte order (should be LITTLE_ENDIAN, but was BIG_ENDIAN). BIG_ENDIAN is not implemented yet");
+		}
+
+		// default floating point format
+		int floatingPointFormat = readUint16(b);
+		switch (floatingPointFormat) {
+		case 0:
+			idBlock.setDefaultFloatingPointFormat(FloatingPointFormat.IEEE_754);
+			break;
+		case 1:
+			idBlock.setDefaultFloatingPointFormat(FloatingPointFormat.G_FLOAT);
+			break;
+		default:
+			idBlock.setDefaultFloatingPointFormat(FloatingPointFormat.D_FLOAT);
+		}
+		l.trace("idBlock.defaultFloatingPointFormat = {}", idBlock.getDefaultFloatingPointFormat());
+
+		// version number
+		int versionNumber = readUint16(b);
+		idBlock.setVersionNumber(versionNumber);
+		l.trace("versionNumber = {}", versionNumber);
+
+		// code page
+		int codePage = readUint16(b);
+		idBlock.setCodePage(codePage);
+		l.trace("codePage = {}", codePage);
+
+		// first reserved structure
+		String reservedStructure1 = readChar(b, 2);
+		idBlock.setReservedStructure1(reservedStructure1);
+		l.trace("reservedStructure1 = \"{}\"", reservedStructure1);
+
+		// second reserved structure
+		String reservedStructure2 = readChar(b, 26);
+		idBlock.setReservedStructure2(reservedStructure2);
+		l.trace("reservedStructure2 = \"{}\"", reservedStructure2);
+
+		// standard flags for unfinalized mdfs
+		int standardFlags = readUint16(b);
+		idBlock.setStandardFlags(standardFlags);
+		l.trace("standardFlags = {}", standardFlags);
+		if (strict && standardFlags != 0) {
+			throw new IOException("Wrong standard flags (should be 0, but was \"" + standardFlags
+					+ "\"). Unfinalized MDFs are not supported yet.");
+		}
+
+		// custom flags for unfinalized mdfs
+		int customFlags = readUint16(b);
+		idBlock.setCustomFlags(customFlags);
+		l.trace("customFlags = {}", customFlags);
+		if (strict && customFlags != 0) {
+			throw new IOException("Wrong custom flags (should be 0, but was \"" + customFlags
+					+ "\"). Unfinalized MDFs are not supported yet.");
+		}
+
+		return idBlock;
+	}
+
+	/**
+	 * <p>
+	 * Returns the IDBlock.
+	 * </p>
+	 * 
+	 * @return IDBlock
+	 */
+	public IDBlock getIDBlock() {
+		return idBlock;
+	}
+
+	/**
+	 * <p>
+	 * Reads the header block (general information of the file).
+	 * </p>
+	 * 
+	 * <p>
+	 * The comment of the header is not read.
+	 * </p>
+	 * 
+	 * @param source
+	 *            file content in the default byte order
+	 * @param offset
+	 *            position of the block
+	 * @return HDBlock
+	 * @throws IOException
+	 */
+	static HDBlock readHDBlock(ByteBuffer source, int offset) throws IOException {
+		return readHDBlock(source, offset, DEFAULT_CHARSET);
+	}
+
+	/**
+	 * <p>
+	 * Reads the header block with text fields in {@code charset}.
+	 * </p>
+	 * 
+	 * @param source
+	 *            file content in the default byte order
+	 * @param offset
+	 *            position of the block
+	 * @param charset
+	 *            character set of the text fields
+	 * @return HDBlock
+	 * @throws IOException
+	 */
+	static HDBlock readHDBlock(ByteBuffer source, int offset, Charset charset) throws IOException {
+		ByteBuffer b = view(source, offset);
+		HDBlock hdBlock = new HDBlock();
+
+		// block type identifier
+		String blockTypeIdentifier = readChar(b, 2);
+		if (!blockTypeIdentifier.equals("HD")) {
+			throw new IOException(
+					"Wrong block type identifier (should be \"HD\", but was " + blockTypeIdentifier + "\").");
+		}
+		hdBlock.setBlockTypeIdentifier(blockTypeIdentifier);
+		MDFMetrics.blockParsed(blockTypeIdentifier);
+		l.trace("blockTypeIdentifier = {}", blockTypeIdentifier);
+
+		// block size
+		int blockSize = readUint16(b);
+		hdBlock.setBlockSize(blockSize);
+		l.trace("blockSize = {}", blockSize);
+
+		// pointer to first DGBlock
+		long pointerToFirstDGBlock = readUint32(b);
+		hdBlock.setPointerToFirstDGBlock(pointerToFirstDGBlock);
+		l.trace("pointerToFirstDGBlock = {}", pointerToFirstDGBlock);
+
+		// pointer to TXBlock (nil allowed)
+		long pointerToTXBlock = readUint32(b);
+		hdBlock.setPointerToTXBlock(pointerToTXBlock);
+		l.trace("pointerToTXBlock = {}", pointerToTXBlock);
+
+		// pointer to PRBlock (nil allowed)
+		long pointerToPRBlock = readUint32(b);
+		hdBlock.setPointerToPRBlock(pointerToPRBlock);
+		l.trace("pointerToPRBlock = \"{}\"", pointerToPRBlock);
+
+		// number of data groups
+		int numberOfDataGroups = readUint16(b);
+		hdBlock.setNumberOfDataGroups(numberOfDataGroups);
+		l.trace("numberOfDataGroups = {}", numberOfDataGroups);
+
+		// recording start date
+		String recordingStartDate = readChar(b, 10);
+		hdBlock.setRecordingStartDate(recordingStartDate);
+		l.trace("recordingStartDate = {}", recordingStartDate);
+
+		// recording start time
+		String recordingStartTime = readChar(b, 8);
+		hdBlock.setRecordingStartTime(recordingStartTime);
+		l.trace("recordingStartTime = {}", recordingStartTime);
+
+		// authors name
+		BlockText authorsName = readText(source, b, 32, charset);
+		hdBlock.setAuthorsName(authorsName);
+		l.trace("authorsName = {}", authorsName);
+
+		// organizations name
+		BlockText organizationsName = readText(source, b, 32, charset);
+		hdBlock.setOrganizationsName(organizationsName);
+		l.trace("organizationsName = {}", organizationsName);
+
+		// projects name
+		BlockText projectsName = readText(source, b, 32, charset);
+		hdBlock.setProjectsName(projectsName);
+		l.trace("projectsName = {}", projectsName);
+
+		// measurement object
+		BlockText measurementObject = readText(source, b, 32, charset);
+		hdBlock.setMeasurementObject(measurementObject);
+		l.trace("measurementObject = {}", measurementObject);
+
+		// recording start timestamp
+		BigInteger recordingStartTimestamp = readUint64(b);
+		hdBlock.setRecordingStartTimestamp(recordingStartTimestamp);
+		l.trace("recordingStartTimestamp = {}", recordingStartTimestamp);
+
+		// UTC time offset
+		int utcTimeOffset = readSint16(b);
+		hdBlock.setUtcTimeOffset(utcTimeOffset);
+		l.trace("utcTimeOffset = {}", utcTimeOffset);
+
+		// time quality class
+		int timeQualityClass = readUint16(b);
+		switch (timeQualityClass) {
+		case 0:
+			hdBlock.setTimeQualityClass(TimeQualityClass.LOCAL_PC_REFERENCE_TIME);
+			break;
+		case 10:
+			hdBlock.setTimeQualityClass(TimeQualityClass.EXTERNAL_TIME_SOURCE);
+			break;
+		case 16:
+			hdBlock.setTimeQualityClass(TimeQualityClass.EXTERNAL_ABSOLUTE_SYNCHRONIZED_TIME);
+			break;
+		default:
+			throw new IOException("Wrong time quality class (" + timeQualityClass + ").");
+		}
+		l.trace("hdBlock.timeQualityClass = {}", hdBlock.getTimeQualityClass());
+
+		// timer identification
+		BlockText timerIdentification = readText(source, b, 32, charset);
+		hdBlock.setTimerIdentification(timerIdentification);
+		l.trace("timerIdentification = {}", timerIdentification);
+
+		return hdBlock;
+	}
+
+	/**
+	 * <p>
+	 * Returns the HDBlock.
+	 * </p>
+	 * 
+	 * @return HDBlock
+	 */
+	public HDBlock getHDBlock() {
+		return hdBlock;
+	}
+
+	/**
+	 * <p>
+	 * Reads the optional comment for the measured data file.
+	 * </p>
+	 * 
+	 * @param source
+	 *            file content in the default byte order
+	 * @param offset
+	 *            position of the block
+	 * @return TXBlock
+	 * @throws IOException
+	 */
+	static TXBlock readTXBlock(ByteBuffer source, int offset) throws IOException {
+		return readTXBlock(source, offset, DEFAULT_CHARSET);
+	}
+
+	/**
+	 * <p>
+	 * Reads a text block with the text in {@code charset}.
+	 * </p>
+	 * 
+	 * @param source
+	 *            file content in the default byte order
+	 * @param offset
+	 *            position of the block
+	 * @param charset
+	 *            character set of the text
+	 * @return TXBlock
+	 * @throws IOException
+	 */
+	static TXBlock readTXBlock(ByteBuffer source, int offset, Charset charset) throws IOException {
+		ByteBuffer b = view(source, offset);
+		TXBlock txBlock = new TXBlock();
+
+		String blockTypeIdentifier = readChar(b, 2);
+		if (!blockTypeIdentifier.equals("TX")) {
+			throw new IOException(
+					"Wrong block type identifier (should be \"TX\", but was \"" + blockTypeIdentifier + "\").");
+		}
+		txBlock.setBlockTypeIdentifier(blockTypeIdentifier);
+		MDFMetrics.blockParsed(blockTypeIdentifier);
+		l.trace("blockTypeIdentifier = {}", blockTypeIdentifier);
+
+		int blockSize = readUint16(b);
+		txBlock.setBlockSize(blockSize);
+		l.trace("blockSize = {}", blockSize);
+
+		BlockText text = BlockText.terminated(source, b.position(), blockSize - 4, charset);
+		txBlock.setText(text);
+		l.trace("text = {}", text);
+
+		return txBlock;
+	}
+
+	/**
+	 * <p>
+	 * Reads the optional non-standardized data to exchange between the
+	 * acquisition program and the evaluation program.
+	 * </p>
+	 * 
+	 * @param source
+	 *            file content in the default byte order
+	 * @param offset
+	 *            position of the block
+	 * @return PRBlock
+	 * @throws IOException
+	 */
+	static PRBlock readPRBlock(ByteBuffer source, int offset) throws IOException {
+		throw new IOException("Since there weren't any PRBlocks in the test files, this is not implemented yet.");
+	}
+
+	/**
+	 * <p>
+	 * Returns the PRBlock.
+	 * </p>
+	 * 
+	 * @return PRBlock
+	 */
+	public PRBlock getPRBlock() {
+		return prBlock;
+	}
+
+	/**
+	 * <p>
+	 * Walks the DG chain and the CG chains of the DGs. The CN chains of the
+	 * CGs are not read.
+	 * </p>
+	 * 
+	 * @return List of DGBlocks or {@code null} if there are none
+	 * @throws IOException
+	 */
+	private ArrayList<DGBlock> readDGBlocks() throws IOException {
+		if (hdBlock.getPointerToFirstDGBlock() == 0) {
+			return null;
+		}
+		ArrayList<DGBlock> dgBlocks = new ArrayList<DGBlock>();
+		long pointer = hdBlock.getPointerToFirstDGBlock();
+		while (pointer != 0) {
+			DGBlock dgBlock = readDGBlock(block(pointer), 0);
+
+			if (dgBlock.getPointerToTRBlock() != 0) {
+				TRBlock trBlock = readTRBlock(block(dgBlock.getPointerToTRBlock()), 0);
+				trBlock.setTXBlock(trBlock.getPointerToTXBlock() != 0
+						? readTXBlock(block(trBlock.getPointerToTXBlock()), 0, charset) : null);
+				dgBlock.setTRBlock(trBlock);
+			} else {
+				dgBlock.setTRBlock(null);
+			}
+
+			ArrayList<CGBlock> cgBlocks;
+			if (dgBlock.getPointerToFirstCGBlock() != 0) {
+				cgBlocks = new ArrayList<CGBlock>();
+				long cgPointer = dgBlock.getPointerToFirstCGBlock();
+				while (cgPointer != 0) {
+					CGBlock cgBlock = readCGBlock(block(cgPointer), 0);
+					cgBlock.setSRBlocks(readSRBlocks(cgBlock));
+					cgBlocks.add(cgBlock);
+					cgPointer = cgBlock.getPointerToNextCGBlock();
+				}
+			} else {
+				cgBlocks = null;
+			}
+			dgBlock.setCGBlocks(cgBlocks);
+
+			dgBlocks.add(dgBlock);
+			pointer = dgBlock.getPointerToNextDGBlock();
+		}
+		return dgBlocks;
+	}
+
+	/**
+	 * <p>
+	 * Reads a data group block.
+	 * </p>
+	 * 
+	 * @param source
+	 *            file content in the default byte order
+	 * @param offset
+	 *            position of the block
+	 * @return DGBlock without TRBlock and CGBlocks
+	 * @throws IOException
+	 */
+	static DGBlock readDGBlock(ByteBuffer source, int offset) throws IOException {
+		ByteBuffer b = view(source, offset);
+		DGBlock dgBlock = new DGBlock();
+
+		String blockTypeIdentifier = readChar(b, 2);
+		if (!blockTypeIdentifier.equals("DG")) {
+			throw new IOException(
+					"Wrong block type identifier (should be\"DG\", but was \"" + blockTypeIdentifier + "\").");
+		}
+		dgBlock.setBlockTypeIdentifier(blockTypeIdentifier);
+		MDFMetrics.blockParsed(blockTypeIdentifier);
+		l.trace("blockTypeIdentifier = {}", blockTypeIdentifier);
+
+		int blockSize = readUint16(b);
+		dgBlock.setBlockSize(blockSize);
+		l.trace("blockSize = {}", blockSize);
+
+		long pointerToNextDGBlock = readUint32(b);
+		dgBlock.setPointerToNextDGBlock(pointerToNextDGBlock);
+		l.trace("pointerToNextDGBlock = {}", pointerToNextDGBlock);
+
+		long pointerToFirstCGBlock = readUint32(b);
+		dgBlock.setPointerToFirstCGBlock(pointerToFirstCGBlock);
+		l.trace("pointerToFirstCGBlock = {}", pointerToFirstCGBlock);
+
+		long pointerToTRBlock = readUint32(b);
+		dgBlock.setPointerToTRBlock(pointerToTRBlock);
+		l.trace("pointerToTRBlock = {}", pointerToTRBlock);
+
+		long pointerToDataBlock = readUint32(b);
+		dgBlock.setPointerToDataBlock(pointerToDataBlock);
+		l.trace("pointerToDGBlock = {}", pointerToDataBlock);
+
+		int numberOfChannelGroups = readUint16(b);
+		dgBlock.setNumberOfChannelGroups(numberOfChannelGroups);
+		l.trace("numberOfChannelGroups = {}", numberOfChannelGroups);
+
+		int numberOfRecordIDs = readUint16(b);
+		switch (numberOfRecordIDs) {
+		case 0:
+			dgBlock.setNumberOfRecordIDs(NumberOfRecordIDs.DATA_RECORDS_WITHOUT_RECORD_ID);
+			break;
+		case 1:
+			dgBlock.setNumberOfRecordIDs(NumberOfRecordIDs.RECORD_ID_BEFORE_EACH_DATA_RECORD);
+			break;
+		case 2:
+			dgBlock.setNumberOfRecordIDs(NumberOfRecordIDs.RECORD_ID_BEFORE_AND_AFTER_EACH_DATA_RECORD);
+			break;
+		default:
+			throw new IOException("Wrong number of record IDs (should be \"0\", \"1\" or \"2\", but was \""
+					+ numberOfRecordIDs + "\").");
+		}
+		l.trace("dgBlock.numberOfRecordIDs = {}", dgBlock.getNumberOfRecordIDs());
+
+		long reserved = readUint32(b);
+		dgBlock.setReserved(reserved);
+		l.trace("reserved = {}", reserved);
+
+		return dgBlock;
+	}
+
+	/**
+	 * <p>
+	 * Reads the CN chains of all CGs together with the CC and TX blocks of
+	 * the projected channels. Each CG is one task on the executor, the caller
+	 * waits for all of them.
+	 * </p>
+	 * 
+	 * @param dgBlocks
+	 *            DGBlocks with their CGBlocks
+	 * @throws IOException
+	 */
+	private void readCNBlocks(List<DGBlock> dgBlocks) throws IOException {
+		ArrayList<CGBlock> cgBlocks = new ArrayList<CGBlock>();
+		if (dgBlocks != null) {
+			for (DGBlock dgBlock : dgBlocks) {
+				if (dgBlock.getCgBlocks() != null) {
+					cgBlocks.addAll(dgBlock.getCgBlocks());
+				}
+			}
+		}
+
+		if (cgBlocks.size() <= 1) {
+			for (CGBlock cgBlock : cgBlocks) {
+				cgBlock.setCNBlocks(readCNChain(cgBlock));
+			}
+			return;
+		}
+
+		ArrayList<CompletableFuture<Void>> tasks = new ArrayList<CompletableFuture<Void>>();
+		for (CGBlock cgBlock : cgBlocks) {
+			tasks.add(CompletableFuture.runAsync(() -> {
+				try {
+					cgBlock.setCNBlocks(readCNChain(cgBlock));
+				} catch (IOException e) {
+					throw new UncheckedIOException(e);
+				}
+			}, executor));
+		}
+		try {
+			CompletableFuture.allOf(tasks.toArray(new CompletableFuture<?>[tasks.size()])).join();
+		} catch (CompletionException e) {
+			if (e.getCause() instanceof UncheckedIOException) {
+				throw ((UncheckedIOException) e.getCause()).getCause();
+			}
+			throw e;
+		}
+	}
+
+	/**
+	 * <p>
+	 * Reads the CN chain of a CG. Only channels matching the projection and
+	 * time channels are read with their CC and TX blocks.
+	 * </p>
+	 * 
+	 * @param cgBlock
+	 *            CGBlock
+	 * @return List of CNBlocks or {@code null} if there are none
+	 * @throws IOException
+	 */
+	private ArrayList<CNBlock> readCNChain(CGBlock cgBlock) throws IOException {
+		if (cgBlock.getPointerToFirstCNBlock() == 0) {
+			return null;
+		}
+		ArrayList<CNBlock> cnBlocks = new ArrayList<CNBlock>();
+		long pointer = cgBlock.getPointerToFirstCNBlock();
+		while (pointer != 0) {
+			CNBlock cnBlock = readCNBlock(block(pointer), 0, charset);
+			cnBlocks.add(cnBlock);
+			pointer = cnBlock.getPointerToNextCNBlock();
+
+			// channels outside the projection keep the fixed fields only
+			if (cnBlock.getChannelType() != ChannelType.TIME_CHANNEL && !projection.test(cnBlock)) {
+				cnBlock.setProjected(false);
+				l.trace("cnBlock.projected = false");
+				continue;
+			}
+
+			cnBlock.setCcBlock(cnBlock.getPointerToCCBlock() != 0 ? readCCBlock(block(cnBlock.getPointerToCCBlock()), 0)
+					: null);
+			cnBlock.setCeBlock(cnBlock.getPointerToCEBlock() != 0 ? readCEBlock(block(cnBlock.getPointerToCEBlock()), 0)
+					: null);
+			cnBlock.setCdBlock(cnBlock.getPointerToCDBlock() != 0 ? readCDBlock(block(cnBlock.getPointerToCDBlock()), 0)
+					: null);
+			cnBlock.setTxBlock(cnBlock.getPointerToTXBlock() != 0 ? readTXBlock(block(cnBlock.getPointerToTXBlock()), 0, charset)
+					: null);
+			cnBlock.setTxBlockLongSignalName(cnBlock.getPointerToTXBlockLongSignalName() != 0
+					? readTXBlock(block(cnBlock.getPointerToTXBlockLongSignalName()), 0, charset) : null);
+			cnBlock.setTxBlockDisplayName(cnBlock.getPointerToTXBlockDisplayName() != 0
+					? readTXBlock(block(cnBlock.getPointerToTXBlockDisplayName()), 0, charset) : null);
+		}
+		return cnBlocks;
+	}
+
+	/**
+	 * <p>
+	 * Returns the DGBlocks.
+	 * </p>
+	 * 
+	 * @return List of DGBlocks
+	 */
+	public ArrayList<DGBlock> getDGBlocks() {
+		return dgBlocks;
+	}
+
+	/**
+	 * <p>
+	 * Reads a trigger block.
+	 * </p>
+	 * 
+	 * @param source
+	 *            file content in the default byte order
+	 * @param offset
+	 *            position of the block
+	 * @return TRBlock without TXBlock
+	 * @throws IOException
+	 */
+	static TRBlock readTRBlock(ByteBuffer source, int offset) throws IOException {
+		ByteBuffer b = view(source, offset);
+		TRBlock trBlock = new TRBlock();
+
+		String blockTypeIdentifier = readChar(b, 2);
+		if (!blockTypeIdentifier.equals("TR")) {
+			throw new IOException(
+					"Wrong block type identifier (should be \"TR\", but was \"" + blockTypeIdentifier + "\").");
+		}
+		trBlock.setBlockTypeIdentifier(blockTypeIdentifier);
+		MDFMetrics.blockParsed(blockTypeIdentifier);
+		l.trace("blockTypeIdentifier = {}", blockTypeIdentifier);
+
+		int blockSize = readUint16(b);
+		trBlock.setBlockSize(blockSize);
+		l.trace("blockSize = {}", blockSize);
+
+		long pointerToTXBlock = readUint32(b);
+		trBlock.setPointerToTXBlock(pointerToTXBlock);
+		l.trace("pointerToTXBlock = {}", pointerToTXBlock);
+
+		int numberOfTriggerEvents = readUint16(b);
+		trBlock.setNumberOfTriggerEvents(numberOfTriggerEvents);
+		l.trace("numberOfTriggerEvents = {}", numberOfTriggerEvents);
+
+		if (b.remaining() < numberOfTriggerEvents * 24) {
+			throw new IOException("TRBlock with " + numberOfTriggerEvents + " trigger events exceeds the file.");
+		}
+		double[] triggerTimes = new double[numberOfTriggerEvents];
+		double[] preTriggerTimes = new double[numberOfTriggerEvents];
+		double[] postTriggerTimes = new double[numberOfTriggerEvents];
+		for (int i = 0; i < numberOfTriggerEvents; i++) {
+			triggerTimes[i] = readDouble(b);
+			preTriggerTimes[i] = readDouble(b);
+			postTriggerTimes[i] = readDouble(b);
+			l.trace("trigger {}: time = {}, pre = {}, post = {}", i, triggerTimes[i], preTriggerTimes[i],
+					postTriggerTimes[i]);
+		}
+		trBlock.setTriggerTimes(triggerTimes);
+		trBlock.setPreTriggerTimes(preTriggerTimes);
+		trBlock.setPostTriggerTimes(postTriggerTimes);
+
+		return trBlock;
+	}
+
+	/**
+	 * <p>
+	 * Reads a channel group block.
+	 * </p>
+	 * 
+	 * @param source
+	 *            file content in the default byte order
+	 * @param offset
+	 *            position of the block
+	 * @return CGBlock without CNBlocks
+	 * @throws IOException
+	 */
+	static CGBlock readCGBlock(ByteBuffer source, int offset) throws IOException {
+		ByteBuffer b = view(source, offset);
+		CGBlock cgBlock = new CGBlock();
+
+		String blockTypeIdentifier = readChar(b, 2);
+		if (!blockTypeIdentifier.equals("CG")) {
+			throw new IOException(
+					"Wrong block type identifier (should be \"CG\", but was \"" + blockTypeIdentifier + "\"");
+		}
+		cgBlock.setBlockTypeIdentifier(blockTypeIdentifier);
+		MDFMetrics.blockParsed(blockTypeIdentifier);
+		l.trace("blockTypeIdentifier = {}", blockTypeIdentifier);
+
+		int blockSize = readUint16(b);
+		cgBlock.setBlockSize(blockSize);
+		l.trace("blockSize = {}", blockSize);
+
+		long pointerToNextCGBlock = readUint32(b);
+		cgBlock.setPointerToNextCGBlock(pointerToNextCGBlock);
+		l.trace("pointerToNextCGBlock = {}", pointerToNextCGBlock);
+
+		long pointerToFirstCNBlock = readUint32(b);
+		cgBlock.setPointerToFirstCNBlock(pointerToFirstCNBlock);
+		l.trace("pointerToFirstCNBlock = {}", pointerToFirstCNBlock);
+
+		long pointerToTXBlock = readUint32(b);
+		cgBlock.setPointerToTXBlock(pointerToTXBlock);
+		l.trace("pointerToTXBlock = {}", pointerToTXBlock);
+
+		int recordID = readUint16(b);
+		cgBlock.setRecordID(recordID);
+		l.trace("recordID = {}", recordID);
+
+		int numberOfChannels = readUint16(b);
+		cgBlock.setNumberOfChannels(numberOfChannels);
+		l.trace("numberOfChannels = {}", numberOfChannels);
+
+		int sizeOfDataRecord = readUint16(b);
+		cgBlock.setSizeOfDataRecord(sizeOfDataRecord);
+		l.trace("sizeOfDataRecord = {}", sizeOfDataRecord);
+
+		long numberOfRecords = readUint32(b);
+		cgBlock.setNumberOfRecords(numberOfRecords);
+		l.trace("numberOfRecords = {}", numberOfRecords);
+
+		long pointerToFirstSRBlock = readUint32(b);
+		cgBlock.setPointerToFirstSRBlock(pointerToFirstSRBlock);
+		l.trace("pointerToFirstSRBlock = {}", pointerToFirstSRBlock);
+
+		return cgBlock;
+	}
+
+	/**
+	 * <p>
+	 * Walks the SR chain of a CG.
+	 * </p>
+	 * 
+	 * @param cgBlock
+	 *            CGBlock
+	 * @return List of SRBlocks or {@code null} if there are none
+	 * @throws IOException
+	 */
+	private ArrayList<SRBlock> readSRBlocks(CGBlock cgBlock) throws IOException {
+		if (cgBlock.getPointerToFirstSRBlock() == 0) {
+			return null;
+		}
+		ArrayList<SRBlock> srBlocks = new ArrayList<SRBlock>();
+		long pointer = cgBlock.getPointerToFirstSRBlock();
+		while (pointer != 0) {
+			SRBlock srBlock = readSRBlock(block(pointer), 0);
+			srBlocks.add(srBlock);
+			pointer = srBlock.getPointerToNextSRBlock();
+		}
+		return srBlocks;
+	}
+
+	/**
+	 * <p>
+	 * Reads a sample reduction block.
+	 * </p>
+	 * 
+	 * @param source
+	 *            file content in the default byte order
+	 * @param offset
+	 *            position of the block
+	 * @return SRBlock
+	 * @throws IOException
+	 */
+	static SRBlock readSRBlock(ByteBuffer source, int offset) throws IOException {
+		ByteBuffer b = view(source, offset);
+		SRBlock srBlock = new SRBlock();
+
+		String blockTypeIdentifier = readChar(b, 2);
+		if (!blockTypeIdentifier.equals("SR")) {
+			throw new IOException(
+					"Wrong block type identifier (should be \"SR\", but was \"" + blockTypeIdentifier + "\").");
+		}
+		srBlock.setBlockTypeIdentifier(blockTypeIdentifier);
+		MDFMetrics.blockParsed(blockTypeIdentifier);
+		l.trace("blockTypeIdentifier = {}", blockTypeIdentifier);
+
+		int blockSize = readUint16(b);
+		srBlock.setBlockSize(blockSize);
+		l.trace("blockSize = {}", blockSize);
+
+		long pointerToNextSRBlock = readUint32(b);
+		srBlock.setPointerToNextSRBlock(pointerToNextSRBlock);
+		l.trace("pointerToNextSRBlock = {}", pointerToNextSRBlock);
+
+		long pointerToDataBlock = readUint32(b);
+		srBlock.setPointerToDataBlock(pointerToDataBlock);
+		l.trace("pointerToDataBlock = {}", pointerToDataBlock);
+
+		long numberOfReducedSamples = readUint32(b);
+		srBlock.setNumberOfReducedSamples(numberOfReducedSamples);
+		l.trace("numberOfReducedSamples = {}", numberOfReducedSamples);
+
+		double timeIntervalLength = readDouble(b);
+		srBlock.setTimeIntervalLength(timeIntervalLength);
+		l.trace("timeIntervalLength = {}", timeIntervalLength);
+
+		return srBlock;
+	}
+
+	/**
+	 * <p>
+	 * Reads a channel block.
+	 * </p>
+	 * 
+	 * @param source
+	 *            file content in the default byte order
+	 * @param offset
+	 *            position of the block
+	 * @return CNBlock without CC, CE, CD and TX blocks
+	 * @throws IOException
+	 */
+	static CNBlock readCNBlock(ByteBuffer source, int offset) throws IOException {
+		return readCNBlock(source, offset, DEFAULT_CHARSET);
+	}
+
+	/**
+	 * <p>
+	 * Reads a channel block with text fields in {@code charset}.
+	 * </p>
+	 * 
+	 * @param source
+	 *            file content in the default byte order
+	 * @param offset
+	 *            position of the block
+	 * @param charset
+	 *            character set of the text fields
+	 * @return CNBlock without CC, CE, CD and TX blocks
+	 * @throws IOException
+	 */
+	static CNBlock readCNBlock(ByteBuffer source, int offset, Charset charset) throws IOException {
+		ByteBuffer b = view(source, offset);
+		CNBlock cnBlock = new CNBlock();
+
+		String blockTypeIdentifier = readChar(b, 2);
+		if (!blockTypeIdentifier.equals("CN")) {
+			throw new IOException(
+					"Wrong block type identifier (should be \"CN\", but was \"" + blockTypeIdentifier + "\").");
+		}
+		cnBlock.setBlockTypeIdentifier(blockTypeIdentifier);
+		MDFMetrics.blockParsed(blockTypeIdentifier);
+		l.trace("blockTypeIdentifier = {}", blockTypeIdentifier);
+
+		int blockSize = readUint16(b);
+		cnBlock.setBlockSize(blockSize);
+		l.trace("blockSize = {}", blockSize);
+
+		long pointerToNextCNBlock = readUint32(b);
+		cnBlock.setPointerToNextCNBlock(pointerToNextCNBlock);
+		l.trace("pointerToNextCNBlock = {}", pointerToNextCNBlock);
+
+		long pointerToCCBlock = readUint32(b);
+		cnBlock.setPointerToCCBlock(pointerToCCBlock);
+		l.trace("pointerToCCBlock = {}", pointerToCCBlock);
+
+		long pointerToCEBlock = readUint32(b);
+		cnBlock.setPointerToCEBlock(pointerToCEBlock);
+		l.trace("pointerToCEBlock = {}", pointerToCEBlock);
+
+		long pointerToCDBlock = readUint32(b);
+		cnBlock.setPointerToCDBlock(pointerToCDBlock);
+		l.trace("pointerToCDBlock = {}", pointerToCDBlock);
+
+		long pointerToTXBlock = readUint32(b);
+		cnBlock.setPointerToTXBlock(pointerToTXBlock);
+		l.trace("pointerToTXBlock = {}", pointerToTXBlock);
+
+		int channelType = readUint16(b);
+		if (channelType == 1) {
+			cnBlock.setChannelType(ChannelType.TIME_CHANNEL);
+		} else {
+			cnBlock.setChannelType(ChannelType.DATA_CHANNEL);
+		}
+		l.trace("cnBlock.channelType = {}", cnBlock.getChannelType());
+
+		BlockText shortSignalName = readText(source, b, 32, charset);
+		cnBlock.setShortSignalName(shortSignalName);
+		l.trace("shortSignalName = {}", shortSignalName);
+
+		BlockText signalDescription = readText(source, b, 128, charset);
+		cnBlock.setSignalDescription(signalDescription);
+		l.trace("signalDescription = \"{}\"", signalDescription);
+
+		int startOffsetInBits = readUint16(b);
+		cnBlock.setStartOffsetInBits(startOffsetInBits);
+		l.trace("startOffsetInBits = {}", startOffsetInBits);
+
+		int numberOfBits = readUint16(b);
+		cnBlock.setNumberOfBits(numberOfBits);
+		l.trace("numberOfBits = {}", numberOfBits);
+
+		int signalDataType = readUint16(b);
+		switch (signalDataType) {
+		case 0:
+			cnBlock.setSignalDataType(SignalDataType.UNSIGNED_INTEGER);
+			break;
+		case 1:
+			cnBlock.setSignalDataType(SignalDataType.SIGNED_INTEGER);
+			break;
+		case 2:
+			cnBlock.setSignalDataType(SignalDataType.IEEE_754_FLOATING_POINT_FORMAT_FLOAT);
+			break;
+		case 3:
+			cnBlock.setSignalDataType(SignalDataType.IEEE_754_FLOATING_POINT_FORMAT_DOUBLE);
+			break;
+		case 4:
+			cnBlock.setSignalDataType(SignalDataType.VAX_FLOATING_POINT_FORMAT_F_FLOAT);
+			break;
+		case 5:
+			cnBlock.setSignalDataType(SignalDataType.VAX_FLOATING_POINT_FORMAT_G_FLOAT);
+			break;
+		case 6:
+			cnBlock.setSignalDataType(SignalDataType.VAX_FLOATING_POINT_FORMAT_D_FLOAT);
+			break;
+		case 7:
+			cnBlock.setSignalDataType(SignalDataType.STRING);
+			break;
+		case 8:
+			cnBlock.setSignalDataType(SignalDataType.BYTE_ARRAY);
+			break;
+		case 9:
+			cnBlock.setSignalDataType(SignalDataType.UNSIGNED_INTEGER_BIG_ENDIAN);
+			break;
+		case 10:
+			cnBlock.setSignalDataType(SignalDataType.SIGNED_INTEGER_BIG_ENDIAN);
+			break;
+		case 11:
+			cnBlock.setSignalDataType(SignalDataType.IEEE_754_FLOATING_POINT_FORMAT_FLOAT_BIG_ENDIAN);
+			break;
+		case 12:
+			cnBlock.setSignalDataType(SignalDataType.IEEE_754_FLOATING_POINT_FORMAT_DOUBLE_BIG_ENDIAN);
+			break;
+		case 13:
+			cnBlock.setSignalDataType(SignalDataType.UNSIGNED_INTEGER_LITTLE_ENDIAN);
+			break;
+		case 14:
+			cnBlock.setSignalDataType(SignalDataType.SIGNED_INTEGER_LITTLE_ENDIAN);
+			break;
+		case 15:
+			cnBlock.setSignalDataType(SignalDataType.IEEE_754_FLOATING_POINT_FORMAT_FLOAT_LITTLE_ENDIAN);
+			break;
+		case 16:
+			cnBlock.setSignalDataType(SignalDataType.IEEE_754_FLOATING_POINT_FORMAT_DOUBLE_LITTLE_ENDIAN);
+			break;
+		default:
+			throw new IOException(
+					"Wrong signal data type (should be between 0 (inclusive) and 17 (exclusive), but was \""
+							+ signalDataType + "\").");
+		}
+		l.trace("cnBlock.signalDataType = {}", cnBlock.getSignalDataType());
+
+		boolean valueRangeValid;
+		valueRangeValid = readUint16(b) > 0;
+		cnBlock.setValueRangeValid(valueRangeValid);
+		l.trace("valueRangeValid = {}", valueRangeValid);
+
+		double minimumSignalValue = readDouble(b);
+		cnBlock.setMinimumSignalValue(minimumSignalValue);
+		l.trace("minimumSignalValue = {}", minimumSignalValue);
+
+		double maximumSignalValue = readDouble(b);
+		cnBlock.setMaximumSignalValue(maximumSignalValue);
+		l.trace("maximumSignalValue = {}", maximumSignalValue);
+
+		double samplingRate = readDouble(b);
+		cnBlock.setSamplingRate(samplingRate);
+		l.trace("samplingRate = {}", samplingRate);
+
+		long pointerToTXBlockLongSignalName = readUint32(b);
+		cnBlock.setPointerToTXBlockLongSignalName(pointerToTXBlockLongSignalName);
+		l.trace("pointerToTXBlockLongSignalName = {}", pointerToTXBlockLongSignalName);
+
+		long pointerToTXBlockDisplayName = readUint32(b);
+		cnBlock.setPointerToTXBlockDisplayName(pointerToTXBlockDisplayName);
+		l.trace("pointerToTXBlockDisplayName = {}", pointerToTXBlockDisplayName);
+
+		int additionalByteOffset = readUint16(b);
+		cnBlock.setAdditionalByteOffset(additionalByteOffset);
+		l.trace("additionalByteOffset = {}", additionalByteOffset);
+
+		return cnBlock;
+	}
+
+	/**
+	 * <p>
+	 * Reads a channel conversion block.
+	 * </p>
+	 * 
+	 * @param source
+	 *            file content in the default byte order
+	 * @param offset
+	 *            position of the block
+	 * @return CCBlock
+	 * @throws IOException
+	 */
+	static CCBlock readCCBlock(ByteBuffer source, int offset) throws IOException {
+		ByteBuffer b = view(source, offset);
+		CCBlock result = null;
+
+		String blockTypeIdentifier = readChar(b, 2);
+		if (!blockTypeIdentifier.equals("CC")) {
+			throw new IOException(
+					"Wrong block type identifier (should be \"CC\", but was \"" + blockTypeIdentifier + "\").");
+		}
+		l.trace("blockTypeIdentifier = {}", blockTypeIdentifier);
+		MDFMetrics.blockParsed(blockTypeIdentifier);
+
+		int blockSize = readUint16(b);
+		l.trace("blockSize = {}", blockSize);
+
+		boolean physicalValueRangeValid = readUint16(b) > 0;
+		l.trace("physicalValueRangeValid = {}", physicalValueRangeValid);
+
+		double minimumPhysicalSignalValue = readDouble(b);
+		l.trace("minimumPhysicalSignalValue = {}", minimumPhysicalSignalValue);
+
+		double maximumPhysicalSignalValue = readDouble(b);
+		l.trace("maximumPhysicalSignalvalue = {}", maximumPhysicalSignalValue);
+
+		String physicalUnit = readChar(b, 20);
+		l.trace("physicalUnit = \"{}\"", physicalUnit);
+
+		int conversionType = readUint16(b);
+		l.trace("conversionType = {}", conversionType);
+
+		int sizeInformation = readUint16(b);
+		l.trace("sizeInformation = {}", sizeInformation);
+
+		switch (conversionType) {
+		case 0:
+			if (sizeInformation == 2) {
+				result = new CCBlockLinear2Parameters();
+
+				double p1 = readDouble(b);
+				((CCBlockLinear2Parameters) result).setP1(p1);
+				l.trace("p1 = {}", p1);
+
+				double p2 = readDouble(b);
+				((CCBlockLinear2Parameters) result).setP2(p2);
+				l.trace("p2 = {}", p2);
+			} else {
+				throw new IOException("Wrong size information (" + sizeInformation + "). Not implemented yet.");
+			}
+			result.setConversionType(ConversionType.PARAMETRIC_LINEAR);
+			break;
+		case 65535:
+			result = new CCBlockOneToOne();
+			result.setConversionType(ConversionType.ONE_TO_ONE_FORMULA);
+			break;
+		default:
+			throw new IOException("Wrong conversion type (" + conversionType + "). Not implemented yet.");
+		}
+
+		result.setBlockTypeIdentifier(blockTypeIdentifier);
+		result.setBlockSize(blockSize);
+		result.setPhysicalValueRangeValid(physicalValueRangeValid);
+		result.setMinimumPhysicalSignalValue(minimumPhysicalSignalValue);
+		result.setMaximumPhysicalSignalValue(maximumPhysicalSignalValue);
+		result.setPhysicalUnit(physicalUnit);
+		result.setSizeInformation(sizeInformation);
+
+		return result;
+	}
+
+	static CEBlock readCEBlock(ByteBuffer source, int offset) throws IOException {
+		throw new IOException("Not implemented yet.");
+	}
+
+	static CDBlock readCDBlock(ByteBuffer source, int offset) throws IOException {
+		throw new IOException("Not implemented yet.");
+	}
+
+	/**
+	 * <p>
+	 * Creates a private view of {@code source} positioned at {@code offset}.
+	 * The view keeps the byte order of {@code source}.
+	 * </p>
+	 * 
+	 * @param source
+	 *            file content
+	 * @param offset
+	 *            position to start reading
+	 * @return view of the file content
+	 * @throws IOException
+	 *             if {@code offset} is outside of the file content
+	 */
+	private static ByteBuffer view(ByteBuffer source, int offset) throws IOException {
+		if (offset < 0 || offset >= source.limit()) {
+			throw new IOException("Block position " + offset + " is outside of the file (" + source.limit() + ").");
+		}
+		ByteBuffer b = source.duplicate().order(source.order());
+		b.position(offset);
+		return b;
+	}
+
+	/**
+	 * <p>
+	 * Reads one or more chars with {@code count} given bytes.
+	 * </p>
+	 * 
+	 * @param b
+	 *            view to read from
+	 * @param count
+	 *            number of bytes to read
+	 * @return chars read
+	 */
+	private static String readChar(ByteBuffer b, int count) {
+		byte[] result = new byte[count];
+		b.get(result);
+		return new String(result, StandardCharsets.ISO_8859_1);
+	}
+
+	/**
+	 * <p>
+	 * Skips a text field of {@code count} bytes, which is decoded on access.
+	 * </p>
+	 * 
+	 * @param source
+	 *            file content, kept by the text
+	 * @param b
+	 *            view to read from
+	 * @param count
+	 *            number of bytes of the field
+	 * @param charset
+	 *            character set of the field
+	 * @return text of the field
+	 */
+	private static BlockText readText(ByteBuffer source, ByteBuffer b, int count, Charset charset) {
+		BlockText text = BlockText.of(source, b.position(), count, charset);
+		b.position(b.position() + count);
+		return text;
+	}
+
+	/**
+	 * <p>
+	 * Returns the character set of a code page of the IDBlock, e. g.
+	 * windows-1252 for 1252. Files without code page (0) or with an unknown
+	 * code page are read as ISO 8859-1.
+	 * </p>
+	 * 
+	 * @param codePage
+	 *            code page number
+	 * @return character set
+	 */
+	static Charset charset(int codePage) {
+		if (codePage == 0) {
+			return DEFAULT_CHARSET;
+		}
+		if (codePage == 65001) {
+			return StandardCharsets.UTF_8;
+		}
+		for (String name : new String[] { "windows-" + codePage, "x-windows-" + codePage, "MS" + codePage,
+				"IBM" + codePage, "x-IBM" + codePage }) {
+			try {
+				if (Charset.isSupported(name)) {
+					return Charset.forName(name);
+				}
+			} catch (IllegalArgumentException e) {
+				// illegal name, try the next one
+			}
+		}
+		return DEFAULT_CHARSET;
+	}
+
+	/**
+	 * <p>
+	 * Reads a uint16 in the byte order of the view.
+	 * </p>
+	 * 
+	 * @param b
+	 *            view to read from
+	 * @return uint16
+	 */
+	private static int readUint16(ByteBuffer b) {
+		return b.getShort() & 0xFFFF;
+	}
+
+	/**
+	 * <p>
+	 * Reads a sint16 in the byte order of the view.
+	 * </p>
+	 * 
+	 * @param b
+	 *            view to read from
+	 * @return sint16
+	 */
+	private static short readSint16(ByteBuffer b) {
+		return b.getShort();
+	}
+
+	/**
+	 * <p>
+	 * Reads a uint32 in the byte order of the view.
+	 * </p>
+	 * 
+	 * @param b
+	 *            view to read from
+	 * @return uint32
+	 */
+	private static long readUint32(ByteBuffer b) {
+		return b.getInt() & 0xFFFFFFFFL;
+	}
+
+	/**
+	 * <p>
+	 * Reads a uint64 in the byte order of the view.
+	 * </p>
+	 * 
+	 * @param b
+	 *            view to read from
+	 * @return uint64
+	 */
+	private static BigInteger readUint64(ByteBuffer b) {
+		long value = b.getLong();
+		BigInteger result = BigInteger.valueOf(value & Long.MAX_VALUE);
+		return value < 0 ? result.setBit(63) : result;
+	}
+
+	/**
+	 * <p>
+	 * Reads a double in the byte order of the view.
+	 * </p>
+	 * 
+	 * @param b
+	 *            view to read from
+	 * @return double
+	 */
+	private static double readDouble(ByteBuffer b) {
+		return b.getDouble();
+	}
+
+}
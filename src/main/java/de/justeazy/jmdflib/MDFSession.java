@@ -0,0 +1,437 @@
+package de.justeazy.jmdflib;
+
+import java.io.File;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.LinkedList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.Executor;
+import java.util.function.Predicate;
+
+import de.justeazy.jmdflib.blocktypes.CGBlock;
+import de.justeazy.jmdflib.blocktypes.CNBlock;
+import de.justeazy.jmdflib.blocktypes.DGBlock;
+
+/**
+ * <p>
+ * Measurement session recorded into several MDF files, e. g. by a logger
+ * splitting a drive into chunks.
+ * </p>
+ *
+ * <p>
+ * The files are treated as one recording: channels are addressed by name and
+ * their records by a global index over all files, in the given order. All
+ * files must have the same channel layout as the first one. A file is only
+ * opened (see {@link MDFFile#open(File, Predicate, Executor)}) when a query
+ * touches it. Time range queries search the files by the time of their first
+ * record, so they open only a few files besides the ones holding the range;
+ * this requires the files to be in chronological order. Queries by global
+ * index open all files up to the last requested record to count their
+ * records.
+ * </p>
+ *
+ * <p>
+ * A session is thread-safe.
+ * </p>
+ *
+ * @author Henrik Peters <henrik.peters@tu-clausthal.de>
+ */
+public final class MDFSession {
+
+	private final List<File> files;
+
+	private final Predicate<CNBlock> projection;
+
+	private final Executor executor;
+
+	/**
+	 * Opened files, {@code null} until they are touched, guarded by the
+	 * session
+	 */
+	private final MDFFile[] opened;
+
+	/**
+	 * Number of records per file by channel group, -1 until the file is
+	 * opened, guarded by the session
+	 */
+	private final Map<String, long[]> numberOfRecords = new HashMap<String, long[]>();
+
+	private MDFSession(List<File> files, Predicate<CNBlock> projection, Executor executor) {
+		this.files = Collections.unmodifiableList(new ArrayList<File>(files));
+		this.projection = projection;
+		this.executor = executor;
+		this.opened = new MDFFile[files.size()];
+	}
+
+	/**
+	 * <p>
+	 * Creates a session of MDF files without opening them.
+	 * </p>
+	 *
+	 * @param files
+	 *            MDF files in chronological order
+	 * @return session
+	 */
+	public static MDFSession open(List<File> files) {
+		return open(files, ChannelProjection.all());
+	}
+
+	/**
+	 * <p>
+	 * Creates a session of MDF files without opening them. The files will be
+	 * opened with the given projection (see {@link ChannelProjection}).
+	 * </p>
+	 *
+	 * @param files
+	 *            MDF files in chronological order
+	 * @param projection
+	 *            channels to read completely
+	 * @return session
+	 */
+	public static MDFSession open(List<File> files, Predicate<CNBlock> projection) {
+		return open(files, projection, MDFParser.DEFAULT_EXECUTOR);
+	}
+
+	/**
+	 * <p>
+	 * Creates a session of MDF files without opening them, like
+	 * {@link #open(List, Predicate)}.
+	 * </p>
+	 *
+	 * @param files
+	 *            MDF files in chronological order
+	 * @param projection
+	 *            channels to read completely
+	 * @param executor
+	 *            executor used by the opened files
+	 * @return session
+	 */
+	public static MDFSession open(List<File> files, Predicate<CNBlock> projection, Executor executor) {
+		if (files.isEmpty()) {
+			throw new IllegalArgumentException("Session without files.");
+		}
+		return new MDFSession(files, projection, executor);
+	}
+
+	/**
+	 * <p>
+	 * Returns the files of the session.
+	 * </p>
+	 *
+	 * @return unmodifiable list of files
+	 */
+	public List<File> getFiles() {
+		return files;
+	}
+
+	/**
+	 * <p>
+	 * Returns an opened file of the session, opening it if it was not touched
+	 * before.
+	 * </p>
+	 *
+	 * @param index
+	 *            index of the file
+	 * @return opened file
+	 * @throws IOException
+	 *             if the file cannot be opened or its channel layout differs
+	 *             from the one of the first file
+	 */
+	public synchronized MDFFile getFile(int index) throws IOException {
+		if (opened[index] == null) {
+			MDFFile file = MDFFile.open(files.get(index), projection, executor);
+			if (index > 0) {
+				checkLayout(getFile(0), file);
+			}
+			opened[index] = file;
+		}
+		return opened[index];
+	}
+
+	synchronized boolean isOpened(int index) {
+		return opened[index] != null;
+	}
+
+	private static void checkLayout(MDFFile first, MDFFile file) throws IOException {
+		boolean matches = first.getDGBlocks().size() == file.getDGBlocks().size();
+		for (int d = 0; matches && d < first.getDGBlocks().size(); d++) {
+			List<CGBlock> expected = cgBlocks(first.getDGBlocks().get(d));
+			List<CGBlock> actual = cgBlocks(file.getDGBlocks().get(d));
+			matches = expected.size() == actual.size();
+			for (int c = 0; matches && c < expected.size(); c++) {
+				matches = expected.get(c).getSizeOfDataRecord() == actual.get(c).getSizeOfDataRecord()
+						&& names(expected.get(c)).equals(names(actual.get(c)));
+			}
+		}
+		if (!matches) {
+			throw new IOException("Channel layout of " + file.getFile() + " does not match the layout of "
+					+ first.getFile() + ".");
+		}
+	}
+
+	private static List<CGBlock> cgBlocks(DGBlock dgBlock) {
+		return dgBlock.getCgBlocks() == null ? Collections.<CGBlock> emptyList() : dgBlock.getCgBlocks();
+	}
+
+	private static List<String> names(CGBlock cgBlock) {
+		ArrayList<String> result = new ArrayList<String>();
+		if (cgBlock.getCNBlocks() != null) {
+			for (CNBlock cnBlock : cgBlock.getCNBlocks()) {
+				result.add(cnBlock.getShortSignalNameText().intern());
+			}
+		}
+		return result;
+	}
+
+	/**
+	 * <p>
+	 * Position of a channel in the channel layout.
+	 * </p>
+	 */
+	private static class Location {
+
+		final int dataGroup;
+
+		final int channelGroup;
+
+		final int channel;
+
+		Location(int dataGroup, int channelGroup, int channel) {
+			this.dataGroup = dataGroup;
+			this.channelGroup = channelGroup;
+			this.channel = channel;
+		}
+
+		DGBlock getDGBlock(MDFFile file) {
+			return file.getDGBlocks().get(dataGroup);
+		}
+
+		CGBlock getCGBlock(MDFFile file) {
+			return getDGBlock(file).getCgBlocks().get(channelGroup);
+		}
+
+		CNBlock getCNBlock(MDFFile file) {
+			return getCGBlock(file).getCNBlocks().get(channel);
+		}
+
+		CNBlock getTimeChannel(MDFFile file) throws IOException {
+			CNBlock timeChannel = getCGBlock(file).getTimeChannel();
+			if (timeChannel == null) {
+				throw new IOException("Channel group without time channel.");
+			}
+			return timeChannel;
+		}
+
+		String getKey() {
+			return dataGroup + "/" + channelGroup;
+		}
+
+	}
+
+	private Location locate(String name) throws IOException {
+		MDFFile file = getFile(0);
+		for (int d = 0; d < file.getDGBlocks().size(); d++) {
+			List<CGBlock> cgBlocks = cgBlocks(file.getDGBlocks().get(d));
+			for (int c = 0; c < cgBlocks.size(); c++) {
+				int n = names(cgBlocks.get(c)).indexOf(name);
+				if (n >= 0) {
+					return new Location(d, c, n);
+				}
+			}
+		}
+		throw new IllegalArgumentException("Channel " + name + " does not exist in " + files.get(0) + ".");
+	}
+
+	private synchronized long getNumberOfRecords(Location location, int index) throws IOException {
+		long[] counts = numberOfRecords.get(location.getKey());
+		if (counts == null) {
+			counts = new long[files.size()];
+			Arrays.fill(counts, -1);
+			numberOfRecords.put(location.getKey(), counts);
+		}
+		if (counts[index] < 0) {
+			counts[index] = location.getCGBlock(getFile(index)).getNumberOfRecords();
+		}
+		return counts[index];
+	}
+
+	/**
+	 * <p>
+	 * Returns the number of records of a channel in all files. All files are
+	 * opened.
+	 * </p>
+	 *
+	 * @param channel
+	 *            name of the channel
+	 * @return number of records
+	 * @throws IOException
+	 *             if a file cannot be opened
+	 */
+	public long getNumberOfRecords(String channel) throws IOException {
+		return getFirstRecord(channel, files.size());
+	}
+
+	/**
+	 * <p>
+	 * Returns the global index of the first record of a channel in a file,
+	 * i. e. the number of records in the files before it.
+	 * </p>
+	 *
+	 * @param channel
+	 *            name of the channel
+	 * @param index
+	 *            index of the file, the number of files for the total number
+	 *            of records
+	 * @return global index of the first record
+	 * @throws IOException
+	 *             if a file cannot be opened
+	 */
+	public long getFirstRecord(String channel, int index) throws IOException {
+		Location location = locate(channel);
+		long result = 0;
+		for (int i = 0; i < index; i++) {
+			result += getNumberOfRecords(location, i);
+		}
+		return result;
+	}
+
+	/**
+	 * <p>
+	 * Reads the physical values of a channel in all files.
+	 * </p>
+	 *
+	 * @param channel
+	 *            name of the channel
+	 * @return physical values, one per record
+	 * @throws IOException
+	 *             if a file cannot be opened or the channel cannot be decoded
+	 */
+	public double[] readChannel(String channel) throws IOException {
+		return readChannel(channel, 0, getNumberOfRecords(channel));
+	}
+
+	/**
+	 * <p>
+	 * Reads the physical values of the records {@code from} (inclusive) to
+	 * {@code to} (exclusive) of a channel, counted over all files.
+	 * </p>
+	 *
+	 * @param channel
+	 *            name of the channel
+	 * @param from
+	 *            global index of the first record
+	 * @param to
+	 *            global index after the last record
+	 * @return physical values, one per record
+	 * @throws IOException
+	 *             if a file cannot be opened or the channel cannot be decoded
+	 */
+	public double[] readChannel(String channel, long from, long to) throws IOException {
+		if (from < 0 || to < from || to - from > Integer.MAX_VALUE) {
+			throw new IllegalArgumentException("Wrong records " + from + " to " + to + ".");
+		}
+		Location location = locate(channel);
+		double[] result = new double[(int) (to - from)];
+		long first = 0;
+		for (int i = 0; i < files.size() && first < to; i++) {
+			long count = getNumberOfRecords(location, i);
+			long start = Math.max(from, first);
+			long end = Math.min(to, first + count);
+			if (start < end) {
+				MDFFile file = getFile(i);
+				double[] values = file.readRecords(location.getDGBlock(file), location.getCGBlock(file),
+						location.getCNBlock(file), (int) (start - first), (int) (end - first));
+				System.arraycopy(values, 0, result, (int) (start - from), values.length);
+			}
+			first += count;
+		}
+		if (first < to) {
+			throw new IllegalArgumentException("Records " + from + " to " + to + " exceed the session (" + first
+					+ " records).");
+		}
+		return result;
+	}
+
+	/**
+	 * <p>
+	 * Reads the physical values of a channel between {@code start} and
+	 * {@code end} (both inclusive) in all files. Only the files holding the
+	 * time range and the files visited by a binary search on the times of
+	 * their first records are opened. Files without records of the channel
+	 * group are skipped by the search.
+	 * </p>
+	 *
+	 * @param channel
+	 *            name of the channel
+	 * @param start
+	 *            first time in seconds
+	 * @param end
+	 *            last time in seconds
+	 * @return physical values, one per record in the time range
+	 * @throws IOException
+	 *             if a file cannot be opened, the channel group has no time
+	 *             channel or the channel cannot be decoded
+	 */
+	public double[] readChannel(String channel, double start, double end) throws IOException {
+		Location location = locate(channel);
+
+		// first file starting after the time range, files without records
+		// are skipped as they have no first time
+		int low = 0;
+		int high = files.size();
+		while (low < high) {
+			int middle = (low + high) >>> 1;
+			int nonEmpty = middle;
+			while (nonEmpty < high && getNumberOfRecords(location, nonEmpty) == 0) {
+				nonEmpty++;
+			}
+			if (nonEmpty < high && getFirstTime(location, nonEmpty) <= end) {
+				low = nonEmpty + 1;
+			} else {
+				high = middle;
+			}
+		}
+
+		LinkedList<double[]> parts = new LinkedList<double[]>();
+		int length = 0;
+		for (int i = low - 1; i >= 0; i--) {
+			long count = getNumberOfRecords(location, i);
+			if (count == 0) {
+				continue;
+			}
+			MDFFile file = getFile(i);
+			DGBlock dgBlock = location.getDGBlock(file);
+			CGBlock cgBlock = location.getCGBlock(file);
+			if (file.readRecord(dgBlock, cgBlock, location.getTimeChannel(file), (int) count - 1) < start) {
+				break;
+			}
+			double[] values = file.readChannel(dgBlock, cgBlock, location.getCNBlock(file), start, end);
+			parts.addFirst(values);
+			length += values.length;
+		}
+
+		double[] result = new double[length];
+		int offset = 0;
+		for (double[] part : parts) {
+			System.arraycopy(part, 0, result, offset, part.length);
+			offset += part.length;
+		}
+		return result;
+	}
+
+	/**
+	 * <p>
+	 * Returns the time of the first record of a file with records.
+	 * </p>
+	 */
+	private double getFirstTime(Location location, int index) throws IOException {
+		MDFFile file = getFile(index);
+		return file.readRecord(location.getDGBlock(file), location.getCGBlock(file), location.getTimeChannel(file),
+				0);
+	}
+
+}
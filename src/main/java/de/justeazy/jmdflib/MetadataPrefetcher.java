@@ -0,0 +1,349 @@
+package de.justeazy.jmdflib;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.charset.Charset;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.function.Predicate;
+
+import de.justeazy.jmdflib.blocktypes.CGBlock;
+import de.justeazy.jmdflib.blocktypes.CNBlock;
+import de.justeazy.jmdflib.blocktypes.DGBlock;
+import de.justeazy.jmdflib.blocktypes.HDBlock;
+import de.justeazy.jmdflib.blocktypes.IDBlock;
+import de.justeazy.jmdflib.blocktypes.SRBlock;
+import de.justeazy.jmdflib.blocktypes.TRBlock;
+import de.justeazy.jmdflib.enums.ChannelType;
+import de.justeazy.jmdflib.source.DataSource;
+
+/**
+ * <p>
+ * Reads the blocks of a MDF 3.x file needed by {@link MDFParser} from a
+ * {@link DataSource} by a few large reads instead of one read per block.
+ * </p>
+ *
+ * <p>
+ * The blocks are collected breadth-first: every block whose bytes are
+ * already read is decoded at once and the blocks it points to are added to
+ * the pending blocks. When no pending block can be decoded, the ranges of
+ * all pending blocks are sorted by their position, ranges less than the
+ * maximum gap apart are merged, and each merged range is extended by the
+ * read-ahead size before it is read, so the next blocks of a chain are
+ * usually read with their predecessors. The data blocks are not read.
+ * </p>
+ *
+ * <p>
+ * Only the ranges read are kept, in a {@link PrefetchedContent} by their
+ * positions in the file, so the parser can follow the pointers as in a
+ * mapped file while the memory needed is about the size of the blocks.
+ * MDF 4.x files are read completely.
+ * </p>
+ *
+ * @author Henrik Peters <henrik.peters@tu-clausthal.de>
+ */
+class MetadataPrefetcher {
+
+	/**
+	 * Default largest gap between two blocks read by one read
+	 */
+	final static int DEFAULT_MAXIMUM_GAP = 16 << 10;
+
+	/**
+	 * Default number of bytes read after the last block of a range
+	 */
+	final static int DEFAULT_READ_AHEAD = 64 << 10;
+
+	private enum Type {
+
+		ID(64), HD(208), TX(64), PR(64), DG(28), TR(64), CG(30), SR(40), CN(228), CC(128);
+
+		/**
+		 * Bytes read before the size of the block is known
+		 */
+		final int guess;
+
+		Type(int guess) {
+			this.guess = guess;
+		}
+
+	}
+
+	private static class Pending {
+
+		final long pointer;
+
+		final Type type;
+
+		Pending(long pointer, Type type) {
+			this.pointer = pointer;
+			this.type = type;
+		}
+
+	}
+
+	private final DataSource source;
+
+	private final Predicate<CNBlock> projection;
+
+	private final int maximumGap;
+
+	private final int readAhead;
+
+	/**
+	 * Positions of the decoded blocks, against cycles of pointers
+	 */
+	private final HashSet<Long> decoded = new HashSet<Long>();
+
+	private PrefetchedContent content;
+
+	/**
+	 * Byte order of the file, known after the IDBlock is decoded
+	 */
+	private ByteOrder byteOrder = ByteOrder.LITTLE_ENDIAN;
+
+	/**
+	 * Character set of the code page of the IDBlock, used like
+	 * {@link MDFParser} for the names tested by the projection
+	 */
+	private Charset charset = MDFParser.DEFAULT_CHARSET;
+
+	private int numberOfReads;
+
+	private long bytesRead;
+
+	private boolean complete;
+
+	/**
+	 * <p>
+	 * Creates a prefetcher with the default gap and read-ahead sizes.
+	 * </p>
+	 *
+	 * @param source
+	 *            source of the file
+	 * @param projection
+	 *            channels read completely by the parser
+	 */
+	MetadataPrefetcher(DataSource source, Predicate<CNBlock> projection) {
+		this(source, projection, DEFAULT_MAXIMUM_GAP, DEFAULT_READ_AHEAD);
+	}
+
+	/**
+	 * <p>
+	 * Creates a prefetcher.
+	 * </p>
+	 *
+	 * @param source
+	 *            source of the file
+	 * @param projection
+	 *            channels read completely by the parser
+	 * @param maximumGap
+	 *            largest gap between two blocks read by one read
+	 * @param readAhead
+	 *            number of bytes read after the last block of a range
+	 */
+	MetadataPrefetcher(DataSource source, Predicate<CNBlock> projection, int maximumGap, int readAhead) {
+		this.source = source;
+		this.projection = projection;
+		this.maximumGap = maximumGap;
+		this.readAhead = readAhead;
+	}
+
+	/**
+	 * <p>
+	 * Reads all blocks needed to parse the file.
+	 * </p>
+	 *
+	 * @return ranges holding these blocks
+	 * @throws IOException
+	 *             if the source cannot be read, is too large or a block
+	 *             cannot be decoded
+	 */
+	PrefetchedContent prefetch() throws IOException {
+		long size = source.size();
+		if (size >= Integer.MAX_VALUE) {
+			throw new IOException("File too large.");
+		}
+		content = new PrefetchedContent(size);
+
+		ArrayDeque<Pending> pending = new ArrayDeque<Pending>();
+		pending.add(new Pending(0, Type.ID));
+		while (!pending.isEmpty()) {
+			ArrayList<Pending> waiting = new ArrayList<Pending>();
+			while (!pending.isEmpty()) {
+				Pending block = pending.poll();
+				if (block.pointer >= size) {
+					throw new IOException("Block position " + block.pointer + " is outside of the file (" + size
+							+ ").");
+				}
+				if (content.isRead(block.pointer, end(block))) {
+					if (decoded.add(block.pointer)) {
+						decode(block, pending);
+					}
+					if (complete) {
+						return content;
+					}
+				} else {
+					waiting.add(block);
+				}
+			}
+			if (!waiting.isEmpty()) {
+				fetch(waiting, size);
+				pending.addAll(waiting);
+			}
+		}
+		content.trim();
+		return content;
+	}
+
+	/**
+	 * @return end of the block if its size is known, end of the guessed
+	 *         range otherwise
+	 */
+	private long end(Pending block) throws IOException {
+		long end;
+		if (block.type == Type.ID) {
+			end = 64;
+		} else if (content.isRead(block.pointer, block.pointer + 4)) {
+			int size = content.at(block.pointer).order(byteOrder).getShort(2) & 0xFFFF;
+			// the parser reads the fixed fields of these blocks in any case
+			boolean fixed = block.type == Type.DG || block.type == Type.CG || block.type == Type.CN;
+			end = block.pointer + (fixed ? Math.max(size, block.type.guess) : Math.max(4, size));
+		} else {
+			end = block.pointer + block.type.guess;
+		}
+		return Math.min(content.size(), end);
+	}
+
+	/**
+	 * <p>
+	 * Reads the ranges of the waiting blocks, merging ranges less than the
+	 * maximum gap apart.
+	 * </p>
+	 */
+	private void fetch(ArrayList<Pending> waiting, long size) throws IOException {
+		waiting.sort((a, b) -> Long.compare(a.pointer, b.pointer));
+		long from = -1;
+		long to = -1;
+		for (Pending block : waiting) {
+			long end = end(block);
+			if (from >= 0 && block.pointer <= to + maximumGap) {
+				to = Math.max(to, end);
+				continue;
+			}
+			if (from >= 0) {
+				read(from, Math.min(size, to + readAhead));
+			}
+			from = block.pointer;
+			to = end;
+		}
+		read(from, Math.min(size, to + readAhead));
+	}
+
+	private void read(long from, long to) throws IOException {
+		long bytes = content.read(source, from, to);
+		if (bytes > 0) {
+			bytesRead += bytes;
+			numberOfReads++;
+		}
+	}
+
+	/**
+	 * <p>
+	 * Decodes a block that is read completely and adds the blocks it points
+	 * to, like {@link MDFParser#parse()} follows them.
+	 * </p>
+	 */
+	private void decode(Pending block, ArrayDeque<Pending> pending) throws IOException {
+		switch (block.type) {
+		case ID:
+			if (MDFParser.readIDBlock(content.at(0), false).getVersionNumber() >= 400) {
+				read(0, content.size());
+				complete = true;
+				return;
+			}
+			IDBlock idBlock = MDFParser.readIDBlock(content.at(0), true);
+			byteOrder = idBlock.getDefaultByteOrder() == null ? ByteOrder.LITTLE_ENDIAN
+					: idBlock.getDefaultByteOrder();
+			charset = MDFParser.charset(idBlock.getCodePage());
+			add(pending, 64, Type.HD);
+			break;
+		case HD:
+			HDBlock hdBlock = MDFParser.readHDBlock(block(64), 0, charset);
+			add(pending, hdBlock.getPointerToTXBlock(), Type.TX);
+			add(pending, hdBlock.getPointerToPRBlock(), Type.PR);
+			add(pending, hdBlock.getPointerToFirstDGBlock(), Type.DG);
+			break;
+		case DG:
+			DGBlock dgBlock = MDFParser.readDGBlock(block(block.pointer), 0);
+			add(pending, dgBlock.getPointerToNextDGBlock(), Type.DG);
+			add(pending, dgBlock.getPointerToTRBlock(), Type.TR);
+			add(pending, dgBlock.getPointerToFirstCGBlock(), Type.CG);
+			break;
+		case TR:
+			TRBlock trBlock = MDFParser.readTRBlock(block(block.pointer), 0);
+			add(pending, trBlock.getPointerToTXBlock(), Type.TX);
+			break;
+		case CG:
+			CGBlock cgBlock = MDFParser.readCGBlock(block(block.pointer), 0);
+			add(pending, cgBlock.getPointerToNextCGBlock(), Type.CG);
+			add(pending, cgBlock.getPointerToFirstSRBlock(), Type.SR);
+			add(pending, cgBlock.getPointerToFirstCNBlock(), Type.CN);
+			break;
+		case SR:
+			SRBlock srBlock = MDFParser.readSRBlock(block(block.pointer), 0);
+			add(pending, srBlock.getPointerToNextSRBlock(), Type.SR);
+			break;
+		case CN:
+			CNBlock cnBlock = MDFParser.readCNBlock(block(block.pointer), 0, charset);
+			add(pending, cnBlock.getPointerToNextCNBlock(), Type.CN);
+			if (cnBlock.getChannelType() == ChannelType.TIME_CHANNEL || projection.test(cnBlock)) {
+				add(pending, cnBlock.getPointerToCCBlock(), Type.CC);
+				add(pending, cnBlock.getPointerToTXBlock(), Type.TX);
+				add(pending, cnBlock.getPointerToTXBlockLongSignalName(), Type.TX);
+				add(pending, cnBlock.getPointerToTXBlockDisplayName(), Type.TX);
+			}
+			break;
+		default:
+			// TX, PR and CC blocks do not point to other blocks
+		}
+	}
+
+	private ByteBuffer block(long pointer) throws IOException {
+		return content.at(pointer).order(byteOrder);
+	}
+
+	private static void add(ArrayDeque<Pending> pending, long pointer, Type type) {
+		if (pointer != 0) {
+			pending.add(new Pending(pointer, type));
+		}
+	}
+
+	/**
+	 * <p>
+	 * Returns whether the whole file was read, because it is a MDF 4.x file.
+	 * </p>
+	 *
+	 * @return {@code true} if the whole file was read
+	 */
+	boolean isComplete() {
+		return complete;
+	}
+
+	/**
+	 * @return number of reads of the source
+	 */
+	int getNumberOfReads() {
+		return numberOfReads;
+	}
+
+	/**
+	 * @return number of bytes read from the source
+	 */
+	long getBytesRead() {
+		return bytesRead;
+	}
+
+}
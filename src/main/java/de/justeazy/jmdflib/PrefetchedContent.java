@@ -0,0 +1,201 @@
+package de.justeazy.jmdflib;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.util.Map;
+import java.util.TreeMap;
+
+import de.justeazy.jmdflib.source.DataSource;
+import de.justeazy.jmdflib.source.DataSources;
+
+/**
+ * <p>
+ * The ranges of a MDF file read by a {@link MetadataPrefetcher}, each in a
+ * buffer of its own, by their position in the file.
+ * </p>
+ *
+ * <p>
+ * Ranges that overlap or touch are merged, so every block lies within one
+ * range. While ranges are read, their buffers grow by doubling their
+ * capacity; {@link #trim()} cuts them to their lengths, as the buffers are
+ * kept by the text fields of the parsed blocks.
+ * </p>
+ *
+ * @author Henrik Peters <henrik.peters@tu-clausthal.de>
+ */
+class PrefetchedContent extends BlockContent {
+
+	private final long size;
+
+	/**
+	 * Ranges by their start, the limit of a buffer is the length of its range
+	 */
+	private final TreeMap<Long, ByteBuffer> ranges = new TreeMap<Long, ByteBuffer>();
+
+	/**
+	 * <p>
+	 * Creates empty content.
+	 * </p>
+	 *
+	 * @param size
+	 *            size of the file
+	 */
+	PrefetchedContent(long size) {
+		this.size = size;
+	}
+
+	@Override
+	ByteBuffer at(long pointer) throws IOException {
+		if (pointer < 0 || pointer >= size) {
+			throw new IOException("Block position " + pointer + " is outside of the file (" + size + ").");
+		}
+		Map.Entry<Long, ByteBuffer> range = ranges.floorEntry(pointer);
+		if (range == null || pointer >= range.getKey() + range.getValue().limit()) {
+			throw new IOException("Block position " + pointer + " was not prefetched.");
+		}
+		return slice(range.getValue(), pointer - range.getKey());
+	}
+
+	/**
+	 * <p>
+	 * Returns whether the bytes {@code from} (inclusive) to {@code to}
+	 * (exclusive) are read.
+	 * </p>
+	 */
+	boolean isRead(long from, long to) {
+		Map.Entry<Long, ByteBuffer> range = ranges.floorEntry(from);
+		return range != null && range.getKey() + range.getValue().limit() >= to;
+	}
+
+	/**
+	 * <p>
+	 * Reads the bytes {@code from} (inclusive) to {@code to} (exclusive),
+	 * skipping a beginning that is already read, and merges them into the
+	 * ranges read so far.
+	 * </p>
+	 *
+	 * @return number of bytes read from the source
+	 */
+	long read(DataSource source, long from, long to) throws IOException {
+		long start = from;
+		ByteBuffer target;
+		Map.Entry<Long, ByteBuffer> before = ranges.floorEntry(from);
+		if (before != null && before.getKey() + before.getValue().limit() >= from) {
+			start = before.getKey();
+			from = start + before.getValue().limit();
+			if (from >= to) {
+				return 0;
+			}
+			target = grow(start, before.getValue(), to - start);
+		} else {
+			target = grow(start, null, to - start);
+		}
+		ByteBuffer b = target.duplicate();
+		b.limit((int) (to - start));
+		b.position((int) (from - start));
+		DataSources.readFully(source, from, b);
+		long bytes = to - from;
+
+		// absorb the following ranges reached by this one
+		Map.Entry<Long, ByteBuffer> next = ranges.higherEntry(start);
+		while (next != null && next.getKey() <= to) {
+			ByteBuffer n = next.getValue();
+			long end = next.getKey() + n.limit();
+			if (end > to) {
+				target = grow(start, target, end - start);
+				ByteBuffer tail = n.duplicate();
+				tail.position((int) (to - next.getKey()));
+				ByteBuffer destination = target.duplicate();
+				destination.position((int) (to - start));
+				destination.put(tail);
+				to = end;
+			}
+			ranges.remove(next.getKey());
+			next = ranges.higherEntry(start);
+		}
+		ranges.put(start, target);
+		return bytes;
+	}
+
+	/**
+	 * <p>
+	 * Returns a buffer of {@code length} bytes holding the bytes of
+	 * {@code buffer}, which is reused if its capacity suffices.
+	 * </p>
+	 */
+	private ByteBuffer grow(long start, ByteBuffer buffer, long length) throws IOException {
+		if (length > Integer.MAX_VALUE) {
+			throw new IOException("Range at " + start + " too large (" + length + " bytes).");
+		}
+		if (buffer != null && buffer.capacity() >= length) {
+			buffer.limit((int) length);
+			return buffer;
+		}
+		long capacity = length;
+		if (buffer != null) {
+			capacity = Math.max(length, Math.min(Math.min(size - start, Integer.MAX_VALUE), 2L * buffer.capacity()));
+		}
+		ByteBuffer result = ByteBuffer.allocate((int) capacity);
+		if (buffer != null) {
+			ByteBuffer b = buffer.duplicate();
+			b.position(0);
+			result.put(b);
+			result.order(buffer.order());
+		}
+		result.position(0);
+		result.limit((int) length);
+		return result;
+	}
+
+	/**
+	 * <p>
+	 * Cuts the buffers of all ranges to their lengths.
+	 * </p>
+	 */
+	void trim() {
+		for (Map.Entry<Long, ByteBuffer> range : ranges.entrySet()) {
+			ByteBuffer buffer = range.getValue();
+			if (buffer.capacity() > buffer.limit()) {
+				ByteBuffer trimmed = ByteBuffer.allocate(buffer.limit()).order(buffer.order());
+				trimmed.put(buffer.duplicate());
+				trimmed.position(0);
+				range.setValue(trimmed);
+			}
+		}
+	}
+
+	/**
+	 * <p>
+	 * Returns the buffer of the whole file, if it was read completely.
+	 * </p>
+	 *
+	 * @return buffer holding the file, {@code null} if parts are missing
+	 */
+	ByteBuffer getBuffer() {
+		ByteBuffer first = ranges.get(0L);
+		return first != null && first.limit() == size ? first : null;
+	}
+
+	/**
+	 * @return number of bytes held by the ranges
+	 */
+	long getBytes() {
+		long result = 0;
+		for (ByteBuffer buffer : ranges.values()) {
+			result += buffer.limit();
+		}
+		return result;
+	}
+
+	/**
+	 * @return number of separate ranges
+	 */
+	int getNumberOfRanges() {
+		return ranges.size();
+	}
+
+	long size() {
+		return size;
+	}
+
+}
@@ -0,0 +1,517 @@
+package de.justeazy.jmdflib;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.Executor;
+import java.util.concurrent.atomic.AtomicReferenceArray;
+import java.util.zip.DataFormatException;
+import java.util.zip.Inflater;
+
+import de.justeazy.jmdflib.metrics.MDFMetrics;
+import de.justeazy.jmdflib.metrics.MetricsTimer;
+import de.justeazy.jmdflib.source.DataSource;
+import de.justeazy.jmdflib.source.DataSources;
+
+/**
+ * <p>
+ * Data records of a data group.
+ * </p>
+ *
+ * <p>
+ * In MDF 3.x, the records are stored in one contiguous data block. In MDF
+ * 4.x, they may be split into a list of fragments (DL blocks), each stored
+ * as it is (DT block) or deflate-compressed (DZ block), where fragments do
+ * not have to end at record boundaries. Compressed fragments are inflated
+ * lazily: {@link #range(long, long)} only inflates the fragments covering
+ * the range, {@link #getBuffer()} inflates all fragments once, in parallel
+ * on the executor of the file.
+ * </p>
+ *
+ * @author Henrik Peters <henrik.peters@tu-clausthal.de>
+ */
+abstract class RecordData {
+
+	/**
+	 * <p>
+	 * Returns a buffer holding all records.
+	 * </p>
+	 *
+	 * @return buffer, the first record starts at {@link #getOffset()}
+	 * @throws IOException
+	 *             if a fragment cannot be inflated
+	 */
+	abstract ByteBuffer getBuffer() throws IOException;
+
+	/**
+	 * <p>
+	 * Returns the position of the first record in {@link #getBuffer()}.
+	 * </p>
+	 *
+	 * @return position of the first record
+	 */
+	abstract int getOffset();
+
+	/**
+	 * <p>
+	 * Returns the bytes {@code from} (inclusive) to {@code to} (exclusive) of
+	 * the records.
+	 * </p>
+	 *
+	 * @param from
+	 *            first byte, relative to the first record
+	 * @param to
+	 *            byte after the last byte, relative to the first record
+	 * @return buffer holding exactly the requested bytes, starting at 0
+	 * @throws IOException
+	 *             if a fragment cannot be inflated
+	 */
+	abstract ByteBuffer range(long from, long to) throws IOException;
+
+	/**
+	 * <p>
+	 * Creates the records of a contiguous data block.
+	 * </p>
+	 *
+	 * @param content
+	 *            file content
+	 * @param offset
+	 *            position of the first record
+	 * @return records
+	 */
+	static RecordData contiguous(ByteBuffer content, int offset) {
+		return new Contiguous(content, offset);
+	}
+
+	private static ByteBuffer slice(ByteBuffer buffer, long from, long to) {
+		ByteBuffer result = buffer.duplicate();
+		result.limit((int) to);
+		result.position((int) from);
+		return result.slice().order(buffer.order());
+	}
+
+	private static class Contiguous extends RecordData {
+
+		private final ByteBuffer content;
+
+		private final int offset;
+
+		Contiguous(ByteBuffer content, int offset) {
+			this.content = content;
+			this.offset = offset;
+		}
+
+		@Override
+		ByteBuffer getBuffer() {
+			return content;
+		}
+
+		@Override
+		int getOffset() {
+			return offset;
+		}
+
+		@Override
+		ByteBuffer range(long from, long to) throws IOException {
+			if (offset + to > content.limit()) {
+				throw new IOException("Records exceed the file.");
+			}
+			return slice(content, offset + from, offset + to);
+		}
+
+	}
+
+	/**
+	 * <p>
+	 * Creates the records of a contiguous data block that is read from a
+	 * {@link DataSource} on first use. {@link #getBuffer()} reads the regions
+	 * into one buffer spanning all of them, keeping their distances in the
+	 * file, so the data blocks of sample reductions can be found relative to
+	 * the records. Ranges are read without loading the whole block as long as
+	 * it is not loaded.
+	 * </p>
+	 *
+	 * @param source
+	 *            source of the file
+	 * @param size
+	 *            size of the file
+	 * @param regions
+	 *            positions and ends of the regions loaded together, the
+	 *            first one holding the records
+	 * @param order
+	 *            byte order of the returned buffers
+	 * @return records
+	 */
+	static RecordData lazy(DataSource source, long size, List<long[]> regions, ByteOrder order) {
+		return new Lazy(source, size, regions, order);
+	}
+
+	private static class Lazy extends RecordData {
+
+		private final DataSource source;
+
+		private final long size;
+
+		private final List<long[]> regions;
+
+		private final ByteOrder order;
+
+		/**
+		 * Position of the records in the file
+		 */
+		private final long position;
+
+		/**
+		 * Position of the first byte of the loaded buffer in the file
+		 */
+		private final long base;
+
+		/**
+		 * Position after the last byte of the loaded buffer in the file
+		 */
+		private final long end;
+
+		private volatile ByteBuffer loaded;
+
+		Lazy(DataSource source, long size, List<long[]> regions, ByteOrder order) {
+			this.source = source;
+			this.size = size;
+			this.regions = regions;
+			this.order = order;
+			this.position = regions.get(0)[0];
+			long from = position;
+			long to = Math.min(regions.get(0)[1], size);
+			for (long[] region : regions) {
+				long regionEnd = Math.min(region[1], size);
+				if (region[0] < regionEnd) {
+					from = Math.min(from, region[0]);
+					to = Math.max(to, regionEnd);
+				}
+			}
+			this.base = from;
+			this.end = Math.max(from, to);
+		}
+
+		@Override
+		synchronized ByteBuffer getBuffer() throws IOException {
+			if (loaded == null) {
+				if (end - base > Integer.MAX_VALUE) {
+					throw new IOException("Records too large (" + (end - base) + " bytes).");
+				}
+				MetricsTimer start = MDFMetrics.startReadTimer();
+				long bytes = 0;
+				ByteBuffer buffer = ByteBuffer.allocate((int) (end - base)).order(order);
+				for (long[] region : regions) {
+					long regionEnd = Math.min(region[1], size);
+					if (region[0] < regionEnd) {
+						ByteBuffer b = buffer.duplicate();
+						b.limit((int) (regionEnd - base));
+						b.position((int) (region[0] - base));
+						DataSources.readFully(source, region[0], b);
+						bytes += regionEnd - region[0];
+					}
+				}
+				MDFMetrics.bytesRead(source.toString(), bytes, start);
+				loaded = buffer;
+			}
+			return loaded;
+		}
+
+		@Override
+		int getOffset() {
+			return (int) (position - base);
+		}
+
+		@Override
+		ByteBuffer range(long from, long to) throws IOException {
+			if (position + to > size) {
+				throw new IOException("Records exceed the file.");
+			}
+			ByteBuffer buffer = loaded;
+			if (buffer != null) {
+				return slice(buffer, getOffset() + from, getOffset() + to);
+			}
+			ByteBuffer result = ByteBuffer.allocate((int) (to - from)).order(order);
+			DataSources.readFully(source, position + from, result);
+			result.flip();
+			return result;
+		}
+
+	}
+
+	/**
+	 * <p>
+	 * One DT or DZ block of a list of data blocks.
+	 * </p>
+	 */
+	static class Fragment {
+
+		/**
+		 * Position of the (compressed) bytes in the file
+		 */
+		final int position;
+
+		/**
+		 * Number of (compressed) bytes in the file
+		 */
+		final int length;
+
+		/**
+		 * Number of bytes after inflating
+		 */
+		final int originalLength;
+
+		/**
+		 * -1 for DT blocks, otherwise the zip type of the DZ block
+		 */
+		final int zipType;
+
+		/**
+		 * Number of columns of a transposed DZ block
+		 */
+		final int zipParameter;
+
+		Fragment(int position, int length, int originalLength, int zipType, int zipParameter) {
+			this.position = position;
+			this.length = length;
+			this.originalLength = originalLength;
+			this.zipType = zipType;
+			this.zipParameter = zipParameter;
+		}
+
+		boolean isCompressed() {
+			return zipType >= 0;
+		}
+
+	}
+
+	/**
+	 * <p>
+	 * Creates the records of a list of data blocks.
+	 * </p>
+	 *
+	 * @param content
+	 *            file content
+	 * @param fragments
+	 *            data blocks in the order of the records
+	 * @param executor
+	 *            executor inflating the fragments in parallel
+	 * @return records
+	 */
+	static RecordData fragmented(ByteBuffer content, List<Fragment> fragments, Executor executor) {
+		if (fragments.isEmpty()) {
+			return new Contiguous(ByteBuffer.allocate(0).order(content.order()), 0);
+		}
+		if (fragments.size() == 1 && !fragments.get(0).isCompressed()) {
+			return new Contiguous(content, fragments.get(0).position);
+		}
+		return new Fragmented(content, fragments, executor);
+	}
+
+	private static class Fragmented extends RecordData {
+
+		private final ByteBuffer content;
+
+		private final Fragment[] fragments;
+
+		/**
+		 * Position of the first byte of every fragment in the records
+		 */
+		private final long[] starts;
+
+		private final long length;
+
+		private final Executor executor;
+
+		/**
+		 * Fragments inflated by {@link #range(long, long)}
+		 */
+		private final AtomicReferenceArray<ByteBuffer> inflated;
+
+		private volatile ByteBuffer all;
+
+		Fragmented(ByteBuffer content, List<Fragment> fragments, Executor executor) {
+			this.content = content;
+			this.fragments = fragments.toArray(new Fragment[fragments.size()]);
+			this.starts = new long[this.fragments.length];
+			long position = 0;
+			for (int i = 0; i < this.fragments.length; i++) {
+				starts[i] = position;
+				position += this.fragments[i].originalLength;
+			}
+			this.length = position;
+			this.executor = executor;
+			this.inflated = new AtomicReferenceArray<ByteBuffer>(this.fragments.length);
+		}
+
+		@Override
+		ByteBuffer getBuffer() throws IOException {
+			ByteBuffer result = all;
+			if (result == null) {
+				synchronized (this) {
+					result = all;
+					if (result == null) {
+						result = inflateAll();
+						all = result;
+						for (int i = 0; i < fragments.length; i++) {
+							inflated.set(i, null);
+						}
+					}
+				}
+			}
+			return result;
+		}
+
+		private ByteBuffer inflateAll() throws IOException {
+			if (length > Integer.MAX_VALUE) {
+				throw new IOException("Records too large (" + length + " bytes).");
+			}
+			final byte[] result = new byte[(int) length];
+			ArrayList<CompletableFuture<Void>> tasks = new ArrayList<CompletableFuture<Void>>();
+			for (int i = 0; i < fragments.length; i++) {
+				final int index = i;
+				Runnable task = () -> {
+					try {
+						ByteBuffer fragment = inflated.get(index);
+						if (fragment != null) {
+							fragment.duplicate().get(result, (int) starts[index], fragments[index].originalLength);
+						} else {
+							inflate(fragments[index], result, (int) starts[index]);
+						}
+					} catch (IOException e) {
+						throw new UncheckedIOException(e);
+					}
+				};
+				if (fragments[i].isCompressed()) {
+					tasks.add(CompletableFuture.runAsync(task, executor));
+				} else {
+					task.run();
+				}
+			}
+			try {
+				CompletableFuture.allOf(tasks.toArray(new CompletableFuture<?>[tasks.size()])).join();
+			} catch (CompletionException e) {
+				if (e.getCause() instanceof UncheckedIOException) {
+					throw ((UncheckedIOException) e.getCause()).getCause();
+				}
+				throw e;
+			}
+			return ByteBuffer.wrap(result).order(content.order());
+		}
+
+		@Override
+		int getOffset() {
+			return 0;
+		}
+
+		@Override
+		ByteBuffer range(long from, long to) throws IOException {
+			if (from < 0 || to > length || from > to) {
+				throw new IOException("Range " + from + " to " + to + " exceeds the records (" + length + " bytes).");
+			}
+			ByteBuffer buffer = all;
+			if (buffer != null) {
+				return slice(buffer, from, to);
+			}
+			int first = fragmentOf(from);
+			if (to <= starts[first] + fragments[first].originalLength) {
+				return slice(fragment(first), from - starts[first], to - starts[first]);
+			}
+			ByteBuffer result = ByteBuffer.allocate((int) (to - from)).order(content.order());
+			for (int i = first; i < fragments.length && starts[i] < to; i++) {
+				long start = Math.max(from, starts[i]);
+				long end = Math.min(to, starts[i] + fragments[i].originalLength);
+				result.put(slice(fragment(i), start - starts[i], end - starts[i]));
+			}
+			result.flip();
+			return result;
+		}
+
+		private int fragmentOf(long position) {
+			int index = Arrays.binarySearch(starts, position);
+			return index >= 0 ? index : -index - 2;
+		}
+
+		private ByteBuffer fragment(int index) throws IOException {
+			Fragment fragment = fragments[index];
+			if (!fragment.isCompressed()) {
+				return slice(content, fragment.position, fragment.position + fragment.length);
+			}
+			ByteBuffer result = inflated.get(index);
+			if (result == null) {
+				byte[] bytes = new byte[fragment.originalLength];
+				inflate(fragment, bytes, 0);
+				result = ByteBuffer.wrap(bytes).order(content.order());
+				inflated.compareAndSet(index, null, result);
+			}
+			return result;
+		}
+
+		/**
+		 * <p>
+		 * Inflates a fragment into {@code destination}, or copies it if it is
+		 * not compressed.
+		 * </p>
+		 */
+		private void inflate(Fragment fragment, byte[] destination, int offset) throws IOException {
+			ByteBuffer source = slice(content, fragment.position, fragment.position + fragment.length);
+			if (!fragment.isCompressed()) {
+				source.get(destination, offset, fragment.length);
+				return;
+			}
+			byte[] compressed = new byte[fragment.length];
+			source.get(compressed);
+			byte[] target = fragment.zipType == 1 ? new byte[fragment.originalLength] : destination;
+			int targetOffset = fragment.zipType == 1 ? 0 : offset;
+			Inflater inflater = new Inflater();
+			try {
+				inflater.setInput(compressed);
+				int n = 0;
+				while (n < fragment.originalLength && !inflater.finished()) {
+					int read = inflater.inflate(target, targetOffset + n, fragment.originalLength - n);
+					if (read == 0 && (inflater.needsInput() || inflater.needsDictionary())) {
+						break;
+					}
+					n += read;
+				}
+				if (n != fragment.originalLength) {
+					throw new IOException("DZBlock at " + fragment.position + " inflated to " + n + " instead of "
+							+ fragment.originalLength + " bytes.");
+				}
+			} catch (DataFormatException e) {
+				throw new IOException("DZBlock at " + fragment.position + " cannot be inflated.", e);
+			} finally {
+				inflater.end();
+			}
+			if (fragment.zipType == 1) {
+				transpose(target, fragment.zipParameter, destination, offset);
+			}
+		}
+
+		/**
+		 * <p>
+		 * Reverts the transposition of a DZ block with zip type 1: the bytes
+		 * of the complete rows of {@code columns} bytes were stored column by
+		 * column, the remaining bytes as they are.
+		 * </p>
+		 */
+		private static void transpose(byte[] source, int columns, byte[] destination, int offset) {
+			int rows = columns == 0 ? 0 : source.length / columns;
+			int n = 0;
+			for (int column = 0; column < columns; column++) {
+				for (int row = 0; row < rows; row++) {
+					destination[offset + row * columns + column] = source[n++];
+				}
+			}
+			System.arraycopy(source, n, destination, offset + n, source.length - n);
+		}
+
+	}
+
+}
@@ -0,0 +1,96 @@
+package de.justeazy.jmdflib;
+
+import java.nio.ByteBuffer;
+
+/**
+ * <p>
+ * Portable kernels with one value per loop iteration.
+ * </p>
+ *
+ * @author Henrik Peters <henrik.peters@tu-clausthal.de>
+ */
+class ScalarKernels extends Kernels {
+
+	@Override
+	boolean isVectorized() {
+		return false;
+	}
+
+	@Override
+	void gatherDoubles(ByteBuffer data, int position, int stride, int count, double[] destination, int offset) {
+		for (int i = 0; i < count; i++) {
+			destination[offset + i] = data.getDouble(position);
+			position += stride;
+		}
+	}
+
+	@Override
+	void gatherFloats(ByteBuffer data, int position, int stride, int count, double[] destination, int offset) {
+		for (int i = 0; i < count; i++) {
+			destination[offset + i] = data.getFloat(position);
+			position += stride;
+		}
+	}
+
+	@Override
+	void gatherIntegers(ByteBuffer data, int position, int stride, int bytes, boolean signed, int count,
+			double[] destination, int offset) {
+		switch (bytes) {
+		case 1:
+			for (int i = 0; i < count; i++) {
+				byte value = data.get(position);
+				destination[offset + i] = signed ? value : value & 0xFF;
+				position += stride;
+			}
+			break;
+		case 2:
+			for (int i = 0; i < count; i++) {
+				short value = data.getShort(position);
+				destination[offset + i] = signed ? value : value & 0xFFFF;
+				position += stride;
+			}
+			break;
+		case 4:
+			for (int i = 0; i < count; i++) {
+				int value = data.getInt(position);
+				destination[offset + i] = signed ? value : value & 0xFFFFFFFFL;
+				position += stride;
+			}
+			break;
+		case 8:
+			if (!signed) {
+				throw new IllegalArgumentException("Unsigned 64 bit integers not supported.");
+			}
+			for (int i = 0; i < count; i++) {
+				destination[offset + i] = data.getLong(position);
+				position += stride;
+			}
+			break;
+		default:
+			throw new IllegalArgumentException("Wrong integer size (" + bytes + " bytes).");
+		}
+	}
+
+	@Override
+	void linear(double[] values, int offset, int count, double p1, double p2) {
+		for (int i = offset; i < offset + count; i++) {
+			values[i] = values[i] * p2 + p1;
+		}
+	}
+
+	@Override
+	double[] minMax(double[] values, int offset, int count) {
+		double minimum = Double.POSITIVE_INFINITY;
+		double maximum = Double.NEGATIVE_INFINITY;
+		boolean found = false;
+		for (int i = offset; i < offset + count; i++) {
+			double value = values[i];
+			// NaN fails both comparisons
+			minimum = value < minimum ? value : minimum;
+			maximum = value > maximum ? value : maximum;
+			found |= value == value;
+		}
+		return found ? new double[] { minimum, maximum } : new double[] { Double.NaN, Double.NaN };
+	}
+
+}
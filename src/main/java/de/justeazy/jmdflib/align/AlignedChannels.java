@@ -0,0 +1,59 @@
+package de.justeazy.jmdflib.align;
+
+import java.util.Collections;
+import java.util.List;
+
+/**
+ * <p>
+ * Columnar result of a {@link ChannelAligner}: one time column and one value
+ * column per aligned channel, all of the same length.
+ * </p>
+ *
+ * @author Henrik Peters <henrik.peters@tu-clausthal.de>
+ */
+public class AlignedChannels {
+
+	private final double[] time;
+
+	private final List<String> names;
+
+	private final double[][] columns;
+
+	AlignedChannels(double[] time, List<String> names, double[][] columns) {
+		this.time = time;
+		this.names = Collections.unmodifiableList(names);
+		this.columns = columns;
+	}
+
+	public int size() {
+		return time.length;
+	}
+
+	public double[] getTime() {
+		return time;
+	}
+
+	public List<String> getNames() {
+		return names;
+	}
+
+	public double[] getColumn(int index) {
+		return columns[index];
+	}
+
+	/**
+	 * <p>
+	 * Returns the column of the first channel with the given name.
+	 * </p>
+	 *
+	 * @param name
+	 *            trimmed short signal name
+	 * @return values of the channel or {@code null} if there is no such
+	 *         channel
+	 */
+	public double[] getColumn(String name) {
+		int index = names.indexOf(name);
+		return index < 0 ? null : columns[index];
+	}
+
+}
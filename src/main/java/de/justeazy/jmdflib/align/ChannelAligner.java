@@ -0,0 +1,282 @@
+package de.justeazy.jmdflib.align;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Arrays;
+
+import de.justeazy.jmdflib.ChannelDecoder;
+import de.justeazy.jmdflib.enums.Interpolation;
+
+/**
+ * <p>
+ * Resamples channels of several channel groups onto one time base.
+ * </p>
+ *
+ * <p>
+ * Every channel group is added with its time channel, every channel with the
+ * group it belongs to. The aligner keeps one forward cursor per group that
+ * only ever moves towards later samples, so each input sample is decoded at
+ * most once and the output columns are filled in a single pass over the
+ * output time base. Time channels must be monotonically non-decreasing.
+ * </p>
+ *
+ * <p>
+ * Before the first sample of its group, a channel is {@code NaN}. After the
+ * last sample of its group, the last value is held for both interpolation
+ * types.
+ * </p>
+ *
+ * @author Henrik Peters <henrik.peters@tu-clausthal.de>
+ */
+public class ChannelAligner {
+
+	private final Interpolation interpolation;
+
+	private final ArrayList<ChannelDecoder> timeChannels = new ArrayList<ChannelDecoder>();
+
+	private final ArrayList<ChannelDecoder> channels = new ArrayList<ChannelDecoder>();
+
+	private final ArrayList<Integer> channelGroups = new ArrayList<Integer>();
+
+	private final ArrayList<String> names = new ArrayList<String>();
+
+	/**
+	 * <p>
+	 * Creates an aligner.
+	 * </p>
+	 *
+	 * @param interpolation
+	 *            interpolation between two samples of a channel
+	 */
+	public ChannelAligner(Interpolation interpolation) {
+		this.interpolation = interpolation;
+	}
+
+	/**
+	 * <p>
+	 * Adds a channel group by means of its time channel.
+	 * </p>
+	 *
+	 * @param timeChannel
+	 *            decoder of the time channel of the group
+	 * @return index of the group for {@link #addChannel(int, ChannelDecoder)}
+	 */
+	public int addGroup(ChannelDecoder timeChannel) {
+		timeChannels.add(timeChannel);
+		return timeChannels.size() - 1;
+	}
+
+	/**
+	 * <p>
+	 * Adds a channel to be aligned. Its name in the result is the trimmed
+	 * short signal name.
+	 * </p>
+	 *
+	 * @param group
+	 *            index of the group returned by {@link #addGroup(ChannelDecoder)}
+	 * @param channel
+	 *            decoder of the channel
+	 * @throws IOException
+	 *             if the channel does not have the same number of records as
+	 *             the time channel of the group
+	 */
+	public void addChannel(int group, ChannelDecoder channel) throws IOException {
+		if (channel.getNumberOfRecords() != timeChannels.get(group).getNumberOfRecords()) {
+			throw new IOException("Channel " + channel.getCNBlock().getShortSignalName().trim() + " has "
+					+ channel.getNumberOfRecords() + " records, but its time channel has "
+					+ timeChannels.get(group).getNumberOfRecords() + ".");
+		}
+		channels.add(channel);
+		channelGroups.add(group);
+		names.add(channel.getCNBlock().getShortSignalNameText().intern());
+	}
+
+	/**
+	 * <p>
+	 * Aligns the channels onto the union of all time stamps of all groups.
+	 * </p>
+	 *
+	 * @return aligned channels
+	 */
+	public AlignedChannels alignToUnion() {
+		int groups = timeChannels.size();
+		int[] cursor = new int[groups];
+
+		// count distinct time stamps by merging the time channels only
+		int count = 0;
+		while (true) {
+			double t = Double.POSITIVE_INFINITY;
+			for (int g = 0; g < groups; g++) {
+				if (cursor[g] < timeChannels.get(g).getNumberOfRecords()) {
+					t = Math.min(t, timeChannels.get(g).getPhysical(cursor[g]));
+				}
+			}
+			if (t == Double.POSITIVE_INFINITY) {
+				break;
+			}
+			for (int g = 0; g < groups; g++) {
+				ChannelDecoder timeChannel = timeChannels.get(g);
+				while (cursor[g] < timeChannel.getNumberOfRecords() && timeChannel.getPhysical(cursor[g]) <= t) {
+					cursor[g]++;
+				}
+			}
+			count++;
+		}
+
+		Merge merge = new Merge(count);
+		while (merge.size < count) {
+			merge.append(merge.nextUnionTime());
+		}
+		return merge.result();
+	}
+
+	/**
+	 * <p>
+	 * Aligns the channels onto an equidistant time base over the time range
+	 * covered by all groups.
+	 * </p>
+	 *
+	 * @param period
+	 *            distance between two time stamps in seconds
+	 * @return aligned channels
+	 */
+	public AlignedChannels alignToCommon(double period) {
+		if (!(period > 0)) {
+			throw new IllegalArgumentException("Period must be positive, but was " + period + ".");
+		}
+		double start = Double.NEGATIVE_INFINITY;
+		double end = Double.POSITIVE_INFINITY;
+		for (ChannelDecoder timeChannel : timeChannels) {
+			int records = timeChannel.getNumberOfRecords();
+			if (records == 0) {
+				return new Merge(0).result();
+			}
+			start = Math.max(start, timeChannel.getPhysical(0));
+			end = Math.min(end, timeChannel.getPhysical(records - 1));
+		}
+		int count = end < start || timeChannels.isEmpty() ? 0 : (int) Math.floor((end - start) / period + 1e-9) + 1;
+
+		Merge merge = new Merge(count);
+		for (int i = 0; i < count; i++) {
+			merge.append(start + i * period);
+		}
+		return merge.result();
+	}
+
+	/**
+	 * <p>
+	 * State of one alignment pass.
+	 * </p>
+	 */
+	private class Merge {
+
+		private final int groups = timeChannels.size();
+
+		/**
+		 * Per group: index of the last sample at or before the current time
+		 */
+		private final int[] cursor = new int[groups];
+
+		/**
+		 * Per group: time of the sample at {@code cursor}
+		 */
+		private final double[] currentTime = new double[groups];
+
+		/**
+		 * Per group: time of the sample after {@code cursor}
+		 */
+		private final double[] nextTime = new double[groups];
+
+		/**
+		 * Per channel: index of the sample held in {@code value0}
+		 */
+		private final int[] decoded = new int[channels.size()];
+
+		private final double[] value0 = new double[channels.size()];
+
+		private final double[] value1 = new double[channels.size()];
+
+		/**
+		 * Per channel: index of its group
+		 */
+		private final int[] groupOf = new int[channels.size()];
+
+		private final double[] time;
+
+		private final double[][] columns;
+
+		private int size = 0;
+
+		Merge(int count) {
+			time = new double[count];
+			columns = new double[channels.size()][count];
+			Arrays.fill(cursor, -1);
+			Arrays.fill(decoded, -1);
+			for (int c = 0; c < groupOf.length; c++) {
+				groupOf[c] = channelGroups.get(c);
+			}
+			for (int g = 0; g < groups; g++) {
+				nextTime[g] = timeOf(g, 0);
+			}
+		}
+
+		private double timeOf(int group, int record) {
+			ChannelDecoder timeChannel = timeChannels.get(group);
+			return record < timeChannel.getNumberOfRecords() ? timeChannel.getPhysical(record)
+					: Double.POSITIVE_INFINITY;
+		}
+
+		double nextUnionTime() {
+			double t = Double.POSITIVE_INFINITY;
+			for (int g = 0; g < groups; g++) {
+				t = Math.min(t, nextTime[g]);
+			}
+			return t;
+		}
+
+		void append(double t) {
+			for (int g = 0; g < groups; g++) {
+				while (nextTime[g] <= t) {
+					cursor[g]++;
+					currentTime[g] = nextTime[g];
+					nextTime[g] = timeOf(g, cursor[g] + 1);
+				}
+			}
+
+			time[size] = t;
+			for (int c = 0; c < columns.length; c++) {
+				int g = groupOf[c];
+				int p = cursor[g];
+				double value;
+				if (p < 0) {
+					value = Double.NaN;
+				} else {
+					ChannelDecoder channel = channels.get(c);
+					if (decoded[c] != p) {
+						value0[c] = p > 0 && decoded[c] == p - 1 && interpolation == Interpolation.LINEAR ? value1[c]
+								: channel.getPhysical(p);
+						if (interpolation == Interpolation.LINEAR && nextTime[g] != Double.POSITIVE_INFINITY) {
+							value1[c] = channel.getPhysical(p + 1);
+						}
+						decoded[c] = p;
+					}
+					if (interpolation == Interpolation.ZERO_ORDER_HOLD || nextTime[g] == Double.POSITIVE_INFINITY
+							|| t == currentTime[g]) {
+						value = value0[c];
+					} else {
+						double fraction = (t - currentTime[g]) / (nextTime[g] - currentTime[g]);
+						value = value0[c] + (value1[c] - value0[c]) * fraction;
+					}
+				}
+				columns[c][size] = value;
+			}
+			size++;
+		}
+
+		AlignedChannels result() {
+			return new AlignedChannels(time, new ArrayList<String>(names), columns);
+		}
+
+	}
+
+}
@@ -37,6 +37,8 @@ public abstract class CCBlock {
 
 	public abstract double convert(long l);
 
+	public abstract double convert(double d);
+
 	public String getBlockTypeIdentifier() {
 		return blockTypeIdentifier;
 	}
@@ -12,6 +12,11 @@ public class CCBlockLinear2Parameters extends CCBlock {
 		return result;
 	}
 
+	@Override
+	public double convert(double d) {
+		return d * p2 + p1;
+	}
+
 	public double getP1() {
 		return p1;
 	}
@@ -7,4 +7,9 @@ public class CCBlockOneToOne extends CCBlock {
 		return (double) l;
 	}
 
+	@Override
+	public double convert(double d) {
+		return d;
+	}
+
 }
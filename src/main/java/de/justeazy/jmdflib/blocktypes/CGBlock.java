@@ -2,6 +2,8 @@ package de.justeazy.jmdflib.blocktypes;
 
 import java.util.ArrayList;
 
+import de.justeazy.jmdflib.enums.ChannelType;
+
 public class CGBlock {
 
 	private String blockTypeIdentifier;
@@ -26,6 +28,8 @@ public class CGBlock {
 	
 	private long pointerToFirstSRBlock;
 
+	private ArrayList<SRBlock> srBlocks;
+
 	public String getBlockTypeIdentifier() {
 		return blockTypeIdentifier;
 	}
@@ -106,6 +110,14 @@ public class CGBlock {
 		this.pointerToFirstSRBlock = pointerToFirstSRBlock;
 	}
 
+	public ArrayList<SRBlock> getSRBlocks() {
+		return srBlocks;
+	}
+
+	public void setSRBlocks(ArrayList<SRBlock> srBlocks) {
+		this.srBlocks = srBlocks;
+	}
+
 	public ArrayList<CNBlock> getCNBlocks() {
 		return cnBlocks;
 	}
@@ -113,5 +125,16 @@ public class CGBlock {
 	public void setCNBlocks(ArrayList<CNBlock> cnBlocks) {
 		this.cnBlocks = cnBlocks;
 	} 
+
+	public CNBlock getTimeChannel() {
+		if (cnBlocks != null) {
+			for (CNBlock cnBlock : cnBlocks) {
+				if (cnBlock.getChannelType() == ChannelType.TIME_CHANNEL) {
+					return cnBlock;
+				}
+			}
+		}
+		return null;
+	}
 	
 }
@@ -2,6 +2,7 @@ package de.justeazy.jmdflib.blocktypes;
 
 import de.justeazy.jmdflib.enums.ChannelType;
 import de.justeazy.jmdflib.enums.SignalDataType;
+import de.justeazy.jmdflib.text.BlockText;
 
 public class CNBlock {
 
@@ -29,9 +30,9 @@ public class CNBlock {
 
 	private ChannelType channelType;
 
-	private String shortSignalName;
+	private BlockText shortSignalName;
 
-	private String signalDescription;
+	private BlockText signalDescription;
 
 	private int startOffsetInBits;
 
@@ -57,6 +58,8 @@ public class CNBlock {
 
 	private int additionalByteOffset;
 
+	private boolean projected = true;
+
 	public String getBlockTypeIdentifier() {
 		return blockTypeIdentifier;
 	}
@@ -122,18 +125,34 @@ public class CNBlock {
 	}
 
 	public String getShortSignalName() {
+		return shortSignalName == null ? null : shortSignalName.toString();
+	}
+
+	public BlockText getShortSignalNameText() {
 		return shortSignalName;
 	}
 
 	public void setShortSignalName(String shortSignalName) {
+		this.shortSignalName = shortSignalName == null ? null : BlockText.of(shortSignalName);
+	}
+
+	public void setShortSignalName(BlockText shortSignalName) {
 		this.shortSignalName = shortSignalName;
 	}
 
 	public String getSignalDescription() {
+		return signalDescription == null ? null : signalDescription.toString();
+	}
+
+	public BlockText getSignalDescriptionText() {
 		return signalDescription;
 	}
 
 	public void setSignalDescription(String signalDescription) {
+		this.signalDescription = signalDescription == null ? null : BlockText.of(signalDescription);
+	}
+
+	public void setSignalDescription(BlockText signalDescription) {
 		this.signalDescription = signalDescription;
 	}
 
@@ -265,4 +284,21 @@ public class CNBlock {
 		this.cdBlock = cdBlock;
 	}
 
+	/**
+	 * <p>
+	 * Returns whether the channel is part of the projection the file was read
+	 * with. Channels outside the projection only hold the fixed fields of the
+	 * CNBlock; their CCBlock, CEBlock, CDBlock and TXBlocks are not read.
+	 * </p>
+	 * 
+	 * @return {@code true} if the channel has been read completely
+	 */
+	public boolean isProjected() {
+		return projected;
+	}
+
+	public void setProjected(boolean projected) {
+		this.projected = projected;
+	}
+
 }
@@ -3,6 +3,7 @@ package de.justeazy.jmdflib.blocktypes;
 import java.math.BigInteger;
 
 import de.justeazy.jmdflib.enums.TimeQualityClass;
+import de.justeazy.jmdflib.text.BlockText;
 
 /**
  * <p>
@@ -36,13 +37,13 @@ public class HDBlock {
 
 	private String recordingStartTime;
 
-	private String authorsName;
+	private BlockText authorsName;
 
-	private String organizationsName;
+	private BlockText organizationsName;
 
-	private String projectsName;
+	private BlockText projectsName;
 
-	private String measurementObject;
+	private BlockText measurementObject;
 	
 	private BigInteger recordingStartTimestamp;
 	
@@ -50,7 +51,7 @@ public class HDBlock {
 	
 	private TimeQualityClass timeQualityClass;
 	
-	private String timerIdentification;
+	private BlockText timerIdentification;
 
 	public String getBlockTypeIdentifier() {
 		return blockTypeIdentifier;
@@ -117,34 +118,66 @@ public class HDBlock {
 	}
 
 	public String getAuthorsName() {
+		return authorsName == null ? null : authorsName.toString();
+	}
+
+	public BlockText getAuthorsNameText() {
 		return authorsName;
 	}
 
 	public void setAuthorsName(String authorsName) {
+		this.authorsName = authorsName == null ? null : BlockText.of(authorsName);
+	}
+
+	public void setAuthorsName(BlockText authorsName) {
 		this.authorsName = authorsName;
 	}
 
 	public String getOrganizationsName() {
+		return organizationsName == null ? null : organizationsName.toString();
+	}
+
+	public BlockText getOrganizationsNameText() {
 		return organizationsName;
 	}
 
 	public void setOrganizationsName(String organizationsName) {
+		this.organizationsName = organizationsName == null ? null : BlockText.of(organizationsName);
+	}
+
+	public void setOrganizationsName(BlockText organizationsName) {
 		this.organizationsName = organizationsName;
 	}
 
 	public String getProjectsName() {
+		return projectsName == null ? null : projectsName.toString();
+	}
+
+	public BlockText getProjectsNameText() {
 		return projectsName;
 	}
 
 	public void setProjectsName(String projectsName) {
+		this.projectsName = projectsName == null ? null : BlockText.of(projectsName);
+	}
+
+	public void setProjectsName(BlockText projectsName) {
 		this.projectsName = projectsName;
 	}
 
 	public String getMeasurementObject() {
+		return measurementObject == null ? null : measurementObject.toString();
+	}
+
+	public BlockText getMeasurementObjectText() {
 		return measurementObject;
 	}
 
 	public void setMeasurementObject(String measurementObject) {
+		this.measurementObject = measurementObject == null ? null : BlockText.of(measurementObject);
+	}
+
+	public void setMeasurementObject(BlockText measurementObject) {
 		this.measurementObject = measurementObject;
 	}
 
@@ -173,10 +206,18 @@ public class HDBlock {
 	}
 
 	public String getTimerIdentification() {
+		return timerIdentification == null ? null : timerIdentification.toString();
+	}
+
+	public BlockText getTimerIdentificationText() {
 		return timerIdentification;
 	}
 
 	public void setTimerIdentification(String timerIdentification) {
+		this.timerIdentification = timerIdentification == null ? null : BlockText.of(timerIdentification);
+	}
+
+	public void setTimerIdentification(BlockText timerIdentification) {
 		this.timerIdentification = timerIdentification;
 	}
 
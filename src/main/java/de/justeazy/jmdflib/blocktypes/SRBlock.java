@@ -0,0 +1,65 @@
+package de.justeazy.jmdflib.blocktypes;
+
+public class SRBlock {
+
+	private String blockTypeIdentifier;
+
+	private int blockSize;
+
+	private long pointerToNextSRBlock;
+
+	private long pointerToDataBlock;
+
+	private long numberOfReducedSamples;
+
+	private double timeIntervalLength;
+
+	public String getBlockTypeIdentifier() {
+		return blockTypeIdentifier;
+	}
+
+	public void setBlockTypeIdentifier(String blockTypeIdentifier) {
+		this.blockTypeIdentifier = blockTypeIdentifier;
+	}
+
+	public int getBlockSize() {
+		return blockSize;
+	}
+
+	public void setBlockSize(int blockSize) {
+		this.blockSize = blockSize;
+	}
+
+	public long getPointerToNextSRBlock() {
+		return pointerToNextSRBlock;
+	}
+
+	public void setPointerToNextSRBlock(long pointerToNextSRBlock) {
+		this.pointerToNextSRBlock = pointerToNextSRBlock;
+	}
+
+	public long getPointerToDataBlock() {
+		return pointerToDataBlock;
+	}
+
+	public void setPointerToDataBlock(long pointerToDataBlock) {
+		this.pointerToDataBlock = pointerToDataBlock;
+	}
+
+	public long getNumberOfReducedSamples() {
+		return numberOfReducedSamples;
+	}
+
+	public void setNumberOfReducedSamples(long numberOfReducedSamples) {
+		this.numberOfReducedSamples = numberOfReducedSamples;
+	}
+
+	public double getTimeIntervalLength() {
+		return timeIntervalLength;
+	}
+
+	public void setTimeIntervalLength(double timeIntervalLength) {
+		this.timeIntervalLength = timeIntervalLength;
+	}
+
+}
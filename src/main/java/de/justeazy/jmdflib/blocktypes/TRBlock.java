@@ -8,8 +8,16 @@ public class TRBlock {
 	
 	private long pointerToTXBlock;
 	
+	private TXBlock txBlock;
+
 	private int numberOfTriggerEvents;
 
+	private double[] triggerTimes;
+
+	private double[] preTriggerTimes;
+
+	private double[] postTriggerTimes;
+
 	public String getBlockTypeIdentifier() {
 		return blockTypeIdentifier;
 	}
@@ -34,6 +42,14 @@ public class TRBlock {
 		this.pointerToTXBlock = pointerToTXBlock;
 	}
 
+	public TXBlock getTXBlock() {
+		return txBlock;
+	}
+
+	public void setTXBlock(TXBlock txBlock) {
+		this.txBlock = txBlock;
+	}
+
 	public int getNumberOfTriggerEvents() {
 		return numberOfTriggerEvents;
 	}
@@ -42,4 +58,28 @@ public class TRBlock {
 		this.numberOfTriggerEvents = numberOfTriggerEvents;
 	}
 
+	public double[] getTriggerTimes() {
+		return triggerTimes;
+	}
+
+	public void setTriggerTimes(double[] triggerTimes) {
+		this.triggerTimes = triggerTimes;
+	}
+
+	public double[] getPreTriggerTimes() {
+		return preTriggerTimes;
+	}
+
+	public void setPreTriggerTimes(double[] preTriggerTimes) {
+		this.preTriggerTimes = preTriggerTimes;
+	}
+
+	public double[] getPostTriggerTimes() {
+		return postTriggerTimes;
+	}
+
+	public void setPostTriggerTimes(double[] postTriggerTimes) {
+		this.postTriggerTimes = postTriggerTimes;
+	}
+
 }
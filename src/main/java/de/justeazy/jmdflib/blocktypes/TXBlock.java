@@ -1,5 +1,7 @@
 package de.justeazy.jmdflib.blocktypes;
 
+import de.justeazy.jmdflib.text.BlockText;
+
 /**
  * <p>
  * Basically holds all the information of TXBlocks.
@@ -18,7 +20,7 @@ public class TXBlock {
 	
 	private int blockSize;
 	
-	private String text;
+	private BlockText text;
 
 	public String getBlockTypeIdentifier() {
 		return blockTypeIdentifier;
@@ -37,10 +39,18 @@ public class TXBlock {
 	}
 
 	public String getText() {
+		return text == null ? null : text.toString();
+	}
+
+	public BlockText getBlockText() {
 		return text;
 	}
 
 	public void setText(String text) {
+		this.text = text == null ? null : BlockText.of(text);
+	}
+
+	public void setText(BlockText text) {
 		this.text = text;
 	}
 	
@@ -0,0 +1,346 @@
+package de.justeazy.jmdflib.cache;
+
+import java.io.IOException;
+import java.io.InterruptedIOException;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutionException;
+
+import de.justeazy.jmdflib.ChannelDecoder;
+import de.justeazy.jmdflib.MDFFile;
+import de.justeazy.jmdflib.blocktypes.CGBlock;
+import de.justeazy.jmdflib.blocktypes.CNBlock;
+import de.justeazy.jmdflib.blocktypes.DGBlock;
+import de.justeazy.jmdflib.enums.Conversion;
+import de.justeazy.jmdflib.metrics.MDFMetrics;
+
+/**
+ * <p>
+ * Caches decoded channels of any number of files within a memory budget.
+ * </p>
+ *
+ * <p>
+ * Channels are identified by {@link ChannelKey}s, so the same channel of a
+ * file opened several times is decoded once. Every cached channel is
+ * weighed by the size of its array; when the cached channels exceed the
+ * budget, the least recently used ones are evicted. A channel larger than
+ * the budget is returned but not kept, leaving the cached channels in place.
+ * </p>
+ *
+ * <p>
+ * Concurrent requests of a channel which is not cached yet are answered by
+ * a single load: the first thread decodes the channel, the others wait for
+ * its result (single flight). Loads run outside of the lock of the cache,
+ * so channels of different keys are decoded in parallel. A failed load is
+ * not cached and reported to all waiting threads.
+ * </p>
+ *
+ * <p>
+ * Hits (including requests waiting for a load), misses, loads and
+ * evictions are counted by the cache and, if enabled, by
+ * {@link MDFMetrics}. The returned arrays are shared and must not be
+ * modified by callers.
+ * </p>
+ *
+ * @author Henrik Peters <henrik.peters@tu-clausthal.de>
+ */
+public class ChannelCache {
+
+	/**
+	 * Size of an array without its elements
+	 */
+	private final static long ARRAY_HEADER = 16;
+
+	/**
+	 * <p>
+	 * Decodes a channel.
+	 * </p>
+	 */
+	private interface Loader {
+
+		double[] load() throws IOException;
+
+	}
+
+	/**
+	 * <p>
+	 * Cached or loading channel.
+	 * </p>
+	 */
+	private final static class Entry {
+
+		final CompletableFuture<double[]> value = new CompletableFuture<double[]>();
+
+		/**
+		 * Weight of the loaded channel, 0 while loading
+		 */
+		long bytes;
+
+	}
+
+	private final long maximumBytes;
+
+	/**
+	 * Channels in access order, guarded by itself
+	 */
+	private final LinkedHashMap<ChannelKey, Entry> entries = new LinkedHashMap<ChannelKey, Entry>(16, 0.75f, true);
+
+	private long bytes;
+
+	private long hits;
+
+	private long misses;
+
+	private long loads;
+
+	private long evictions;
+
+	/**
+	 * <p>
+	 * Creates an empty cache.
+	 * </p>
+	 *
+	 * @param maximumBytes
+	 *            memory budget of the cached channels in bytes
+	 */
+	public ChannelCache(long maximumBytes) {
+		if (maximumBytes < 0) {
+			throw new IllegalArgumentException("Memory budget " + maximumBytes + " is negative.");
+		}
+		this.maximumBytes = maximumBytes;
+	}
+
+	/**
+	 * <p>
+	 * Returns the values of a channel, decoding it if it is not cached.
+	 * </p>
+	 *
+	 * @param file
+	 *            MDF file
+	 * @param dgBlock
+	 *            data group of the channel
+	 * @param cgBlock
+	 *            channel group of the channel
+	 * @param cnBlock
+	 *            channel
+	 * @param conversion
+	 *            {@link Conversion#PHYSICAL} for physical values,
+	 *            {@link Conversion#RAW} for the values before conversion
+	 * @return values of all records, shared with other callers
+	 * @throws IOException
+	 *             if the channel cannot be decoded or is not part of the
+	 *             projection
+	 */
+	public double[] get(MDFFile file, DGBlock dgBlock, CGBlock cgBlock, CNBlock cnBlock, Conversion conversion)
+			throws IOException {
+		ChannelKey key = ChannelKey.of(file, dgBlock, cgBlock, cnBlock, conversion);
+		return get(key, () -> {
+			ChannelDecoder decoder = file.getChannelDecoder(dgBlock, cgBlock, cnBlock);
+			if (conversion == Conversion.PHYSICAL) {
+				return decoder.readPhysical();
+			}
+			double[] result = new double[decoder.getNumberOfRecords()];
+			for (int i = 0; i < result.length; i++) {
+				result[i] = decoder.getValue(i);
+			}
+			return result;
+		});
+	}
+
+	private double[] get(ChannelKey key, Loader loader) throws IOException {
+		Entry entry;
+		boolean load;
+		synchronized (entries) {
+			entry = entries.get(key);
+			load = entry == null;
+			if (load) {
+				entry = new Entry();
+				entries.put(key, entry);
+				misses++;
+			} else {
+				hits++;
+			}
+		}
+		MDFMetrics.cacheLookup(!load);
+
+		if (load) {
+			double[] value;
+			try {
+				value = loader.load();
+			} catch (IOException | RuntimeException | Error e) {
+				synchronized (entries) {
+					entries.remove(key, entry);
+				}
+				entry.value.completeExceptionally(e);
+				throw e;
+			}
+			synchronized (entries) {
+				loads++;
+				if (entries.get(key) == entry) {
+					long weight = ARRAY_HEADER + 8L * value.length;
+					if (weight > maximumBytes) {
+						// evicting other channels would not make room for it
+						entries.remove(key, entry);
+					} else {
+						entry.bytes = weight;
+						bytes += weight;
+						evict();
+					}
+				}
+			}
+			entry.value.complete(value);
+			return value;
+		}
+
+		try {
+			return entry.value.get();
+		} catch (InterruptedException e) {
+			Thread.currentThread().interrupt();
+			throw new InterruptedIOException("Interrupted while waiting for channel " + key + ".");
+		} catch (ExecutionException e) {
+			Throwable cause = e.getCause();
+			if (cause instanceof RuntimeException) {
+				throw (RuntimeException) cause;
+			}
+			if (cause instanceof Error) {
+				throw (Error) cause;
+			}
+			throw new IOException(cause.getMessage(), cause);
+		}
+	}
+
+	/**
+	 * <p>
+	 * Evicts the least recently used loaded channels until the budget is
+	 * met. Must be called holding the lock.
+	 * </p>
+	 */
+	private void evict() {
+		long evicted = 0;
+		Iterator<Entry> iterator = entries.values().iterator();
+		while (bytes > maximumBytes && iterator.hasNext()) {
+			Entry entry = iterator.next();
+			if (entry.bytes > 0) {
+				bytes -= entry.bytes;
+				iterator.remove();
+				evicted++;
+			}
+		}
+		evictions += evicted;
+		MDFMetrics.cacheEvicted(evicted);
+	}
+
+	/**
+	 * <p>
+	 * Removes all channels of a file, e. g. after it was replaced.
+	 * </p>
+	 *
+	 * @param file
+	 *            MDF file
+	 * @throws IOException
+	 *             if the canonical path of the file cannot be determined
+	 */
+	public void invalidate(MDFFile file) throws IOException {
+		Object identity = ChannelKey.identity(file);
+		synchronized (entries) {
+			Iterator<Map.Entry<ChannelKey, Entry>> iterator = entries.entrySet().iterator();
+			while (iterator.hasNext()) {
+				Map.Entry<ChannelKey, Entry> entry = iterator.next();
+				if (entry.getKey().belongsTo(identity)) {
+					bytes -= entry.getValue().bytes;
+					iterator.remove();
+				}
+			}
+		}
+	}
+
+	/**
+	 * <p>
+	 * Removes all channels.
+	 * </p>
+	 */
+	public void clear() {
+		synchronized (entries) {
+			entries.clear();
+			bytes = 0;
+		}
+	}
+
+	/**
+	 * <p>
+	 * Checks whether a channel is cached or being loaded, without counting a
+	 * lookup or changing the order of eviction.
+	 * </p>
+	 *
+	 * @param key
+	 *            key of the channel
+	 * @return {@code true} if the channel is cached or being loaded
+	 */
+	public boolean contains(ChannelKey key) {
+		synchronized (entries) {
+			return entries.containsKey(key);
+		}
+	}
+
+	public long getMaximumBytes() {
+		return maximumBytes;
+	}
+
+	/**
+	 * @return weight of the cached channels in bytes
+	 */
+	public long getBytes() {
+		synchronized (entries) {
+			return bytes;
+		}
+	}
+
+	/**
+	 * @return number of cached or loading channels
+	 */
+	public int size() {
+		synchronized (entries) {
+			return entries.size();
+		}
+	}
+
+	public long getHitCount() {
+		synchronized (entries) {
+			return hits;
+		}
+	}
+
+	public long getMissCount() {
+		synchronized (entries) {
+			return misses;
+		}
+	}
+
+	/**
+	 * @return number of successful loads
+	 */
+	public long getLoadCount() {
+		synchronized (entries) {
+			return loads;
+		}
+	}
+
+	public long getEvictionCount() {
+		synchronized (entries) {
+			return evictions;
+		}
+	}
+
+	/**
+	 * @return hits per lookup, NaN if there was no lookup
+	 */
+	public double getHitRatio() {
+		synchronized (entries) {
+			long lookups = hits + misses;
+			return lookups == 0 ? Double.NaN : (double) hits / lookups;
+		}
+	}
+
+}
@@ -0,0 +1,159 @@
+package de.justeazy.jmdflib.cache;
+
+import java.io.File;
+import java.io.IOException;
+
+import de.justeazy.jmdflib.MDFFile;
+import de.justeazy.jmdflib.blocktypes.CGBlock;
+import de.justeazy.jmdflib.blocktypes.CNBlock;
+import de.justeazy.jmdflib.blocktypes.DGBlock;
+import de.justeazy.jmdflib.enums.Conversion;
+
+/**
+ * <p>
+ * Identifies a decoded channel in a {@link ChannelCache}.
+ * </p>
+ *
+ * <p>
+ * Files read from the file system are identified by their canonical path,
+ * length and modification time, so the same file opened twice shares its
+ * channels and a changed file gets new keys. Files read from data sources
+ * are identified by the {@link MDFFile} object. Channels are located by the
+ * positions of their DG, CG and CN blocks in the lists of the file.
+ * </p>
+ *
+ * @author Henrik Peters <henrik.peters@tu-clausthal.de>
+ */
+public final class ChannelKey {
+
+	/**
+	 * Identity of the file, a {@link String} or the {@link MDFFile}
+	 */
+	private final Object file;
+
+	private final int dataGroup;
+
+	private final int channelGroup;
+
+	private final int channel;
+
+	private final Conversion conversion;
+
+	private ChannelKey(Object file, int dataGroup, int channelGroup, int channel, Conversion conversion) {
+		this.file = file;
+		this.dataGroup = dataGroup;
+		this.channelGroup = channelGroup;
+		this.channel = channel;
+		this.conversion = conversion;
+	}
+
+	/**
+	 * <p>
+	 * Creates the key of a channel.
+	 * </p>
+	 *
+	 * @param file
+	 *            MDF file
+	 * @param dgBlock
+	 *            data group of the channel
+	 * @param cgBlock
+	 *            channel group of the channel
+	 * @param cnBlock
+	 *            channel
+	 * @param conversion
+	 *            conversion of the values
+	 * @return key of the channel
+	 * @throws IOException
+	 *             if the canonical path of the file cannot be determined
+	 * @throws IllegalArgumentException
+	 *             if the blocks are not part of the file
+	 */
+	public static ChannelKey of(MDFFile file, DGBlock dgBlock, CGBlock cgBlock, CNBlock cnBlock,
+			Conversion conversion) throws IOException {
+		int dataGroup = indexOf(file.getDGBlocks(), dgBlock);
+		int channelGroup = indexOf(dgBlock.getCgBlocks(), cgBlock);
+		int channel = indexOf(cgBlock.getCNBlocks(), cnBlock);
+		if (dataGroup < 0 || channelGroup < 0 || channel < 0) {
+			throw new IllegalArgumentException("Channel is not part of the file.");
+		}
+		return new ChannelKey(identity(file), dataGroup, channelGroup, channel, conversion);
+	}
+
+	private static int indexOf(Iterable<?> blocks, Object block) {
+		if (blocks == null) {
+			return -1;
+		}
+		int i = 0;
+		for (Object b : blocks) {
+			if (b == block) {
+				return i;
+			}
+			i++;
+		}
+		return -1;
+	}
+
+	public int getDataGroup() {
+		return dataGroup;
+	}
+
+	public int getChannelGroup() {
+		return channelGroup;
+	}
+
+	public int getChannel() {
+		return channel;
+	}
+
+	public Conversion getConversion() {
+		return conversion;
+	}
+
+	/**
+	 * <p>
+	 * Checks whether the channel belongs to a file.
+	 * </p>
+	 */
+	boolean belongsTo(Object file) {
+		return this.file.equals(file);
+	}
+
+	/**
+	 * <p>
+	 * Returns the identity of a file as used by the keys of its channels.
+	 * </p>
+	 */
+	static Object identity(MDFFile file) throws IOException {
+		File f = file.getFile();
+		return f == null ? file : f.getCanonicalPath() + "|" + f.length() + "|" + f.lastModified();
+	}
+
+	@Override
+	public boolean equals(Object object) {
+		if (this == object) {
+			return true;
+		}
+		if (!(object instanceof ChannelKey)) {
+			return false;
+		}
+		ChannelKey other = (ChannelKey) object;
+		return dataGroup == other.dataGroup && channelGroup == other.channelGroup && channel == other.channel
+				&& conversion == other.conversion && file.equals(other.file);
+	}
+
+	@Override
+	public int hashCode() {
+		int h = file.hashCode();
+		h = 31 * h + dataGroup;
+		h = 31 * h + channelGroup;
+		h = 31 * h + channel;
+		return 31 * h + conversion.ordinal();
+	}
+
+	@Override
+	public String toString() {
+		return (file instanceof String ? file : "source") + "#" + dataGroup + "/" + channelGroup + "/" + channel + " "
+				+ conversion;
+	}
+
+}
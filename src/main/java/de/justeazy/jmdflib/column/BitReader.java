@@ -0,0 +1,76 @@
+package de.justeazy.jmdflib.column;
+
+/**
+ * <p>
+ * Reads bits written by a {@link BitWriter}. A reader is a cursor and not
+ * thread-safe, the words may be shared.
+ * </p>
+ *
+ * @author Henrik Peters <henrik.peters@tu-clausthal.de>
+ */
+class BitReader {
+
+	private final long[] words;
+
+	private long position;
+
+	BitReader(long[] words, long position) {
+		this.words = words;
+		this.position = position;
+	}
+
+	/**
+	 * <p>
+	 * Reads {@code count} bits as the lowest bits of the result.
+	 * </p>
+	 *
+	 * @param count
+	 *            number of bits, between 1 and 64
+	 * @return bits read
+	 */
+	long read(int count) {
+		int word = (int) (position >>> 6);
+		int used = (int) (position & 63);
+		int free = 64 - used;
+		long result;
+		if (count <= free) {
+			result = words[word] << used >>> (64 - count);
+		} else {
+			result = (words[word] << used >>> (64 - count)) | (words[word + 1] >>> (64 - count + free));
+		}
+		position += count;
+		return result;
+	}
+
+	boolean readBit() {
+		int word = (int) (position >>> 6);
+		boolean result = (words[word] << (position & 63)) < 0;
+		position++;
+		return result;
+	}
+
+	/**
+	 * <p>
+	 * Reads a value written by {@link BitWriter#writeSigned(long)}.
+	 * </p>
+	 *
+	 * @return value
+	 */
+	long readSigned() {
+		if (!readBit()) {
+			return 0;
+		}
+		long zigzag;
+		if (!readBit()) {
+			zigzag = read(7);
+		} else if (!readBit()) {
+			zigzag = read(9);
+		} else if (!readBit()) {
+			zigzag = read(12);
+		} else {
+			zigzag = read(64);
+		}
+		return (zigzag >>> 1) ^ -(zigzag & 1);
+	}
+
+}
@@ -0,0 +1,95 @@
+package de.justeazy.jmdflib.column;
+
+import java.util.Arrays;
+
+/**
+ * <p>
+ * Appends bits to a growing {@code long[]}, most significant bit first.
+ * </p>
+ *
+ * @author Henrik Peters <henrik.peters@tu-clausthal.de>
+ */
+class BitWriter {
+
+	private long[] words = new long[16];
+
+	private long position = 0;
+
+	long position() {
+		return position;
+	}
+
+	/**
+	 * <p>
+	 * Writes the lowest {@code count} bits of {@code value}.
+	 * </p>
+	 *
+	 * @param value
+	 *            bits to write
+	 * @param count
+	 *            number of bits, between 1 and 64
+	 */
+	void write(long value, int count) {
+		if (count < 64) {
+			value &= (1L << count) - 1;
+		}
+		int word = (int) (position >>> 6);
+		int used = (int) (position & 63);
+		if (word + 1 >= words.length) {
+			words = Arrays.copyOf(words, words.length * 2);
+		}
+		int free = 64 - used;
+		if (count <= free) {
+			words[word] |= value << (free - count);
+		} else {
+			words[word] |= value >>> (count - free);
+			words[word + 1] |= value << (64 - count + free);
+		}
+		position += count;
+	}
+
+	void writeBit(boolean bit) {
+		write(bit ? 1 : 0, 1);
+	}
+
+	/**
+	 * <p>
+	 * Writes a signed value with a prefix code: {@code 0} for 0, otherwise
+	 * {@code 10}, {@code 110}, {@code 1110} or {@code 1111} followed by the
+	 * zigzag encoded value in 7, 9, 12 or 64 bits.
+	 * </p>
+	 *
+	 * @param value
+	 *            value to write
+	 */
+	void writeSigned(long value) {
+		long zigzag = (value << 1) ^ (value >> 63);
+		if (value == 0) {
+			write(0, 1);
+		} else if (zigzag >>> 7 == 0) {
+			write(0b10, 2);
+			write(zigzag, 7);
+		} else if (zigzag >>> 9 == 0) {
+			write(0b110, 3);
+			write(zigzag, 9);
+		} else if (zigzag >>> 12 == 0) {
+			write(0b1110, 4);
+			write(zigzag, 12);
+		} else {
+			write(0b1111, 4);
+			write(zigzag, 64);
+		}
+	}
+
+	/**
+	 * <p>
+	 * Returns the written bits.
+	 * </p>
+	 *
+	 * @return words, trimmed to the written length
+	 */
+	long[] toArray() {
+		return Arrays.copyOf(words, (int) ((position + 63) >>> 6));
+	}
+
+}
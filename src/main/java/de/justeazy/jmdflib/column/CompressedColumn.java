@@ -0,0 +1,163 @@
+package de.justeazy.jmdflib.column;
+
+import de.justeazy.jmdflib.enums.ColumnEncoding;
+
+/**
+ * <p>
+ * Immutable, compressed column of physical channel values.
+ * </p>
+ *
+ * <p>
+ * The values are encoded in independent blocks of {@link #BLOCK_SIZE}
+ * values, every block starts at a known bit position. Reading a value only
+ * decodes its block up to the value, reading a range decodes every block of
+ * the range once, sequentially. A column can be read by any number of
+ * threads.
+ * </p>
+ *
+ * @author Henrik Peters <henrik.peters@tu-clausthal.de>
+ */
+public abstract class CompressedColumn {
+
+	/**
+	 * Number of values per block
+	 */
+	public final static int BLOCK_SIZE = 1024;
+
+	private final String name;
+
+	private final int size;
+
+	/**
+	 * Encoded blocks
+	 */
+	final long[] bits;
+
+	/**
+	 * Bit position of every block in {@code bits}
+	 */
+	final long[] blockPositions;
+
+	CompressedColumn(String name, int size, long[] bits, long[] blockPositions) {
+		this.name = name;
+		this.size = size;
+		this.bits = bits;
+		this.blockPositions = blockPositions;
+	}
+
+	/**
+	 * <p>
+	 * Returns the name of the channel.
+	 * </p>
+	 *
+	 * @return trimmed short signal name
+	 */
+	public String getName() {
+		return name;
+	}
+
+	public int size() {
+		return size;
+	}
+
+	public abstract ColumnEncoding getEncoding();
+
+	/**
+	 * <p>
+	 * Returns the heap memory held by the encoded values.
+	 * </p>
+	 *
+	 * @return size in bytes
+	 */
+	public long getCompressedSize() {
+		return 8L * bits.length + 8L * blockPositions.length;
+	}
+
+	/**
+	 * <p>
+	 * Reads one value.
+	 * </p>
+	 *
+	 * @param index
+	 *            index of the value
+	 * @return physical value
+	 */
+	public double get(int index) {
+		if (index < 0 || index >= size) {
+			throw new IndexOutOfBoundsException("Index " + index + ", size " + size + ".");
+		}
+		double[] values = new double[index % BLOCK_SIZE + 1];
+		decode(index / BLOCK_SIZE, values, 0, values.length);
+		return values[values.length - 1];
+	}
+
+	/**
+	 * <p>
+	 * Reads the values {@code from} (inclusive) to {@code to} (exclusive) into
+	 * {@code destination}.
+	 * </p>
+	 *
+	 * @param from
+	 *            index of the first value
+	 * @param to
+	 *            index after the last value
+	 * @param destination
+	 *            array to write to
+	 * @param offset
+	 *            position of the first value in {@code destination}
+	 */
+	public void read(int from, int to, double[] destination, int offset) {
+		if (from < 0 || to > size || from > to) {
+			throw new IndexOutOfBoundsException("Range " + from + " to " + to + ", size " + size + ".");
+		}
+		double[] block = null;
+		while (from < to) {
+			int index = from / BLOCK_SIZE;
+			int start = index * BLOCK_SIZE;
+			int count = Math.min(BLOCK_SIZE, size - start);
+			if (from == start && to - from >= count) {
+				decode(index, destination, offset, count);
+			} else {
+				if (block == null) {
+					block = new double[BLOCK_SIZE];
+				}
+				int end = Math.min(to - start, count);
+				decode(index, block, 0, end);
+				System.arraycopy(block, from - start, destination, offset, end - (from - start));
+				count = end;
+			}
+			offset += start + count - from;
+			from = start + count;
+		}
+	}
+
+	/**
+	 * <p>
+	 * Reads all values.
+	 * </p>
+	 *
+	 * @return physical values
+	 */
+	public double[] toArray() {
+		double[] result = new double[size];
+		read(0, size, result, 0);
+		return result;
+	}
+
+	/**
+	 * <p>
+	 * Decodes the first {@code count} values of a block.
+	 * </p>
+	 *
+	 * @param block
+	 *            index of the block
+	 * @param destination
+	 *            array to write to
+	 * @param offset
+	 *            position of the first value in {@code destination}
+	 * @param count
+	 *            number of values, at most the size of the block
+	 */
+	abstract void decode(int block, double[] destination, int offset, int count);
+
+}
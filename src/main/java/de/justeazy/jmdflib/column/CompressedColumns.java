@@ -0,0 +1,78 @@
+package de.justeazy.jmdflib.column;
+
+import de.justeazy.jmdflib.ChannelDecoder;
+import de.justeazy.jmdflib.enums.ChannelType;
+import de.justeazy.jmdflib.enums.ColumnEncoding;
+
+/**
+ * <p>
+ * Creates {@link CompressedColumn}s from channels.
+ * </p>
+ *
+ * <p>
+ * Without an explicit encoding, integer time channels are encoded by
+ * {@link ColumnEncoding#DELTA_OF_DELTA}, integer channels with long runs of
+ * equal values by {@link ColumnEncoding#RUN_LENGTH}, all other integer
+ * channels by {@link ColumnEncoding#DELTA_OF_DELTA} and floating point
+ * channels by {@link ColumnEncoding#XOR}.
+ * </p>
+ *
+ * @author Henrik Peters <henrik.peters@tu-clausthal.de>
+ */
+public final class CompressedColumns {
+
+	private CompressedColumns() {
+	}
+
+	/**
+	 * <p>
+	 * Compresses a channel with the encoding suited best for its type.
+	 * </p>
+	 *
+	 * @param decoder
+	 *            decoder of the channel
+	 * @return compressed column
+	 */
+	public static CompressedColumn compress(ChannelDecoder decoder) {
+		if (!decoder.isInteger()) {
+			return compress(decoder, ColumnEncoding.XOR);
+		}
+		if (decoder.getCNBlock().getChannelType() == ChannelType.TIME_CHANNEL) {
+			return compress(decoder, ColumnEncoding.DELTA_OF_DELTA);
+		}
+		int runs = decoder.getNumberOfRecords() > 0 ? 1 : 0;
+		for (int i = 1; i < decoder.getNumberOfRecords(); i++) {
+			if (decoder.getRaw(i) != decoder.getRaw(i - 1)) {
+				runs++;
+			}
+		}
+		return compress(decoder,
+				runs * 4 <= decoder.getNumberOfRecords() ? ColumnEncoding.RUN_LENGTH : ColumnEncoding.DELTA_OF_DELTA);
+	}
+
+	/**
+	 * <p>
+	 * Compresses a channel with the given encoding.
+	 * </p>
+	 *
+	 * @param decoder
+	 *            decoder of the channel
+	 * @param encoding
+	 *            encoding, {@link ColumnEncoding#DELTA_OF_DELTA} and
+	 *            {@link ColumnEncoding#RUN_LENGTH} require an integer channel
+	 * @return compressed column
+	 * @throws IllegalArgumentException
+	 *             if the encoding requires an integer channel
+	 */
+	public static CompressedColumn compress(ChannelDecoder decoder, ColumnEncoding encoding) {
+		switch (encoding) {
+		case DELTA_OF_DELTA:
+			return DeltaOfDeltaColumn.encode(decoder);
+		case RUN_LENGTH:
+			return RunLengthColumn.encode(decoder);
+		default:
+			return XorColumn.encode(decoder);
+		}
+	}
+
+}
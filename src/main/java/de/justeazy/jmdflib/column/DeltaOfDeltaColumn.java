@@ -0,0 +1,69 @@
+package de.justeazy.jmdflib.column;
+
+import de.justeazy.jmdflib.ChannelDecoder;
+import de.justeazy.jmdflib.enums.ColumnEncoding;
+
+/**
+ * <p>
+ * Encodes the raw values of an integer channel by the difference between
+ * consecutive deltas. Equidistant time channels need a single bit per value.
+ * </p>
+ *
+ * <p>
+ * Block layout: first value in 64 bits, first delta and then every delta of
+ * delta as {@link BitWriter#writeSigned(long)}.
+ * </p>
+ *
+ * @author Henrik Peters <henrik.peters@tu-clausthal.de>
+ */
+class DeltaOfDeltaColumn extends IntegerColumn {
+
+	private DeltaOfDeltaColumn(ChannelDecoder decoder, long[] bits, long[] blockPositions) {
+		super(decoder, bits, blockPositions);
+	}
+
+	static DeltaOfDeltaColumn encode(ChannelDecoder decoder) {
+		checkInteger(decoder);
+		int size = decoder.getNumberOfRecords();
+		long[] blockPositions = new long[(size + BLOCK_SIZE - 1) / BLOCK_SIZE];
+		BitWriter writer = new BitWriter();
+		long previous = 0;
+		long previousDelta = 0;
+		for (int i = 0; i < size; i++) {
+			long value = decoder.getRaw(i);
+			int inBlock = i % BLOCK_SIZE;
+			if (inBlock == 0) {
+				blockPositions[i / BLOCK_SIZE] = writer.position();
+				writer.write(value, 64);
+			} else if (inBlock == 1) {
+				previousDelta = value - previous;
+				writer.writeSigned(previousDelta);
+			} else {
+				long delta = value - previous;
+				writer.writeSigned(delta - previousDelta);
+				previousDelta = delta;
+			}
+			previous = value;
+		}
+		return new DeltaOfDeltaColumn(decoder, writer.toArray(), blockPositions);
+	}
+
+	@Override
+	public ColumnEncoding getEncoding() {
+		return ColumnEncoding.DELTA_OF_DELTA;
+	}
+
+	@Override
+	void decode(int block, double[] destination, int offset, int count) {
+		BitReader reader = new BitReader(bits, blockPositions[block]);
+		long value = reader.read(64);
+		destination[offset] = toPhysical(value);
+		long delta = 0;
+		for (int i = 1; i < count; i++) {
+			delta = i == 1 ? reader.readSigned() : delta + reader.readSigned();
+			value += delta;
+			destination[offset + i] = toPhysical(value);
+		}
+	}
+
+}
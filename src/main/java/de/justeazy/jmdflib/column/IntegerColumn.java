@@ -0,0 +1,47 @@
+package de.justeazy.jmdflib.column;
+
+import de.justeazy.jmdflib.ChannelDecoder;
+import de.justeazy.jmdflib.blocktypes.CCBlock;
+
+/**
+ * <p>
+ * Column encoding the raw values of an integer channel. The values are
+ * converted into physical values while decoding.
+ * </p>
+ *
+ * @author Henrik Peters <henrik.peters@tu-clausthal.de>
+ */
+abstract class IntegerColumn extends CompressedColumn {
+
+	private final CCBlock ccBlock;
+
+	private final boolean signed;
+
+	IntegerColumn(ChannelDecoder decoder, long[] bits, long[] blockPositions) {
+		super(decoder.getCNBlock().getShortSignalNameText().intern(), decoder.getNumberOfRecords(), bits, blockPositions);
+		this.ccBlock = decoder.getCNBlock().getCcBlock();
+		this.signed = decoder.isSigned();
+	}
+
+	/**
+	 * <p>
+	 * Converts a raw value like {@link ChannelDecoder#getPhysical(int)}.
+	 * </p>
+	 *
+	 * @param raw
+	 *            raw value as returned by {@link ChannelDecoder#getRaw(int)}
+	 * @return physical value
+	 */
+	final double toPhysical(long raw) {
+		double value = signed || raw >= 0 ? raw : (double) (raw & Long.MAX_VALUE) + 0x1.0p63;
+		return ccBlock == null ? value : ccBlock.convert(value);
+	}
+
+	static void checkInteger(ChannelDecoder decoder) {
+		if (!decoder.isInteger()) {
+			throw new IllegalArgumentException(
+					"Channel " + decoder.getCNBlock().getShortSignalName().trim() + " is not an integer channel.");
+		}
+	}
+
+}
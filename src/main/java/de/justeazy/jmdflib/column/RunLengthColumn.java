@@ -0,0 +1,71 @@
+package de.justeazy.jmdflib.column;
+
+import de.justeazy.jmdflib.ChannelDecoder;
+import de.justeazy.jmdflib.enums.ColumnEncoding;
+
+/**
+ * <p>
+ * Encodes the raw values of an integer channel as runs of equal values,
+ * suited for state flags and other channels with few distinct values.
+ * </p>
+ *
+ * <p>
+ * Block layout: per run, the difference to the value of the previous run of
+ * the block and the length minus one, both as
+ * {@link BitWriter#writeSigned(long)}. Runs do not cross blocks.
+ * </p>
+ *
+ * @author Henrik Peters <henrik.peters@tu-clausthal.de>
+ */
+class RunLengthColumn extends IntegerColumn {
+
+	private RunLengthColumn(ChannelDecoder decoder, long[] bits, long[] blockPositions) {
+		super(decoder, bits, blockPositions);
+	}
+
+	static RunLengthColumn encode(ChannelDecoder decoder) {
+		checkInteger(decoder);
+		int size = decoder.getNumberOfRecords();
+		long[] blockPositions = new long[(size + BLOCK_SIZE - 1) / BLOCK_SIZE];
+		BitWriter writer = new BitWriter();
+		for (int start = 0; start < size; start += BLOCK_SIZE) {
+			blockPositions[start / BLOCK_SIZE] = writer.position();
+			int end = Math.min(size, start + BLOCK_SIZE);
+			long previous = 0;
+			int i = start;
+			while (i < end) {
+				long value = decoder.getRaw(i);
+				int length = 1;
+				while (i + length < end && decoder.getRaw(i + length) == value) {
+					length++;
+				}
+				writer.writeSigned(value - previous);
+				writer.writeSigned(length - 1);
+				previous = value;
+				i += length;
+			}
+		}
+		return new RunLengthColumn(decoder, writer.toArray(), blockPositions);
+	}
+
+	@Override
+	public ColumnEncoding getEncoding() {
+		return ColumnEncoding.RUN_LENGTH;
+	}
+
+	@Override
+	void decode(int block, double[] destination, int offset, int count) {
+		BitReader reader = new BitReader(bits, blockPositions[block]);
+		long value = 0;
+		int i = 0;
+		while (i < count) {
+			value += reader.readSigned();
+			int length = (int) reader.readSigned() + 1;
+			double physical = toPhysical(value);
+			for (int end = Math.min(count, i + length); i < end; i++) {
+				destination[offset + i] = physical;
+			}
+		}
+	}
+
+}
@@ -0,0 +1,94 @@
+package de.justeazy.jmdflib.column;
+
+import de.justeazy.jmdflib.ChannelDecoder;
+import de.justeazy.jmdflib.enums.ColumnEncoding;
+
+/**
+ * <p>
+ * Encodes physical values by the XOR of their IEEE 754 bits with the bits of
+ * the previous value, like the Gorilla time series database. Slowly changing
+ * signals share sign, exponent and most of the mantissa with their
+ * predecessor, so only few meaningful bits remain.
+ * </p>
+ *
+ * <p>
+ * Block layout: first value in 64 bits, then per value {@code 0} if it is
+ * equal to its predecessor, {@code 10} and the meaningful bits if they fit
+ * into the window of leading and trailing zeros of the previous XOR, or
+ * {@code 11}, the number of leading zeros in 6 bits, the number of meaningful
+ * bits minus one in 6 bits and the meaningful bits.
+ * </p>
+ *
+ * @author Henrik Peters <henrik.peters@tu-clausthal.de>
+ */
+class XorColumn extends CompressedColumn {
+
+	private XorColumn(String name, int size, long[] bits, long[] blockPositions) {
+		super(name, size, bits, blockPositions);
+	}
+
+	static XorColumn encode(ChannelDecoder decoder) {
+		int size = decoder.getNumberOfRecords();
+		long[] blockPositions = new long[(size + BLOCK_SIZE - 1) / BLOCK_SIZE];
+		BitWriter writer = new BitWriter();
+		long previous = 0;
+		int leading = -1;
+		int trailing = 0;
+		for (int i = 0; i < size; i++) {
+			long value = Double.doubleToRawLongBits(decoder.getPhysical(i));
+			if (i % BLOCK_SIZE == 0) {
+				blockPositions[i / BLOCK_SIZE] = writer.position();
+				writer.write(value, 64);
+				leading = -1;
+			} else {
+				long xor = value ^ previous;
+				if (xor == 0) {
+					writer.writeBit(false);
+				} else {
+					writer.writeBit(true);
+					int currentLeading = Long.numberOfLeadingZeros(xor);
+					int currentTrailing = Long.numberOfTrailingZeros(xor);
+					if (leading >= 0 && currentLeading >= leading && currentTrailing >= trailing) {
+						writer.writeBit(false);
+						writer.write(xor >>> trailing, 64 - leading - trailing);
+					} else {
+						leading = currentLeading;
+						trailing = currentTrailing;
+						writer.writeBit(true);
+						writer.write(leading, 6);
+						writer.write(63 - leading - trailing, 6);
+						writer.write(xor >>> trailing, 64 - leading - trailing);
+					}
+				}
+			}
+			previous = value;
+		}
+		return new XorColumn(decoder.getCNBlock().getShortSignalNameText().intern(), size, writer.toArray(),
+				blockPositions);
+	}
+
+	@Override
+	public ColumnEncoding getEncoding() {
+		return ColumnEncoding.XOR;
+	}
+
+	@Override
+	void decode(int block, double[] destination, int offset, int count) {
+		BitReader reader = new BitReader(bits, blockPositions[block]);
+		long value = reader.read(64);
+		destination[offset] = Double.longBitsToDouble(value);
+		int leading = 0;
+		int trailing = 0;
+		for (int i = 1; i < count; i++) {
+			if (reader.readBit()) {
+				if (reader.readBit()) {
+					leading = (int) reader.read(6);
+					trailing = 63 - leading - (int) reader.read(6);
+				}
+				value ^= reader.read(64 - leading - trailing) << trailing;
+			}
+			destination[offset + i] = Double.longBitsToDouble(value);
+		}
+	}
+
+}
@@ -0,0 +1,7 @@
+package de.justeazy.jmdflib.enums;
+
+public enum ColumnEncoding {
+
+	DELTA_OF_DELTA, XOR, RUN_LENGTH
+
+}
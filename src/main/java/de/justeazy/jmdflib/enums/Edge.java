@@ -0,0 +1,7 @@
+package de.justeazy.jmdflib.enums;
+
+public enum Edge {
+
+	RISING, FALLING, BOTH
+
+}
@@ -0,0 +1,7 @@
+package de.justeazy.jmdflib.enums;
+
+public enum Interpolation {
+
+	ZERO_ORDER_HOLD, LINEAR
+
+}
@@ -0,0 +1,7 @@
+package de.justeazy.jmdflib.enums;
+
+public enum RollingStatistic {
+
+	MEAN, RMS, MINIMUM, MAXIMUM, STANDARD_DEVIATION
+
+}
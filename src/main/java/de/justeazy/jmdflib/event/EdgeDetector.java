@@ -0,0 +1,373 @@
+package de.justeazy.jmdflib.event;
+
+import java.util.Arrays;
+
+import de.justeazy.jmdflib.ChannelDecoder;
+import de.justeazy.jmdflib.enums.Edge;
+
+/**
+ * <p>
+ * Finds threshold crossings, edges and value changes of channels.
+ * </p>
+ *
+ * <p>
+ * Channels are scanned in blocks of {@value #BLOCK_SIZE} records. The
+ * physical values of a block are decoded from the data records into a small
+ * buffer, so the whole channel is never held as {@code double[]}. Each block
+ * is then scanned by loops without branches on the values: the state of
+ * every record (above or below the threshold) is computed as 0 or 1, edges
+ * are the exclusive or of consecutive states, and the indices of the edges
+ * are written unconditionally and kept by advancing the output position by
+ * the edge flag. The JIT can unroll and vectorize these loops, and their
+ * speed does not depend on the number of edges.
+ * </p>
+ *
+ * <p>
+ * With hysteresis, the state rises when a value reaches the upper threshold
+ * and falls when a value drops to the lower threshold, so noise between the
+ * thresholds does not cause edges. With a minimum duration, a state that
+ * does not last for the minimum duration is dropped together with the edges
+ * starting and ending it (debouncing). NaN values are below every threshold.
+ * </p>
+ *
+ * <p>
+ * An edge is identified by the index of the first record with the new
+ * state. {@link #toTimes(ChannelDecoder, int[])} converts indices into time
+ * stamps.
+ * </p>
+ *
+ * @author Henrik Peters <henrik.peters@tu-clausthal.de>
+ */
+public final class EdgeDetector {
+
+	/**
+	 * Number of records scanned per block
+	 */
+	final static int BLOCK_SIZE = 4096;
+
+	private EdgeDetector() {
+	}
+
+	/**
+	 * <p>
+	 * Reads the physical values of a block of records.
+	 * </p>
+	 */
+	private interface Values {
+
+		int size();
+
+		void read(int from, int to, double[] destination);
+
+	}
+
+	/**
+	 * <p>
+	 * Decides whether a state from record {@code from} to record {@code to}
+	 * (exclusive) lasts long enough.
+	 * </p>
+	 */
+	private interface Duration {
+
+		boolean isLongEnough(int from, int to);
+
+	}
+
+	private static Values values(final ChannelDecoder channel) {
+		return new Values() {
+
+			public int size() {
+				return channel.getNumberOfRecords();
+			}
+
+			public void read(int from, int to, double[] destination) {
+				channel.readPhysical(from, to, destination, 0);
+			}
+
+		};
+	}
+
+	private static Values values(final double[] values) {
+		return new Values() {
+
+			public int size() {
+				return values.length;
+			}
+
+			public void read(int from, int to, double[] destination) {
+				System.arraycopy(values, from, destination, 0, to - from);
+			}
+
+		};
+	}
+
+	/**
+	 * <p>
+	 * Finds the records where a channel crosses a threshold.
+	 * </p>
+	 *
+	 * @param channel
+	 *            decoder of the channel
+	 * @param threshold
+	 *            threshold; a value equal to the threshold is above it
+	 * @param edge
+	 *            direction of the crossings
+	 * @return indices of the first records after the crossings, ascending
+	 */
+	public static int[] crossings(ChannelDecoder channel, double threshold, Edge edge) {
+		return crossings(values(channel), threshold, threshold, edge, null);
+	}
+
+	/**
+	 * <p>
+	 * Finds the records where extracted values cross a threshold.
+	 * </p>
+	 *
+	 * @param values
+	 *            physical values
+	 * @param threshold
+	 *            threshold; a value equal to the threshold is above it
+	 * @param edge
+	 *            direction of the crossings
+	 * @return indices of the first values after the crossings, ascending
+	 */
+	public static int[] crossings(double[] values, double threshold, Edge edge) {
+		return crossings(values(values), threshold, threshold, edge, null);
+	}
+
+	/**
+	 * <p>
+	 * Finds the records where a channel crosses a threshold with hysteresis,
+	 * ignoring states lasting less than {@code minimumRecords} records.
+	 * </p>
+	 *
+	 * @param channel
+	 *            decoder of the channel
+	 * @param lower
+	 *            the state falls at values less than or equal to {@code lower}
+	 * @param upper
+	 *            the state rises at values greater than or equal to
+	 *            {@code upper}
+	 * @param edge
+	 *            direction of the crossings
+	 * @param minimumRecords
+	 *            minimum number of records of a state, 1 for all states
+	 * @return indices of the first records after the crossings, ascending
+	 */
+	public static int[] crossings(ChannelDecoder channel, double lower, double upper, Edge edge,
+			final int minimumRecords) {
+		if (minimumRecords < 1) {
+			throw new IllegalArgumentException("Wrong minimum number of records (" + minimumRecords + ").");
+		}
+		return crossings(values(channel), lower, upper, edge,
+				minimumRecords == 1 ? null : (from, to) -> to - from >= minimumRecords);
+	}
+
+	/**
+	 * <p>
+	 * Finds the records where a channel crosses a threshold with hysteresis,
+	 * ignoring states lasting less than {@code minimumDuration} according to
+	 * the time channel.
+	 * </p>
+	 *
+	 * @param channel
+	 *            decoder of the channel
+	 * @param timeChannel
+	 *            decoder of the time channel of the channel group
+	 * @param lower
+	 *            the state falls at values less than or equal to {@code lower}
+	 * @param upper
+	 *            the state rises at values greater than or equal to
+	 *            {@code upper}
+	 * @param edge
+	 *            direction of the crossings
+	 * @param minimumDuration
+	 *            minimum duration of a state in the unit of the time channel;
+	 *            the last state lasts until the last record
+	 * @return indices of the first records after the crossings, ascending
+	 */
+	public static int[] crossings(ChannelDecoder channel, final ChannelDecoder timeChannel, double lower,
+			double upper, Edge edge, final double minimumDuration) {
+		if (timeChannel.getNumberOfRecords() != channel.getNumberOfRecords()) {
+			throw new IllegalArgumentException("Time channel has " + timeChannel.getNumberOfRecords()
+					+ " records instead of " + channel.getNumberOfRecords() + ".");
+		}
+		final int last = timeChannel.getNumberOfRecords() - 1;
+		return crossings(values(channel), lower, upper, edge, (from, to) -> timeChannel
+				.getPhysical(Math.min(to, last)) - timeChannel.getPhysical(from) >= minimumDuration);
+	}
+
+	/**
+	 * <p>
+	 * Finds the records whose value differs from the value of the previous
+	 * record, e. g. state changes of an enumeration or a counter. NaN values
+	 * are equal to each other.
+	 * </p>
+	 *
+	 * @param channel
+	 *            decoder of the channel
+	 * @return indices of the changed records, ascending
+	 */
+	public static int[] changes(ChannelDecoder channel) {
+		return changes(values(channel));
+	}
+
+	/**
+	 * <p>
+	 * Finds the extracted values that differ from the previous value. NaN
+	 * values are equal to each other.
+	 * </p>
+	 *
+	 * @param values
+	 *            physical values
+	 * @return indices of the changed values, ascending
+	 */
+	public static int[] changes(double[] values) {
+		return changes(values(values));
+	}
+
+	private static int[] changes(Values values) {
+		int records = values.size();
+		double[] block = new double[BLOCK_SIZE];
+		int[] result = new int[16];
+		int n = 0;
+		long previous = 0;
+		for (int from = 0; from < records; from += BLOCK_SIZE) {
+			int to = Math.min(records, from + BLOCK_SIZE);
+			int length = to - from;
+			values.read(from, to, block);
+			if (from == 0) {
+				previous = Double.doubleToLongBits(block[0]);
+			}
+			result = ensureCapacity(result, n + length);
+			for (int i = 0; i < length; i++) {
+				long current = Double.doubleToLongBits(block[i]);
+				long difference = previous ^ current;
+				result[n] = from + i;
+				n += (int) ((difference | -difference) >>> 63);
+				previous = current;
+			}
+		}
+		return Arrays.copyOf(result, n);
+	}
+
+	/**
+	 * <p>
+	 * Returns the time stamps of records.
+	 * </p>
+	 *
+	 * @param timeChannel
+	 *            decoder of the time channel
+	 * @param indices
+	 *            indices of records, e. g. of crossings
+	 * @return physical values of the time channel at the records
+	 */
+	public static double[] toTimes(ChannelDecoder timeChannel, int[] indices) {
+		double[] result = new double[indices.length];
+		for (int i = 0; i < indices.length; i++) {
+			result[i] = timeChannel.getPhysical(indices[i]);
+		}
+		return result;
+	}
+
+	private static int[] crossings(Values values, double lower, double upper, Edge edge, Duration duration) {
+		if (!(lower <= upper)) {
+			throw new IllegalArgumentException("Lower threshold " + lower + " is greater than upper threshold "
+					+ upper + ".");
+		}
+		int records = values.size();
+		if (records == 0) {
+			return new int[0];
+		}
+		boolean hysteresis = lower < upper;
+		double[] block = new double[BLOCK_SIZE];
+		int[] states = new int[BLOCK_SIZE];
+		int[] result = new int[16];
+		int n = 0;
+		int initial = -1;
+		int state = 0;
+		for (int from = 0; from < records; from += BLOCK_SIZE) {
+			int to = Math.min(records, from + BLOCK_SIZE);
+			int length = to - from;
+			values.read(from, to, block);
+			if (initial < 0) {
+				initial = block[0] >= upper ? 1 : 0;
+				state = initial;
+			}
+			int previous = state;
+			if (hysteresis) {
+				for (int i = 0; i < length; i++) {
+					double v = block[i];
+					state = (v >= upper ? 1 : 0) | (state & (v > lower ? 1 : 0));
+					states[i] = state;
+				}
+			} else {
+				for (int i = 0; i < length; i++) {
+					states[i] = block[i] >= upper ? 1 : 0;
+				}
+			}
+
+			// all edges, their directions follow from the initial state
+			result = ensureCapacity(result, n + length);
+			for (int i = 0; i < length; i++) {
+				int current = states[i];
+				result[n] = from + i;
+				n += previous ^ current;
+				previous = current;
+			}
+			state = states[length - 1];
+		}
+
+		if (duration != null) {
+			n = debounce(result, n, records, duration);
+		}
+		return select(result, n, initial, edge);
+	}
+
+	/**
+	 * <p>
+	 * Drops the states that do not last long enough together with the edges
+	 * starting and ending them.
+	 * </p>
+	 *
+	 * @return number of remaining edges
+	 */
+	private static int debounce(int[] edges, int n, int records, Duration duration) {
+		int kept = 0;
+		int i = 0;
+		while (i < n) {
+			int end = i + 1 < n ? edges[i + 1] : records;
+			if (duration.isLongEnough(edges[i], end)) {
+				edges[kept++] = edges[i];
+				i++;
+			} else {
+				// the edge ending the short state returns to the previous one
+				i += 2;
+			}
+		}
+		return kept;
+	}
+
+	/**
+	 * <p>
+	 * Keeps the edges of one direction. Edges alternate, starting with a
+	 * rising edge if the initial state is below the threshold.
+	 * </p>
+	 */
+	private static int[] select(int[] edges, int n, int initial, Edge edge) {
+		if (edge == Edge.BOTH) {
+			return Arrays.copyOf(edges, n);
+		}
+		int first = (edge == Edge.RISING) == (initial == 0) ? 0 : 1;
+		int[] result = new int[Math.max(0, (n - first + 1) / 2)];
+		for (int i = 0; i < result.length; i++) {
+			result[i] = edges[first + 2 * i];
+		}
+		return result;
+	}
+
+	private static int[] ensureCapacity(int[] array, int capacity) {
+		return array.length >= capacity ? array : Arrays.copyOf(array, Math.max(capacity, 2 * array.length));
+	}
+
+}
@@ -0,0 +1,299 @@
+package de.justeazy.jmdflib.filter;
+
+import java.util.Arrays;
+import java.util.BitSet;
+
+import de.justeazy.jmdflib.ChannelDecoder;
+import de.justeazy.jmdflib.blocktypes.CCBlock;
+import de.justeazy.jmdflib.blocktypes.CCBlockLinear2Parameters;
+import de.justeazy.jmdflib.blocktypes.CCBlockOneToOne;
+
+/**
+ * <p>
+ * Selects records by the physical value of a channel without converting
+ * every raw value.
+ * </p>
+ *
+ * <p>
+ * If the conversion of the channel is monotonic ({@link CCBlockOneToOne},
+ * {@link CCBlockLinear2Parameters} or none), the bounds of the requested
+ * physical range are inverted into raw value space once, by binary searches
+ * over the ordered raw values. Converting only the raw values visited by the
+ * searches, the selection is exactly the one of comparing the converted
+ * values. Afterwards, every record is checked by comparing its raw value
+ * only. For other conversions,
+ * the physical values are compared.
+ * </p>
+ *
+ * <p>
+ * The selection is a {@link BitSet} of record indices. Selections of
+ * several channels of a channel group are combined by
+ * {@link BitSet#and(BitSet)} or {@link BitSet#or(BitSet)}, and other channels
+ * are decoded only for the selected records by
+ * {@link #read(ChannelDecoder, BitSet)}.
+ * </p>
+ *
+ * @author Henrik Peters <henrik.peters@tu-clausthal.de>
+ */
+public final class RecordFilter {
+
+	private RecordFilter() {
+	}
+
+	/**
+	 * <p>
+	 * Returns whether the selection on a channel is evaluated on raw values.
+	 * </p>
+	 *
+	 * @param decoder
+	 *            decoder of the channel
+	 * @return {@code true} if the conversion of the channel can be inverted
+	 */
+	public static boolean canPushDown(ChannelDecoder decoder) {
+		if (decoder.isInteger() && !decoder.isSigned() && decoder.getCNBlock().getNumberOfBits() >= 64) {
+			return false;
+		}
+		CCBlock ccBlock = decoder.getCNBlock().getCcBlock();
+		if (ccBlock == null || ccBlock instanceof CCBlockOneToOne) {
+			return true;
+		}
+		if (ccBlock instanceof CCBlockLinear2Parameters) {
+			CCBlockLinear2Parameters linear = (CCBlockLinear2Parameters) ccBlock;
+			return linear.getP2() != 0 && !Double.isInfinite(linear.getP2()) && !Double.isNaN(linear.getP2())
+					&& !Double.isInfinite(linear.getP1()) && !Double.isNaN(linear.getP1());
+		}
+		return false;
+	}
+
+	/**
+	 * <p>
+	 * Selects all records whose physical value is in {@code range}.
+	 * </p>
+	 *
+	 * @param decoder
+	 *            decoder of the channel
+	 * @param range
+	 *            range of physical values
+	 * @return indices of the selected records
+	 */
+	public static BitSet select(ChannelDecoder decoder, ValueRange range) {
+		return select(decoder, range, null);
+	}
+
+	/**
+	 * <p>
+	 * Selects the records of {@code candidates} whose physical value is in
+	 * {@code range}. Only the candidates are read.
+	 * </p>
+	 *
+	 * @param decoder
+	 *            decoder of the channel
+	 * @param range
+	 *            range of physical values
+	 * @param candidates
+	 *            indices of the records to check, {@code null} for all records
+	 * @return indices of the selected records
+	 */
+	public static BitSet select(ChannelDecoder decoder, ValueRange range, BitSet candidates) {
+		int records = decoder.getNumberOfRecords();
+		BitSet result = new BitSet(records);
+		int first = candidates == null ? 0 : candidates.nextSetBit(0);
+		if (!canPushDown(decoder)) {
+			for (int i = first; i >= 0 && i < records; i = next(candidates, i)) {
+				if (range.contains(decoder.getPhysical(i))) {
+					result.set(i);
+				}
+			}
+		} else if (decoder.isInteger()) {
+			Inverse inverse = new Inverse(decoder, range);
+			long lower = inverse.lowerRaw();
+			long upper = inverse.upperRaw();
+			if (lower > upper || !inverse.satisfiesLower(lower) || !inverse.satisfiesUpper(upper)) {
+				return result;
+			}
+			for (int i = first; i >= 0 && i < records; i = next(candidates, i)) {
+				long raw = decoder.getRaw(i);
+				if (raw >= lower && raw <= upper) {
+					result.set(i);
+				}
+			}
+		} else {
+			Inverse inverse = new Inverse(decoder, range);
+			double lower = inverse.lowerValue();
+			double upper = inverse.upperValue();
+			if (lower > upper || !inverse.satisfiesLower(lower) || !inverse.satisfiesUpper(upper)) {
+				return result;
+			}
+			for (int i = first; i >= 0 && i < records; i = next(candidates, i)) {
+				double value = decoder.getValue(i);
+				if (value >= lower && value <= upper) {
+					result.set(i);
+				}
+			}
+		}
+		return result;
+	}
+
+	private static int next(BitSet candidates, int index) {
+		return candidates == null ? index + 1 : candidates.nextSetBit(index + 1);
+	}
+
+	/**
+	 * <p>
+	 * Reads the physical values of the selected records only.
+	 * </p>
+	 *
+	 * @param decoder
+	 *            decoder of the channel
+	 * @param selection
+	 *            indices of the records
+	 * @return physical values in the order of the record indices
+	 */
+	public static double[] read(ChannelDecoder decoder, BitSet selection) {
+		double[] result = new double[selection.cardinality()];
+		int n = 0;
+		for (int i = selection.nextSetBit(0); i >= 0 && i < decoder.getNumberOfRecords(); i = selection
+				.nextSetBit(i + 1)) {
+			result[n++] = decoder.getPhysical(i);
+		}
+		return n == result.length ? result : Arrays.copyOf(result, n);
+	}
+
+	/**
+	 * <p>
+	 * Bounds of a physical range in raw value space of a monotonic
+	 * conversion, found by binary searches over the ordered raw values.
+	 * </p>
+	 */
+	private static class Inverse {
+
+		private final ChannelDecoder decoder;
+
+		private final ValueRange range;
+
+		private final boolean increasing;
+
+		Inverse(ChannelDecoder decoder, ValueRange range) {
+			this.decoder = decoder;
+			this.range = range;
+			CCBlock ccBlock = decoder.getCNBlock().getCcBlock();
+			this.increasing = !(ccBlock instanceof CCBlockLinear2Parameters)
+					|| ((CCBlockLinear2Parameters) ccBlock).getP2() > 0;
+		}
+
+		private double convert(double raw) {
+			CCBlock ccBlock = decoder.getCNBlock().getCcBlock();
+			return ccBlock == null ? raw : ccBlock.convert(raw);
+		}
+
+		/**
+		 * Monotonic in {@code raw}: {@code false} up to the lower raw bound,
+		 * {@code true} afterwards
+		 */
+		boolean satisfiesLower(double raw) {
+			return increasing ? range.aboveLower(convert(raw)) : range.belowUpper(convert(raw));
+		}
+
+		/**
+		 * Monotonic in {@code raw}: {@code true} up to the upper raw bound,
+		 * {@code false} afterwards
+		 */
+		boolean satisfiesUpper(double raw) {
+			return increasing ? range.belowUpper(convert(raw)) : range.aboveLower(convert(raw));
+		}
+
+		private long minimumRaw() {
+			int bits = decoder.getCNBlock().getNumberOfBits();
+			return decoder.isSigned() ? -1L << (bits - 1) : 0;
+		}
+
+		private long maximumRaw() {
+			int bits = decoder.getCNBlock().getNumberOfBits();
+			return decoder.isSigned() ? -1L >>> (65 - bits) : -1L >>> (64 - bits);
+		}
+
+		/**
+		 * Smallest raw value satisfying the lower bound, the maximum raw value
+		 * if there is none
+		 */
+		long lowerRaw() {
+			long low = minimumRaw();
+			long high = maximumRaw();
+			while (low < high) {
+				long middle = (low >> 1) + (high >> 1) + (low & high & 1);
+				if (satisfiesLower(middle)) {
+					high = middle;
+				} else {
+					low = middle + 1;
+				}
+			}
+			return low;
+		}
+
+		/**
+		 * Largest raw value satisfying the upper bound, the minimum raw value
+		 * if there is none
+		 */
+		long upperRaw() {
+			long low = minimumRaw();
+			long high = maximumRaw();
+			while (low < high) {
+				long middle = (low >> 1) + (high >> 1) + ((low | high) & 1);
+				if (satisfiesUpper(middle)) {
+					low = middle;
+				} else {
+					high = middle - 1;
+				}
+			}
+			return low;
+		}
+
+		/**
+		 * Smallest floating point raw value satisfying the lower bound
+		 */
+		double lowerValue() {
+			long low = key(Double.NEGATIVE_INFINITY);
+			long high = key(Double.POSITIVE_INFINITY);
+			while (low < high) {
+				long middle = (low >> 1) + (high >> 1) + (low & high & 1);
+				if (satisfiesLower(value(middle))) {
+					high = middle;
+				} else {
+					low = middle + 1;
+				}
+			}
+			return value(low);
+		}
+
+		/**
+		 * Largest floating point raw value satisfying the upper bound
+		 */
+		double upperValue() {
+			long low = key(Double.NEGATIVE_INFINITY);
+			long high = key(Double.POSITIVE_INFINITY);
+			while (low < high) {
+				long middle = (low >> 1) + (high >> 1) + ((low | high) & 1);
+				if (satisfiesUpper(value(middle))) {
+					low = middle;
+				} else {
+					high = middle - 1;
+				}
+			}
+			return value(low);
+		}
+
+		/**
+		 * Maps doubles to longs of the same order
+		 */
+		private static long key(double value) {
+			long bits = Double.doubleToRawLongBits(value);
+			return bits >= 0 ? bits : bits ^ Long.MAX_VALUE;
+		}
+
+		private static double value(long key) {
+			return Double.longBitsToDouble(key >= 0 ? key : key ^ Long.MAX_VALUE);
+		}
+
+	}
+
+}
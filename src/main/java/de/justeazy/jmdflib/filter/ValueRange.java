@@ -0,0 +1,127 @@
+package de.justeazy.jmdflib.filter;
+
+/**
+ * <p>
+ * Range of physical values, each bound inclusive or exclusive. Infinite
+ * bounds leave the range open to one side.
+ * </p>
+ *
+ * @author Henrik Peters <henrik.peters@tu-clausthal.de>
+ */
+public class ValueRange {
+
+	private final double lower;
+
+	private final boolean lowerInclusive;
+
+	private final double upper;
+
+	private final boolean upperInclusive;
+
+	/**
+	 * <p>
+	 * Creates a range.
+	 * </p>
+	 *
+	 * @param lower
+	 *            lower bound, may be {@link Double#NEGATIVE_INFINITY}
+	 * @param lowerInclusive
+	 *            whether {@code lower} belongs to the range
+	 * @param upper
+	 *            upper bound, may be {@link Double#POSITIVE_INFINITY}
+	 * @param upperInclusive
+	 *            whether {@code upper} belongs to the range
+	 */
+	public ValueRange(double lower, boolean lowerInclusive, double upper, boolean upperInclusive) {
+		if (Double.isNaN(lower) || Double.isNaN(upper)) {
+			throw new IllegalArgumentException("Bounds must not be NaN.");
+		}
+		this.lower = lower;
+		this.lowerInclusive = lowerInclusive;
+		this.upper = upper;
+		this.upperInclusive = upperInclusive;
+	}
+
+	public static ValueRange greaterThan(double value) {
+		return new ValueRange(value, false, Double.POSITIVE_INFINITY, true);
+	}
+
+	public static ValueRange atLeast(double value) {
+		return new ValueRange(value, true, Double.POSITIVE_INFINITY, true);
+	}
+
+	public static ValueRange lessThan(double value) {
+		return new ValueRange(Double.NEGATIVE_INFINITY, true, value, false);
+	}
+
+	public static ValueRange atMost(double value) {
+		return new ValueRange(Double.NEGATIVE_INFINITY, true, value, true);
+	}
+
+	/**
+	 * <p>
+	 * Creates the range from {@code lower} to {@code upper}, both inclusive.
+	 * </p>
+	 *
+	 * @param lower
+	 *            lower bound
+	 * @param upper
+	 *            upper bound
+	 * @return range
+	 */
+	public static ValueRange between(double lower, double upper) {
+		return new ValueRange(lower, true, upper, true);
+	}
+
+	public double getLower() {
+		return lower;
+	}
+
+	public boolean isLowerInclusive() {
+		return lowerInclusive;
+	}
+
+	public double getUpper() {
+		return upper;
+	}
+
+	public boolean isUpperInclusive() {
+		return upperInclusive;
+	}
+
+	/**
+	 * <p>
+	 * Returns whether a value satisfies the lower bound.
+	 * </p>
+	 *
+	 * @param value
+	 *            physical value
+	 * @return {@code true} if {@code value} is not below the range
+	 */
+	public boolean aboveLower(double value) {
+		return lowerInclusive ? value >= lower : value > lower;
+	}
+
+	/**
+	 * <p>
+	 * Returns whether a value satisfies the upper bound.
+	 * </p>
+	 *
+	 * @param value
+	 *            physical value
+	 * @return {@code true} if {@code value} is not above the range
+	 */
+	public boolean belowUpper(double value) {
+		return upperInclusive ? value <= upper : value < upper;
+	}
+
+	public boolean contains(double value) {
+		return aboveLower(value) && belowUpper(value);
+	}
+
+	@Override
+	public String toString() {
+		return (lowerInclusive ? "[" : "(") + lower + ", " + upper + (upperInclusive ? "]" : ")");
+	}
+
+}
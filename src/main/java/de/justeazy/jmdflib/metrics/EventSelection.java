@@ -0,0 +1,20 @@
+package de.justeazy.jmdflib.metrics;
+
+/**
+ * <p>
+ * Selects the {@link MetricsEvents} of this JVM. Replaced in
+ * {@code META-INF/versions/17} by a selection of the Flight Recorder events.
+ * </p>
+ *
+ * @author Henrik Peters <henrik.peters@tu-clausthal.de>
+ */
+final class EventSelection {
+
+	private EventSelection() {
+	}
+
+	static MetricsEvents select() {
+		return new MetricsEvents();
+	}
+
+}
@@ -0,0 +1,405 @@
+package de.justeazy.jmdflib.metrics;
+
+import java.lang.management.ManagementFactory;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.LongAdder;
+
+import javax.management.InstanceAlreadyExistsException;
+import javax.management.JMException;
+import javax.management.MBeanServer;
+import javax.management.ObjectName;
+
+import org.apache.logging.log4j.LogManager;
+import org.apache.logging.log4j.Logger;
+
+/**
+ * <p>
+ * Library wide counters and timers for the parsing and decoding paths.
+ * </p>
+ *
+ * <p>
+ * Collection is switched off by default and can be switched on by the system
+ * property {@code jmdflib.metrics=true}, by {@link #setEnabled(boolean)} or
+ * via JMX. While switched off, every hook returns after a single read of a
+ * volatile flag. Callers in hot loops are expected to aggregate locally and
+ * report once per channel or block, not once per record.
+ * </p>
+ *
+ * <p>
+ * The counters are exposed as {@link MDFMetricsMXBean} under
+ * {@value #OBJECT_NAME}, which is registered when this class is loaded, and,
+ * on Java 17 and later if the running JVM supports Flight Recorder, as JFR
+ * events.
+ * </p>
+ *
+ * @author Henrik Peters <henrik.peters@tu-clausthal.de>
+ */
+public final class MDFMetrics {
+
+	/**
+	 * Logging framework
+	 */
+	private static Logger l = LogManager.getLogger(MDFMetrics.class);
+
+	/**
+	 * Name of the registered MXBean
+	 */
+	public final static String OBJECT_NAME = "de.justeazy.jmdflib:type=MDFMetrics";
+
+	/**
+	 * Whether metrics are collected
+	 */
+	private static volatile boolean enabled = Boolean.getBoolean("jmdflib.metrics");
+
+	private final static LongAdder bytesRead = new LongAdder();
+
+	private final static LongAdder bytesMapped = new LongAdder();
+
+	private final static LongAdder recordsDecoded = new LongAdder();
+
+	private final static LongAdder decodeNanos = new LongAdder();
+
+	private final static LongAdder cacheHits = new LongAdder();
+
+	private final static LongAdder cacheMisses = new LongAdder();
+
+	private final static LongAdder cacheEvictions = new LongAdder();
+
+	private final static ConcurrentHashMap<String, LongAdder> blocksParsed = new ConcurrentHashMap<String, LongAdder>();
+
+	private final static ConcurrentHashMap<String, LongAdder> channelDecodeNanos = new ConcurrentHashMap<String, LongAdder>();
+
+	static {
+		registerMBean();
+	}
+
+	private MDFMetrics() {
+	}
+
+	/**
+	 * <p>
+	 * Returns whether metrics are collected.
+	 * </p>
+	 *
+	 * @return {@code true} if metrics are collected
+	 */
+	public static boolean isEnabled() {
+		return enabled;
+	}
+
+	/**
+	 * <p>
+	 * Switches the collection of metrics on or off.
+	 * </p>
+	 *
+	 * @param enabled
+	 *            {@code true} to collect metrics
+	 */
+	public static void setEnabled(boolean enabled) {
+		MDFMetrics.enabled = enabled;
+	}
+
+	/**
+	 * <p>
+	 * Starts timing a read or mapping of a file, reported by
+	 * {@link #bytesRead(String, long, MetricsTimer)} or
+	 * {@link #bytesMapped(String, long, MetricsTimer)}.
+	 * </p>
+	 *
+	 * @return started timer
+	 */
+	public static MetricsTimer startReadTimer() {
+		if (!enabled) {
+			return MetricsTimer.DISABLED;
+		}
+		return new MetricsTimer(System.nanoTime(), MetricsEvents.INSTANCE.beginFileRead());
+	}
+
+	/**
+	 * <p>
+	 * Starts timing the decoding of a channel, reported by
+	 * {@link #channelDecoded(String, long, MetricsTimer)}.
+	 * </p>
+	 *
+	 * @return started timer
+	 */
+	public static MetricsTimer startDecodeTimer() {
+		if (!enabled) {
+			return MetricsTimer.DISABLED;
+		}
+		return new MetricsTimer(System.nanoTime(), MetricsEvents.INSTANCE.beginChannelDecode());
+	}
+
+	/**
+	 * <p>
+	 * Counts bytes read from a file into memory.
+	 * </p>
+	 *
+	 * @param path
+	 *            path of the file
+	 * @param bytes
+	 *            number of bytes read
+	 * @param timer
+	 *            value of {@link #startReadTimer()} before reading
+	 */
+	public static void bytesRead(String path, long bytes, MetricsTimer timer) {
+		if (!enabled) {
+			return;
+		}
+		bytesRead.add(bytes);
+		MetricsEvents.INSTANCE.fileRead(timer.event, path, bytes, false);
+	}
+
+	/**
+	 * <p>
+	 * Counts bytes of a file mapped into memory.
+	 * </p>
+	 *
+	 * @param path
+	 *            path of the file
+	 * @param bytes
+	 *            number of bytes mapped
+	 * @param timer
+	 *            value of {@link #startReadTimer()} before mapping
+	 */
+	public static void bytesMapped(String path, long bytes, MetricsTimer timer) {
+		if (!enabled) {
+			return;
+		}
+		bytesMapped.add(bytes);
+		MetricsEvents.INSTANCE.fileRead(timer.event, path, bytes, true);
+	}
+
+	/**
+	 * <p>
+	 * Counts a parsed block.
+	 * </p>
+	 *
+	 * @param blockTypeIdentifier
+	 *            block type identifier, e. g. {@code "CN"}
+	 */
+	public static void blockParsed(String blockTypeIdentifier) {
+		if (!enabled) {
+			return;
+		}
+		counter(blocksParsed, blockTypeIdentifier).increment();
+	}
+
+	/**
+	 * <p>
+	 * Counts the decoded records of a channel and the time spent decoding
+	 * them.
+	 * </p>
+	 *
+	 * @param channel
+	 *            name of the channel, padding is removed
+	 * @param records
+	 *            number of decoded records
+	 * @param timer
+	 *            value of {@link #startDecodeTimer()} before decoding
+	 */
+	public static void channelDecoded(String channel, long records, MetricsTimer timer) {
+		if (!enabled || timer == MetricsTimer.DISABLED) {
+			return;
+		}
+		long nanos = System.nanoTime() - timer.startNanos;
+		channel = channel.trim();
+		recordsDecoded.add(records);
+		decodeNanos.add(nanos);
+		counter(channelDecodeNanos, channel).add(nanos);
+		MetricsEvents.INSTANCE.channelDecoded(timer.event, channel, records);
+	}
+
+	/**
+	 * <p>
+	 * Counts a lookup in a cache of decoded channels.
+	 * </p>
+	 *
+	 * @param hit
+	 *            {@code true} if the channel was cached (or being loaded by
+	 *            another thread)
+	 */
+	public static void cacheLookup(boolean hit) {
+		if (!enabled) {
+			return;
+		}
+		(hit ? cacheHits : cacheMisses).increment();
+	}
+
+	/**
+	 * <p>
+	 * Counts channels evicted from a cache of decoded channels.
+	 * </p>
+	 *
+	 * @param channels
+	 *            number of evicted channels
+	 */
+	public static void cacheEvicted(long channels) {
+		if (!enabled) {
+			return;
+		}
+		cacheEvictions.add(channels);
+	}
+
+	/**
+	 * <p>
+	 * Registers the {@link MDFMetricsMXBean} at the platform MBean server.
+	 * Registering it more than once has no effect.
+	 * </p>
+	 */
+	public static void registerMBean() {
+		MBeanServer server = ManagementFactory.getPlatformMBeanServer();
+		try {
+			server.registerMBean(new View(), new ObjectName(OBJECT_NAME));
+		} catch (InstanceAlreadyExistsException e) {
+			l.debug("MXBean {} already registered", OBJECT_NAME);
+		} catch (JMException e) {
+			l.warn("Could not register MXBean " + OBJECT_NAME, e);
+		}
+	}
+
+	/**
+	 * <p>
+	 * Resets all counters.
+	 * </p>
+	 */
+	public static void reset() {
+		bytesRead.reset();
+		bytesMapped.reset();
+		recordsDecoded.reset();
+		decodeNanos.reset();
+		cacheHits.reset();
+		cacheMisses.reset();
+		cacheEvictions.reset();
+		blocksParsed.clear();
+		channelDecodeNanos.clear();
+	}
+
+	public static long getBytesRead() {
+		return bytesRead.sum();
+	}
+
+	public static long getBytesMapped() {
+		return bytesMapped.sum();
+	}
+
+	public static long getRecordsDecoded() {
+		return recordsDecoded.sum();
+	}
+
+	public static long getDecodeNanos() {
+		return decodeNanos.sum();
+	}
+
+	public static long getCacheHits() {
+		return cacheHits.sum();
+	}
+
+	public static long getCacheMisses() {
+		return cacheMisses.sum();
+	}
+
+	public static long getCacheEvictions() {
+		return cacheEvictions.sum();
+	}
+
+	public static Map<String, Long> getBlocksParsed() {
+		return snapshot(blocksParsed);
+	}
+
+	public static Map<String, Long> getChannelDecodeNanos() {
+		return snapshot(channelDecodeNanos);
+	}
+
+	private static LongAdder counter(ConcurrentHashMap<String, LongAdder> counters, String key) {
+		LongAdder counter = counters.get(key);
+		if (counter == null) {
+			LongAdder newCounter = new LongAdder();
+			counter = counters.putIfAbsent(key, newCounter);
+			if (counter == null) {
+				counter = newCounter;
+			}
+		}
+		return counter;
+	}
+
+	private static Map<String, Long> snapshot(ConcurrentHashMap<String, LongAdder> counters) {
+		Map<String, Long> result = new TreeMap<String, Long>();
+		for (Map.Entry<String, LongAdder> entry : counters.entrySet()) {
+			result.put(entry.getKey(), entry.getValue().sum());
+		}
+		return result;
+	}
+
+	/**
+	 * <p>
+	 * Delegates the {@link MDFMetricsMXBean} to the static counters.
+	 * </p>
+	 */
+	private static class View implements MDFMetricsMXBean {
+
+		@Override
+		public boolean isEnabled() {
+			return MDFMetrics.isEnabled();
+		}
+
+		@Override
+		public void setEnabled(boolean enabled) {
+			MDFMetrics.setEnabled(enabled);
+		}
+
+		@Override
+		public long getBytesRead() {
+			return MDFMetrics.getBytesRead();
+		}
+
+		@Override
+		public long getBytesMapped() {
+			return MDFMetrics.getBytesMapped();
+		}
+
+		@Override
+		public long getRecordsDecoded() {
+			return MDFMetrics.getRecordsDecoded();
+		}
+
+		@Override
+		public long getDecodeNanos() {
+			return MDFMetrics.getDecodeNanos();
+		}
+
+		@Override
+		public long getCacheHits() {
+			return MDFMetrics.getCacheHits();
+		}
+
+		@Override
+		public long getCacheMisses() {
+			return MDFMetrics.getCacheMisses();
+		}
+
+		@Override
+		public long getCacheEvictions() {
+			return MDFMetrics.getCacheEvictions();
+		}
+
+		@Override
+		public Map<String, Long> getBlocksParsed() {
+			return MDFMetrics.getBlocksParsed();
+		}
+
+		@Override
+		public Map<String, Long> getChannelDecodeNanos() {
+			return MDFMetrics.getChannelDecodeNanos();
+		}
+
+		@Override
+		public void reset() {
+			MDFMetrics.reset();
+		}
+
+	}
+
+}
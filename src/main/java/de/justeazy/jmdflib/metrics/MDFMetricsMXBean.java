@@ -0,0 +1,38 @@
+package de.justeazy.jmdflib.metrics;
+
+import java.util.Map;
+
+/**
+ * <p>
+ * JMX view of the library wide {@link MDFMetrics}.
+ * </p>
+ *
+ * @author Henrik Peters <henrik.peters@tu-clausthal.de>
+ */
+public interface MDFMetricsMXBean {
+
+	boolean isEnabled();
+
+	void setEnabled(boolean enabled);
+
+	long getBytesRead();
+
+	long getBytesMapped();
+
+	long getRecordsDecoded();
+
+	long getDecodeNanos();
+
+	long getCacheHits();
+
+	long getCacheMisses();
+
+	long getCacheEvictions();
+
+	Map<String, Long> getBlocksParsed();
+
+	Map<String, Long> getChannelDecodeNanos();
+
+	void reset();
+
+}
@@ -0,0 +1,68 @@
+package de.justeazy.jmdflib.metrics;
+
+/**
+ * <p>
+ * Events emitted by {@link MDFMetrics} in addition to its counters.
+ * </p>
+ *
+ * <p>
+ * The events are selected once by {@link EventSelection}: these events,
+ * which do nothing, on every Java version, or Flight Recorder events on
+ * Java 17 and later if the module {@code jdk.jfr} is available. These are
+ * compiled into {@code META-INF/versions/17} of the multi-release JAR.
+ * </p>
+ *
+ * <p>
+ * An event is begun when the timer of its operation is started and
+ * committed when the operation is reported, so its duration is the one of
+ * the operation.
+ * </p>
+ *
+ * @author Henrik Peters <henrik.peters@tu-clausthal.de>
+ */
+class MetricsEvents {
+
+	/**
+	 * Events of this JVM
+	 */
+	static final MetricsEvents INSTANCE = EventSelection.select();
+
+	/**
+	 * <p>
+	 * Begins an event for reading or mapping a file.
+	 * </p>
+	 *
+	 * @return begun event, {@code null} if no event is emitted
+	 */
+	Object beginFileRead() {
+		return null;
+	}
+
+	/**
+	 * <p>
+	 * Emits an event begun by {@link #beginFileRead()}.
+	 * </p>
+	 */
+	void fileRead(Object event, String path, long bytes, boolean mapped) {
+	}
+
+	/**
+	 * <p>
+	 * Begins an event for decoding a channel.
+	 * </p>
+	 *
+	 * @return begun event, {@code null} if no event is emitted
+	 */
+	Object beginChannelDecode() {
+		return null;
+	}
+
+	/**
+	 * <p>
+	 * Emits an event begun by {@link #beginChannelDecode()}.
+	 * </p>
+	 */
+	void channelDecoded(Object event, String channel, long records) {
+	}
+
+}
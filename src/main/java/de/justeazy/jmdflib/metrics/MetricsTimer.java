@@ -0,0 +1,33 @@
+package de.justeazy.jmdflib.metrics;
+
+/**
+ * <p>
+ * Start of a timed read or decode, returned by
+ * {@link MDFMetrics#startReadTimer()} and
+ * {@link MDFMetrics#startDecodeTimer()} and passed back when the operation is
+ * reported. Besides the start time, it holds the event begun for it, so the
+ * events carry the duration of the operation.
+ * </p>
+ *
+ * @author Henrik Peters <henrik.peters@tu-clausthal.de>
+ */
+public final class MetricsTimer {
+
+	/**
+	 * Timer returned while metrics are not collected
+	 */
+	final static MetricsTimer DISABLED = new MetricsTimer(0L, null);
+
+	final long startNanos;
+
+	/**
+	 * Event begun by {@link MetricsEvents}, {@code null} if there is none
+	 */
+	final Object event;
+
+	MetricsTimer(long startNanos, Object event) {
+		this.startNanos = startNanos;
+		this.event = event;
+	}
+
+}
@@ -0,0 +1,303 @@
+package de.justeazy.jmdflib.profile;
+
+import java.io.Serializable;
+
+import de.justeazy.jmdflib.blocktypes.CCBlock;
+import de.justeazy.jmdflib.blocktypes.CNBlock;
+
+/**
+ * <p>
+ * Statistics of the physical values of a channel: exact count, number of NaN
+ * values, minimum, maximum, mean and standard deviation, and approximate
+ * quantiles by a {@link QuantileSketch}.
+ * </p>
+ *
+ * <p>
+ * Mean and variance are accumulated by Welford's algorithm and merged by the
+ * formula of Chan et al., so profiles of parts of a channel can be computed
+ * independently and merged without losing precision. A profile is not
+ * thread-safe.
+ * </p>
+ *
+ * @author Henrik Peters <henrik.peters@tu-clausthal.de>
+ */
+public class ChannelProfile implements Serializable {
+
+	private static final long serialVersionUID = 1L;
+
+	private final String name;
+
+	private final double minimumValidValue;
+
+	private final double maximumValidValue;
+
+	private final QuantileSketch sketch;
+
+	private long count;
+
+	private long nanCount;
+
+	private double minimum = Double.NaN;
+
+	private double maximum = Double.NaN;
+
+	private double mean;
+
+	/**
+	 * Sum of the squared differences from the mean
+	 */
+	private double m2;
+
+	/**
+	 * <p>
+	 * Creates an empty profile for a channel. The valid range of its physical
+	 * values is taken from the CNBlock, converted by its CCBlock, and from the
+	 * physical range of the CCBlock, if these are marked as valid.
+	 * </p>
+	 *
+	 * @param cnBlock
+	 *            channel
+	 * @param accuracy
+	 *            relative accuracy of the quantiles
+	 */
+	public ChannelProfile(CNBlock cnBlock, double accuracy) {
+		this(cnBlock.getShortSignalNameText().intern(), accuracy, validMinimum(cnBlock), validMaximum(cnBlock));
+	}
+
+	/**
+	 * <p>
+	 * Creates an empty profile.
+	 * </p>
+	 *
+	 * @param name
+	 *            name of the channel
+	 * @param accuracy
+	 *            relative accuracy of the quantiles
+	 * @param minimumValidValue
+	 *            smallest valid physical value, {@code -Infinity} if unknown
+	 * @param maximumValidValue
+	 *            largest valid physical value, {@code Infinity} if unknown
+	 */
+	public ChannelProfile(String name, double accuracy, double minimumValidValue, double maximumValidValue) {
+		this.name = name;
+		this.sketch = new QuantileSketch(accuracy);
+		this.minimumValidValue = minimumValidValue;
+		this.maximumValidValue = maximumValidValue;
+	}
+
+	private static double validMinimum(CNBlock cnBlock) {
+		double result = Double.NEGATIVE_INFINITY;
+		CCBlock ccBlock = cnBlock.getCcBlock();
+		if (cnBlock.isValueRangeValid()) {
+			double a = cnBlock.getMinimumSignalValue();
+			double b = cnBlock.getMaximumSignalValue();
+			if (ccBlock != null) {
+				a = ccBlock.convert(a);
+				b = ccBlock.convert(b);
+			}
+			result = Math.min(a, b);
+		}
+		if (ccBlock != null && ccBlock.isPhysicalValueRangeValid()) {
+			result = Math.max(result, ccBlock.getMinimumPhysicalSignalValue());
+		}
+		return result;
+	}
+
+	private static double validMaximum(CNBlock cnBlock) {
+		double result = Double.POSITIVE_INFINITY;
+		CCBlock ccBlock = cnBlock.getCcBlock();
+		if (cnBlock.isValueRangeValid()) {
+			double a = cnBlock.getMinimumSignalValue();
+			double b = cnBlock.getMaximumSignalValue();
+			if (ccBlock != null) {
+				a = ccBlock.convert(a);
+				b = ccBlock.convert(b);
+			}
+			result = Math.max(a, b);
+		}
+		if (ccBlock != null && ccBlock.isPhysicalValueRangeValid()) {
+			result = Math.min(result, ccBlock.getMaximumPhysicalSignalValue());
+		}
+		return result;
+	}
+
+	/**
+	 * <p>
+	 * Adds a physical value.
+	 * </p>
+	 *
+	 * @param value
+	 *            physical value
+	 */
+	public void add(double value) {
+		if (Double.isNaN(value)) {
+			nanCount++;
+			return;
+		}
+		if (count == 0) {
+			minimum = value;
+			maximum = value;
+		} else if (value < minimum) {
+			minimum = value;
+		} else if (value > maximum) {
+			maximum = value;
+		}
+		count++;
+		double delta = value - mean;
+		mean += delta / count;
+		m2 += delta * (value - mean);
+		sketch.add(value);
+	}
+
+	/**
+	 * <p>
+	 * Adds the values of another profile of the same channel, e. g. of other
+	 * records or of another file.
+	 * </p>
+	 *
+	 * @param other
+	 *            profile with the same accuracy
+	 */
+	public void merge(ChannelProfile other) {
+		sketch.merge(other.sketch);
+		nanCount += other.nanCount;
+		if (other.count == 0) {
+			return;
+		}
+		if (count == 0) {
+			minimum = other.minimum;
+			maximum = other.maximum;
+		} else {
+			minimum = Math.min(minimum, other.minimum);
+			maximum = Math.max(maximum, other.maximum);
+		}
+		long n = count + other.count;
+		double delta = other.mean - mean;
+		mean += delta * other.count / n;
+		m2 += other.m2 + delta * delta * ((double) count * other.count / n);
+		count = n;
+	}
+
+	/**
+	 * <p>
+	 * Returns the name of the channel.
+	 * </p>
+	 *
+	 * @return trimmed short signal name
+	 */
+	public String getName() {
+		return name;
+	}
+
+	/**
+	 * <p>
+	 * Returns the number of values that are not NaN.
+	 * </p>
+	 *
+	 * @return number of values
+	 */
+	public long getCount() {
+		return count;
+	}
+
+	/**
+	 * <p>
+	 * Returns the number of NaN values.
+	 * </p>
+	 *
+	 * @return number of NaN values
+	 */
+	public long getNanCount() {
+		return nanCount;
+	}
+
+	/**
+	 * @return smallest value, NaN if there is no value
+	 */
+	public double getMinimum() {
+		return minimum;
+	}
+
+	/**
+	 * @return largest value, NaN if there is no value
+	 */
+	public double getMaximum() {
+		return maximum;
+	}
+
+	/**
+	 * @return arithmetic mean, NaN if there is no value
+	 */
+	public double getMean() {
+		return count == 0 ? Double.NaN : mean;
+	}
+
+	/**
+	 * @return population variance, NaN if there is no value
+	 */
+	public double getVariance() {
+		return count == 0 ? Double.NaN : m2 / count;
+	}
+
+	/**
+	 * @return population standard deviation, NaN if there is no value
+	 */
+	public double getStandardDeviation() {
+		return Math.sqrt(getVariance());
+	}
+
+	/**
+	 * <p>
+	 * Returns an approximate quantile.
+	 * </p>
+	 *
+	 * @param quantile
+	 *            quantile between 0 and 1
+	 * @return value of the quantile within the relative accuracy of the sketch
+	 */
+	public double getQuantile(double quantile) {
+		return sketch.getQuantile(quantile);
+	}
+
+	/**
+	 * @return sketch of the distribution of the values, e. g. for histograms
+	 */
+	public QuantileSketch getSketch() {
+		return sketch;
+	}
+
+	/**
+	 * @return smallest valid physical value, {@code -Infinity} if unknown
+	 */
+	public double getMinimumValidValue() {
+		return minimumValidValue;
+	}
+
+	/**
+	 * @return largest valid physical value, {@code Infinity} if unknown
+	 */
+	public double getMaximumValidValue() {
+		return maximumValidValue;
+	}
+
+	/**
+	 * <p>
+	 * Checks whether the observed values leave the valid range declared by
+	 * the CNBlock or CCBlock of the channel.
+	 * </p>
+	 *
+	 * @return {@code true} if a value is outside the valid range
+	 */
+	public boolean isRangeViolated() {
+		return count > 0 && (minimum < minimumValidValue || maximum > maximumValidValue);
+	}
+
+	@Override
+	public String toString() {
+		return "ChannelProfile [name=" + name + ", count=" + count + ", nanCount=" + nanCount + ", minimum="
+				+ minimum + ", maximum=" + maximum + ", mean=" + getMean() + ", standardDeviation="
+				+ getStandardDeviation() + ", median=" + getQuantile(0.5) + ", rangeViolated=" + isRangeViolated()
+				+ "]";
+	}
+
+}
@@ -0,0 +1,172 @@
+package de.justeazy.jmdflib.profile;
+
+import java.io.Serializable;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+
+/**
+ * <p>
+ * Profiles of all numeric channels of one or more MDF files, in the order of
+ * the channels in the file.
+ * </p>
+ *
+ * <p>
+ * Within a file, channels are identified by their location, i. e. the
+ * positions of their DG, CG and CN blocks, so channels of the same name in
+ * different channel groups (e. g. the time channel of every channel group)
+ * get profiles of their own. Profiles of different files are merged by name:
+ * the n-th channel of a name in one file is merged with the n-th channel of
+ * that name in the other file.
+ * </p>
+ *
+ * @author Henrik Peters <henrik.peters@tu-clausthal.de>
+ */
+public class FileProfile implements Serializable {
+
+	private static final long serialVersionUID = 2L;
+
+	private final ArrayList<ChannelProfile> profiles = new ArrayList<ChannelProfile>();
+
+	/**
+	 * Locations of the profiles, in the same order
+	 */
+	private final ArrayList<Long> locations = new ArrayList<Long>();
+
+	private final HashMap<Long, ChannelProfile> byLocation = new HashMap<Long, ChannelProfile>();
+
+	/**
+	 * <p>
+	 * Adds the profile of a channel. Profiles of the same location, e. g. of
+	 * several chunks of records, are merged.
+	 * </p>
+	 *
+	 * @param dataGroup
+	 *            position of the DGBlock in the file
+	 * @param channelGroup
+	 *            position of the CGBlock in the data group
+	 * @param channel
+	 *            position of the CNBlock in the channel group
+	 * @param profile
+	 *            profile of the channel
+	 */
+	public void add(int dataGroup, int channelGroup, int channel, ChannelProfile profile) {
+		long location = location(dataGroup, channelGroup, channel);
+		ChannelProfile existing = byLocation.get(location);
+		if (existing == null) {
+			append(location, profile);
+		} else {
+			existing.merge(profile);
+		}
+	}
+
+	private void append(long location, ChannelProfile profile) {
+		profiles.add(profile);
+		locations.add(location);
+		if (!byLocation.containsKey(location)) {
+			byLocation.put(location, profile);
+		}
+	}
+
+	private static long location(int dataGroup, int channelGroup, int channel) {
+		if (dataGroup < 0 || channelGroup < 0 || channel < 0 || dataGroup >= 1 << 21 || channelGroup >= 1 << 21
+				|| channel >= 1 << 21) {
+			throw new IllegalArgumentException(
+					"Wrong location (" + dataGroup + "/" + channelGroup + "/" + channel + ").");
+		}
+		return (long) dataGroup << 42 | (long) channelGroup << 21 | channel;
+	}
+
+	/**
+	 * <p>
+	 * Merges the profiles of another file, e. g. of the next file of a
+	 * measurement session, into this one. Channels are matched by name and
+	 * occurrence; channels of the other file without a match are appended.
+	 * </p>
+	 *
+	 * @param other
+	 *            profiles of another file
+	 */
+	public void merge(FileProfile other) {
+		HashMap<String, List<ChannelProfile>> byName = new HashMap<String, List<ChannelProfile>>();
+		for (ChannelProfile profile : profiles) {
+			byName.computeIfAbsent(profile.getName(), k -> new ArrayList<ChannelProfile>()).add(profile);
+		}
+		HashMap<String, Integer> occurrences = new HashMap<String, Integer>();
+		for (int i = 0; i < other.profiles.size(); i++) {
+			ChannelProfile profile = other.profiles.get(i);
+			int occurrence = occurrences.merge(profile.getName(), 1, Integer::sum) - 1;
+			List<ChannelProfile> named = byName.get(profile.getName());
+			if (named != null && occurrence < named.size()) {
+				named.get(occurrence).merge(profile);
+			} else {
+				ChannelProfile copy = new ChannelProfile(profile.getName(), profile.getSketch().getAccuracy(),
+						profile.getMinimumValidValue(), profile.getMaximumValidValue());
+				copy.merge(profile);
+				append(other.locations.get(i), copy);
+			}
+		}
+	}
+
+	/**
+	 * <p>
+	 * Returns the profile of the first channel of a name.
+	 * </p>
+	 *
+	 * @param name
+	 *            trimmed short signal name of the channel
+	 * @return profile, {@code null} if no channel of that name was profiled
+	 */
+	public ChannelProfile get(String name) {
+		for (ChannelProfile profile : profiles) {
+			if (profile.getName().equals(name)) {
+				return profile;
+			}
+		}
+		return null;
+	}
+
+	/**
+	 * <p>
+	 * Returns the profile of the channel at a location.
+	 * </p>
+	 *
+	 * @param dataGroup
+	 *            position of the DGBlock in the file
+	 * @param channelGroup
+	 *            position of the CGBlock in the data group
+	 * @param channel
+	 *            position of the CNBlock in the channel group
+	 * @return profile, {@code null} if the channel was not profiled
+	 */
+	public ChannelProfile get(int dataGroup, int channelGroup, int channel) {
+		return byLocation.get(location(dataGroup, channelGroup, channel));
+	}
+
+	/**
+	 * @return profiles of all channels
+	 */
+	public List<ChannelProfile> getChannelProfiles() {
+		return Collections.unmodifiableList(new ArrayList<ChannelProfile>(profiles));
+	}
+
+	/**
+	 * <p>
+	 * Returns the profiles of all channels whose values leave their valid
+	 * range.
+	 * </p>
+	 *
+	 * @return profiles with {@link ChannelProfile#isRangeViolated()}
+	 */
+	public List<ChannelProfile> getRangeViolations() {
+		ArrayList<ChannelProfile> result = new ArrayList<ChannelProfile>();
+		for (ChannelProfile profile : profiles) {
+			if (profile.isRangeViolated()) {
+				result.add(profile);
+			}
+		}
+		return result;
+	}
+
+}
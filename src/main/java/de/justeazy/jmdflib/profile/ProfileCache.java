@@ -0,0 +1,227 @@
+package de.justeazy.jmdflib.profile;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InterruptedIOException;
+import java.io.ObjectInputStream;
+import java.io.ObjectOutputStream;
+import java.io.OutputStream;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.StandardCopyOption;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.BitSet;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutionException;
+
+import de.justeazy.jmdflib.MDFFile;
+import de.justeazy.jmdflib.blocktypes.CGBlock;
+import de.justeazy.jmdflib.blocktypes.CNBlock;
+import de.justeazy.jmdflib.blocktypes.DGBlock;
+
+/**
+ * <p>
+ * Caches the profiles of MDF files, so every file is profiled only once.
+ * </p>
+ *
+ * <p>
+ * Profiles are identified by the canonical path, length and modification time
+ * of the file, so a changed file is profiled again, and by the accuracy of the
+ * profiler and the channels of the projection the file was opened with, so
+ * profiles of other channels or accuracies are not mixed up. They are kept in
+ * memory and, if a directory is given, also serialized into that directory to
+ * be reused by later processes.
+ * </p>
+ *
+ * <p>
+ * Concurrent requests of a file which is not cached yet are answered by a
+ * single profiling pass, which runs outside of any lock. A failed pass is not
+ * cached.
+ * </p>
+ *
+ * @author Henrik Peters <henrik.peters@tu-clausthal.de>
+ */
+public class ProfileCache {
+
+	private final Profiler profiler;
+
+	private final File directory;
+
+	private final ConcurrentHashMap<String, CompletableFuture<FileProfile>> profiles = new ConcurrentHashMap<String, CompletableFuture<FileProfile>>();
+
+	/**
+	 * <p>
+	 * Creates a cache keeping the profiles in memory.
+	 * </p>
+	 *
+	 * @param profiler
+	 *            profiler of files that are not cached yet
+	 */
+	public ProfileCache(Profiler profiler) {
+		this(profiler, null);
+	}
+
+	/**
+	 * <p>
+	 * Creates a cache keeping the profiles in memory and in {@code directory}.
+	 * </p>
+	 *
+	 * @param profiler
+	 *            profiler of files that are not cached yet
+	 * @param directory
+	 *            existing directory for the serialized profiles, {@code null}
+	 *            for memory only
+	 */
+	public ProfileCache(Profiler profiler, File directory) {
+		if (directory != null && !directory.isDirectory()) {
+			throw new IllegalArgumentException(directory + " is no directory.");
+		}
+		this.profiler = profiler;
+		this.directory = directory;
+	}
+
+	/**
+	 * <p>
+	 * Returns the profile of a file, profiling it if it is not cached yet.
+	 * </p>
+	 *
+	 * @param file
+	 *            MDF file
+	 * @return profile of the file
+	 * @throws IOException
+	 *             if the file cannot be profiled, was not read from a file
+	 *             or the cached profile cannot be read or written
+	 */
+	public FileProfile get(MDFFile file) throws IOException {
+		if (file.getFile() == null) {
+			throw new IOException("Caching profiles of files read from data sources not implemented yet.");
+		}
+		String key = key(file);
+		CompletableFuture<FileProfile> profile = new CompletableFuture<FileProfile>();
+		CompletableFuture<FileProfile> existing = profiles.putIfAbsent(key, profile);
+		if (existing == null) {
+			try {
+				FileProfile result = load(file, key);
+				profile.complete(result);
+				return result;
+			} catch (IOException | RuntimeException | Error e) {
+				profiles.remove(key, profile);
+				profile.completeExceptionally(e);
+				throw e;
+			}
+		}
+
+		try {
+			return existing.get();
+		} catch (InterruptedException e) {
+			Thread.currentThread().interrupt();
+			throw new InterruptedIOException("Interrupted while waiting for the profile of " + file.getFile() + ".");
+		} catch (ExecutionException e) {
+			Throwable cause = e.getCause();
+			if (cause instanceof RuntimeException) {
+				throw (RuntimeException) cause;
+			}
+			if (cause instanceof Error) {
+				throw (Error) cause;
+			}
+			throw new IOException(cause.getMessage(), cause);
+		}
+	}
+
+	/**
+	 * <p>
+	 * Checks whether the profile of a file is cached in memory or being
+	 * profiled.
+	 * </p>
+	 *
+	 * @param file
+	 *            MDF file
+	 * @return {@code true} if the profile is cached
+	 * @throws IOException
+	 *             if the canonical path of the file cannot be determined
+	 */
+	public boolean contains(MDFFile file) throws IOException {
+		return file.getFile() != null && profiles.containsKey(key(file));
+	}
+
+	private FileProfile load(MDFFile file, String key) throws IOException {
+		if (directory == null) {
+			return profiler.profile(file);
+		}
+		File cached = new File(directory, hash(key) + ".profile");
+		if (cached.isFile()) {
+			try (InputStream in = Files.newInputStream(cached.toPath());
+					ObjectInputStream objects = new ObjectInputStream(in)) {
+				return (FileProfile) objects.readObject();
+			} catch (ClassNotFoundException | ClassCastException e) {
+				throw new IOException("Cached profile " + cached + " cannot be read.", e);
+			}
+		}
+		FileProfile result = profiler.profile(file);
+		File temporary = File.createTempFile("profile", ".tmp", directory);
+		try {
+			try (OutputStream out = Files.newOutputStream(temporary.toPath());
+					ObjectOutputStream objects = new ObjectOutputStream(out)) {
+				objects.writeObject(result);
+			}
+			Files.move(temporary.toPath(), cached.toPath(), StandardCopyOption.REPLACE_EXISTING,
+					StandardCopyOption.ATOMIC_MOVE);
+		} finally {
+			Files.deleteIfExists(temporary.toPath());
+		}
+		return result;
+	}
+
+	/**
+	 * <p>
+	 * Returns the key of a file: its identity, the accuracy of the profiler
+	 * and the projected channels.
+	 * </p>
+	 */
+	private String key(MDFFile file) throws IOException {
+		File f = file.getFile();
+		BitSet projected = new BitSet();
+		int i = 0;
+		for (DGBlock dgBlock : file.getDGBlocks()) {
+			if (dgBlock.getCgBlocks() == null) {
+				continue;
+			}
+			for (CGBlock cgBlock : dgBlock.getCgBlocks()) {
+				if (cgBlock.getCNBlocks() == null) {
+					continue;
+				}
+				for (CNBlock cnBlock : cgBlock.getCNBlocks()) {
+					projected.set(i++, cnBlock.isProjected());
+				}
+			}
+		}
+		StringBuilder result = new StringBuilder();
+		result.append(f.getCanonicalPath()).append('|').append(f.length()).append('|').append(f.lastModified());
+		result.append('|').append(profiler.getAccuracy()).append('|');
+		if (projected.cardinality() == i) {
+			result.append('*');
+		} else {
+			for (long word : projected.toLongArray()) {
+				result.append(Long.toHexString(word)).append(',');
+			}
+			result.append(i);
+		}
+		return result.toString();
+	}
+
+	private static String hash(String key) {
+		try {
+			StringBuilder result = new StringBuilder();
+			for (byte b : MessageDigest.getInstance("SHA-1").digest(key.getBytes(StandardCharsets.UTF_8))) {
+				result.append(String.format("%02x", b & 0xff));
+			}
+			return result.toString();
+		} catch (NoSuchAlgorithmException e) {
+			throw new IllegalStateException(e);
+		}
+	}
+
+}
@@ -0,0 +1,203 @@
+package de.justeazy.jmdflib.profile;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.Executor;
+import java.util.concurrent.ForkJoinPool;
+
+import de.justeazy.jmdflib.ChannelDecoder;
+import de.justeazy.jmdflib.MDFFile;
+import de.justeazy.jmdflib.blocktypes.CGBlock;
+import de.justeazy.jmdflib.blocktypes.CNBlock;
+import de.justeazy.jmdflib.blocktypes.DGBlock;
+import de.justeazy.jmdflib.enums.SignalDataType;
+
+/**
+ * <p>
+ * Profiles all numeric channels of a MDF file in one pass over its records.
+ * </p>
+ *
+ * <p>
+ * The records of every channel group are read once, record by record, and
+ * every value is added to the {@link ChannelProfile} of its channel, instead
+ * of reading the data once per channel. Large channel groups are split into
+ * chunks of records that are profiled in parallel and merged afterwards.
+ * String and byte array channels and channels that are not part of the
+ * projection are skipped.
+ * </p>
+ *
+ * @author Henrik Peters <henrik.peters@tu-clausthal.de>
+ */
+public class Profiler {
+
+	/**
+	 * Default relative accuracy of the quantiles
+	 */
+	public final static double DEFAULT_ACCURACY = 0.01;
+
+	/**
+	 * Number of records profiled per task
+	 */
+	private final static int CHUNK_SIZE = 1 << 16;
+
+	private final double accuracy;
+
+	private final Executor executor;
+
+	/**
+	 * <p>
+	 * Creates a profiler with {@link #DEFAULT_ACCURACY} using the common
+	 * fork/join pool.
+	 * </p>
+	 */
+	public Profiler() {
+		this(DEFAULT_ACCURACY, ForkJoinPool.commonPool());
+	}
+
+	/**
+	 * <p>
+	 * Creates a profiler.
+	 * </p>
+	 *
+	 * @param accuracy
+	 *            relative accuracy of the quantiles, between 0 and 1
+	 * @param executor
+	 *            executor profiling chunks of records
+	 */
+	public Profiler(double accuracy, Executor executor) {
+		if (!(accuracy > 0 && accuracy < 1)) {
+			throw new IllegalArgumentException("Wrong accuracy (" + accuracy + ").");
+		}
+		this.accuracy = accuracy;
+		this.executor = executor;
+	}
+
+	/**
+	 * @return relative accuracy of the quantiles
+	 */
+	public double getAccuracy() {
+		return accuracy;
+	}
+
+	/**
+	 * <p>
+	 * Profiles all numeric channels of a file.
+	 * </p>
+	 *
+	 * @param file
+	 *            MDF file
+	 * @return profiles of the channels
+	 * @throws IOException
+	 *             if the data of a channel cannot be read
+	 */
+	public FileProfile profile(MDFFile file) throws IOException {
+		FileProfile result = new FileProfile();
+		for (int dg = 0; dg < file.getDGBlocks().size(); dg++) {
+			DGBlock dgBlock = file.getDGBlocks().get(dg);
+			if (dgBlock.getCgBlocks() == null) {
+				continue;
+			}
+			for (int cg = 0; cg < dgBlock.getCgBlocks().size(); cg++) {
+				CGBlock cgBlock = dgBlock.getCgBlocks().get(cg);
+				List<ChannelProfile> profiles = profile(file, dgBlock, cgBlock);
+				int p = 0;
+				for (int cn = 0; p < profiles.size(); cn++) {
+					if (isProfiled(cgBlock.getCNBlocks().get(cn))) {
+						result.add(dg, cg, cn, profiles.get(p++));
+					}
+				}
+			}
+		}
+		return result;
+	}
+
+	/**
+	 * <p>
+	 * Profiles all numeric channels of a channel group.
+	 * </p>
+	 *
+	 * @param file
+	 *            MDF file
+	 * @param dgBlock
+	 *            data group of the channel group
+	 * @param cgBlock
+	 *            channel group
+	 * @return profiles of the channels
+	 * @throws IOException
+	 *             if the data of a channel cannot be read
+	 */
+	public List<ChannelProfile> profile(MDFFile file, DGBlock dgBlock, CGBlock cgBlock) throws IOException {
+		ArrayList<ChannelDecoder> decoders = new ArrayList<ChannelDecoder>();
+		if (cgBlock.getCNBlocks() != null) {
+			for (CNBlock cnBlock : cgBlock.getCNBlocks()) {
+				if (isProfiled(cnBlock)) {
+					decoders.add(file.getChannelDecoder(dgBlock, cgBlock, cnBlock));
+				}
+			}
+		}
+		ChannelDecoder[] channels = decoders.toArray(new ChannelDecoder[decoders.size()]);
+		if (channels.length == 0) {
+			return new ArrayList<ChannelProfile>();
+		}
+		int numberOfRecords = channels[0].getNumberOfRecords();
+		if (numberOfRecords <= CHUNK_SIZE) {
+			return profile(channels, 0, numberOfRecords);
+		}
+
+		ArrayList<CompletableFuture<List<ChannelProfile>>> chunks = new ArrayList<CompletableFuture<List<ChannelProfile>>>();
+		for (int from = 0; from < numberOfRecords; from += CHUNK_SIZE) {
+			final int start = from;
+			final int end = Math.min(numberOfRecords, from + CHUNK_SIZE);
+			final ChannelDecoder[] copies = new ChannelDecoder[channels.length];
+			for (int c = 0; c < channels.length; c++) {
+				copies[c] = channels[c].copy();
+			}
+			chunks.add(CompletableFuture.supplyAsync(() -> profile(copies, start, end), executor));
+		}
+		List<ChannelProfile> result;
+		try {
+			result = chunks.get(0).join();
+			for (int i = 1; i < chunks.size(); i++) {
+				List<ChannelProfile> chunk = chunks.get(i).join();
+				for (int c = 0; c < result.size(); c++) {
+					result.get(c).merge(chunk.get(c));
+				}
+			}
+		} catch (CompletionException e) {
+			throw new IOException("Profiling channel group failed.", e.getCause());
+		}
+		return result;
+	}
+
+	private static boolean isProfiled(CNBlock cnBlock) {
+		return cnBlock.isProjected() && cnBlock.getSignalDataType() != SignalDataType.STRING
+				&& cnBlock.getSignalDataType() != SignalDataType.BYTE_ARRAY;
+	}
+
+	/**
+	 * <p>
+	 * Profiles the records {@code from} (inclusive) to {@code to} (exclusive),
+	 * record by record.
+	 * </p>
+	 */
+	private List<ChannelProfile> profile(ChannelDecoder[] channels, int from, int to) {
+		ChannelProfile[] profiles = new ChannelProfile[channels.length];
+		for (int c = 0; c < channels.length; c++) {
+			profiles[c] = new ChannelProfile(channels[c].getCNBlock(), accuracy);
+		}
+		for (int record = from; record < to; record++) {
+			for (int c = 0; c < channels.length; c++) {
+				profiles[c].add(channels[c].getPhysical(record));
+			}
+		}
+		ArrayList<ChannelProfile> result = new ArrayList<ChannelProfile>(profiles.length);
+		for (ChannelProfile profile : profiles) {
+			result.add(profile);
+		}
+		return result;
+	}
+
+}
@@ -0,0 +1,315 @@
+package de.justeazy.jmdflib.profile;
+
+import java.io.Serializable;
+import java.util.Arrays;
+
+/**
+ * <p>
+ * Mergeable sketch of the distribution of a stream of values with relative
+ * accuracy guarantees (DDSketch).
+ * </p>
+ *
+ * <p>
+ * Values are counted in logarithmic buckets: bucket {@code i} holds the
+ * values in (γ<sup>i-1</sup>, γ<sup>i</sup>] with γ = (1 + α) / (1 - α), one
+ * set of buckets for positive and one for negative values. Every quantile is
+ * then returned with a relative error of at most α, and two sketches with
+ * the same accuracy are merged by adding their buckets, so sketches of parts
+ * of a channel, of several threads or of several files can be combined. The
+ * buckets also serve as a histogram (see {@link #count(double, double)}).
+ * </p>
+ *
+ * <p>
+ * NaN and infinite values are ignored. A sketch is not thread-safe.
+ * </p>
+ *
+ * @author Henrik Peters <henrik.peters@tu-clausthal.de>
+ */
+public class QuantileSketch implements Serializable {
+
+	private static final long serialVersionUID = 1L;
+
+	/**
+	 * Values with a smaller magnitude are counted as zero
+	 */
+	private final static double MINIMUM_VALUE = 1e-300;
+
+	private final double accuracy;
+
+	private final double logGamma;
+
+	private final Buckets positive = new Buckets();
+
+	private final Buckets negative = new Buckets();
+
+	private long zeros;
+
+	private double minimum = Double.POSITIVE_INFINITY;
+
+	private double maximum = Double.NEGATIVE_INFINITY;
+
+	/**
+	 * <p>
+	 * Creates an empty sketch.
+	 * </p>
+	 *
+	 * @param accuracy
+	 *            relative accuracy α of the quantiles, between 0 and 1
+	 */
+	public QuantileSketch(double accuracy) {
+		if (!(accuracy > 0 && accuracy < 1)) {
+			throw new IllegalArgumentException("Wrong accuracy (" + accuracy + ").");
+		}
+		this.accuracy = accuracy;
+		this.logGamma = Math.log((1 + accuracy) / (1 - accuracy));
+	}
+
+	/**
+	 * <p>
+	 * Counts of consecutive buckets, growing in both directions.
+	 * </p>
+	 */
+	private static class Buckets implements Serializable {
+
+		private static final long serialVersionUID = 1L;
+
+		long[] counts = new long[0];
+
+		/**
+		 * Index of the bucket counted in {@code counts[0]}
+		 */
+		int offset;
+
+		long total;
+
+		void add(int index, long count) {
+			if (counts.length == 0) {
+				counts = new long[16];
+				offset = index - 8;
+			} else if (index < offset || index >= offset + counts.length) {
+				int first = Math.min(offset, index);
+				int last = Math.max(offset + counts.length - 1, index);
+				int length = Math.max(last - first + 1, 2 * counts.length);
+				if (index < offset) {
+					first = last - length + 1;
+				}
+				long[] grown = new long[length];
+				System.arraycopy(counts, 0, grown, offset - first, counts.length);
+				counts = grown;
+				offset = first;
+			}
+			counts[index - offset] += count;
+			total += count;
+		}
+
+		void merge(Buckets other) {
+			for (int i = 0; i < other.counts.length; i++) {
+				if (other.counts[i] != 0) {
+					add(other.offset + i, other.counts[i]);
+				}
+			}
+		}
+
+	}
+
+	/**
+	 * <p>
+	 * Returns the relative accuracy of the quantiles.
+	 * </p>
+	 *
+	 * @return relative accuracy α
+	 */
+	public double getAccuracy() {
+		return accuracy;
+	}
+
+	/**
+	 * <p>
+	 * Returns the number of counted values.
+	 * </p>
+	 *
+	 * @return number of finite values
+	 */
+	public long getCount() {
+		return negative.total + zeros + positive.total;
+	}
+
+	/**
+	 * <p>
+	 * Counts a value.
+	 * </p>
+	 *
+	 * @param value
+	 *            value, ignored if it is NaN or infinite
+	 */
+	public void add(double value) {
+		if (Double.isNaN(value) || Double.isInfinite(value)) {
+			return;
+		}
+		minimum = Math.min(minimum, value);
+		maximum = Math.max(maximum, value);
+		if (value > MINIMUM_VALUE) {
+			positive.add(index(value), 1);
+		} else if (value < -MINIMUM_VALUE) {
+			negative.add(index(-value), 1);
+		} else {
+			zeros++;
+		}
+	}
+
+	/**
+	 * <p>
+	 * Adds the counts of another sketch.
+	 * </p>
+	 *
+	 * @param other
+	 *            sketch with the same accuracy
+	 */
+	public void merge(QuantileSketch other) {
+		if (other.accuracy != accuracy) {
+			throw new IllegalArgumentException(
+					"Sketches with accuracies " + accuracy + " and " + other.accuracy + " cannot be merged.");
+		}
+		positive.merge(other.positive);
+		negative.merge(other.negative);
+		zeros += other.zeros;
+		minimum = Math.min(minimum, other.minimum);
+		maximum = Math.max(maximum, other.maximum);
+	}
+
+	private int index(double magnitude) {
+		return (int) Math.ceil(Math.log(magnitude) / logGamma);
+	}
+
+	/**
+	 * @return representative value of a bucket, within the relative accuracy
+	 *         of all of its values and never outside the counted values
+	 */
+	private double value(int index, boolean negative) {
+		double magnitude = 2 * Math.exp(index * logGamma) / (1 + Math.exp(logGamma));
+		return Math.max(minimum, Math.min(maximum, negative ? -magnitude : magnitude));
+	}
+
+	/**
+	 * <p>
+	 * Returns a quantile.
+	 * </p>
+	 *
+	 * @param quantile
+	 *            quantile between 0 and 1, e. g. 0.5 for the median
+	 * @return value of the quantile within the relative accuracy, NaN if the
+	 *         sketch is empty
+	 */
+	public double getQuantile(double quantile) {
+		if (!(quantile >= 0 && quantile <= 1)) {
+			throw new IllegalArgumentException("Wrong quantile (" + quantile + ").");
+		}
+		long count = getCount();
+		if (count == 0) {
+			return Double.NaN;
+		}
+		long rank = (long) (quantile * (count - 1));
+		long n = 0;
+		for (int i = negative.counts.length - 1; i >= 0; i--) {
+			n += negative.counts[i];
+			if (n > rank) {
+				return value(negative.offset + i, true);
+			}
+		}
+		n += zeros;
+		if (n > rank) {
+			return 0;
+		}
+		for (int i = 0; i < positive.counts.length; i++) {
+			n += positive.counts[i];
+			if (n > rank) {
+				return value(positive.offset + i, false);
+			}
+		}
+		return maximum;
+	}
+
+	/**
+	 * <p>
+	 * Returns several quantiles.
+	 * </p>
+	 *
+	 * @param quantiles
+	 *            quantiles between 0 and 1
+	 * @return values of the quantiles
+	 */
+	public double[] getQuantiles(double... quantiles) {
+		double[] result = new double[quantiles.length];
+		for (int i = 0; i < quantiles.length; i++) {
+			result[i] = getQuantile(quantiles[i]);
+		}
+		return result;
+	}
+
+	/**
+	 * <p>
+	 * Estimates the number of values between {@code lower} (exclusive) and
+	 * {@code upper} (inclusive), e. g. for a histogram. Buckets are counted if
+	 * their representative value is in the range.
+	 * </p>
+	 *
+	 * @param lower
+	 *            lower bound
+	 * @param upper
+	 *            upper bound
+	 * @return estimated number of values
+	 */
+	public long count(double lower, double upper) {
+		long result = 0;
+		for (int i = 0; i < negative.counts.length; i++) {
+			double v = value(negative.offset + i, true);
+			if (v > lower && v <= upper) {
+				result += negative.counts[i];
+			}
+		}
+		if (0 > lower && 0 <= upper) {
+			result += zeros;
+		}
+		for (int i = 0; i < positive.counts.length; i++) {
+			double v = value(positive.offset + i, false);
+			if (v > lower && v <= upper) {
+				result += positive.counts[i];
+			}
+		}
+		return result;
+	}
+
+	/**
+	 * <p>
+	 * Estimates a histogram with bins of equal width.
+	 * </p>
+	 *
+	 * @param minimum
+	 *            lower bound of the first bin
+	 * @param maximum
+	 *            upper bound of the last bin
+	 * @param bins
+	 *            number of bins
+	 * @return estimated number of values per bin
+	 */
+	public long[] histogram(double minimum, double maximum, int bins) {
+		if (bins < 1 || !(maximum > minimum)) {
+			throw new IllegalArgumentException("Wrong histogram (" + bins + " bins from " + minimum + " to "
+					+ maximum + ").");
+		}
+		long[] result = new long[bins];
+		double width = (maximum - minimum) / bins;
+		for (int b = 0; b < bins; b++) {
+			double lower = b == 0 ? Math.nextDown(minimum) : minimum + b * width;
+			result[b] = count(lower, b == bins - 1 ? maximum : minimum + (b + 1) * width);
+		}
+		return result;
+	}
+
+	@Override
+	public String toString() {
+		return "QuantileSketch [accuracy=" + accuracy + ", count=" + getCount() + ", quartiles="
+				+ Arrays.toString(getCount() == 0 ? new double[0] : getQuantiles(0.25, 0.5, 0.75)) + "]";
+	}
+
+}
@@ -0,0 +1,86 @@
+package de.justeazy.jmdflib.reduction;
+
+/**
+ * <p>
+ * Result of a {@link SampleReduction} query: mean, minimum and maximum of a
+ * channel per time interval, all columns of the same length.
+ * </p>
+ *
+ * <p>
+ * If the query was answered from the raw records, every record is its own
+ * interval and {@link #getMean()}, {@link #getMin()} and {@link #getMax()}
+ * return the same array.
+ * </p>
+ *
+ * @author Henrik Peters <henrik.peters@tu-clausthal.de>
+ */
+public class ReducedChannel {
+
+	private final double timeIntervalLength;
+
+	private final double[] time;
+
+	private final double[] mean;
+
+	private final double[] min;
+
+	private final double[] max;
+
+	ReducedChannel(double timeIntervalLength, double[] time, double[] mean, double[] min, double[] max) {
+		this.timeIntervalLength = timeIntervalLength;
+		this.time = time;
+		this.mean = mean;
+		this.min = min;
+		this.max = max;
+	}
+
+	public int size() {
+		return time.length;
+	}
+
+	/**
+	 * <p>
+	 * Returns the length of the intervals.
+	 * </p>
+	 *
+	 * @return length of the intervals in seconds, 0 for raw records
+	 */
+	public double getTimeIntervalLength() {
+		return timeIntervalLength;
+	}
+
+	/**
+	 * <p>
+	 * Returns whether the values were decoded from the raw records.
+	 * </p>
+	 *
+	 * @return {@code true} if no sample reduction was used
+	 */
+	public boolean isRaw() {
+		return timeIntervalLength == 0;
+	}
+
+	/**
+	 * <p>
+	 * Returns the time per interval, i. e. the mean of the time channel.
+	 * </p>
+	 *
+	 * @return time column
+	 */
+	public double[] getTime() {
+		return time;
+	}
+
+	public double[] getMean() {
+		return mean;
+	}
+
+	public double[] getMin() {
+		return min;
+	}
+
+	public double[] getMax() {
+		return max;
+	}
+
+}
@@ -0,0 +1,132 @@
+package de.justeazy.jmdflib.reduction;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+
+import de.justeazy.jmdflib.ChannelDecoder;
+import de.justeazy.jmdflib.blocktypes.CGBlock;
+import de.justeazy.jmdflib.blocktypes.CNBlock;
+import de.justeazy.jmdflib.blocktypes.DGBlock;
+import de.justeazy.jmdflib.blocktypes.SRBlock;
+
+/**
+ * <p>
+ * Reads channels at a requested resolution from the sample reductions (SR
+ * blocks) of their channel group.
+ * </p>
+ *
+ * <p>
+ * The data block of a SR block holds three records per reduced sample, in the
+ * layout of the channel group: the mean, the minimum and the maximum over one
+ * time interval. A query uses the coarsest reduction whose interval is not
+ * longer than the requested resolution, so an overview never touches the raw
+ * records. Only if the resolution is finer than all reductions, the raw
+ * records are decoded.
+ * </p>
+ *
+ * @author Henrik Peters <henrik.peters@tu-clausthal.de>
+ */
+public final class SampleReduction {
+
+	private SampleReduction() {
+	}
+
+	/**
+	 * <p>
+	 * Selects the coarsest sample reduction with an interval not longer than
+	 * {@code resolution}.
+	 * </p>
+	 *
+	 * @param cgBlock
+	 *            channel group
+	 * @param resolution
+	 *            longest acceptable interval in seconds
+	 * @return SRBlock or {@code null} if the raw records are needed
+	 */
+	public static SRBlock select(CGBlock cgBlock, double resolution) {
+		SRBlock result = null;
+		if (cgBlock.getSRBlocks() != null) {
+			for (SRBlock srBlock : cgBlock.getSRBlocks()) {
+				if (srBlock.getTimeIntervalLength() > 0 && srBlock.getTimeIntervalLength() <= resolution
+						&& (result == null || srBlock.getTimeIntervalLength() > result.getTimeIntervalLength())) {
+					result = srBlock;
+				}
+			}
+		}
+		return result;
+	}
+
+	/**
+	 * <p>
+	 * Reads a channel between {@code start} and {@code end} (both inclusive)
+	 * at the given resolution.
+	 * </p>
+	 *
+	 * @param data
+	 *            buffer holding the data records and the data blocks of the
+	 *            SRBlocks
+	 * @param dataOffset
+	 *            position of the first data record in {@code data}
+	 * @param dgBlock
+	 *            data group of the channel, locating the data blocks of the
+	 *            SRBlocks relative to the data records
+	 * @param cgBlock
+	 *            channel group of the channel
+	 * @param cnBlock
+	 *            channel
+	 * @param defaultByteOrder
+	 *            default byte order of the file
+	 * @param start
+	 *            first time in seconds
+	 * @param end
+	 *            last time in seconds
+	 * @param resolution
+	 *            longest acceptable interval in seconds
+	 * @return reduced channel
+	 * @throws IOException
+	 *             if the channel group has no time channel or the channel
+	 *             cannot be decoded
+	 */
+	public static ReducedChannel read(ByteBuffer data, int dataOffset, DGBlock dgBlock, CGBlock cgBlock,
+			CNBlock cnBlock, ByteOrder defaultByteOrder, double start, double end, double resolution) throws IOException {
+		CNBlock timeChannel = cgBlock.getTimeChannel();
+		if (timeChannel == null) {
+			throw new IOException("Channel group without time channel.");
+		}
+		int recordSize = cgBlock.getSizeOfDataRecord();
+
+		SRBlock srBlock = select(cgBlock, resolution);
+		if (srBlock == null) {
+			ChannelDecoder time = new ChannelDecoder(data, dataOffset, cgBlock, timeChannel, defaultByteOrder);
+			ChannelDecoder values = new ChannelDecoder(data, dataOffset, cgBlock, cnBlock, defaultByteOrder);
+			int from = time.search(start);
+			int to = time.search(Math.nextUp(end));
+			double[] value = read(values, from, to);
+			return new ReducedChannel(0, read(time, from, to), value, value, value);
+		}
+
+		if (srBlock.getNumberOfReducedSamples() > Integer.MAX_VALUE / 3) {
+			throw new IOException("Too many reduced samples (" + srBlock.getNumberOfReducedSamples() + ").");
+		}
+		int samples = (int) srBlock.getNumberOfReducedSamples();
+		int offset = dataOffset + (int) (srBlock.getPointerToDataBlock() - dgBlock.getPointerToDataBlock());
+		ChannelDecoder time = new ChannelDecoder(data, offset, 3 * recordSize, samples, timeChannel,
+				defaultByteOrder);
+		int from = time.search(start);
+		int to = time.search(Math.nextUp(end));
+		return new ReducedChannel(srBlock.getTimeIntervalLength(), read(time, from, to),
+				read(new ChannelDecoder(data, offset, 3 * recordSize, samples, cnBlock, defaultByteOrder), from, to),
+				read(new ChannelDecoder(data, offset + recordSize, 3 * recordSize, samples, cnBlock,
+						defaultByteOrder), from, to),
+				read(new ChannelDecoder(data, offset + 2 * recordSize, 3 * recordSize, samples, cnBlock,
+						defaultByteOrder), from, to));
+	}
+
+	private static double[] read(ChannelDecoder decoder, int from, int to) {
+		double[] result = new double[to - from];
+		decoder.readPhysical(from, to, result, 0);
+		return result;
+	}
+
+}
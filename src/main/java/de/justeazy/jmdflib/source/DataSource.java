@@ -0,0 +1,62 @@
+package de.justeazy.jmdflib.source;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+
+/**
+ * <p>
+ * Random access source of the bytes of a MDF file, e. g. a file, a buffer in
+ * memory or a store read by ranges.
+ * </p>
+ *
+ * <p>
+ * Reads are positional like {@link java.nio.channels.FileChannel#read(ByteBuffer, long)},
+ * so a source has no position of its own and can be read by several threads
+ * if the implementation is thread-safe.
+ * </p>
+ *
+ * @author Henrik Peters <henrik.peters@tu-clausthal.de>
+ */
+public interface DataSource extends Closeable {
+
+	/**
+	 * <p>
+	 * Returns the number of bytes of the source.
+	 * </p>
+	 *
+	 * @return size in bytes
+	 * @throws IOException
+	 *             if the size cannot be determined
+	 */
+	long size() throws IOException;
+
+	/**
+	 * <p>
+	 * Reads bytes starting at {@code position} into the remaining bytes of
+	 * {@code destination}.
+	 * </p>
+	 *
+	 * @param position
+	 *            position of the first byte in the source
+	 * @param destination
+	 *            buffer to fill
+	 * @return number of bytes read, possibly less than requested, -1 if
+	 *         {@code position} is at or after the end of the source
+	 * @throws IOException
+	 *             if the bytes cannot be read
+	 */
+	int read(long position, ByteBuffer destination) throws IOException;
+
+	/**
+	 * <p>
+	 * Returns the whole content as a buffer without copying it, if the source
+	 * holds it in memory or mapped.
+	 * </p>
+	 *
+	 * @return read-only buffer of the content, {@code null} if the content
+	 *         must be read
+	 */
+	ByteBuffer getBuffer();
+
+}
@@ -0,0 +1,72 @@
+package de.justeazy.jmdflib.source;
+
+import java.io.EOFException;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+
+/**
+ * <p>
+ * Reads complete ranges from {@link DataSource}s.
+ * </p>
+ *
+ * @author Henrik Peters <henrik.peters@tu-clausthal.de>
+ */
+public final class DataSources {
+
+	private DataSources() {
+	}
+
+	/**
+	 * <p>
+	 * Fills the remaining bytes of {@code destination} starting at
+	 * {@code position}.
+	 * </p>
+	 *
+	 * @param source
+	 *            source to read
+	 * @param position
+	 *            position of the first byte in the source
+	 * @param destination
+	 *            buffer to fill
+	 * @throws IOException
+	 *             if the bytes cannot be read or the range exceeds the
+	 *             source
+	 */
+	public static void readFully(DataSource source, long position, ByteBuffer destination) throws IOException {
+		while (destination.hasRemaining()) {
+			int n = source.read(position, destination);
+			if (n < 0) {
+				throw new EOFException("Range exceeds the source at position " + position + ".");
+			}
+			position += n;
+		}
+	}
+
+	/**
+	 * <p>
+	 * Returns the whole content of a source, without copying if the source
+	 * holds it in memory, by one read otherwise.
+	 * </p>
+	 *
+	 * @param source
+	 *            source to read
+	 * @return buffer of the content
+	 * @throws IOException
+	 *             if the content cannot be read or is too large
+	 */
+	public static ByteBuffer readAll(DataSource source) throws IOException {
+		ByteBuffer buffer = source.getBuffer();
+		if (buffer != null) {
+			return buffer;
+		}
+		long size = source.size();
+		if (size >= Integer.MAX_VALUE) {
+			throw new IOException("File too large.");
+		}
+		ByteBuffer result = ByteBuffer.allocate((int) size);
+		readFully(source, 0, result);
+		result.flip();
+		return result;
+	}
+
+}
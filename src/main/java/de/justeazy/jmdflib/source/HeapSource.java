@@ -0,0 +1,76 @@
+package de.justeazy.jmdflib.source;
+
+import java.nio.ByteBuffer;
+
+/**
+ * <p>
+ * Source of a buffer in memory, e. g. of an uploaded file.
+ * </p>
+ *
+ * @author Henrik Peters <henrik.peters@tu-clausthal.de>
+ */
+public class HeapSource implements DataSource {
+
+	private final ByteBuffer content;
+
+	/**
+	 * <p>
+	 * Creates a source of an array, which is not copied.
+	 * </p>
+	 *
+	 * @param content
+	 *            content of the MDF file
+	 */
+	public HeapSource(byte[] content) {
+		this(ByteBuffer.wrap(content));
+	}
+
+	/**
+	 * <p>
+	 * Creates a source of the remaining bytes of a buffer, which are not
+	 * copied.
+	 * </p>
+	 *
+	 * @param content
+	 *            content of the MDF file
+	 */
+	public HeapSource(ByteBuffer content) {
+		this.content = content.slice();
+	}
+
+	public long size() {
+		return content.capacity();
+	}
+
+	public int read(long position, ByteBuffer destination) {
+		return read(content, position, destination);
+	}
+
+	static int read(ByteBuffer content, long position, ByteBuffer destination) {
+		if (position < 0) {
+			throw new IllegalArgumentException("Negative position (" + position + ").");
+		}
+		if (position >= content.capacity()) {
+			return -1;
+		}
+		ByteBuffer source = content.duplicate();
+		source.position((int) position);
+		int n = Math.min(source.remaining(), destination.remaining());
+		source.limit((int) position + n);
+		destination.put(source);
+		return n;
+	}
+
+	public ByteBuffer getBuffer() {
+		return content.asReadOnlyBuffer();
+	}
+
+	public void close() {
+	}
+
+	@Override
+	public String toString() {
+		return "heap source of " + content.capacity() + " bytes";
+	}
+
+}
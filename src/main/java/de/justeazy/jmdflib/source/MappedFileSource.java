@@ -0,0 +1,67 @@
+package de.justeazy.jmdflib.source;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.StandardOpenOption;
+
+/**
+ * <p>
+ * Source of a file mapped into memory. The file is closed right after
+ * mapping; the mapping stays valid until it is garbage collected.
+ * </p>
+ *
+ * @author Henrik Peters <henrik.peters@tu-clausthal.de>
+ */
+public class MappedFileSource implements DataSource {
+
+	private final File file;
+
+	private final ByteBuffer content;
+
+	/**
+	 * <p>
+	 * Maps a file.
+	 * </p>
+	 *
+	 * @param file
+	 *            file to map
+	 * @throws IOException
+	 *             if the file cannot be mapped or is too large
+	 */
+	public MappedFileSource(File file) throws IOException {
+		this.file = file;
+		try (FileChannel channel = FileChannel.open(file.toPath(), StandardOpenOption.READ)) {
+			if (channel.size() >= Integer.MAX_VALUE) {
+				throw new IOException("File too large.");
+			}
+			MappedByteBuffer mapped = channel.map(FileChannel.MapMode.READ_ONLY, 0, channel.size());
+			this.content = mapped;
+		}
+	}
+
+	/**
+	 * @return mapped file
+	 */
+	public File getFile() {
+		return file;
+	}
+
+	public long size() {
+		return content.capacity();
+	}
+
+	public int read(long position, ByteBuffer destination) {
+		return HeapSource.read(content, position, destination);
+	}
+
+	public ByteBuffer getBuffer() {
+		return content.asReadOnlyBuffer();
+	}
+
+	public void close() {
+	}
+
+}
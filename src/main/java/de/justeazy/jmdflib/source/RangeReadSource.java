@@ -0,0 +1,102 @@
+package de.justeazy.jmdflib.source;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * <p>
+ * Source of a remote object read by ranges, e. g. from a blob store. Every
+ * read is one request to the {@link RangeReader}, so sources like this one
+ * should be wrapped into a {@link ReadAheadSource}.
+ * </p>
+ *
+ * <p>
+ * The source counts its requests and the requested bytes.
+ * </p>
+ *
+ * @author Henrik Peters <henrik.peters@tu-clausthal.de>
+ */
+public class RangeReadSource implements DataSource {
+
+	private final RangeReader reader;
+
+	private final long size;
+
+	private final AtomicLong requests = new AtomicLong();
+
+	private final AtomicLong bytesRequested = new AtomicLong();
+
+	/**
+	 * <p>
+	 * Creates a source of a remote object.
+	 * </p>
+	 *
+	 * @param reader
+	 *            reader of ranges of the object
+	 * @param size
+	 *            size of the object in bytes
+	 */
+	public RangeReadSource(RangeReader reader, long size) {
+		if (size < 0) {
+			throw new IllegalArgumentException("Negative size (" + size + ").");
+		}
+		this.reader = reader;
+		this.size = size;
+	}
+
+	public long size() {
+		return size;
+	}
+
+	public int read(long position, ByteBuffer destination) throws IOException {
+		if (position < 0) {
+			throw new IllegalArgumentException("Negative position (" + position + ").");
+		}
+		if (position >= size) {
+			return -1;
+		}
+		int n = (int) Math.min(destination.remaining(), size - position);
+		if (n == 0) {
+			return 0;
+		}
+		requests.incrementAndGet();
+		bytesRequested.addAndGet(n);
+		if (destination.hasArray()) {
+			reader.read(position, destination.array(), destination.arrayOffset() + destination.position(), n);
+			destination.position(destination.position() + n);
+		} else {
+			byte[] bytes = new byte[n];
+			reader.read(position, bytes, 0, n);
+			destination.put(bytes);
+		}
+		return n;
+	}
+
+	public ByteBuffer getBuffer() {
+		return null;
+	}
+
+	/**
+	 * @return number of requests to the reader
+	 */
+	public long getNumberOfRequests() {
+		return requests.get();
+	}
+
+	/**
+	 * @return number of bytes requested from the reader
+	 */
+	public long getBytesRequested() {
+		return bytesRequested.get();
+	}
+
+	public void close() {
+	}
+
+	@Override
+	public String toString() {
+		return "range reads of " + size + " bytes";
+	}
+
+}
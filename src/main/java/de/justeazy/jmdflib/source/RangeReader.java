@@ -0,0 +1,33 @@
+package de.justeazy.jmdflib.source;
+
+import java.io.IOException;
+
+/**
+ * <p>
+ * Reads a range of bytes of a remote object, e. g. by a HTTP range request to
+ * a blob store.
+ * </p>
+ *
+ * @author Henrik Peters <henrik.peters@tu-clausthal.de>
+ */
+public interface RangeReader {
+
+	/**
+	 * <p>
+	 * Reads {@code length} bytes starting at {@code position}.
+	 * </p>
+	 *
+	 * @param position
+	 *            position of the first byte
+	 * @param destination
+	 *            array to fill
+	 * @param offset
+	 *            position of the first byte in {@code destination}
+	 * @param length
+	 *            number of bytes, never beyond the end of the object
+	 * @throws IOException
+	 *             if the range cannot be read
+	 */
+	void read(long position, byte[] destination, int offset, int length) throws IOException;
+
+}
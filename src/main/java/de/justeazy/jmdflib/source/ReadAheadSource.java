@@ -0,0 +1,211 @@
+package de.justeazy.jmdflib.source;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.TreeMap;
+
+/**
+ * <p>
+ * Reads ahead of the requested bytes of another source and serves reads
+ * from the windows read so far.
+ * </p>
+ *
+ * <p>
+ * A read missing the cached windows reads a new window of at least the
+ * current read-ahead size. The read-ahead size starts at a minimum and
+ * doubles whenever a window is read directly after the previous one, up to a
+ * maximum, so sequential reads need fewer and larger reads; after a jump, it
+ * falls back to the minimum. Small reads close to each other, like those of
+ * the blocks of a MDF header, are thereby coalesced into one read of the
+ * underlying source. The windows of at most four times the maximum
+ * read-ahead size are kept, the oldest are dropped first.
+ * </p>
+ *
+ * <p>
+ * The source is thread-safe; reads are serialized.
+ * </p>
+ *
+ * @author Henrik Peters <henrik.peters@tu-clausthal.de>
+ */
+public class ReadAheadSource implements DataSource {
+
+	/**
+	 * Default minimum read-ahead size
+	 */
+	public final static int DEFAULT_MINIMUM_READ_AHEAD = 64 << 10;
+
+	/**
+	 * Default maximum read-ahead size
+	 */
+	public final static int DEFAULT_MAXIMUM_READ_AHEAD = 8 << 20;
+
+	private final DataSource source;
+
+	private final int minimumReadAhead;
+
+	private final int maximumReadAhead;
+
+	/**
+	 * Windows by their position
+	 */
+	private final TreeMap<Long, byte[]> windows = new TreeMap<Long, byte[]>();
+
+	/**
+	 * Positions of the windows from the oldest to the newest
+	 */
+	private final LinkedHashMap<Long, Boolean> age = new LinkedHashMap<Long, Boolean>();
+
+	private long cachedBytes;
+
+	private int readAhead;
+
+	/**
+	 * End of the last window read
+	 */
+	private long lastEnd = -1;
+
+	private long numberOfReads;
+
+	/**
+	 * <p>
+	 * Creates a source reading ahead with the default sizes.
+	 * </p>
+	 *
+	 * @param source
+	 *            source to read from
+	 */
+	public ReadAheadSource(DataSource source) {
+		this(source, DEFAULT_MINIMUM_READ_AHEAD, DEFAULT_MAXIMUM_READ_AHEAD);
+	}
+
+	/**
+	 * <p>
+	 * Creates a source reading ahead.
+	 * </p>
+	 *
+	 * @param source
+	 *            source to read from
+	 * @param minimumReadAhead
+	 *            minimum number of bytes read at once
+	 * @param maximumReadAhead
+	 *            maximum number of bytes read ahead at once
+	 */
+	public ReadAheadSource(DataSource source, int minimumReadAhead, int maximumReadAhead) {
+		if (minimumReadAhead < 1 || maximumReadAhead < minimumReadAhead) {
+			throw new IllegalArgumentException(
+					"Wrong read-ahead sizes (" + minimumReadAhead + " to " + maximumReadAhead + ").");
+		}
+		this.source = source;
+		this.minimumReadAhead = minimumReadAhead;
+		this.maximumReadAhead = maximumReadAhead;
+		this.readAhead = minimumReadAhead;
+	}
+
+	public long size() throws IOException {
+		return source.size();
+	}
+
+	public synchronized int read(long position, ByteBuffer destination) throws IOException {
+		if (position < 0) {
+			throw new IllegalArgumentException("Negative position (" + position + ").");
+		}
+		long size = source.size();
+		if (position >= size) {
+			return -1;
+		}
+		int result = 0;
+		while (destination.hasRemaining() && position < size) {
+			Map.Entry<Long, byte[]> window = windows.floorEntry(position);
+			if (window == null || window.getKey() + window.getValue().length <= position) {
+				window = fetch(position, destination.remaining(), size);
+			}
+			int offset = (int) (position - window.getKey());
+			int n = Math.min(destination.remaining(), window.getValue().length - offset);
+			destination.put(window.getValue(), offset, n);
+			position += n;
+			result += n;
+		}
+		return result;
+	}
+
+	/**
+	 * <p>
+	 * Reads a new window starting at {@code position}, ending before the next
+	 * cached window.
+	 * </p>
+	 */
+	private Map.Entry<Long, byte[]> fetch(long position, int length, long size) throws IOException {
+		if (position == lastEnd) {
+			readAhead = (int) Math.min(maximumReadAhead, 2L * readAhead);
+		} else {
+			readAhead = minimumReadAhead;
+		}
+		long end = Math.min(size, position + Math.max(length, readAhead));
+		Long next = windows.higherKey(position);
+		if (next != null && next < end && next >= position + length) {
+			end = next;
+		}
+		byte[] bytes = new byte[(int) (end - position)];
+		DataSources.readFully(source, position, ByteBuffer.wrap(bytes));
+		numberOfReads++;
+		lastEnd = end;
+
+		// windows overlapped by the new one are replaced
+		Iterator<Map.Entry<Long, byte[]>> overlapped = windows.subMap(position, end).entrySet().iterator();
+		while (overlapped.hasNext()) {
+			Map.Entry<Long, byte[]> window = overlapped.next();
+			cachedBytes -= window.getValue().length;
+			age.remove(window.getKey());
+			overlapped.remove();
+		}
+		windows.put(position, bytes);
+		age.put(position, Boolean.TRUE);
+		cachedBytes += bytes.length;
+		Iterator<Long> oldest = age.keySet().iterator();
+		while (cachedBytes > 4L * maximumReadAhead && oldest.hasNext()) {
+			Long key = oldest.next();
+			if (key == position) {
+				break;
+			}
+			cachedBytes -= windows.remove(key).length;
+			oldest.remove();
+		}
+		return windows.floorEntry(position);
+	}
+
+	/**
+	 * <p>
+	 * Returns the number of reads of the underlying source.
+	 * </p>
+	 *
+	 * @return number of windows read
+	 */
+	public synchronized long getNumberOfReads() {
+		return numberOfReads;
+	}
+
+	public ByteBuffer getBuffer() {
+		return source.getBuffer();
+	}
+
+	/**
+	 * <p>
+	 * Drops the cached windows and closes the underlying source.
+	 * </p>
+	 */
+	public synchronized void close() throws IOException {
+		windows.clear();
+		age.clear();
+		cachedBytes = 0;
+		source.close();
+	}
+
+	@Override
+	public String toString() {
+		return "read-ahead of " + source;
+	}
+
+}
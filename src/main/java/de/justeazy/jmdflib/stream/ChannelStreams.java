@@ -0,0 +1,87 @@
+package de.justeazy.jmdflib.stream;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.stream.DoubleStream;
+import java.util.stream.LongStream;
+import java.util.stream.Stream;
+import java.util.stream.StreamSupport;
+
+import de.justeazy.jmdflib.ChannelDecoder;
+
+/**
+ * <p>
+ * Creates streams over the records of a channel group.
+ * </p>
+ *
+ * <p>
+ * The streams are backed by spliterators over record indices, which split a
+ * range evenly in the middle. Every split gets its own copies of the
+ * decoders, so {@code parallel()} pipelines are balanced over the cores and
+ * do not build any intermediate lists.
+ * </p>
+ *
+ * @author Henrik Peters <henrik.peters@tu-clausthal.de>
+ */
+public final class ChannelStreams {
+
+	private ChannelStreams() {
+	}
+
+	/**
+	 * <p>
+	 * Creates a sequential stream of the physical values of a channel.
+	 * </p>
+	 *
+	 * @param decoder
+	 *            decoder of the channel, must not be used by other threads
+	 *            while the stream is consumed
+	 * @return physical values
+	 */
+	public static DoubleStream physical(ChannelDecoder decoder) {
+		return StreamSupport.doubleStream(new PhysicalSpliterator(decoder, 0, decoder.getNumberOfRecords()), false);
+	}
+
+	/**
+	 * <p>
+	 * Creates a sequential stream of the raw values of a channel (see
+	 * {@link ChannelDecoder#getRaw(int)}).
+	 * </p>
+	 *
+	 * @param decoder
+	 *            decoder of the channel, must not be used by other threads
+	 *            while the stream is consumed
+	 * @return raw values
+	 */
+	public static LongStream raw(ChannelDecoder decoder) {
+		return StreamSupport.longStream(new RawSpliterator(decoder, 0, decoder.getNumberOfRecords()), false);
+	}
+
+	/**
+	 * <p>
+	 * Creates a sequential stream of the records of a channel group.
+	 * </p>
+	 *
+	 * @param decoders
+	 *            decoders of the channels of the records, all of the same
+	 *            channel group; must not be used by other threads while the
+	 *            stream is consumed
+	 * @return records
+	 * @throws IllegalArgumentException
+	 *             if the decoders have different numbers of records
+	 */
+	public static Stream<Record> records(ChannelDecoder... decoders) {
+		int records = decoders.length == 0 ? 0 : decoders[0].getNumberOfRecords();
+		ArrayList<String> names = new ArrayList<String>();
+		for (ChannelDecoder decoder : decoders) {
+			if (decoder.getNumberOfRecords() != records) {
+				throw new IllegalArgumentException("Channel " + decoder.getCNBlock().getShortSignalName().trim()
+						+ " has " + decoder.getNumberOfRecords() + " records, but expected " + records + ".");
+			}
+			names.add(decoder.getCNBlock().getShortSignalNameText().intern());
+		}
+		return StreamSupport.stream(
+				new RecordSpliterator(decoders.clone(), Collections.unmodifiableList(names), 0, records), false);
+	}
+
+}
@@ -0,0 +1,62 @@
+package de.justeazy.jmdflib.stream;
+
+import java.util.Spliterator;
+
+/**
+ * <p>
+ * Common part of the spliterators over a range of record indices. Records
+ * have a fixed size, so a range is split evenly in the middle without
+ * touching any data.
+ * </p>
+ *
+ * @author Henrik Peters <henrik.peters@tu-clausthal.de>
+ */
+abstract class IndexSpliterator {
+
+	/**
+	 * Ranges with less records are not split any further
+	 */
+	final static int MINIMUM_SPLIT = 1024;
+
+	/**
+	 * Index of the next record
+	 */
+	int index;
+
+	/**
+	 * Index after the last record
+	 */
+	final int end;
+
+	IndexSpliterator(int index, int end) {
+		this.index = index;
+		this.end = end;
+	}
+
+	/**
+	 * <p>
+	 * Removes the first half of the remaining range from this spliterator.
+	 * </p>
+	 *
+	 * @return start of the remaining range or -1 if the range is too small to
+	 *         be split
+	 */
+	final int split() {
+		int start = index;
+		if (end - start < 2 * MINIMUM_SPLIT) {
+			return -1;
+		}
+		index = (start + end) >>> 1;
+		return start;
+	}
+
+	public final long estimateSize() {
+		return end - index;
+	}
+
+	public final int characteristics() {
+		return Spliterator.ORDERED | Spliterator.SIZED | Spliterator.SUBSIZED | Spliterator.IMMUTABLE
+				| Spliterator.NONNULL;
+	}
+
+}
@@ -0,0 +1,47 @@
+package de.justeazy.jmdflib.stream;
+
+import java.util.Spliterator;
+import java.util.function.DoubleConsumer;
+
+import de.justeazy.jmdflib.ChannelDecoder;
+
+/**
+ * <p>
+ * Spliterator over the physical values of a channel.
+ * </p>
+ *
+ * @author Henrik Peters <henrik.peters@tu-clausthal.de>
+ */
+class PhysicalSpliterator extends IndexSpliterator implements Spliterator.OfDouble {
+
+	private final ChannelDecoder decoder;
+
+	PhysicalSpliterator(ChannelDecoder decoder, int index, int end) {
+		super(index, end);
+		this.decoder = decoder;
+	}
+
+	@Override
+	public OfDouble trySplit() {
+		int start = split();
+		return start < 0 ? null : new PhysicalSpliterator(decoder.copy(), start, index);
+	}
+
+	@Override
+	public boolean tryAdvance(DoubleConsumer action) {
+		if (index >= end) {
+			return false;
+		}
+		action.accept(decoder.getPhysical(index++));
+		return true;
+	}
+
+	@Override
+	public void forEachRemaining(DoubleConsumer action) {
+		for (int i = index; i < end; i++) {
+			action.accept(decoder.getPhysical(i));
+		}
+		index = end;
+	}
+
+}
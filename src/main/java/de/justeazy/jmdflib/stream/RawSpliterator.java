@@ -0,0 +1,47 @@
+package de.justeazy.jmdflib.stream;
+
+import java.util.Spliterator;
+import java.util.function.LongConsumer;
+
+import de.justeazy.jmdflib.ChannelDecoder;
+
+/**
+ * <p>
+ * Spliterator over the raw values of a channel.
+ * </p>
+ *
+ * @author Henrik Peters <henrik.peters@tu-clausthal.de>
+ */
+class RawSpliterator extends IndexSpliterator implements Spliterator.OfLong {
+
+	private final ChannelDecoder decoder;
+
+	RawSpliterator(ChannelDecoder decoder, int index, int end) {
+		super(index, end);
+		this.decoder = decoder;
+	}
+
+	@Override
+	public OfLong trySplit() {
+		int start = split();
+		return start < 0 ? null : new RawSpliterator(decoder.copy(), start, index);
+	}
+
+	@Override
+	public boolean tryAdvance(LongConsumer action) {
+		if (index >= end) {
+			return false;
+		}
+		action.accept(decoder.getRaw(index++));
+		return true;
+	}
+
+	@Override
+	public void forEachRemaining(LongConsumer action) {
+		for (int i = index; i < end; i++) {
+			action.accept(decoder.getRaw(i));
+		}
+		index = end;
+	}
+
+}
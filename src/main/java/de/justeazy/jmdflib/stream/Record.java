@@ -0,0 +1,101 @@
+package de.justeazy.jmdflib.stream;
+
+import java.util.List;
+
+import de.justeazy.jmdflib.ChannelDecoder;
+
+/**
+ * <p>
+ * One record of a channel group in a stream of {@link ChannelStreams}. The
+ * values are decoded when they are requested, a record does not copy any
+ * data.
+ * </p>
+ *
+ * <p>
+ * A record is only valid during the stream operation it was passed to.
+ * </p>
+ *
+ * @author Henrik Peters <henrik.peters@tu-clausthal.de>
+ */
+public class Record {
+
+	private final ChannelDecoder[] decoders;
+
+	private final List<String> names;
+
+	private final int index;
+
+	Record(ChannelDecoder[] decoders, List<String> names, int index) {
+		this.decoders = decoders;
+		this.names = names;
+		this.index = index;
+	}
+
+	/**
+	 * <p>
+	 * Returns the index of the record in its channel group.
+	 * </p>
+	 *
+	 * @return index of the record
+	 */
+	public int getIndex() {
+		return index;
+	}
+
+	/**
+	 * <p>
+	 * Returns the names of the channels of the stream.
+	 * </p>
+	 *
+	 * @return trimmed short signal names
+	 */
+	public List<String> getNames() {
+		return names;
+	}
+
+	/**
+	 * <p>
+	 * Reads the physical value of a channel.
+	 * </p>
+	 *
+	 * @param channel
+	 *            index of the channel in the stream
+	 * @return physical value
+	 */
+	public double getPhysical(int channel) {
+		return decoders[channel].getPhysical(index);
+	}
+
+	/**
+	 * <p>
+	 * Reads the physical value of the first channel with the given name.
+	 * </p>
+	 *
+	 * @param name
+	 *            trimmed short signal name
+	 * @return physical value
+	 * @throws IllegalArgumentException
+	 *             if there is no such channel in the stream
+	 */
+	public double getPhysical(String name) {
+		int channel = names.indexOf(name);
+		if (channel < 0) {
+			throw new IllegalArgumentException("Channel " + name + " is not part of the stream.");
+		}
+		return getPhysical(channel);
+	}
+
+	/**
+	 * <p>
+	 * Reads the raw value of a channel (see {@link ChannelDecoder#getRaw(int)}).
+	 * </p>
+	 *
+	 * @param channel
+	 *            index of the channel in the stream
+	 * @return raw value
+	 */
+	public long getRaw(int channel) {
+		return decoders[channel].getRaw(index);
+	}
+
+}
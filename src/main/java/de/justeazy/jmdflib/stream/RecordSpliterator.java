@@ -0,0 +1,58 @@
+package de.justeazy.jmdflib.stream;
+
+import java.util.List;
+import java.util.Spliterator;
+import java.util.function.Consumer;
+
+import de.justeazy.jmdflib.ChannelDecoder;
+
+/**
+ * <p>
+ * Spliterator over the records of a channel group.
+ * </p>
+ *
+ * @author Henrik Peters <henrik.peters@tu-clausthal.de>
+ */
+class RecordSpliterator extends IndexSpliterator implements Spliterator<Record> {
+
+	private final ChannelDecoder[] decoders;
+
+	private final List<String> names;
+
+	RecordSpliterator(ChannelDecoder[] decoders, List<String> names, int index, int end) {
+		super(index, end);
+		this.decoders = decoders;
+		this.names = names;
+	}
+
+	@Override
+	public Spliterator<Record> trySplit() {
+		int start = split();
+		if (start < 0) {
+			return null;
+		}
+		ChannelDecoder[] copies = new ChannelDecoder[decoders.length];
+		for (int i = 0; i < decoders.length; i++) {
+			copies[i] = decoders[i].copy();
+		}
+		return new RecordSpliterator(copies, names, start, index);
+	}
+
+	@Override
+	public boolean tryAdvance(Consumer<? super Record> action) {
+		if (index >= end) {
+			return false;
+		}
+		action.accept(new Record(decoders, names, index++));
+		return true;
+	}
+
+	@Override
+	public void forEachRemaining(Consumer<? super Record> action) {
+		for (int i = index; i < end; i++) {
+			action.accept(new Record(decoders, names, i));
+		}
+		index = end;
+	}
+
+}
@@ -0,0 +1,259 @@
+package de.justeazy.jmdflib.text;
+
+import java.nio.ByteBuffer;
+import java.nio.charset.Charset;
+import java.nio.charset.StandardCharsets;
+
+/**
+ * <p>
+ * Text field of a block, decoded on first access.
+ * </p>
+ *
+ * <p>
+ * Blocks hold their names, descriptions and comments as fixed-length or zero
+ * terminated byte fields, most of them padded and many of them never read.
+ * Instead of a {@link String} per field, a block text keeps the bytes of the
+ * field and the character set of the file (the code page of the IDBlock).
+ * Fields of direct buffers, i. e. of mapped files, are kept as position and
+ * length in the buffer; the fields of heap buffers are copied, so a block
+ * does not keep the file content read into memory alive. {@link #toString()}
+ * decodes the field, {@link #trim()} decodes it without its padding, and
+ * {@link #intern()} returns the trimmed text as a canonical {@link String},
+ * so the names of equal channels of many files share one instance. Each of
+ * them decodes once and keeps its result. Fields holding only ASCII
+ * characters are copied without going through the decoder of the character
+ * set.
+ * </p>
+ *
+ * <p>
+ * Trimming works on the bytes and removes bytes up to the space character
+ * (including zero bytes). It requires a character set extending ASCII, which
+ * is true for the code pages used by MDF files.
+ * </p>
+ *
+ * @author Henrik Peters <henrik.peters@tu-clausthal.de>
+ */
+public final class BlockText {
+
+	/**
+	 * Empty text
+	 */
+	public final static BlockText EMPTY = of("");
+
+	private final ByteBuffer data;
+
+	private final int offset;
+
+	private final int length;
+
+	private final Charset charset;
+
+	/**
+	 * Text given as {@link String}, {@code null} for fields of a buffer
+	 */
+	private final String text;
+
+	/**
+	 * Decoded text, {@code null} until requested
+	 */
+	private volatile String decoded;
+
+	/**
+	 * Trimmed text, {@code null} until requested
+	 */
+	private volatile String trimmed;
+
+	/**
+	 * Trimmed and interned text, {@code null} until requested
+	 */
+	private volatile String interned;
+
+	private BlockText(ByteBuffer data, int offset, int length, Charset charset, String text) {
+		this.data = data;
+		this.offset = offset;
+		this.length = length;
+		this.charset = charset;
+		this.text = text;
+	}
+
+	/**
+	 * <p>
+	 * Creates a text of a field with {@code length} bytes. The field is
+	 * copied unless {@code data} is a direct buffer.
+	 * </p>
+	 *
+	 * @param data
+	 *            buffer holding the field, read with absolute positions only
+	 * @param offset
+	 *            position of the first byte
+	 * @param length
+	 *            number of bytes
+	 * @param charset
+	 *            character set of the field
+	 * @return text of the field
+	 */
+	public static BlockText of(ByteBuffer data, int offset, int length, Charset charset) {
+		if (offset < 0 || length < 0 || offset + length > data.limit()) {
+			throw new IndexOutOfBoundsException(
+					"Bytes " + offset + " to " + (offset + length) + " exceed the buffer (" + data.limit() + ").");
+		}
+		if (!data.isDirect()) {
+			byte[] copy = new byte[length];
+			ByteBuffer b = data.duplicate();
+			b.position(offset);
+			b.get(copy);
+			return new BlockText(ByteBuffer.wrap(copy), 0, length, charset, null);
+		}
+		return new BlockText(data, offset, length, charset, null);
+	}
+
+	/**
+	 * <p>
+	 * Creates a text of a field with at most {@code length} bytes, ending
+	 * before the first zero byte.
+	 * </p>
+	 *
+	 * @param data
+	 *            buffer holding the field, read with absolute positions only
+	 * @param offset
+	 *            position of the first byte
+	 * @param length
+	 *            maximum number of bytes
+	 * @param charset
+	 *            character set of the field
+	 * @return text of the field
+	 */
+	public static BlockText terminated(ByteBuffer data, int offset, int length, Charset charset) {
+		int end = Math.min(offset + length, data.limit());
+		int n = 0;
+		while (offset + n < end && data.get(offset + n) != 0) {
+			n++;
+		}
+		return of(data, offset, n, charset);
+	}
+
+	/**
+	 * <p>
+	 * Creates a text of a {@link String}, e. g. for blocks that are not read
+	 * from a file.
+	 * </p>
+	 *
+	 * @param text
+	 *            text
+	 * @return text holding {@code text}
+	 */
+	public static BlockText of(String text) {
+		if (text == null) {
+			throw new IllegalArgumentException("Text must not be null.");
+		}
+		return new BlockText(null, 0, text.length(), StandardCharsets.UTF_16, text);
+	}
+
+	/**
+	 * <p>
+	 * Returns whether the field holds no bytes at all (padding counts as
+	 * content).
+	 * </p>
+	 *
+	 * @return whether the field is empty
+	 */
+	public boolean isEmpty() {
+		return length == 0;
+	}
+
+	/**
+	 * <p>
+	 * Decodes the text without its leading and trailing padding (spaces, zero
+	 * bytes and other control characters).
+	 * </p>
+	 *
+	 * @return trimmed text
+	 */
+	public String trim() {
+		String result = trimmed;
+		if (result == null) {
+			if (text != null) {
+				result = text.trim();
+			} else {
+				int from = offset;
+				int to = offset + length;
+				while (from < to && (data.get(from) & 0xFF) <= ' ') {
+					from++;
+				}
+				while (to > from && (data.get(to - 1) & 0xFF) <= ' ') {
+					to--;
+				}
+				result = decode(from, to);
+			}
+			trimmed = result;
+		}
+		return result;
+	}
+
+	/**
+	 * <p>
+	 * Returns the trimmed text as canonical {@link String} (see
+	 * {@link String#intern()}). The result is kept by this text.
+	 * </p>
+	 *
+	 * @return trimmed and interned text
+	 */
+	public String intern() {
+		String result = interned;
+		if (result == null) {
+			result = trim().intern();
+			trimmed = result;
+			interned = result;
+		}
+		return result;
+	}
+
+	/**
+	 * <p>
+	 * Decodes the whole field, including its padding.
+	 * </p>
+	 *
+	 * @return text
+	 */
+	@Override
+	public String toString() {
+		if (text != null) {
+			return text;
+		}
+		String result = decoded;
+		if (result == null) {
+			result = decode(offset, offset + length);
+			decoded = result;
+		}
+		return result;
+	}
+
+	private String decode(int from, int to) {
+		int n = to - from;
+		if (n == 0) {
+			return "";
+		}
+		byte[] bytes;
+		int start;
+		if (data.hasArray()) {
+			bytes = data.array();
+			start = data.arrayOffset() + from;
+		} else {
+			bytes = new byte[n];
+			start = 0;
+			ByteBuffer b = data.duplicate();
+			b.position(from);
+			b.get(bytes);
+		}
+		return new String(bytes, start, n, isAscii(bytes, start, n) ? StandardCharsets.ISO_8859_1 : charset);
+	}
+
+	private static boolean isAscii(byte[] bytes, int start, int n) {
+		int or = 0;
+		for (int i = start; i < start + n; i++) {
+			or |= bytes[i];
+		}
+		return or >= 0;
+	}
+
+}
@@ -0,0 +1,186 @@
+package de.justeazy.jmdflib.text;
+
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+
+/**
+ * <p>
+ * Text of a string channel as a view of the data buffer.
+ * </p>
+ *
+ * <p>
+ * Every byte is one character (ISO 8859-1, the character set of MDF 3.x
+ * strings). {@link #equals(Object)}, {@link #hashCode()} and
+ * {@link #compareTo(ByteString)} work on the bytes, so values can be compared
+ * and used as keys without decoding them. A {@link String} is only created by
+ * {@link #toString()}.
+ * </p>
+ *
+ * @author Henrik Peters <henrik.peters@tu-clausthal.de>
+ */
+public final class ByteString implements CharSequence, Comparable<ByteString> {
+
+	private final ByteBuffer data;
+
+	private final int offset;
+
+	private final int length;
+
+	private int hash;
+
+	private ByteString(ByteBuffer data, int offset, int length) {
+		this.data = data;
+		this.offset = offset;
+		this.length = length;
+	}
+
+	/**
+	 * <p>
+	 * Creates a view of {@code length} bytes.
+	 * </p>
+	 *
+	 * @param data
+	 *            buffer holding the text
+	 * @param offset
+	 *            position of the first byte
+	 * @param length
+	 *            number of bytes
+	 * @return view of the bytes
+	 */
+	public static ByteString of(ByteBuffer data, int offset, int length) {
+		if (offset < 0 || length < 0 || offset + length > data.limit()) {
+			throw new IndexOutOfBoundsException(
+					"Bytes " + offset + " to " + (offset + length) + " exceed the buffer (" + data.limit() + ").");
+		}
+		return new ByteString(data, offset, length);
+	}
+
+	/**
+	 * <p>
+	 * Creates a view of at most {@code length} bytes, ending before the first
+	 * zero byte.
+	 * </p>
+	 *
+	 * @param data
+	 *            buffer holding the text
+	 * @param offset
+	 *            position of the first byte
+	 * @param length
+	 *            maximum number of bytes
+	 * @return view of the bytes
+	 */
+	public static ByteString terminated(ByteBuffer data, int offset, int length) {
+		int n = 0;
+		while (n < length && data.get(offset + n) != 0) {
+			n++;
+		}
+		return of(data, offset, n);
+	}
+
+	@Override
+	public int length() {
+		return length;
+	}
+
+	@Override
+	public char charAt(int index) {
+		if (index < 0 || index >= length) {
+			throw new IndexOutOfBoundsException("Index " + index + " outside of " + length + " characters.");
+		}
+		return (char) (data.get(offset + index) & 0xFF);
+	}
+
+	@Override
+	public ByteString subSequence(int start, int end) {
+		if (start < 0 || end > length || start > end) {
+			throw new IndexOutOfBoundsException("Characters " + start + " to " + end + " outside of " + length + ".");
+		}
+		return new ByteString(data, offset + start, end - start);
+	}
+
+	/**
+	 * <p>
+	 * Compares the text with a character sequence without decoding it.
+	 * </p>
+	 *
+	 * @param text
+	 *            text to compare with
+	 * @return whether both contain the same characters
+	 */
+	public boolean contentEquals(CharSequence text) {
+		if (text.length() != length) {
+			return false;
+		}
+		for (int i = 0; i < length; i++) {
+			if ((data.get(offset + i) & 0xFF) != text.charAt(i)) {
+				return false;
+			}
+		}
+		return true;
+	}
+
+	/**
+	 * <p>
+	 * Copies the bytes.
+	 * </p>
+	 *
+	 * @return new array holding the bytes
+	 */
+	public byte[] toByteArray() {
+		byte[] result = new byte[length];
+		for (int i = 0; i < length; i++) {
+			result[i] = data.get(offset + i);
+		}
+		return result;
+	}
+
+	@Override
+	public int compareTo(ByteString other) {
+		int n = Math.min(length, other.length);
+		for (int i = 0; i < n; i++) {
+			int c = (data.get(offset + i) & 0xFF) - (other.data.get(other.offset + i) & 0xFF);
+			if (c != 0) {
+				return c;
+			}
+		}
+		return length - other.length;
+	}
+
+	@Override
+	public boolean equals(Object object) {
+		if (this == object) {
+			return true;
+		}
+		if (!(object instanceof ByteString)) {
+			return false;
+		}
+		ByteString other = (ByteString) object;
+		if (length != other.length || hashCode() != other.hashCode()) {
+			return false;
+		}
+		for (int i = 0; i < length; i++) {
+			if (data.get(offset + i) != other.data.get(other.offset + i)) {
+				return false;
+			}
+		}
+		return true;
+	}
+
+	@Override
+	public int hashCode() {
+		int h = hash;
+		if (h == 0) {
+			for (int i = 0; i < length; i++) {
+				h = 31 * h + (data.get(offset + i) & 0xFF);
+			}
+			hash = h;
+		}
+		return h;
+	}
+
+	@Override
+	public String toString() {
+		return new String(toByteArray(), StandardCharsets.ISO_8859_1);
+	}
+
+}
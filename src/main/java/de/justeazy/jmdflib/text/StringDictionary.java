@@ -0,0 +1,142 @@
+package de.justeazy.jmdflib.text;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+
+import de.justeazy.jmdflib.ByteChannelDecoder;
+
+/**
+ * <p>
+ * Dictionary encoded values of a string channel.
+ * </p>
+ *
+ * <p>
+ * String channels often repeat a few values, e. g. the names of states. The
+ * dictionary holds every distinct value once, as a view of its first
+ * occurrence, and one code per record, so the values can be grouped by their
+ * code.
+ * </p>
+ *
+ * @author Henrik Peters <henrik.peters@tu-clausthal.de>
+ */
+public final class StringDictionary {
+
+	private final List<ByteString> values;
+
+	private final int[] codes;
+
+	private StringDictionary(List<ByteString> values, int[] codes) {
+		this.values = Collections.unmodifiableList(values);
+		this.codes = codes;
+	}
+
+	/**
+	 * <p>
+	 * Encodes the values of all records of a string channel.
+	 * </p>
+	 *
+	 * @param decoder
+	 *            decoder of the channel
+	 * @return dictionary encoded values
+	 */
+	public static StringDictionary encode(ByteChannelDecoder decoder) {
+		HashMap<ByteString, Integer> dictionary = new HashMap<ByteString, Integer>();
+		ArrayList<ByteString> values = new ArrayList<ByteString>();
+		int[] codes = new int[decoder.getNumberOfRecords()];
+		for (int i = 0; i < codes.length; i++) {
+			ByteString value = decoder.getString(i);
+			Integer code = dictionary.get(value);
+			if (code == null) {
+				code = values.size();
+				dictionary.put(value, code);
+				values.add(value);
+			}
+			codes[i] = code;
+		}
+		return new StringDictionary(values, codes);
+	}
+
+	/**
+	 * <p>
+	 * Returns the distinct values in the order of their first occurrence.
+	 * </p>
+	 *
+	 * @return unmodifiable list of values, indexed by code
+	 */
+	public List<ByteString> getValues() {
+		return values;
+	}
+
+	/**
+	 * <p>
+	 * Returns the number of records.
+	 * </p>
+	 *
+	 * @return number of records
+	 */
+	public int size() {
+		return codes.length;
+	}
+
+	/**
+	 * <p>
+	 * Returns the code of a record.
+	 * </p>
+	 *
+	 * @param record
+	 *            index of the record
+	 * @return index of the value in {@link #getValues()}
+	 */
+	public int getCode(int record) {
+		return codes[record];
+	}
+
+	/**
+	 * <p>
+	 * Returns the value of a record.
+	 * </p>
+	 *
+	 * @param record
+	 *            index of the record
+	 * @return value
+	 */
+	public ByteString get(int record) {
+		return values.get(codes[record]);
+	}
+
+	/**
+	 * <p>
+	 * Returns the code of a value.
+	 * </p>
+	 *
+	 * @param value
+	 *            value to look up
+	 * @return code of the value or -1 if no record holds it
+	 */
+	public int indexOf(CharSequence value) {
+		for (int i = 0; i < values.size(); i++) {
+			if (values.get(i).contentEquals(value)) {
+				return i;
+			}
+		}
+		return -1;
+	}
+
+	/**
+	 * <p>
+	 * Counts the records of every value.
+	 * </p>
+	 *
+	 * @return number of records, indexed by code
+	 */
+	public int[] count() {
+		int[] result = new int[values.size()];
+		for (int code : codes) {
+			result[code]++;
+		}
+		return result;
+	}
+
+}
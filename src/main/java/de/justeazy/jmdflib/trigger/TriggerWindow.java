@@ -0,0 +1,97 @@
+package de.justeazy.jmdflib.trigger;
+
+import java.util.Collections;
+import java.util.List;
+
+/**
+ * <p>
+ * Result of {@link TriggerWindows#read}: the records of a channel group
+ * between the pre trigger time and the post trigger time of one trigger
+ * event, one time column and one value column per selected channel.
+ * </p>
+ *
+ * @author Henrik Peters <henrik.peters@tu-clausthal.de>
+ */
+public class TriggerWindow {
+
+	private final int trigger;
+
+	private final double triggerTime;
+
+	private final int firstRecord;
+
+	private final double[] time;
+
+	private final List<String> names;
+
+	private final double[][] columns;
+
+	TriggerWindow(int trigger, double triggerTime, int firstRecord, double[] time, List<String> names,
+			double[][] columns) {
+		this.trigger = trigger;
+		this.triggerTime = triggerTime;
+		this.firstRecord = firstRecord;
+		this.time = time;
+		this.names = Collections.unmodifiableList(names);
+		this.columns = columns;
+	}
+
+	public int size() {
+		return time.length;
+	}
+
+	/**
+	 * <p>
+	 * Returns the index of the trigger event in the TRBlock.
+	 * </p>
+	 *
+	 * @return index of the trigger event
+	 */
+	public int getTrigger() {
+		return trigger;
+	}
+
+	public double getTriggerTime() {
+		return triggerTime;
+	}
+
+	/**
+	 * <p>
+	 * Returns the index of the first record of the window in the channel
+	 * group.
+	 * </p>
+	 *
+	 * @return index of the first record
+	 */
+	public int getFirstRecord() {
+		return firstRecord;
+	}
+
+	public double[] getTime() {
+		return time;
+	}
+
+	public List<String> getNames() {
+		return names;
+	}
+
+	public double[] getColumn(int index) {
+		return columns[index];
+	}
+
+	/**
+	 * <p>
+	 * Returns the column of the first channel with the given name.
+	 * </p>
+	 *
+	 * @param name
+	 *            trimmed short signal name
+	 * @return values of the channel or {@code null} if there is no such
+	 *         channel
+	 */
+	public double[] getColumn(String name) {
+		int index = names.indexOf(name);
+		return index < 0 ? null : columns[index];
+	}
+
+}
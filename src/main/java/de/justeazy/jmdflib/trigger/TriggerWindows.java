@@ -0,0 +1,102 @@
+package de.justeazy.jmdflib.trigger;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.util.ArrayList;
+
+import de.justeazy.jmdflib.ChannelDecoder;
+import de.justeazy.jmdflib.blocktypes.CGBlock;
+import de.justeazy.jmdflib.blocktypes.CNBlock;
+import de.justeazy.jmdflib.blocktypes.DGBlock;
+import de.justeazy.jmdflib.blocktypes.TRBlock;
+
+/**
+ * <p>
+ * Reads channels around the trigger events of a data group.
+ * </p>
+ *
+ * <p>
+ * The window of a trigger event reaches from its trigger time minus its pre
+ * trigger time to its trigger time plus its post trigger time. Its records
+ * are located by binary searches on the time channel, so only the time
+ * stamps visited by the searches and the records inside the window are
+ * decoded.
+ * </p>
+ *
+ * @author Henrik Peters <henrik.peters@tu-clausthal.de>
+ */
+public final class TriggerWindows {
+
+	private TriggerWindows() {
+	}
+
+	/**
+	 * <p>
+	 * Returns the number of trigger events of a data group.
+	 * </p>
+	 *
+	 * @param dgBlock
+	 *            data group
+	 * @return number of trigger events, 0 if there is no TRBlock
+	 */
+	public static int getNumberOfTriggerEvents(DGBlock dgBlock) {
+		return dgBlock.getTRBlock() == null ? 0 : dgBlock.getTRBlock().getNumberOfTriggerEvents();
+	}
+
+	/**
+	 * <p>
+	 * Reads the channels {@code cnBlocks} in the window of the trigger event
+	 * {@code trigger}.
+	 * </p>
+	 *
+	 * @param data
+	 *            buffer holding the data records
+	 * @param dataOffset
+	 *            position of the first data record in {@code data}
+	 * @param dgBlock
+	 *            data group with the TRBlock
+	 * @param cgBlock
+	 *            channel group of the channels
+	 * @param defaultByteOrder
+	 *            default byte order of the file
+	 * @param trigger
+	 *            index of the trigger event
+	 * @param cnBlocks
+	 *            channels to read
+	 * @return trigger window
+	 * @throws IOException
+	 *             if the channel group has no time channel or a channel
+	 *             cannot be decoded
+	 */
+	public static TriggerWindow read(ByteBuffer data, int dataOffset, DGBlock dgBlock, CGBlock cgBlock,
+			ByteOrder defaultByteOrder, int trigger, CNBlock... cnBlocks) throws IOException {
+		if (trigger < 0 || trigger >= getNumberOfTriggerEvents(dgBlock)) {
+			throw new IllegalArgumentException("Trigger event " + trigger + " does not exist, there are "
+					+ getNumberOfTriggerEvents(dgBlock) + ".");
+		}
+		CNBlock timeChannel = cgBlock.getTimeChannel();
+		if (timeChannel == null) {
+			throw new IOException("Channel group without time channel.");
+		}
+		TRBlock trBlock = dgBlock.getTRBlock();
+		double triggerTime = trBlock.getTriggerTimes()[trigger];
+
+		ChannelDecoder time = new ChannelDecoder(data, dataOffset, cgBlock, timeChannel, defaultByteOrder);
+		int from = time.search(triggerTime - trBlock.getPreTriggerTimes()[trigger]);
+		int to = time.search(Math.nextUp(triggerTime + trBlock.getPostTriggerTimes()[trigger]));
+
+		ArrayList<String> names = new ArrayList<String>();
+		double[][] columns = new double[cnBlocks.length][];
+		for (int c = 0; c < cnBlocks.length; c++) {
+			names.add(cnBlocks[c].getShortSignalNameText().intern());
+			columns[c] = new double[to - from];
+			new ChannelDecoder(data, dataOffset, cgBlock, cnBlocks[c], defaultByteOrder).readPhysical(from, to,
+					columns[c], 0);
+		}
+		double[] times = new double[to - from];
+		time.readPhysical(from, to, times, 0);
+		return new TriggerWindow(trigger, triggerTime, from, times, names, columns);
+	}
+
+}
@@ -0,0 +1,146 @@
+package de.justeazy.jmdflib.window;
+
+import de.justeazy.jmdflib.ChannelDecoder;
+import de.justeazy.jmdflib.enums.RollingStatistic;
+
+/**
+ * <p>
+ * Computes rolling statistics of channels into output columns.
+ * </p>
+ *
+ * <p>
+ * The channel (and the time channel for duration windows) is read in blocks
+ * of {@value #BLOCK_SIZE} records into small buffers, so the input is never
+ * held as {@code double[]}; only the output columns are allocated. Every
+ * block is passed through a {@link RollingWindow} by
+ * {@link #apply(RollingWindow, double[], double[], int, int, RollingStatistic[], double[][], int)},
+ * which can also be called directly with blocks read for other purposes, so
+ * the statistics are computed in the same pass as the extraction.
+ * </p>
+ *
+ * <p>
+ * The value of a statistic for record {@code i} covers the window ending
+ * with record {@code i} (trailing window).
+ * </p>
+ *
+ * @author Henrik Peters <henrik.peters@tu-clausthal.de>
+ */
+public final class RollingStatistics {
+
+	/**
+	 * Number of records read per block
+	 */
+	final static int BLOCK_SIZE = 4096;
+
+	private RollingStatistics() {
+	}
+
+	/**
+	 * <p>
+	 * Computes rolling statistics over a window of samples.
+	 * </p>
+	 *
+	 * @param channel
+	 *            decoder of the channel
+	 * @param window
+	 *            window of samples, continued from its current values
+	 * @param statistics
+	 *            statistics to compute
+	 * @return one column per statistic with one value per record
+	 * @throws IllegalArgumentException
+	 *             if {@code window} is a duration window or no statistic is
+	 *             given
+	 */
+	public static double[][] compute(ChannelDecoder channel, RollingWindow window, RollingStatistic... statistics) {
+		return compute(channel, null, window, statistics);
+	}
+
+	/**
+	 * <p>
+	 * Computes rolling statistics over a window of samples or seconds of the
+	 * time channel.
+	 * </p>
+	 *
+	 * @param channel
+	 *            decoder of the channel
+	 * @param timeChannel
+	 *            decoder of the time channel of the channel group, only
+	 *            required for duration windows
+	 * @param window
+	 *            window, continued from its current values
+	 * @param statistics
+	 *            statistics to compute
+	 * @return one column per statistic with one value per record
+	 * @throws IllegalArgumentException
+	 *             if a duration window has no time channel, the time channel
+	 *             has a different number of records or no statistic is given
+	 */
+	public static double[][] compute(ChannelDecoder channel, ChannelDecoder timeChannel, RollingWindow window,
+			RollingStatistic... statistics) {
+		if (statistics.length == 0) {
+			throw new IllegalArgumentException("No statistic given.");
+		}
+		if (window.isDuration() && timeChannel == null) {
+			throw new IllegalArgumentException("Duration windows need a time channel.");
+		}
+		int records = channel.getNumberOfRecords();
+		if (timeChannel != null && timeChannel.getNumberOfRecords() != records) {
+			throw new IllegalArgumentException("Time channel has " + timeChannel.getNumberOfRecords()
+					+ " records, but expected " + records + ".");
+		}
+		double[][] results = new double[statistics.length][records];
+		double[] values = new double[Math.min(BLOCK_SIZE, records)];
+		double[] times = timeChannel != null && window.isDuration() ? new double[values.length] : null;
+		for (int first = 0; first < records; first += BLOCK_SIZE) {
+			int last = Math.min(records, first + BLOCK_SIZE);
+			channel.readPhysical(first, last, values, 0);
+			if (times != null) {
+				timeChannel.readPhysical(first, last, times, 0);
+			}
+			apply(window, times, values, 0, last - first, statistics, results, first);
+		}
+		return results;
+	}
+
+	/**
+	 * <p>
+	 * Adds a block of values to a window and writes the statistics after
+	 * each value.
+	 * </p>
+	 *
+	 * @param window
+	 *            window
+	 * @param times
+	 *            time stamps of the values, {@code null} for windows of
+	 *            samples
+	 * @param values
+	 *            physical values
+	 * @param offset
+	 *            position of the first value in {@code values} and
+	 *            {@code times}
+	 * @param count
+	 *            number of values
+	 * @param statistics
+	 *            statistics to write
+	 * @param results
+	 *            one column per statistic
+	 * @param resultOffset
+	 *            position of the first result in the columns
+	 * @throws IllegalArgumentException
+	 *             if a duration window gets no time stamps or the time stamps
+	 *             decrease
+	 */
+	public static void apply(RollingWindow window, double[] times, double[] values, int offset, int count,
+			RollingStatistic[] statistics, double[][] results, int resultOffset) {
+		if (window.isDuration() && times == null) {
+			throw new IllegalArgumentException("Duration windows need time stamps.");
+		}
+		for (int i = 0; i < count; i++) {
+			window.add(times != null ? times[offset + i] : Double.NaN, values[offset + i]);
+			for (int s = 0; s < statistics.length; s++) {
+				results[s][resultOffset + i] = window.get(statistics[s]);
+			}
+		}
+	}
+
+}
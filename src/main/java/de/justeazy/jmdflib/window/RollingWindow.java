@@ -0,0 +1,456 @@
+package de.justeazy.jmdflib.window;
+
+import de.justeazy.jmdflib.enums.RollingStatistic;
+
+/**
+ * <p>
+ * Statistics of the last values of a channel, updated value by value.
+ * </p>
+ *
+ * <p>
+ * The window holds either the last {@code n} values
+ * ({@link #ofSamples(int)}) or the values of the last {@code d} seconds of
+ * the time channel ({@link #ofDuration(double)}, values with a time stamp
+ * greater than {@code t - d} for the time stamp {@code t} of the last
+ * value). The values of the window are kept in a ring buffer, which grows
+ * for duration windows. Every value is added and removed once, each in
+ * amortized constant time:
+ * </p>
+ *
+ * <ul>
+ * <li>Sum and sum of squares are compensated (Neumaier) sums, so removing
+ * values does not accumulate rounding errors. Mean and variance use sums of
+ * the values minus a shift, which avoids cancellation for values with a
+ * large offset. The shift is the first value of the window and is moved to
+ * the current first value after as many removals as the ring buffer holds
+ * values, recomputing the sums from the values of the window, so it follows
+ * drifting signals at amortized constant cost.</li>
+ * <li>Minimum and maximum are the heads of two monotonic deques of the
+ * values of the window: a new value removes all values from the tail which
+ * cannot become the minimum (maximum) any more.</li>
+ * </ul>
+ *
+ * <p>
+ * NaN values are skipped, but their time stamp still moves a duration
+ * window. The variance is the population variance, like in
+ * {@link de.justeazy.jmdflib.profile.ChannelProfile}. All statistics of an
+ * empty window are NaN.
+ * </p>
+ *
+ * <p>
+ * A window is not thread-safe.
+ * </p>
+ *
+ * @author Henrik Peters <henrik.peters@tu-clausthal.de>
+ */
+public final class RollingWindow {
+
+	/**
+	 * Initial capacity of duration windows
+	 */
+	private final static int INITIAL_CAPACITY = 16;
+
+	/**
+	 * <p>
+	 * Compensated sum (Neumaier).
+	 * </p>
+	 */
+	private final static class Sum {
+
+		private double sum;
+
+		private double compensation;
+
+		void add(double value) {
+			double t = sum + value;
+			if (Math.abs(sum) >= Math.abs(value)) {
+				compensation += (sum - t) + value;
+			} else {
+				compensation += (value - t) + sum;
+			}
+			sum = t;
+		}
+
+		double get() {
+			return sum + compensation;
+		}
+
+		void reset() {
+			sum = 0;
+			compensation = 0;
+		}
+
+	}
+
+	/**
+	 * Maximum number of values, 0 for duration windows
+	 */
+	private final int samples;
+
+	/**
+	 * Length of duration windows in seconds
+	 */
+	private final double duration;
+
+	private double[] values;
+
+	private double[] times;
+
+	/**
+	 * Sequence numbers of the minimum candidates, increasing values
+	 */
+	private long[] minimums;
+
+	/**
+	 * Sequence numbers of the maximum candidates, decreasing values
+	 */
+	private long[] maximums;
+
+	private int mask;
+
+	/**
+	 * Sequence number of the first value of the window
+	 */
+	private long first;
+
+	/**
+	 * Sequence number of the next value
+	 */
+	private long next;
+
+	private long minimumHead;
+
+	private long minimumTail;
+
+	private long maximumHead;
+
+	private long maximumTail;
+
+	private double lastTime = Double.NEGATIVE_INFINITY;
+
+	/**
+	 * Value subtracted before summing for mean and variance
+	 */
+	private double shift;
+
+	/**
+	 * Sequence number of the first value when the sums were last computed
+	 * from scratch
+	 */
+	private long rebased;
+
+	private final Sum shiftedSum = new Sum();
+
+	private final Sum shiftedSquares = new Sum();
+
+	private final Sum squares = new Sum();
+
+	private RollingWindow(int samples, double duration, int capacity) {
+		this.samples = samples;
+		this.duration = duration;
+		allocate(capacity);
+	}
+
+	/**
+	 * <p>
+	 * Creates a window of the last {@code samples} values.
+	 * </p>
+	 *
+	 * @param samples
+	 *            number of values
+	 * @return empty window
+	 * @throws IllegalArgumentException
+	 *             if {@code samples} is not positive
+	 */
+	public static RollingWindow ofSamples(int samples) {
+		if (samples <= 0 || samples >= 1 << 30) {
+			throw new IllegalArgumentException("Number of samples " + samples + " is out of range.");
+		}
+		return new RollingWindow(samples, Double.NaN, Integer.highestOneBit(samples) << 1);
+	}
+
+	/**
+	 * <p>
+	 * Creates a window of the values of the last {@code duration} seconds.
+	 * </p>
+	 *
+	 * @param duration
+	 *            length of the window in seconds
+	 * @return empty window
+	 * @throws IllegalArgumentException
+	 *             if {@code duration} is not positive and finite
+	 */
+	public static RollingWindow ofDuration(double duration) {
+		if (!(duration > 0) || Double.isInfinite(duration)) {
+			throw new IllegalArgumentException("Duration " + duration + " is out of range.");
+		}
+		return new RollingWindow(0, duration, INITIAL_CAPACITY);
+	}
+
+	/**
+	 * <p>
+	 * Creates an empty window of the same length.
+	 * </p>
+	 *
+	 * @return empty window
+	 */
+	public RollingWindow copy() {
+		return samples > 0 ? ofSamples(samples) : ofDuration(duration);
+	}
+
+	/**
+	 * @return whether the window is defined in seconds of the time channel
+	 */
+	public boolean isDuration() {
+		return samples == 0;
+	}
+
+	/**
+	 * <p>
+	 * Adds a value to a window of samples.
+	 * </p>
+	 *
+	 * @param value
+	 *            physical value
+	 * @throws IllegalStateException
+	 *             if this is a duration window
+	 */
+	public void add(double value) {
+		if (isDuration()) {
+			throw new IllegalStateException("Values of duration windows need a time stamp.");
+		}
+		add(Double.NaN, value);
+	}
+
+	/**
+	 * <p>
+	 * Adds a value and removes the values leaving the window.
+	 * </p>
+	 *
+	 * @param time
+	 *            time stamp in seconds, not decreasing; ignored by windows of
+	 *            samples
+	 * @param value
+	 *            physical value
+	 * @throws IllegalArgumentException
+	 *             if {@code time} is less than the last time stamp
+	 */
+	public void add(double time, double value) {
+		if (isDuration()) {
+			if (time < lastTime) {
+				throw new IllegalArgumentException(
+						"Time stamp " + time + " is less than the last time stamp " + lastTime + ".");
+			}
+			lastTime = time;
+			double start = time - duration;
+			while (first < next && times[(int) first & mask] <= start) {
+				remove();
+			}
+		}
+		if (Double.isNaN(value)) {
+			return;
+		}
+		if (next - first == values.length) {
+			allocate(values.length << 1);
+		}
+		if (first == next) {
+			shift = value;
+			rebased = first;
+			shiftedSum.reset();
+			shiftedSquares.reset();
+			squares.reset();
+		}
+		int position = (int) next & mask;
+		values[position] = value;
+		times[position] = time;
+		double shifted = value - shift;
+		shiftedSum.add(shifted);
+		shiftedSquares.add(shifted * shifted);
+		squares.add(value * value);
+
+		while (minimumTail > minimumHead && values[(int) minimums[(int) (minimumTail - 1) & mask] & mask] >= value) {
+			minimumTail--;
+		}
+		minimums[(int) minimumTail++ & mask] = next;
+		while (maximumTail > maximumHead && values[(int) maximums[(int) (maximumTail - 1) & mask] & mask] <= value) {
+			maximumTail--;
+		}
+		maximums[(int) maximumTail++ & mask] = next;
+		next++;
+
+		if (samples > 0 && next - first > samples) {
+			remove();
+		}
+	}
+
+	/**
+	 * <p>
+	 * Removes the first value of the window.
+	 * </p>
+	 */
+	private void remove() {
+		double value = values[(int) first & mask];
+		double shifted = value - shift;
+		shiftedSum.add(-shifted);
+		shiftedSquares.add(-shifted * shifted);
+		squares.add(-value * value);
+		if (minimums[(int) minimumHead & mask] == first) {
+			minimumHead++;
+		}
+		if (maximums[(int) maximumHead & mask] == first) {
+			maximumHead++;
+		}
+		first++;
+		if (first - rebased >= values.length && first < next) {
+			rebase();
+		}
+	}
+
+	/**
+	 * <p>
+	 * Moves the shift to the first value of the window and recomputes the
+	 * sums from the values of the window.
+	 * </p>
+	 */
+	private void rebase() {
+		shift = values[(int) first & mask];
+		rebased = first;
+		shiftedSum.reset();
+		shiftedSquares.reset();
+		squares.reset();
+		for (long s = first; s < next; s++) {
+			double value = values[(int) s & mask];
+			double shifted = value - shift;
+			shiftedSum.add(shifted);
+			shiftedSquares.add(shifted * shifted);
+			squares.add(value * value);
+		}
+	}
+
+	/**
+	 * <p>
+	 * Allocates the ring buffers with {@code capacity} entries (a power of
+	 * two) and moves the values of the window.
+	 * </p>
+	 */
+	private void allocate(int capacity) {
+		double[] oldValues = values;
+		double[] oldTimes = times;
+		long[] oldMinimums = minimums;
+		long[] oldMaximums = maximums;
+		int oldMask = mask;
+		values = new double[capacity];
+		times = new double[capacity];
+		minimums = new long[capacity];
+		maximums = new long[capacity];
+		mask = capacity - 1;
+		if (oldValues == null) {
+			return;
+		}
+		for (long s = first; s < next; s++) {
+			values[(int) s & mask] = oldValues[(int) s & oldMask];
+			times[(int) s & mask] = oldTimes[(int) s & oldMask];
+		}
+		for (long s = minimumHead; s < minimumTail; s++) {
+			minimums[(int) s & mask] = oldMinimums[(int) s & oldMask];
+		}
+		for (long s = maximumHead; s < maximumTail; s++) {
+			maximums[(int) s & mask] = oldMaximums[(int) s & oldMask];
+		}
+	}
+
+	/**
+	 * <p>
+	 * Removes all values.
+	 * </p>
+	 */
+	public void clear() {
+		first = next;
+		minimumHead = minimumTail;
+		maximumHead = maximumTail;
+		lastTime = Double.NEGATIVE_INFINITY;
+	}
+
+	/**
+	 * @return number of values in the window
+	 */
+	public int getCount() {
+		return (int) (next - first);
+	}
+
+	/**
+	 * @return arithmetic mean
+	 */
+	public double getMean() {
+		int n = getCount();
+		return n == 0 ? Double.NaN : shift + shiftedSum.get() / n;
+	}
+
+	/**
+	 * @return root mean square
+	 */
+	public double getRms() {
+		int n = getCount();
+		return n == 0 ? Double.NaN : Math.sqrt(Math.max(0, squares.get()) / n);
+	}
+
+	/**
+	 * @return population variance
+	 */
+	public double getVariance() {
+		int n = getCount();
+		if (n == 0) {
+			return Double.NaN;
+		}
+		double sum = shiftedSum.get();
+		return Math.max(0, (shiftedSquares.get() - sum * sum / n) / n);
+	}
+
+	/**
+	 * @return population standard deviation
+	 */
+	public double getStandardDeviation() {
+		return Math.sqrt(getVariance());
+	}
+
+	/**
+	 * @return minimum
+	 */
+	public double getMinimum() {
+		return first == next ? Double.NaN : values[(int) minimums[(int) minimumHead & mask] & mask];
+	}
+
+	/**
+	 * @return maximum
+	 */
+	public double getMaximum() {
+		return first == next ? Double.NaN : values[(int) maximums[(int) maximumHead & mask] & mask];
+	}
+
+	/**
+	 * <p>
+	 * Returns a statistic of the window.
+	 * </p>
+	 *
+	 * @param statistic
+	 *            statistic
+	 * @return value of the statistic
+	 */
+	public double get(RollingStatistic statistic) {
+		switch (statistic) {
+		case MEAN:
+			return getMean();
+		case RMS:
+			return getRms();
+		case MINIMUM:
+			return getMinimum();
+		case MAXIMUM:
+			return getMaximum();
+		case STANDARD_DEVIATION:
+			return getStandardDeviation();
+		default:
+			throw new IllegalArgumentException("Statistic " + statistic + " not implemented yet.");
+		}
+	}
+
+}
@@ -0,0 +1,288 @@
+package de.justeazy.jmdflib.writer;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.channels.FileChannel;
+
+/**
+ * <p>
+ * Appends MDF 3.x blocks to a file.
+ * </p>
+ *
+ * <p>
+ * Blocks are written one after another, so a block usually has to be written
+ * before the positions of the blocks it points to are known. These pointers
+ * are set afterwards by {@link #setLink(long, int, long)}. Blocks that do not
+ * change, e. g. TX and CC blocks or whole data blocks, are copied from the
+ * source file by {@link FileChannel#transferTo(long, long, java.nio.channels.WritableByteChannel)},
+ * which avoids copying them through the Java heap.
+ * </p>
+ *
+ * <p>
+ * All values are written in little endian byte order.
+ * </p>
+ *
+ * @author Henrik Peters <henrik.peters@tu-clausthal.de>
+ */
+public final class BlockWriter {
+
+	private final FileChannel channel;
+
+	/**
+	 * Position of the next block
+	 */
+	private long position;
+
+	/**
+	 * <p>
+	 * Creates a writer appending to an empty file.
+	 * </p>
+	 *
+	 * @param channel
+	 *            channel of the file, opened for writing
+	 */
+	public BlockWriter(FileChannel channel) {
+		this.channel = channel;
+	}
+
+	/**
+	 * <p>
+	 * Returns the position of the next block.
+	 * </p>
+	 *
+	 * @return number of bytes written so far
+	 */
+	public long getPosition() {
+		return position;
+	}
+
+	/**
+	 * <p>
+	 * Appends the remaining bytes of {@code block}.
+	 * </p>
+	 *
+	 * @param block
+	 *            bytes to write
+	 * @return position of the block in the file
+	 * @throws IOException
+	 *             if the file cannot be written or grows beyond the 4 GB
+	 *             reachable by MDF 3.x pointers
+	 */
+	public long write(ByteBuffer block) throws IOException {
+		long result = position;
+		checkPointer(position + block.remaining());
+		while (block.hasRemaining()) {
+			position += channel.write(block, position);
+		}
+		return result;
+	}
+
+	/**
+	 * <p>
+	 * Reserves {@code count} bytes, e. g. for a data block that is written
+	 * later by {@link #write(long, ByteBuffer)}.
+	 * </p>
+	 *
+	 * @param count
+	 *            number of bytes
+	 * @return position of the reserved bytes in the file
+	 * @throws IOException
+	 *             if the file would grow beyond the 4 GB reachable by MDF
+	 *             3.x pointers
+	 */
+	public long reserve(long count) throws IOException {
+		long result = position;
+		checkPointer(position + count);
+		position += count;
+		return result;
+	}
+
+	/**
+	 * <p>
+	 * Writes the remaining bytes of {@code bytes} into already reserved or
+	 * written bytes.
+	 * </p>
+	 *
+	 * @param offset
+	 *            position in the file
+	 * @param bytes
+	 *            bytes to write
+	 * @throws IOException
+	 *             if the file cannot be written
+	 */
+	public void write(long offset, ByteBuffer bytes) throws IOException {
+		if (offset + bytes.remaining() > position) {
+			throw new IllegalArgumentException("Bytes " + offset + " to " + (offset + bytes.remaining())
+					+ " exceed the reserved bytes (" + position + ").");
+		}
+		long n = offset;
+		while (bytes.hasRemaining()) {
+			n += channel.write(bytes, n);
+		}
+	}
+
+	/**
+	 * <p>
+	 * Appends {@code count} bytes of another file.
+	 * </p>
+	 *
+	 * @param source
+	 *            channel of the file to copy from
+	 * @param offset
+	 *            position of the first byte in {@code source}
+	 * @param count
+	 *            number of bytes
+	 * @return position of the copied bytes in the file
+	 * @throws IOException
+	 *             if a file cannot be read or written
+	 */
+	public long transfer(FileChannel source, long offset, long count) throws IOException {
+		long result = position;
+		checkPointer(position + count);
+		channel.position(position);
+		long n = 0;
+		while (n < count) {
+			long transferred = source.transferTo(offset + n, count - n, channel);
+			if (transferred <= 0) {
+				throw new IOException("Unexpected end of file at " + (offset + n) + ".");
+			}
+			n += transferred;
+		}
+		position += count;
+		return result;
+	}
+
+	/**
+	 * <p>
+	 * Appends a block of another MDF 3.x file unchanged. The size of the
+	 * block is read from its header.
+	 * </p>
+	 *
+	 * @param source
+	 *            channel of the file to copy from
+	 * @param pointer
+	 *            position of the block in {@code source}, may be 0
+	 * @return position of the copied block in the file or 0 if
+	 *         {@code pointer} is 0
+	 * @throws IOException
+	 *             if a file cannot be read or written
+	 */
+	public long copyBlock(FileChannel source, long pointer) throws IOException {
+		if (pointer == 0) {
+			return 0;
+		}
+		return transfer(source, pointer, readBlockSize(source, pointer));
+	}
+
+	/**
+	 * <p>
+	 * Sets a pointer (uint32) inside an already written block.
+	 * </p>
+	 *
+	 * @param block
+	 *            position of the block
+	 * @param offset
+	 *            position of the pointer in the block
+	 * @param pointer
+	 *            value of the pointer
+	 * @throws IOException
+	 *             if the file cannot be written
+	 */
+	public void setLink(long block, int offset, long pointer) throws IOException {
+		checkPointer(pointer);
+		ByteBuffer b = ByteBuffer.allocate(4).order(ByteOrder.LITTLE_ENDIAN);
+		b.putInt(0, (int) pointer);
+		channel.write(b, block + offset);
+	}
+
+	/**
+	 * <p>
+	 * Sets an uint16 inside an already written block.
+	 * </p>
+	 *
+	 * @param block
+	 *            position of the block
+	 * @param offset
+	 *            position of the value in the block
+	 * @param value
+	 *            value
+	 * @throws IOException
+	 *             if the file cannot be written
+	 */
+	public void setUint16(long block, int offset, int value) throws IOException {
+		if (value < 0 || value > 0xFFFF) {
+			throw new IllegalArgumentException("Value " + value + " exceeds uint16.");
+		}
+		ByteBuffer b = ByteBuffer.allocate(2).order(ByteOrder.LITTLE_ENDIAN);
+		b.putShort(0, (short) value);
+		channel.write(b, block + offset);
+	}
+
+	/**
+	 * <p>
+	 * Sets an uint32 inside an already written block.
+	 * </p>
+	 *
+	 * @param block
+	 *            position of the block
+	 * @param offset
+	 *            position of the value in the block
+	 * @param value
+	 *            value
+	 * @throws IOException
+	 *             if the file cannot be written
+	 */
+	public void setUint32(long block, int offset, long value) throws IOException {
+		if (value < 0 || value > 0xFFFFFFFFL) {
+			throw new IllegalArgumentException("Value " + value + " exceeds uint32.");
+		}
+		ByteBuffer b = ByteBuffer.allocate(4).order(ByteOrder.LITTLE_ENDIAN);
+		b.putInt(0, (int) value);
+		channel.write(b, block + offset);
+	}
+
+	/**
+	 * <p>
+	 * Reads a block of a MDF 3.x file, e. g. to change some of its fields
+	 * before writing it.
+	 * </p>
+	 *
+	 * @param source
+	 *            channel of the file
+	 * @param pointer
+	 *            position of the block
+	 * @return block in little endian byte order, positioned at 0
+	 * @throws IOException
+	 *             if the file cannot be read
+	 */
+	public static ByteBuffer readBlock(FileChannel source, long pointer) throws IOException {
+		return read(source, pointer, readBlockSize(source, pointer));
+	}
+
+	private static int readBlockSize(FileChannel source, long pointer) throws IOException {
+		int size = read(source, pointer, 4).getShort(2) & 0xFFFF;
+		if (size < 4) {
+			throw new IOException("Wrong block size (" + size + ") at " + pointer + ".");
+		}
+		return size;
+	}
+
+	private static ByteBuffer read(FileChannel source, long position, int count) throws IOException {
+		ByteBuffer b = ByteBuffer.allocate(count).order(ByteOrder.LITTLE_ENDIAN);
+		while (b.hasRemaining()) {
+			if (source.read(b, position + b.position()) < 0) {
+				throw new IOException("Unexpected end of file at " + (position + b.position()) + ".");
+			}
+		}
+		b.flip();
+		return b;
+	}
+
+	private static void checkPointer(long pointer) throws IOException {
+		if (pointer > 0xFFFFFFFFL) {
+			throw new IOException("File larger than 4 GB. Not supported by MDF 3.x.");
+		}
+	}
+
+}
@@ -0,0 +1,331 @@
+package de.justeazy.jmdflib.writer;
+
+import java.io.Closeable;
+import java.io.File;
+import java.io.IOException;
+import java.io.InterruptedIOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.locks.LockSupport;
+
+import de.justeazy.jmdflib.MDFFile;
+import de.justeazy.jmdflib.blocktypes.CGBlock;
+import de.justeazy.jmdflib.blocktypes.DGBlock;
+import de.justeazy.jmdflib.enums.Backpressure;
+
+/**
+ * <p>
+ * Writes records produced by acquisition threads into a new unsorted MDF 3.x
+ * file.
+ * </p>
+ *
+ * <p>
+ * The channel groups are taken from a template file, e. g. an earlier
+ * recording: the IDBlock, the HDBlock and all channel groups with their
+ * channels are copied into a single data group, in which every record is
+ * prefixed by the record ID of its channel group (1 for the first channel
+ * group of the template, 2 for the second one and so on). Each channel group
+ * gets a {@link RecordRing}, into which exactly one producer thread offers
+ * records in the layout of the template.
+ * </p>
+ *
+ * <p>
+ * A dedicated writer thread drains the rings into a batch buffer and appends
+ * full batches to the data block, so the file is written in large
+ * sequential writes, independent of the rate and size of the records. When
+ * the rings are empty, the writer writes the pending records and sleeps
+ * briefly. {@link #close()} drains the remaining records and sets the
+ * number of records of every channel group. The file can then be read by
+ * {@link MDFFile} and sorted by {@link UnsortedFiles}.
+ * </p>
+ *
+ * <p>
+ * Producers must stop offering records before {@link #close()} is called.
+ * If writing fails, the rings reject further records and {@link #close()}
+ * throws the failure.
+ * </p>
+ *
+ * @author Henrik Peters <henrik.peters@tu-clausthal.de>
+ */
+public final class CaptureWriter implements Closeable {
+
+	/**
+	 * Default number of records per ring
+	 */
+	public final static int DEFAULT_RING_CAPACITY = 1 << 14;
+
+	/**
+	 * Size of the batches written to the file
+	 */
+	public final static int BATCH_SIZE = 1 << 20;
+
+	/**
+	 * Time the writer sleeps if all rings are empty
+	 */
+	private final static long IDLE_NANOS = 100000;
+
+	private final FileChannel out;
+
+	private final BlockWriter w;
+
+	private final RecordRing[] rings;
+
+	/**
+	 * Positions of the CGBlocks in the new file
+	 */
+	private final long[] cgPositions;
+
+	private final Thread writer;
+
+	private volatile boolean closing;
+
+	private volatile IOException failure;
+
+	private boolean closed;
+
+	private CaptureWriter(FileChannel out, BlockWriter w, RecordRing[] rings, long[] cgPositions) {
+		this.out = out;
+		this.w = w;
+		this.rings = rings;
+		this.cgPositions = cgPositions;
+		this.writer = new Thread(this::run, "jmdflib-capture");
+		this.writer.setDaemon(true);
+	}
+
+	/**
+	 * <p>
+	 * Creates a capture writer with rings of
+	 * {@link #DEFAULT_RING_CAPACITY} records blocking full producers.
+	 * </p>
+	 *
+	 * @param template
+	 *            MDF 3.x file describing the channel groups
+	 * @param target
+	 *            file to write, replaced if it exists
+	 * @return running capture writer
+	 * @throws IOException
+	 *             if a file cannot be read or written or the template is not
+	 *             supported
+	 */
+	public static CaptureWriter open(MDFFile template, File target) throws IOException {
+		return open(template, target, DEFAULT_RING_CAPACITY, Backpressure.BLOCK);
+	}
+
+	/**
+	 * <p>
+	 * Creates a capture writer and starts its writer thread.
+	 * </p>
+	 *
+	 * @param template
+	 *            MDF 3.x file describing the channel groups
+	 * @param target
+	 *            file to write, replaced if it exists
+	 * @param ringCapacity
+	 *            number of records per ring, rounded up to a power of two
+	 * @param backpressure
+	 *            behavior of producers offering records to a full ring
+	 * @return running capture writer
+	 * @throws IOException
+	 *             if a file cannot be read or written or the template is not
+	 *             supported
+	 */
+	public static CaptureWriter open(MDFFile template, File target, int ringCapacity, Backpressure backpressure)
+			throws IOException {
+		if (template.getIDBlock().getVersionNumber() >= 400) {
+			throw new IOException("Capturing with MDF 4.x templates not implemented yet.");
+		}
+		if (template.getFile() == null) {
+			throw new IOException("Capturing with templates read from data sources not implemented yet.");
+		}
+		List<CGBlock> cgBlocks = new ArrayList<CGBlock>();
+		List<Long> cgPointers = new ArrayList<Long>();
+		for (DGBlock dgBlock : template.getDGBlocks()) {
+			if (dgBlock.getCgBlocks() == null) {
+				continue;
+			}
+			long cgPointer = dgBlock.getPointerToFirstCGBlock();
+			for (CGBlock cgBlock : dgBlock.getCgBlocks()) {
+				cgBlocks.add(cgBlock);
+				cgPointers.add(cgPointer);
+				cgPointer = cgBlock.getPointerToNextCGBlock();
+			}
+		}
+		if (cgBlocks.isEmpty() || cgBlocks.size() > 255) {
+			throw new IOException(cgBlocks.size() + " channel groups not supported (1 to 255).");
+		}
+
+		RecordRing[] rings = new RecordRing[cgBlocks.size()];
+		long[] cgPositions = new long[cgBlocks.size()];
+		FileChannel out = FileChannel.open(target.toPath(), StandardOpenOption.CREATE, StandardOpenOption.WRITE,
+				StandardOpenOption.TRUNCATE_EXISTING);
+		try (FileChannel in = FileChannel.open(template.getFile().toPath(), StandardOpenOption.READ)) {
+			BlockWriter w = new BlockWriter(out);
+			long hdPosition = DataGroupWriter.writeHeader(in, w, template);
+
+			ByteBuffer dg = BlockWriter.readBlock(in, template.getHDBlock().getPointerToFirstDGBlock());
+			dg.putInt(4, 0);
+			dg.putInt(12, 0);
+			dg.putShort(20, (short) cgBlocks.size());
+			dg.putShort(22, (short) 1);
+			long dgPosition = w.write(dg);
+			w.setLink(hdPosition, 4, dgPosition);
+			w.setUint16(hdPosition, 16, 1);
+
+			long previous = dgPosition;
+			int previousOffset = 8;
+			for (int i = 0; i < cgBlocks.size(); i++) {
+				CGBlock cgBlock = cgBlocks.get(i);
+				cgPositions[i] = DataGroupWriter.writeChannelGroup(in, w, cgPointers.get(i), cgBlock,
+						DataGroupWriter.fields(cgBlock), cgBlock.getSizeOfDataRecord());
+				w.setUint16(cgPositions[i], 16, i + 1);
+				w.setUint32(cgPositions[i], 22, 0);
+				w.setLink(previous, previousOffset, cgPositions[i]);
+				previous = cgPositions[i];
+				previousOffset = 4;
+				rings[i] = new RecordRing(cgBlock.getSizeOfDataRecord(), ringCapacity, backpressure);
+			}
+			w.setLink(dgPosition, 16, w.getPosition());
+
+			CaptureWriter result = new CaptureWriter(out, w, rings, cgPositions);
+			result.writer.start();
+			return result;
+		} catch (IOException | RuntimeException e) {
+			out.close();
+			throw e;
+		}
+	}
+
+	/**
+	 * <p>
+	 * Returns the ring of a channel group.
+	 * </p>
+	 *
+	 * @param channelGroup
+	 *            index of the channel group in the template, starting at 0
+	 * @return ring of the channel group
+	 */
+	public RecordRing getRing(int channelGroup) {
+		return rings[channelGroup];
+	}
+
+	/**
+	 * @return rings in the order of the channel groups of the template
+	 */
+	public List<RecordRing> getRings() {
+		ArrayList<RecordRing> result = new ArrayList<RecordRing>();
+		Collections.addAll(result, rings);
+		return Collections.unmodifiableList(result);
+	}
+
+	/**
+	 * @return number of records written to the file
+	 */
+	public long getWrittenRecords() {
+		long result = 0;
+		for (RecordRing ring : rings) {
+			result += ring.getWrittenRecords();
+		}
+		return result;
+	}
+
+	/**
+	 * @return number of records dropped by full rings
+	 */
+	public long getDroppedRecords() {
+		long result = 0;
+		for (RecordRing ring : rings) {
+			result += ring.getDroppedRecords();
+		}
+		return result;
+	}
+
+	/**
+	 * <p>
+	 * Drains the rings until the writer is closed.
+	 * </p>
+	 */
+	private void run() {
+		ByteBuffer batch = ByteBuffer.allocate(BATCH_SIZE);
+		try {
+			while (true) {
+				boolean stopping = closing;
+				long drained = 0;
+				for (int i = 0; i < rings.length; i++) {
+					RecordRing ring = rings[i];
+					while (true) {
+						if (batch.remaining() < ring.getRecordSize() + 1) {
+							flush(batch);
+						}
+						int n = ring.drain(batch, i + 1);
+						if (n == 0) {
+							break;
+						}
+						drained += n;
+					}
+				}
+				if (drained == 0) {
+					flush(batch);
+					if (stopping) {
+						break;
+					}
+					LockSupport.parkNanos(IDLE_NANOS);
+				}
+			}
+			for (int i = 0; i < rings.length; i++) {
+				w.setUint32(cgPositions[i], 22, rings[i].getWrittenRecords());
+			}
+		} catch (IOException e) {
+			failure = e;
+		} catch (RuntimeException e) {
+			failure = new IOException("Writing captured records failed.", e);
+		} finally {
+			for (RecordRing ring : rings) {
+				ring.close();
+			}
+		}
+	}
+
+	private void flush(ByteBuffer batch) throws IOException {
+		if (batch.position() == 0) {
+			return;
+		}
+		batch.flip();
+		w.write(batch);
+		batch.clear();
+	}
+
+	/**
+	 * <p>
+	 * Writes the remaining records, sets the number of records of the channel
+	 * groups and closes the file.
+	 * </p>
+	 *
+	 * @throws IOException
+	 *             if writing failed or the thread is interrupted while
+	 *             waiting for the writer
+	 */
+	@Override
+	public synchronized void close() throws IOException {
+		if (closed) {
+			return;
+		}
+		closing = true;
+		LockSupport.unpark(writer);
+		try {
+			writer.join();
+		} catch (InterruptedException e) {
+			Thread.currentThread().interrupt();
+			throw new InterruptedIOException("Interrupted while waiting for the capture writer.");
+		}
+		closed = true;
+		out.close();
+		if (failure != null) {
+			throw failure;
+		}
+	}
+
+}
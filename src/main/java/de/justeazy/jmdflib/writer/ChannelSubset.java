@@ -0,0 +1,204 @@
+package de.justeazy.jmdflib.writer;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+import java.util.function.Predicate;
+
+import de.justeazy.jmdflib.MDFFile;
+import de.justeazy.jmdflib.blocktypes.CGBlock;
+import de.justeazy.jmdflib.blocktypes.CNBlock;
+import de.justeazy.jmdflib.blocktypes.DGBlock;
+import de.justeazy.jmdflib.enums.NumberOfRecordIDs;
+import de.justeazy.jmdflib.writer.DataGroupWriter.Field;
+
+/**
+ * <p>
+ * Writes a new MDF 3.x file holding a subset of the channels of another one.
+ * </p>
+ *
+ * <p>
+ * Channel groups keep their time channel and the selected channels, data
+ * groups without selected channels are dropped. The records of the kept
+ * channel groups are rebuilt with a compact layout: the bytes of every kept
+ * channel are gathered record by record, in batches, into records holding
+ * only these bytes. Channel groups keeping all of their channels and all
+ * blocks that do not change (TX, CC, CE and TR blocks, the IDBlock) are
+ * copied by {@link BlockWriter#transfer(FileChannel, long, long)} without
+ * passing through the Java heap. Sample reductions (SRBlocks) and
+ * dependencies (CDBlocks) are not copied.
+ * </p>
+ *
+ * @author Henrik Peters <henrik.peters@tu-clausthal.de>
+ */
+public final class ChannelSubset {
+
+	/**
+	 * Number of bytes gathered per batch
+	 */
+	private final static int BATCH_SIZE = 1 << 20;
+
+	private ChannelSubset() {
+	}
+
+	/**
+	 * <p>
+	 * Writes the selected channels of {@code source} to {@code target}.
+	 * </p>
+	 *
+	 * @param source
+	 *            MDF 3.x file
+	 * @param channels
+	 *            channels to keep, e. g. {@link de.justeazy.jmdflib.ChannelProjection#byNames(String...)};
+	 *            time channels are always kept
+	 * @param target
+	 *            file to write, replaced if it exists
+	 * @throws IOException
+	 *             if a file cannot be read or written or {@code source} is a
+	 *             MDF 4.x file
+	 */
+	public static void write(MDFFile source, Predicate<CNBlock> channels, File target) throws IOException {
+		if (source.getIDBlock().getVersionNumber() >= 400) {
+			throw new IOException("Writing subsets of MDF 4.x files not implemented yet.");
+		}
+		if (source.getFile() == null) {
+			throw new IOException("Writing subsets of files read from data sources not implemented yet.");
+		}
+		try (FileChannel in = FileChannel.open(source.getFile().toPath(), StandardOpenOption.READ);
+				FileChannel out = FileChannel.open(target.toPath(), StandardOpenOption.CREATE,
+						StandardOpenOption.WRITE, StandardOpenOption.TRUNCATE_EXISTING)) {
+			BlockWriter w = new BlockWriter(out);
+			long hdPosition = DataGroupWriter.writeHeader(in, w, source);
+
+			long previous = hdPosition;
+			int previousOffset = 4;
+			int numberOfDataGroups = 0;
+			long pointer = source.getHDBlock().getPointerToFirstDGBlock();
+			for (DGBlock dgBlock : source.getDGBlocks()) {
+				long dgPointer = pointer;
+				pointer = dgBlock.getPointerToNextDGBlock();
+				if (dgBlock.getCgBlocks() == null) {
+					continue;
+				}
+				if (dgBlock.getNumberOfRecordIDs() != NumberOfRecordIDs.DATA_RECORDS_WITHOUT_RECORD_ID) {
+					throw new IOException("Data records with record IDs not implemented yet. Sort the file first (see "
+							+ UnsortedFiles.class.getSimpleName() + ").");
+				}
+				if (dgBlock.getCgBlocks().size() > 1) {
+					throw new IOException("Data groups with more than one channel group not implemented yet.");
+				}
+				CGBlock cgBlock = dgBlock.getCgBlocks().get(0);
+				List<Field> fields = select(cgBlock, channels);
+				if (fields == null) {
+					continue;
+				}
+				long dgPosition = writeDataGroup(in, w, dgPointer, dgBlock, cgBlock, fields);
+				w.setLink(previous, previousOffset, dgPosition);
+				previous = dgPosition;
+				previousOffset = 4;
+				numberOfDataGroups++;
+			}
+			w.setLink(previous, previousOffset, 0);
+			w.setUint16(hdPosition, 16, numberOfDataGroups);
+		}
+	}
+
+	/**
+	 * <p>
+	 * Selects the kept channels of a channel group.
+	 * </p>
+	 *
+	 * @return fields of the kept channels, {@code null} if no channel besides
+	 *         the time channel is selected
+	 */
+	private static List<Field> select(CGBlock cgBlock, Predicate<CNBlock> channels) {
+		if (cgBlock.getCNBlocks() == null) {
+			return null;
+		}
+		ArrayList<Field> fields = new ArrayList<Field>();
+		boolean selected = false;
+		long pointer = cgBlock.getPointerToFirstCNBlock();
+		for (CNBlock cnBlock : cgBlock.getCNBlocks()) {
+			if (channels.test(cnBlock)) {
+				selected = true;
+				fields.add(new Field(cnBlock, pointer));
+			} else if (cnBlock == cgBlock.getTimeChannel()) {
+				fields.add(new Field(cnBlock, pointer));
+			}
+			pointer = cnBlock.getPointerToNextCNBlock();
+		}
+		return selected ? fields : null;
+	}
+
+	private static long writeDataGroup(FileChannel in, BlockWriter w, long pointer, DGBlock dgBlock,
+			CGBlock cgBlock, List<Field> fields) throws IOException {
+		boolean complete = fields.size() == cgBlock.getCNBlocks().size();
+		int recordSize = cgBlock.getSizeOfDataRecord();
+		if (!complete) {
+			ArrayList<Field> byOffset = new ArrayList<Field>(fields);
+			byOffset.sort(Comparator.comparingInt((Field f) -> f.sourceOffset));
+			recordSize = 0;
+			for (Field field : byOffset) {
+				field.targetOffset = recordSize;
+				recordSize += field.length;
+			}
+		} else {
+			for (Field field : fields) {
+				field.targetOffset = field.sourceOffset;
+			}
+		}
+
+		long dgPosition = DataGroupWriter.writeDataGroup(in, w, pointer, dgBlock, true,
+				dgBlock.getPointerToFirstCGBlock(), cgBlock, fields, recordSize);
+
+		long dataPosition;
+		long length = (long) cgBlock.getSizeOfDataRecord() * cgBlock.getNumberOfRecords();
+		if (complete) {
+			dataPosition = w.transfer(in, dgBlock.getPointerToDataBlock(), length);
+		} else {
+			dataPosition = gather(in, w, dgBlock.getPointerToDataBlock(), cgBlock, fields, recordSize);
+		}
+		w.setLink(dgPosition, 16, dataPosition);
+		return dgPosition;
+	}
+
+	/**
+	 * <p>
+	 * Writes the records with the kept channels only, reading and writing
+	 * batches of records.
+	 * </p>
+	 */
+	private static long gather(FileChannel in, BlockWriter w, long pointer, CGBlock cgBlock, List<Field> fields,
+			int recordSize) throws IOException {
+		int sourceSize = cgBlock.getSizeOfDataRecord();
+		long numberOfRecords = cgBlock.getNumberOfRecords();
+		int batch = Math.max(1, BATCH_SIZE / sourceSize);
+		byte[] source = new byte[batch * sourceSize];
+		byte[] target = new byte[batch * recordSize];
+		long result = w.getPosition();
+		for (long first = 0; first < numberOfRecords; first += batch) {
+			int n = (int) Math.min(batch, numberOfRecords - first);
+			ByteBuffer b = ByteBuffer.wrap(source, 0, n * sourceSize);
+			while (b.hasRemaining()) {
+				if (in.read(b, pointer + first * sourceSize + b.position()) < 0) {
+					throw new IOException("Data records exceed the file.");
+				}
+			}
+			for (int r = 0; r < n; r++) {
+				int s = r * sourceSize;
+				int t = r * recordSize;
+				for (Field field : fields) {
+					System.arraycopy(source, s + field.sourceOffset, target, t + field.targetOffset, field.length);
+				}
+			}
+			w.write(ByteBuffer.wrap(target, 0, n * recordSize));
+		}
+		return result;
+	}
+
+}
@@ -0,0 +1,204 @@
+package de.justeazy.jmdflib.writer;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.util.ArrayList;
+import java.util.List;
+
+import de.justeazy.jmdflib.MDFFile;
+import de.justeazy.jmdflib.blocktypes.CGBlock;
+import de.justeazy.jmdflib.blocktypes.CNBlock;
+import de.justeazy.jmdflib.blocktypes.DGBlock;
+
+/**
+ * <p>
+ * Copies the blocks describing the records of a channel group from a MDF
+ * 3.x file into a new file, adapted to a new record layout. The data block
+ * is written by the caller.
+ * </p>
+ *
+ * @author Henrik Peters <henrik.peters@tu-clausthal.de>
+ */
+final class DataGroupWriter {
+
+	private DataGroupWriter() {
+	}
+
+	/**
+	 * <p>
+	 * Bytes of a channel in the source records and in the target records.
+	 * </p>
+	 */
+	static class Field {
+
+		final CNBlock cnBlock;
+
+		/**
+		 * Position of the CNBlock in the source file
+		 */
+		final long pointer;
+
+		final int sourceOffset;
+
+		final int length;
+
+		int targetOffset;
+
+		Field(CNBlock cnBlock, long pointer) {
+			this.cnBlock = cnBlock;
+			this.pointer = pointer;
+			this.sourceOffset = cnBlock.getAdditionalByteOffset() + cnBlock.getStartOffsetInBits() / 8;
+			this.length = (cnBlock.getStartOffsetInBits() % 8 + cnBlock.getNumberOfBits() + 7) / 8;
+		}
+
+	}
+
+	/**
+	 * <p>
+	 * Copies the IDBlock, the HDBlock and its TX and PR blocks.
+	 * </p>
+	 *
+	 * @return position of the HDBlock, whose pointer to the first DGBlock
+	 *         still has to be set
+	 */
+	static long writeHeader(FileChannel in, BlockWriter w, MDFFile source) throws IOException {
+		w.transfer(in, 0, 64);
+
+		ByteBuffer hd = BlockWriter.readBlock(in, 64);
+		long hdPosition = w.write(hd);
+		w.setLink(hdPosition, 8, w.copyBlock(in, source.getHDBlock().getPointerToTXBlock()));
+		w.setLink(hdPosition, 12, w.copyBlock(in, source.getHDBlock().getPointerToPRBlock()));
+		return hdPosition;
+	}
+
+	/**
+	 * <p>
+	 * Writes a DGBlock with a single channel group without record IDs, its
+	 * CGBlock and the CNBlocks of {@code fields} at their target offsets.
+	 * </p>
+	 *
+	 * @param pointer
+	 *            position of the DGBlock in the source file
+	 * @param withTRBlock
+	 *            whether to copy the TRBlock of the data group
+	 * @param cgPointer
+	 *            position of the CGBlock in the source file
+	 * @param recordSize
+	 *            size of the new records
+	 * @return position of the DGBlock, whose pointers to the next DGBlock and
+	 *         to the data block still have to be set
+	 */
+	static long writeDataGroup(FileChannel in, BlockWriter w, long pointer, DGBlock dgBlock, boolean withTRBlock,
+			long cgPointer, CGBlock cgBlock, List<Field> fields, int recordSize) throws IOException {
+		ByteBuffer dg = BlockWriter.readBlock(in, pointer);
+		dg.putInt(4, 0);
+		dg.putInt(12, 0);
+		dg.putShort(20, (short) 1);
+		dg.putShort(22, (short) 0);
+		long dgPosition = w.write(dg);
+		if (withTRBlock && dgBlock.getPointerToTRBlock() != 0) {
+			ByteBuffer tr = BlockWriter.readBlock(in, dgBlock.getPointerToTRBlock());
+			long trPosition = w.write(tr);
+			w.setLink(trPosition, 4, w.copyBlock(in, tr.getInt(4) & 0xFFFFFFFFL));
+			w.setLink(dgPosition, 12, trPosition);
+		}
+
+		w.setLink(dgPosition, 8, writeChannelGroup(in, w, cgPointer, cgBlock, fields, recordSize));
+		return dgPosition;
+	}
+
+	/**
+	 * <p>
+	 * Writes a CGBlock without record ID, next CGBlock and sample reductions
+	 * and the CNBlocks of {@code fields} at their target offsets.
+	 * </p>
+	 *
+	 * @param cgPointer
+	 *            position of the CGBlock in the source file
+	 * @param recordSize
+	 *            size of the new records
+	 * @return position of the CGBlock
+	 */
+	static long writeChannelGroup(FileChannel in, BlockWriter w, long cgPointer, CGBlock cgBlock, List<Field> fields,
+			int recordSize) throws IOException {
+		ByteBuffer cg = BlockWriter.readBlock(in, cgPointer);
+		cg.putInt(4, 0);
+		cg.putShort(16, (short) 0);
+		cg.putShort(18, (short) fields.size());
+		cg.putShort(20, (short) recordSize);
+		if (cg.limit() >= 30) {
+			cg.putInt(26, 0);
+		}
+		long cgPosition = w.write(cg);
+		w.setLink(cgPosition, 12, w.copyBlock(in, cgBlock.getPointerToTXBlock()));
+
+		long previous = cgPosition;
+		int previousOffset = 8;
+		for (Field field : fields) {
+			long cnPosition = writeChannel(in, w, field);
+			w.setLink(previous, previousOffset, cnPosition);
+			previous = cnPosition;
+			previousOffset = 4;
+		}
+		return cgPosition;
+	}
+
+	/**
+	 * <p>
+	 * Returns the fields of all channels of a channel group at unchanged
+	 * offsets.
+	 * </p>
+	 */
+	static List<Field> fields(CGBlock cgBlock) {
+		ArrayList<Field> fields = new ArrayList<Field>();
+		if (cgBlock.getCNBlocks() != null) {
+			long pointer = cgBlock.getPointerToFirstCNBlock();
+			for (CNBlock cnBlock : cgBlock.getCNBlocks()) {
+				Field field = new Field(cnBlock, pointer);
+				field.targetOffset = field.sourceOffset;
+				fields.add(field);
+				pointer = cnBlock.getPointerToNextCNBlock();
+			}
+		}
+		return fields;
+	}
+
+	/**
+	 * <p>
+	 * Writes a CNBlock at the target offset of its field together with its
+	 * CC, CE and TX blocks. CDBlocks are dropped.
+	 * </p>
+	 */
+	private static long writeChannel(FileChannel in, BlockWriter w, Field field) throws IOException {
+		CNBlock cnBlock = field.cnBlock;
+		ByteBuffer cn = BlockWriter.readBlock(in, field.pointer);
+		int bitOffset = field.targetOffset * 8 + cnBlock.getStartOffsetInBits() % 8;
+		cn.putInt(4, 0);
+		cn.putInt(16, 0);
+		if (bitOffset <= 0xFFFF) {
+			cn.putShort(186, (short) bitOffset);
+			if (cn.limit() >= 228) {
+				cn.putShort(226, (short) 0);
+			}
+		} else if (cn.limit() >= 228 && field.targetOffset <= 0xFFFF) {
+			cn.putShort(186, (short) (cnBlock.getStartOffsetInBits() % 8));
+			cn.putShort(226, (short) field.targetOffset);
+		} else {
+			throw new IOException("Channel " + cnBlock.getShortSignalName().trim() + " at byte "
+					+ field.targetOffset + " not supported by MDF 3.x.");
+		}
+		long cnPosition = w.write(cn);
+		w.setLink(cnPosition, 8, w.copyBlock(in, cnBlock.getPointerToCCBlock()));
+		w.setLink(cnPosition, 12, w.copyBlock(in, cnBlock.getPointerToCEBlock()));
+		w.setLink(cnPosition, 20, w.copyBlock(in, cnBlock.getPointerToTXBlock()));
+		if (cn.limit() >= 222) {
+			w.setLink(cnPosition, 218, w.copyBlock(in, cnBlock.getPointerToTXBlockLongSignalName()));
+		}
+		if (cn.limit() >= 226) {
+			w.setLink(cnPosition, 222, w.copyBlock(in, cnBlock.getPointerToTXBlockDisplayName()));
+		}
+		return cnPosition;
+	}
+
+}
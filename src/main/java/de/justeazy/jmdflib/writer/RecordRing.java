@@ -0,0 +1,229 @@
+package de.justeazy.jmdflib.writer;
+
+import java.nio.ByteBuffer;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.locks.LockSupport;
+
+import de.justeazy.jmdflib.enums.Backpressure;
+
+/**
+ * <p>
+ * Lock-free ring buffer of the records of one channel group, filled by a
+ * single producer thread and drained by the writer thread of a
+ * {@link CaptureWriter}.
+ * </p>
+ *
+ * <p>
+ * The records are copied into a preallocated array of
+ * {@code capacity * recordSize} bytes, so offering a record does not
+ * allocate. Producer and writer only share two counters: the producer
+ * publishes a record by an ordered write of the tail after copying it, the
+ * writer frees records by an ordered write of the head after draining them.
+ * The producer reads the head only if the ring looks full.
+ * </p>
+ *
+ * <p>
+ * If the ring is full, {@link Backpressure#BLOCK} makes the producer wait
+ * for the writer, {@link Backpressure#DROP} drops the record and counts it.
+ * </p>
+ *
+ * @author Henrik Peters <henrik.peters@tu-clausthal.de>
+ */
+public final class RecordRing {
+
+	/**
+	 * Time a blocked producer waits before checking the ring again
+	 */
+	private final static long PARK_NANOS = 10000;
+
+	private final int recordSize;
+
+	private final int capacity;
+
+	private final int mask;
+
+	private final byte[] buffer;
+
+	private final Backpressure backpressure;
+
+	/**
+	 * Number of records drained, written by the writer
+	 */
+	private final AtomicLong head = new AtomicLong();
+
+	/**
+	 * Number of records offered, written by the producer
+	 */
+	private final AtomicLong tail = new AtomicLong();
+
+	/**
+	 * Last head read by the producer
+	 */
+	private long cachedHead;
+
+	/**
+	 * Written by the producer only
+	 */
+	private volatile long dropped;
+
+	private volatile boolean closed;
+
+	/**
+	 * <p>
+	 * Creates an empty ring.
+	 * </p>
+	 *
+	 * @param recordSize
+	 *            size of the records in bytes
+	 * @param capacity
+	 *            number of records, rounded up to a power of two
+	 * @param backpressure
+	 *            behavior if the ring is full
+	 */
+	RecordRing(int recordSize, int capacity, Backpressure backpressure) {
+		if (recordSize <= 0) {
+			throw new IllegalArgumentException("Wrong record size (" + recordSize + ").");
+		}
+		if (capacity <= 0 || capacity > 1 << 30 || (long) recordSize * capacity > Integer.MAX_VALUE - 8) {
+			throw new IllegalArgumentException("Wrong capacity (" + capacity + ").");
+		}
+		this.recordSize = recordSize;
+		this.capacity = capacity == 1 ? 1 : Integer.highestOneBit(capacity - 1) << 1;
+		this.mask = this.capacity - 1;
+		this.buffer = new byte[this.capacity * recordSize];
+		this.backpressure = backpressure;
+	}
+
+	/**
+	 * <p>
+	 * Offers a record. Must only be called by the producer thread of the
+	 * ring.
+	 * </p>
+	 *
+	 * @param record
+	 *            array holding the record
+	 * @param offset
+	 *            position of the first byte of the record
+	 * @return {@code true} if the record was added, {@code false} if it was
+	 *         dropped
+	 * @throws IllegalStateException
+	 *             if the capture writer is closed or failed
+	 */
+	public boolean offer(byte[] record, int offset) {
+		int position = claim();
+		if (position < 0) {
+			return false;
+		}
+		System.arraycopy(record, offset, buffer, position, recordSize);
+		tail.lazySet(tail.get() + 1);
+		return true;
+	}
+
+	/**
+	 * <p>
+	 * Offers a record read from the position of {@code record}, which is
+	 * advanced by the record size if the record is added. Must only be called
+	 * by the producer thread of the ring.
+	 * </p>
+	 *
+	 * @param record
+	 *            buffer holding the record
+	 * @return {@code true} if the record was added, {@code false} if it was
+	 *         dropped
+	 * @throws IllegalStateException
+	 *             if the capture writer is closed or failed
+	 */
+	public boolean offer(ByteBuffer record) {
+		int position = claim();
+		if (position < 0) {
+			return false;
+		}
+		record.get(buffer, position, recordSize);
+		tail.lazySet(tail.get() + 1);
+		return true;
+	}
+
+	/**
+	 * <p>
+	 * Waits for a free slot or drops the record.
+	 * </p>
+	 *
+	 * @return position of the free slot in the buffer, -1 if the record is
+	 *         dropped
+	 */
+	private int claim() {
+		if (closed) {
+			throw new IllegalStateException("Capture writer is closed.");
+		}
+		long t = tail.get();
+		if (t - cachedHead == capacity) {
+			cachedHead = head.get();
+			while (t - cachedHead == capacity) {
+				if (backpressure == Backpressure.DROP) {
+					dropped++;
+					return -1;
+				}
+				LockSupport.parkNanos(PARK_NANOS);
+				if (closed) {
+					throw new IllegalStateException("Capture writer is closed.");
+				}
+				cachedHead = head.get();
+			}
+		}
+		return (int) (t & mask) * recordSize;
+	}
+
+	/**
+	 * <p>
+	 * Moves as many records as fit into {@code batch}, each prefixed by the
+	 * record ID. Must only be called by the writer thread.
+	 * </p>
+	 *
+	 * @return number of moved records
+	 */
+	int drain(ByteBuffer batch, int recordID) {
+		long h = head.get();
+		int n = (int) Math.min(tail.get() - h, batch.remaining() / (recordSize + 1));
+		for (int i = 0; i < n; i++) {
+			batch.put((byte) recordID);
+			batch.put(buffer, (int) ((h + i) & mask) * recordSize, recordSize);
+		}
+		head.lazySet(h + n);
+		return n;
+	}
+
+	/**
+	 * <p>
+	 * Rejects all further records.
+	 * </p>
+	 */
+	void close() {
+		closed = true;
+	}
+
+	public int getRecordSize() {
+		return recordSize;
+	}
+
+	/**
+	 * @return number of records the ring can hold
+	 */
+	public int getCapacity() {
+		return capacity;
+	}
+
+	/**
+	 * @return number of records drained by the writer
+	 */
+	public long getWrittenRecords() {
+		return head.get();
+	}
+
+	/**
+	 * @return number of records dropped because the ring was full
+	 */
+	public long getDroppedRecords() {
+		return dropped;
+	}
+
+}
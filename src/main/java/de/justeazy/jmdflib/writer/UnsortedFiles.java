@@ -0,0 +1,288 @@
+package de.justeazy.jmdflib.writer;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.List;
+
+import de.justeazy.jmdflib.MDFFile;
+import de.justeazy.jmdflib.blocktypes.CGBlock;
+import de.justeazy.jmdflib.blocktypes.DGBlock;
+import de.justeazy.jmdflib.enums.NumberOfRecordIDs;
+import de.justeazy.jmdflib.metrics.MDFMetrics;
+import de.justeazy.jmdflib.metrics.MetricsTimer;
+
+/**
+ * <p>
+ * Sorts unsorted MDF 3.x files.
+ * </p>
+ *
+ * <p>
+ * In an unsorted data group, the records of several channel groups are
+ * interleaved in one data block and prefixed by the record ID of their
+ * channel group. Reading a channel then has to scan all records. Sorting
+ * writes a new file in which every channel group has its own data group with
+ * contiguous records.
+ * </p>
+ *
+ * <p>
+ * Since the channel groups of a finalized file know their number of records,
+ * the data block of every channel group is reserved in the new file before
+ * the records are distributed. The data block of the unsorted data group is
+ * then read once, sequentially, in chunks; every record is appended to the
+ * buffer of its channel group, and full buffers are written to the next free
+ * position of the data block of the channel group. The memory used is bounded
+ * by the buffer size, independent of the size of the file. Sorted data groups
+ * are copied unchanged.
+ * </p>
+ *
+ * @author Henrik Peters <henrik.peters@tu-clausthal.de>
+ */
+public final class UnsortedFiles {
+
+	/**
+	 * Default size of all buffers together
+	 */
+	public final static int DEFAULT_BUFFER_SIZE = 64 << 20;
+
+	private UnsortedFiles() {
+	}
+
+	/**
+	 * <p>
+	 * Returns whether all data groups of a file are sorted.
+	 * </p>
+	 *
+	 * @param file
+	 *            MDF file
+	 * @return {@code true} if no data group uses record IDs
+	 */
+	public static boolean isSorted(MDFFile file) {
+		for (DGBlock dgBlock : file.getDGBlocks()) {
+			if (dgBlock.getNumberOfRecordIDs() != NumberOfRecordIDs.DATA_RECORDS_WITHOUT_RECORD_ID) {
+				return false;
+			}
+		}
+		return true;
+	}
+
+	/**
+	 * <p>
+	 * Writes a sorted copy of a MDF 3.x file with buffers of
+	 * {@link #DEFAULT_BUFFER_SIZE} bytes.
+	 * </p>
+	 *
+	 * @param source
+	 *            MDF 3.x file
+	 * @param target
+	 *            file to write, replaced if it exists
+	 * @throws IOException
+	 *             if a file cannot be read or written or the records do not
+	 *             match the channel groups
+	 */
+	public static void sort(MDFFile source, File target) throws IOException {
+		sort(source, target, DEFAULT_BUFFER_SIZE);
+	}
+
+	/**
+	 * <p>
+	 * Writes a sorted copy of a MDF 3.x file.
+	 * </p>
+	 *
+	 * @param source
+	 *            MDF 3.x file
+	 * @param target
+	 *            file to write, replaced if it exists
+	 * @param bufferSize
+	 *            size of all buffers together in bytes; half of it is used
+	 *            for reading, half for the channel groups
+	 * @throws IOException
+	 *             if a file cannot be read or written or the records do not
+	 *             match the channel groups
+	 */
+	public static void sort(MDFFile source, File target, int bufferSize) throws IOException {
+		if (source.getIDBlock().getVersionNumber() >= 400) {
+			throw new IOException("Sorting MDF 4.x files not implemented yet.");
+		}
+		if (source.getFile() == null) {
+			throw new IOException("Sorting files read from data sources not implemented yet.");
+		}
+		if (bufferSize < 2) {
+			throw new IllegalArgumentException("Wrong buffer size (" + bufferSize + ").");
+		}
+		try (FileChannel in = FileChannel.open(source.getFile().toPath(), StandardOpenOption.READ);
+				FileChannel out = FileChannel.open(target.toPath(), StandardOpenOption.CREATE,
+						StandardOpenOption.WRITE, StandardOpenOption.TRUNCATE_EXISTING)) {
+			BlockWriter w = new BlockWriter(out);
+			long hdPosition = DataGroupWriter.writeHeader(in, w, source);
+
+			long previous = hdPosition;
+			int previousOffset = 4;
+			int numberOfDataGroups = 0;
+			long pointer = source.getHDBlock().getPointerToFirstDGBlock();
+			for (DGBlock dgBlock : source.getDGBlocks()) {
+				long dgPointer = pointer;
+				pointer = dgBlock.getPointerToNextDGBlock();
+				if (dgBlock.getCgBlocks() == null) {
+					continue;
+				}
+				if (dgBlock.getNumberOfRecordIDs() == NumberOfRecordIDs.DATA_RECORDS_WITHOUT_RECORD_ID
+						&& dgBlock.getCgBlocks().size() > 1) {
+					throw new IOException("Sorted data group with " + dgBlock.getCgBlocks().size()
+							+ " channel groups.");
+				}
+
+				List<Target> targets = new ArrayList<Target>();
+				long cgPointer = dgBlock.getPointerToFirstCGBlock();
+				for (CGBlock cgBlock : dgBlock.getCgBlocks()) {
+					long dgPosition = DataGroupWriter.writeDataGroup(in, w, dgPointer, dgBlock, targets.isEmpty(),
+							cgPointer, cgBlock, DataGroupWriter.fields(cgBlock), cgBlock.getSizeOfDataRecord());
+					cgPointer = cgBlock.getPointerToNextCGBlock();
+					w.setLink(previous, previousOffset, dgPosition);
+					previous = dgPosition;
+					previousOffset = 4;
+					numberOfDataGroups++;
+					targets.add(new Target(dgPosition, cgBlock));
+				}
+
+				if (dgBlock.getNumberOfRecordIDs() == NumberOfRecordIDs.DATA_RECORDS_WITHOUT_RECORD_ID) {
+					Target t = targets.get(0);
+					long length = (long) t.recordSize * t.numberOfRecords;
+					w.setLink(t.dgPosition, 16, w.transfer(in, dgBlock.getPointerToDataBlock(), length));
+				} else {
+					for (Target t : targets) {
+						t.position = w.reserve((long) t.recordSize * t.numberOfRecords);
+						w.setLink(t.dgPosition, 16, t.position);
+					}
+					distribute(source, in, w, dgBlock, targets, bufferSize);
+				}
+			}
+			w.setLink(previous, previousOffset, 0);
+			w.setUint16(hdPosition, 16, numberOfDataGroups);
+		}
+	}
+
+	/**
+	 * <p>
+	 * Data block of a channel group in the new file.
+	 * </p>
+	 */
+	private static class Target {
+
+		final long dgPosition;
+
+		final int recordID;
+
+		final int recordSize;
+
+		final long numberOfRecords;
+
+		/**
+		 * Position of the data block
+		 */
+		long position;
+
+		/**
+		 * Number of records written to the data block
+		 */
+		long written;
+
+		ByteBuffer buffer;
+
+		Target(long dgPosition, CGBlock cgBlock) {
+			this.dgPosition = dgPosition;
+			this.recordID = cgBlock.getRecordID();
+			this.recordSize = cgBlock.getSizeOfDataRecord();
+			this.numberOfRecords = cgBlock.getNumberOfRecords();
+		}
+
+		void flush(BlockWriter w) throws IOException {
+			buffer.flip();
+			long records = buffer.remaining() / recordSize;
+			if (written + records > numberOfRecords) {
+				throw new IOException("Channel group with record ID " + recordID + " has more than "
+						+ numberOfRecords + " records.");
+			}
+			w.write(position + written * recordSize, buffer);
+			written += records;
+			buffer.clear();
+		}
+
+	}
+
+	/**
+	 * <p>
+	 * Reads the data block of an unsorted data group and appends every record
+	 * to the data block of its channel group.
+	 * </p>
+	 */
+	private static void distribute(MDFFile source, FileChannel in, BlockWriter w, DGBlock dgBlock,
+			List<Target> targets, int bufferSize) throws IOException {
+		MetricsTimer start = MDFMetrics.startReadTimer();
+		int idBytes = dgBlock.getNumberOfRecordIDs() == NumberOfRecordIDs.RECORD_ID_BEFORE_EACH_DATA_RECORD ? 1 : 2;
+		Target[] byRecordID = new Target[256];
+		long length = 0;
+		int maximumRecordSize = 0;
+		for (Target t : targets) {
+			if (t.recordID < 0 || t.recordID > 255 || byRecordID[t.recordID] != null) {
+				throw new IOException("Wrong record ID (" + t.recordID + ").");
+			}
+			byRecordID[t.recordID] = t;
+			length += (idBytes + t.recordSize) * t.numberOfRecords;
+			maximumRecordSize = Math.max(maximumRecordSize, t.recordSize);
+		}
+		int targetSize = Math.max(maximumRecordSize, bufferSize / 2 / targets.size());
+		for (Target t : targets) {
+			t.buffer = ByteBuffer.allocate(targetSize - targetSize % t.recordSize);
+		}
+		ByteBuffer input = ByteBuffer.allocate(Math.max(idBytes + maximumRecordSize, bufferSize / 2));
+
+		long read = 0;
+		long position = dgBlock.getPointerToDataBlock();
+		input.limit(0);
+		while (read < length || input.hasRemaining()) {
+			if (input.remaining() < idBytes + maximumRecordSize && read < length) {
+				input.compact();
+				input.limit((int) Math.min(input.capacity(), input.position() + length - read));
+				while (input.hasRemaining()) {
+					int n = in.read(input, position + read);
+					if (n < 0) {
+						throw new IOException("Data records exceed the file.");
+					}
+					read += n;
+				}
+				input.flip();
+			}
+			int recordID = input.get(input.position()) & 0xFF;
+			Target t = byRecordID[recordID];
+			if (t == null) {
+				throw new IOException("Record ID " + recordID + " at " + (position + read - input.remaining())
+						+ " does not belong to a channel group.");
+			}
+			if (input.remaining() < idBytes + t.recordSize) {
+				throw new IOException("Data records exceed the data block.");
+			}
+			input.position(input.position() + 1);
+			int limit = input.limit();
+			input.limit(input.position() + t.recordSize);
+			t.buffer.put(input);
+			input.limit(limit);
+			input.position(input.position() + idBytes - 1);
+			if (!t.buffer.hasRemaining()) {
+				t.flush(w);
+			}
+		}
+		for (Target t : targets) {
+			t.flush(w);
+			if (t.written != t.numberOfRecords) {
+				throw new IOException("Channel group with record ID " + t.recordID + " has " + t.written
+						+ " records instead of " + t.numberOfRecords + ".");
+			}
+		}
+		MDFMetrics.bytesRead(source.getFile().getPath(), length, start);
+	}
+
+}
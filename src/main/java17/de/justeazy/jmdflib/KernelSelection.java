@@ -0,0 +1,29 @@
+package de.justeazy.jmdflib;
+
+/**
+ * <p>
+ * Selects the {@link Kernels} of this JVM: the {@link VectorKernels} if the
+ * module {@code jdk.incubator.vector} is available and the system property
+ * {@code jmdflib.scalar} is not set, the {@link ScalarKernels} otherwise.
+ * </p>
+ *
+ * @author Henrik Peters <henrik.peters@tu-clausthal.de>
+ */
+final class KernelSelection {
+
+	private KernelSelection() {
+	}
+
+	static Kernels select() {
+		if (!Boolean.getBoolean("jmdflib.scalar")
+				&& ModuleLayer.boot().findModule("jdk.incubator.vector").isPresent()) {
+			try {
+				return new VectorKernels();
+			} catch (LinkageError e) {
+				// fall through to the portable kernels
+			}
+		}
+		return new ScalarKernels();
+	}
+
+}
@@ -0,0 +1,155 @@
+package de.justeazy.jmdflib;
+
+import java.nio.ByteBuffer;
+
+import jdk.incubator.vector.DoubleVector;
+import jdk.incubator.vector.FloatVector;
+import jdk.incubator.vector.IntVector;
+import jdk.incubator.vector.LongVector;
+import jdk.incubator.vector.VectorMask;
+import jdk.incubator.vector.VectorOperators;
+import jdk.incubator.vector.VectorShape;
+import jdk.incubator.vector.VectorSpecies;
+
+/**
+ * <p>
+ * Kernels processing as many values per instruction as the preferred vector
+ * size of the CPU holds doubles.
+ * </p>
+ *
+ * <p>
+ * The Vector API has no strided loads from byte buffers, so values of
+ * records holding other channels as well are gathered by the scalar loops.
+ * Records holding only the channel are loaded as vectors; floats and
+ * integers are converted to doubles lane by lane. Conversions and minimum
+ * and maximum always run on vectors. The remaining values after the last
+ * full vector are processed by the scalar loops.
+ * </p>
+ *
+ * @author Henrik Peters <henrik.peters@tu-clausthal.de>
+ */
+class VectorKernels extends ScalarKernels {
+
+	private static final VectorSpecies<Double> DOUBLES = DoubleVector.SPECIES_PREFERRED;
+
+	private static final VectorSpecies<Long> LONGS = LongVector.SPECIES_PREFERRED;
+
+	/**
+	 * Floats with as many lanes as {@link #DOUBLES}, {@code null} if that
+	 * shape does not exist
+	 */
+	private static final VectorSpecies<Float> FLOATS = species(float.class, 32);
+
+	/**
+	 * Integers with as many lanes as {@link #DOUBLES}, {@code null} if that
+	 * shape does not exist
+	 */
+	private static final VectorSpecies<Integer> INTEGERS = species(int.class, 32);
+
+	private static <E> VectorSpecies<E> species(Class<E> type, int bits) {
+		int size = DOUBLES.length() * bits;
+		if (size < 64) {
+			return null;
+		}
+		return VectorSpecies.of(type, VectorShape.forBitSize(size));
+	}
+
+	@Override
+	boolean isVectorized() {
+		return true;
+	}
+
+	@Override
+	void gatherDoubles(ByteBuffer data, int position, int stride, int count, double[] destination, int offset) {
+		if (stride != 8) {
+			super.gatherDoubles(data, position, stride, count, destination, offset);
+			return;
+		}
+		int lanes = DOUBLES.length();
+		int i = 0;
+		for (; i <= count - lanes; i += lanes) {
+			DoubleVector.fromByteBuffer(DOUBLES, data, position + 8 * i, data.order()).intoArray(destination,
+					offset + i);
+		}
+		super.gatherDoubles(data, position + 8 * i, stride, count - i, destination, offset + i);
+	}
+
+	@Override
+	void gatherFloats(ByteBuffer data, int position, int stride, int count, double[] destination, int offset) {
+		if (stride != 4 || FLOATS == null) {
+			super.gatherFloats(data, position, stride, count, destination, offset);
+			return;
+		}
+		int lanes = DOUBLES.length();
+		int i = 0;
+		for (; i <= count - lanes; i += lanes) {
+			((DoubleVector) FloatVector.fromByteBuffer(FLOATS, data, position + 4 * i, data.order())
+					.convertShape(VectorOperators.F2D, DOUBLES, 0)).intoArray(destination, offset + i);
+		}
+		super.gatherFloats(data, position + 4 * i, stride, count - i, destination, offset + i);
+	}
+
+	@Override
+	void gatherIntegers(ByteBuffer data, int position, int stride, int bytes, boolean signed, int count,
+			double[] destination, int offset) {
+		int lanes = DOUBLES.length();
+		int i = 0;
+		if (stride == 8 && bytes == 8 && signed) {
+			for (; i <= count - lanes; i += lanes) {
+				((DoubleVector) LongVector.fromByteBuffer(LONGS, data, position + 8 * i, data.order())
+						.convertShape(VectorOperators.L2D, DOUBLES, 0)).intoArray(destination, offset + i);
+			}
+		} else if (stride == 4 && bytes == 4 && INTEGERS != null) {
+			DoubleVector unsigned = DoubleVector.broadcast(DOUBLES, 0x1.0p32);
+			for (; i <= count - lanes; i += lanes) {
+				DoubleVector v = (DoubleVector) IntVector
+						.fromByteBuffer(INTEGERS, data, position + 4 * i, data.order())
+						.convertShape(VectorOperators.I2D, DOUBLES, 0);
+				if (!signed) {
+					v = v.add(unsigned, v.lt(0));
+				}
+				v.intoArray(destination, offset + i);
+			}
+		}
+		super.gatherIntegers(data, position + stride * i, stride, bytes, signed, count - i, destination,
+				offset + i);
+	}
+
+	@Override
+	void linear(double[] values, int offset, int count, double p1, double p2) {
+		int lanes = DOUBLES.length();
+		int i = 0;
+		for (; i <= count - lanes; i += lanes) {
+			// no fused multiply-add, to round like CCBlockLinear2Parameters
+			DoubleVector.fromArray(DOUBLES, values, offset + i).mul(p2).add(p1).intoArray(values, offset + i);
+		}
+		super.linear(values, offset + i, count - i, p1, p2);
+	}
+
+	@Override
+	double[] minMax(double[] values, int offset, int count) {
+		int lanes = DOUBLES.length();
+		DoubleVector minimum = DoubleVector.broadcast(DOUBLES, Double.POSITIVE_INFINITY);
+		DoubleVector maximum = DoubleVector.broadcast(DOUBLES, Double.NEGATIVE_INFINITY);
+		VectorMask<Double> found = DOUBLES.maskAll(false);
+		int i = 0;
+		for (; i <= count - lanes; i += lanes) {
+			DoubleVector v = DoubleVector.fromArray(DOUBLES, values, offset + i);
+			minimum = minimum.blend(v, v.lt(minimum));
+			maximum = maximum.blend(v, v.compare(VectorOperators.GT, maximum));
+			found = found.or(v.eq(v));
+		}
+		double[] tail = super.minMax(values, offset + i, count - i);
+		double min = minimum.reduceLanes(VectorOperators.MIN);
+		double max = maximum.reduceLanes(VectorOperators.MAX);
+		if (!found.anyTrue()) {
+			return tail;
+		}
+		if (!Double.isNaN(tail[0])) {
+			min = Math.min(min, tail[0]);
+			max = Math.max(max, tail[1]);
+		}
+		return new double[] { min, max };
+	}
+
+}
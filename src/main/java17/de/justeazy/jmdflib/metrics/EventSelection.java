@@ -0,0 +1,27 @@
+package de.justeazy.jmdflib.metrics;
+
+/**
+ * <p>
+ * Selects the {@link MetricsEvents} of this JVM: the {@link JfrEvents} if the
+ * module {@code jdk.jfr} is available, events doing nothing otherwise.
+ * </p>
+ *
+ * @author Henrik Peters <henrik.peters@tu-clausthal.de>
+ */
+final class EventSelection {
+
+	private EventSelection() {
+	}
+
+	static MetricsEvents select() {
+		if (ModuleLayer.boot().findModule("jdk.jfr").isPresent()) {
+			try {
+				return new JfrEvents();
+			} catch (LinkageError e) {
+				// fall through to the events doing nothing
+			}
+		}
+		return new MetricsEvents();
+	}
+
+}
@@ -0,0 +1,92 @@
+package de.justeazy.jmdflib.metrics;
+
+import jdk.jfr.Category;
+import jdk.jfr.DataAmount;
+import jdk.jfr.Event;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+
+/**
+ * <p>
+ * Flight Recorder events of the library, selected by {@link EventSelection}
+ * if the running JVM provides {@code jdk.jfr}. The events are begun when
+ * the timer of their operation is started, so Flight Recorder records their
+ * start and duration.
+ * </p>
+ *
+ * @author Henrik Peters <henrik.peters@tu-clausthal.de>
+ */
+final class JfrEvents extends MetricsEvents {
+
+	@Override
+	Object beginFileRead() {
+		FileReadEvent event = new FileReadEvent();
+		if (!event.isEnabled()) {
+			return null;
+		}
+		event.begin();
+		return event;
+	}
+
+	@Override
+	void fileRead(Object begun, String path, long bytes, boolean mapped) {
+		if (begun instanceof FileReadEvent) {
+			FileReadEvent event = (FileReadEvent) begun;
+			event.path = path;
+			event.bytes = bytes;
+			event.mapped = mapped;
+			event.commit();
+		}
+	}
+
+	@Override
+	Object beginChannelDecode() {
+		ChannelDecodeEvent event = new ChannelDecodeEvent();
+		if (!event.isEnabled()) {
+			return null;
+		}
+		event.begin();
+		return event;
+	}
+
+	@Override
+	void channelDecoded(Object begun, String channel, long records) {
+		if (begun instanceof ChannelDecodeEvent) {
+			ChannelDecodeEvent event = (ChannelDecodeEvent) begun;
+			event.channel = channel;
+			event.records = records;
+			event.commit();
+		}
+	}
+
+	@Name("de.justeazy.jmdflib.FileRead")
+	@Label("MDF File Read")
+	@Category("jMDFLib")
+	static class FileReadEvent extends Event {
+
+		@Label("Path")
+		String path;
+
+		@Label("Bytes")
+		@DataAmount
+		long bytes;
+
+		@Label("Mapped")
+		boolean mapped;
+
+	}
+
+	@Name("de.justeazy.jmdflib.ChannelDecode")
+	@Label("MDF Channel Decode")
+	@Category("jMDFLib")
+	static class ChannelDecodeEvent extends Event {
+
+		@Label("Channel")
+		String channel;
+
+		@Label("Records")
+		long records;
+
+	}
+
+}
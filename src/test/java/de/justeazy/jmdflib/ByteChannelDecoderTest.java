@@ -0,0 +1,92 @@
+package de.justeazy.jmdflib;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.charset.StandardCharsets;
+
+import de.justeazy.jmdflib.blocktypes.CGBlock;
+import de.justeazy.jmdflib.blocktypes.CNBlock;
+import de.justeazy.jmdflib.enums.SignalDataType;
+import de.justeazy.jmdflib.text.ByteString;
+import de.justeazy.jmdflib.text.StringDictionary;
+import junit.framework.TestCase;
+
+public class ByteChannelDecoderTest extends TestCase {
+
+	static final String[] STATES = { "IDLE", "RUNNING", "IDLE", "STOPPED", "RUNNING", "RUNNING" };
+
+	CGBlock cgBlock;
+
+	CNBlock cnBlock;
+
+	ByteBuffer data;
+
+	public ByteChannelDecoderTest(String name) {
+		super(name);
+	}
+
+	protected void setUp() throws Exception {
+		super.setUp();
+		// records of a uint16 counter followed by a string of 8 bytes
+		data = ByteBuffer.allocate(4 + STATES.length * 10).order(ByteOrder.LITTLE_ENDIAN);
+		data.position(4);
+		for (int i = 0; i < STATES.length; i++) {
+			data.putShort((short) i);
+			byte[] text = STATES[i].getBytes(StandardCharsets.ISO_8859_1);
+			data.put(text).put(new byte[8 - text.length]);
+		}
+		cgBlock = new CGBlock();
+		cgBlock.setSizeOfDataRecord(10);
+		cgBlock.setNumberOfRecords(STATES.length);
+		cnBlock = new CNBlock();
+		cnBlock.setShortSignalName("state");
+		cnBlock.setSignalDataType(SignalDataType.STRING);
+		cnBlock.setStartOffsetInBits(16);
+		cnBlock.setNumberOfBits(64);
+	}
+
+	public void testViews() throws Exception {
+		ByteChannelDecoder decoder = new ByteChannelDecoder(data, 4, cgBlock, cnBlock);
+		assertThat(decoder.getNumberOfRecords()).isEqualTo(STATES.length);
+		for (int i = 0; i < STATES.length; i++) {
+			assertThat(decoder.getString(i).toString()).isEqualTo(STATES[i]);
+			assertThat(decoder.getString(i).contentEquals(STATES[i])).isTrue();
+		}
+		ByteString running = decoder.getString(1);
+		assertThat(running.equals(decoder.getString(4))).isTrue();
+		assertThat(running.hashCode()).isEqualTo(decoder.getString(4).hashCode());
+		assertThat(running.compareTo(decoder.getString(0))).isGreaterThan(0);
+		assertThat(running.subSequence(0, 3).contentEquals("RUN")).isTrue();
+
+		ByteBuffer bytes = decoder.getBytes(3);
+		assertThat(bytes.remaining()).isEqualTo(8);
+		assertThat(bytes.isReadOnly()).isTrue();
+		assertThat(bytes.get(0)).isEqualTo((byte) 'S');
+	}
+
+	public void testDictionary() throws Exception {
+		StringDictionary dictionary = new ByteChannelDecoder(data, 4, cgBlock, cnBlock).encode();
+		assertThat(dictionary.size()).isEqualTo(STATES.length);
+		assertThat(dictionary.getValues()).hasSize(3);
+		assertThat(dictionary.indexOf("RUNNING")).isEqualTo(1);
+		assertThat(dictionary.indexOf("BROKEN")).isEqualTo(-1);
+		assertThat(dictionary.count()).containsExactly(2, 3, 1);
+		for (int i = 0; i < STATES.length; i++) {
+			assertThat(dictionary.get(i).toString()).isEqualTo(STATES[i]);
+		}
+	}
+
+	public void testWrongDataType() throws Exception {
+		cnBlock.setSignalDataType(SignalDataType.UNSIGNED_INTEGER);
+		try {
+			new ByteChannelDecoder(data, 4, cgBlock, cnBlock);
+			fail();
+		} catch (IOException e) {
+			assertThat(e.getMessage()).contains("UNSIGNED_INTEGER");
+		}
+	}
+
+}
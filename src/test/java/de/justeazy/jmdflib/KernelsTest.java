@@ -0,0 +1,190 @@
+package de.justeazy.jmdflib;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+
+import de.justeazy.jmdflib.blocktypes.CCBlockLinear2Parameters;
+import de.justeazy.jmdflib.blocktypes.CGBlock;
+import de.justeazy.jmdflib.blocktypes.CNBlock;
+import de.justeazy.jmdflib.enums.ChannelType;
+import de.justeazy.jmdflib.enums.SignalDataType;
+import junit.framework.TestCase;
+
+public class KernelsTest extends TestCase {
+
+	List<Kernels> kernels;
+
+	ByteBuffer data;
+
+	public KernelsTest(String name) {
+		super(name);
+	}
+
+	protected void setUp() throws Exception {
+		super.setUp();
+		kernels = new ArrayList<Kernels>();
+		kernels.add(new ScalarKernels());
+		try {
+			// only on the class path of the jdk17 profile
+			kernels.add((Kernels) Class.forName("de.justeazy.jmdflib.VectorKernels").getDeclaredConstructor()
+					.newInstance());
+		} catch (ClassNotFoundException e) {
+			// Java 8 build
+		}
+		data = ByteBuffer.allocate(8 * 1003);
+		new Random(7).nextBytes(data.array());
+	}
+
+	public void testVectorKernelsTested() throws Exception {
+		String version = System.getProperty("java.specification.version");
+		boolean java17 = !version.startsWith("1.") && Integer.parseInt(version) >= 17;
+		assertThat(kernels).hasSize(java17 ? 2 : 1);
+		assertThat(kernels.get(kernels.size() - 1).isVectorized()).isEqualTo(java17);
+		// the jdk17 profile tests the Java 17 classes of the multi-release JAR
+		assertThat(Kernels.INSTANCE.isVectorized()).isEqualTo(java17 && !Boolean.getBoolean("jmdflib.scalar"));
+	}
+
+	public void testScalarSwitch() throws Exception {
+		String scalar = System.getProperty("jmdflib.scalar");
+		System.setProperty("jmdflib.scalar", "true");
+		try {
+			assertThat(KernelSelection.select().isVectorized()).isFalse();
+		} finally {
+			if (scalar == null) {
+				System.clearProperty("jmdflib.scalar");
+			} else {
+				System.setProperty("jmdflib.scalar", scalar);
+			}
+		}
+		if (!Boolean.getBoolean("jmdflib.scalar")) {
+			assertThat(KernelSelection.select().isVectorized()).isEqualTo(Kernels.INSTANCE.isVectorized());
+		}
+	}
+
+	public void testGather() throws Exception {
+		for (ByteOrder order : new ByteOrder[] { ByteOrder.LITTLE_ENDIAN, ByteOrder.BIG_ENDIAN }) {
+			data.order(order);
+			for (int stride : new int[] { 1, 2, 4, 8, 12 }) {
+				int count = (data.capacity() - 8) / stride;
+				double[] expected = new double[count];
+				double[] actual = new double[count + 1];
+				for (Kernels k : kernels) {
+					if (stride % 8 == 0 || stride == 12) {
+						new ScalarKernels().gatherDoubles(data, 3, stride, count, expected, 0);
+						k.gatherDoubles(data, 3, stride, count, actual, 1);
+						assertEquals(expected, actual);
+					}
+					if (stride % 4 == 0) {
+						new ScalarKernels().gatherFloats(data, 1, stride, count, expected, 0);
+						k.gatherFloats(data, 1, stride, count, actual, 1);
+						assertEquals(expected, actual);
+					}
+					for (int bytes = 1; bytes <= Math.min(8, stride); bytes *= 2) {
+						for (boolean signed : new boolean[] { true, false }) {
+							if (bytes == 8 && !signed) {
+								continue;
+							}
+							for (int i = 0; i < count; i++) {
+								ByteBuffer b = data.duplicate().order(order);
+								int p = 2 + i * stride;
+								long v = bytes == 1 ? b.get(p)
+										: bytes == 2 ? b.getShort(p) : bytes == 4 ? b.getInt(p) : b.getLong(p);
+								expected[i] = signed || bytes == 8 ? v : v & (-1L >>> (64 - 8 * bytes));
+							}
+							k.gatherIntegers(data, 2, stride, bytes, signed, count, actual, 1);
+							assertEquals(expected, actual);
+						}
+					}
+				}
+			}
+		}
+	}
+
+	private static void assertEquals(double[] expected, double[] actual) {
+		for (int i = 0; i < expected.length; i++) {
+			assertThat(Double.doubleToLongBits(actual[i + 1])).isEqualTo(Double.doubleToLongBits(expected[i]));
+		}
+	}
+
+	public void testLinearAndMinMax() throws Exception {
+		double[] values = new double[1001];
+		Random random = new Random(3);
+		for (int i = 0; i < values.length; i++) {
+			values[i] = random.nextGaussian() * 1e3;
+		}
+		values[17] = Double.NaN;
+		for (Kernels k : kernels) {
+			double[] converted = values.clone();
+			k.linear(converted, 1, 999, 0.1, 0.3);
+			for (int i = 1; i < 1000; i++) {
+				assertThat(Double.doubleToLongBits(converted[i])).isEqualTo(Double.doubleToLongBits(values[i] * 0.3 + 0.1));
+			}
+			assertThat(converted[0]).isEqualTo(values[0]);
+			assertThat(converted[1000]).isEqualTo(values[1000]);
+
+			double minimum = Double.POSITIVE_INFINITY;
+			double maximum = Double.NEGATIVE_INFINITY;
+			for (int i = 5; i < 990; i++) {
+				if (!Double.isNaN(values[i])) {
+					minimum = Math.min(minimum, values[i]);
+					maximum = Math.max(maximum, values[i]);
+				}
+			}
+			assertThat(k.minMax(values, 5, 985)).containsExactly(minimum, maximum);
+			assertThat(k.minMax(values, 17, 1)).containsExactly(Double.NaN, Double.NaN);
+			assertThat(k.minMax(new double[] { Double.NaN, Double.NaN, Double.NaN, Double.NaN, Double.NaN,
+					Double.NaN, Double.NaN, Double.NaN, Double.NaN, 2 }, 0, 10)).containsExactly(2.0, 2.0);
+		}
+	}
+
+	public void testReadPhysical() throws Exception {
+		CGBlock cgBlock = new CGBlock();
+		cgBlock.setSizeOfDataRecord(8);
+		cgBlock.setNumberOfRecords(1000);
+		SignalDataType[] types = { SignalDataType.IEEE_754_FLOATING_POINT_FORMAT_DOUBLE,
+				SignalDataType.IEEE_754_FLOATING_POINT_FORMAT_FLOAT, SignalDataType.UNSIGNED_INTEGER,
+				SignalDataType.SIGNED_INTEGER };
+		int[][] layouts = { { 0, 64 }, { 0, 32 }, { 32, 16 }, { 8, 8 }, { 3, 12 } };
+		CCBlockLinear2Parameters linear = new CCBlockLinear2Parameters();
+		linear.setP1(-5);
+		linear.setP2(0.25);
+		for (SignalDataType type : types) {
+			for (int[] layout : layouts) {
+				boolean floating = type != SignalDataType.UNSIGNED_INTEGER && type != SignalDataType.SIGNED_INTEGER;
+				if (floating && (layout[0] != 0 || layout[1] < 32)) {
+					continue;
+				}
+				if (floating && (type == SignalDataType.IEEE_754_FLOATING_POINT_FORMAT_FLOAT) != (layout[1] == 32)) {
+					continue;
+				}
+				CNBlock cnBlock = new CNBlock();
+				cnBlock.setShortSignalName("x");
+				cnBlock.setChannelType(ChannelType.DATA_CHANNEL);
+				cnBlock.setSignalDataType(type);
+				cnBlock.setStartOffsetInBits(layout[0]);
+				cnBlock.setNumberOfBits(layout[1]);
+				cnBlock.setCcBlock(linear);
+				ChannelDecoder decoder = new ChannelDecoder(data, 16, cgBlock, cnBlock, ByteOrder.LITTLE_ENDIAN);
+				double[] values = new double[990];
+				decoder.readPhysical(5, 995, values, 0);
+				double minimum = Double.POSITIVE_INFINITY;
+				double maximum = Double.NEGATIVE_INFINITY;
+				for (int i = 0; i < values.length; i++) {
+					double expected = decoder.getPhysical(5 + i);
+					assertThat(Double.doubleToLongBits(values[i])).isEqualTo(Double.doubleToLongBits(expected));
+					if (!Double.isNaN(expected)) {
+						minimum = Math.min(minimum, expected);
+						maximum = Math.max(maximum, expected);
+					}
+				}
+				assertThat(decoder.readMinMax(5, 995)).containsExactly(minimum, maximum);
+			}
+		}
+	}
+
+}
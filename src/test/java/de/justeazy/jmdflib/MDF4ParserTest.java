@@ -0,0 +1,264 @@
+package de.justeazy.jmdflib;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.util.Arrays;
+import java.util.zip.Deflater;
+
+import de.justeazy.jmdflib.blocktypes.CGBlock;
+import de.justeazy.jmdflib.blocktypes.CNBlock;
+import de.justeazy.jmdflib.blocktypes.DGBlock;
+import de.justeazy.jmdflib.enums.ChannelType;
+import junit.framework.TestCase;
+
+public class MDF4ParserTest extends TestCase {
+
+	static final int RECORDS = 5000;
+
+	static final int RECORD_SIZE = 10;
+
+	File file;
+
+	public MDF4ParserTest(String name) {
+		super(name);
+	}
+
+	protected void setUp() throws Exception {
+		super.setUp();
+		file = File.createTempFile("junit", ".mf4");
+	}
+
+	protected void tearDown() throws Exception {
+		file.delete();
+		super.tearDown();
+	}
+
+	/**
+	 * Records of a double master channel t = i / 100 and an uint16 channel v
+	 * = i % 1000, converted by 1 + 0.5 * v
+	 */
+	static byte[] records() {
+		ByteBuffer b = ByteBuffer.allocate(RECORDS * RECORD_SIZE).order(ByteOrder.LITTLE_ENDIAN);
+		for (int i = 0; i < RECORDS; i++) {
+			b.putDouble(i * 0.01);
+			b.putShort((short) (i % 1000));
+		}
+		return b.array();
+	}
+
+	static class Writer {
+
+		final ByteBuffer b = ByteBuffer.allocate(1 << 20).order(ByteOrder.LITTLE_ENDIAN);
+
+		int block(String id, long[] links, byte[] data) {
+			b.position((b.position() + 7) & ~7);
+			int position = b.position();
+			b.put(("##" + id).getBytes(StandardCharsets.ISO_8859_1));
+			b.putInt(0);
+			b.putLong(24 + 8 * links.length + data.length);
+			b.putLong(links.length);
+			for (long link : links) {
+				b.putLong(link);
+			}
+			b.put(data);
+			return position;
+		}
+
+		void link(int block, int index, long value) {
+			b.putLong(block + 24 + 8 * index, value);
+		}
+
+		int text(String text) {
+			return block("TX", new long[0], (text + "\0").getBytes(StandardCharsets.UTF_8));
+		}
+
+		byte[] toArray() {
+			return Arrays.copyOf(b.array(), b.position());
+		}
+
+	}
+
+	static ByteBuffer data(int size) {
+		return ByteBuffer.allocate(size).order(ByteOrder.LITTLE_ENDIAN);
+	}
+
+	static byte[] cn(int channelType, int syncType, int dataType, int byteOffset, int bitCount) {
+		ByteBuffer b = data(72);
+		b.put((byte) channelType).put((byte) syncType).put((byte) dataType).put((byte) 0);
+		b.putInt(byteOffset).putInt(bitCount);
+		return b.array();
+	}
+
+	static byte[] dz(byte[] original, int zipType, int columns) {
+		byte[] input = original;
+		if (zipType == 1) {
+			int rows = original.length / columns;
+			input = original.clone();
+			int n = 0;
+			for (int column = 0; column < columns; column++) {
+				for (int row = 0; row < rows; row++) {
+					input[n++] = original[row * columns + column];
+				}
+			}
+		}
+		Deflater deflater = new Deflater();
+		deflater.setInput(input);
+		deflater.finish();
+		byte[] buffer = new byte[input.length + 64];
+		int length = deflater.deflate(buffer);
+		deflater.end();
+		ByteBuffer b = data(24 + length);
+		b.put((byte) 'D').put((byte) 'T').put((byte) zipType).put((byte) 0).putInt(columns);
+		b.putLong(original.length).putLong(length).put(buffer, 0, length);
+		return b.array();
+	}
+
+	/**
+	 * <p>
+	 * Writes a MDF 4.10 file with one channel group, stored in a single DT
+	 * block or in a HL/DL list of a DZ, a DT and a transposed DZ block, none
+	 * of them ending at a record boundary.
+	 * </p>
+	 */
+	static void write(File file, boolean compressed) throws IOException {
+		Writer w = new Writer();
+		ByteBuffer id = data(64);
+		id.put("MDF     4.10    jmdflib ".getBytes(StandardCharsets.ISO_8859_1));
+		id.putShort(28, (short) 410);
+		w.b.put(id.array());
+
+		int hd = w.block("HD", new long[6], new byte[32]);
+		int dg = w.block("DG", new long[4], new byte[8]);
+		w.link(hd, 0, dg);
+		ByteBuffer cgData = data(32);
+		cgData.putLong(0).putLong(RECORDS).putShort((short) 0).putShort((short) 0).putInt(0).putInt(RECORD_SIZE)
+				.putInt(0);
+		int cg = w.block("CG", new long[6], cgData.array());
+		w.link(dg, 1, cg);
+
+		int t = w.block("CN", new long[8], cn(2, 1, 4, 0, 64));
+		w.link(cg, 1, t);
+		w.link(t, 2, w.text("t"));
+		int v = w.block("CN", new long[8], cn(0, 0, 0, 8, 16));
+		w.link(t, 0, v);
+		w.link(v, 2, w.text("v"));
+		ByteBuffer ccData = data(40);
+		ccData.put((byte) 1).put((byte) 0).putShort((short) 0).putShort((short) 0).putShort((short) 2);
+		ccData.putDouble(0).putDouble(0).putDouble(1.0).putDouble(0.5);
+		int cc = w.block("CC", new long[4], ccData.array());
+		w.link(v, 4, cc);
+		w.link(cc, 1, w.text("V"));
+
+		byte[] records = records();
+		if (!compressed) {
+			w.link(dg, 2, w.block("DT", new long[0], records));
+		} else {
+			int[] bounds = { 0, 12345, 20003, records.length };
+			int dz1 = w.block("DZ", new long[0], dz(Arrays.copyOfRange(records, bounds[0], bounds[1]), 0, 0));
+			int dt = w.block("DT", new long[0], Arrays.copyOfRange(records, bounds[1], bounds[2]));
+			int dz2 = w.block("DZ", new long[0],
+					dz(Arrays.copyOfRange(records, bounds[2], bounds[3]), 1, RECORD_SIZE));
+			ByteBuffer dlData = data(8 + 8 * 3);
+			dlData.put((byte) 0).put(new byte[3]).putInt(3);
+			for (int i = 0; i < 3; i++) {
+				dlData.putLong(bounds[i]);
+			}
+			int dl = w.block("DL", new long[] { 0, dz1, dt, dz2 }, dlData.array());
+			int hl = w.block("HL", new long[] { dl }, new byte[8]);
+			w.link(dg, 2, hl);
+		}
+		Files.write(file.toPath(), w.toArray());
+	}
+
+	public void testReadDataBlock() throws Exception {
+		write(file, false);
+		MDFFile mdf = MDFFile.open(file);
+		assertThat(mdf.getIDBlock().getVersionNumber()).isEqualTo(410);
+		assertThat(mdf.getHDBlock().getNumberOfDataGroups()).isEqualTo(1);
+
+		DGBlock dgBlock = mdf.getDGBlocks().get(0);
+		CGBlock cgBlock = dgBlock.getCgBlocks().get(0);
+		assertThat(cgBlock.getNumberOfRecords()).isEqualTo(RECORDS);
+		CNBlock t = cgBlock.getCNBlocks().get(0);
+		CNBlock v = cgBlock.getCNBlocks().get(1);
+		assertThat(t.getChannelType()).isEqualTo(ChannelType.TIME_CHANNEL);
+		assertThat(v.getShortSignalName()).isEqualTo("v");
+		assertThat(v.getCcBlock().getPhysicalUnit()).isEqualTo("V");
+
+		double[] values = mdf.readChannel(dgBlock, cgBlock, v);
+		assertThat(values).hasSize(RECORDS);
+		assertThat(values[1234]).isEqualTo(1 + 0.5 * 234);
+		assertThat(mdf.readChannel(dgBlock, cgBlock, t)[4999]).isEqualTo(4999 * 0.01);
+	}
+
+	public void testReadCompressedDataBlocks() throws Exception {
+		File plain = File.createTempFile("junit", ".mf4");
+		try {
+			write(plain, false);
+			write(file, true);
+			MDFFile expected = MDFFile.open(plain);
+			MDFFile mdf = MDFFile.open(file);
+			DGBlock dgBlock = mdf.getDGBlocks().get(0);
+			CGBlock cgBlock = dgBlock.getCgBlocks().get(0);
+			for (int c = 0; c < 2; c++) {
+				DGBlock expectedDG = expected.getDGBlocks().get(0);
+				CGBlock expectedCG = expectedDG.getCgBlocks().get(0);
+				assertThat(mdf.readChannel(dgBlock, cgBlock, cgBlock.getCNBlocks().get(c))).isEqualTo(
+						expected.readChannel(expectedDG, expectedCG, expectedCG.getCNBlocks().get(c)));
+			}
+		} finally {
+			plain.delete();
+		}
+	}
+
+	public void testReadTimeRange() throws Exception {
+		write(file, true);
+		MDFFile mdf = MDFFile.open(file);
+		DGBlock dgBlock = mdf.getDGBlocks().get(0);
+		CGBlock cgBlock = dgBlock.getCgBlocks().get(0);
+		CNBlock v = cgBlock.getCNBlocks().get(1);
+
+		// records 1200 to 2100 span all three data blocks
+		double[] values = mdf.readChannel(dgBlock, cgBlock, v, 1200 * 0.01, 2100 * 0.01);
+		assertThat(values).hasSize(901);
+		for (int i = 0; i < values.length; i++) {
+			assertThat(values[i]).isEqualTo(1 + 0.5 * ((1200 + i) % 1000));
+		}
+		assertThat(mdf.readChannel(dgBlock, cgBlock, v, 100.0, 200.0)).isEmpty();
+	}
+
+	public void testRecordDataRange() throws Exception {
+		write(file, true);
+		ByteBuffer content = ByteBuffer.wrap(Files.readAllBytes(file.toPath())).order(ByteOrder.LITTLE_ENDIAN);
+		MDF4Parser parser = new MDF4Parser(content, ChannelProjection.all(), MDFParser.DEFAULT_EXECUTOR);
+		parser.parse();
+		RecordData records = parser.getRecordData().get(parser.getDGBlocks().get(0));
+		byte[] expected = records();
+
+		ByteBuffer range = records.range(12000, 21000);
+		byte[] bytes = new byte[range.remaining()];
+		range.get(bytes);
+		assertThat(bytes).isEqualTo(Arrays.copyOfRange(expected, 12000, 21000));
+
+		ByteBuffer all = records.getBuffer();
+		bytes = new byte[expected.length];
+		((ByteBuffer) all.duplicate().position(records.getOffset())).get(bytes);
+		assertThat(bytes).isEqualTo(expected);
+	}
+
+	public void testProjection() throws Exception {
+		write(file, false);
+		MDFFile mdf = MDFFile.open(file, ChannelProjection.byNames("x"));
+		CGBlock cgBlock = mdf.getDGBlocks().get(0).getCgBlocks().get(0);
+		assertThat(cgBlock.getCNBlocks().get(0).isProjected()).isTrue();
+		assertThat(cgBlock.getCNBlocks().get(1).isProjected()).isFalse();
+		assertThat(cgBlock.getCNBlocks().get(1).getCcBlock()).isNull();
+	}
+
+}
@@ -0,0 +1,81 @@
+package de.justeazy.jmdflib;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+import java.io.File;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+import de.justeazy.jmdflib.blocktypes.CGBlock;
+import de.justeazy.jmdflib.blocktypes.CNBlock;
+import de.justeazy.jmdflib.blocktypes.DGBlock;
+import junit.framework.TestCase;
+
+public class MDFFileTest extends TestCase {
+
+	MDFFile mdfFile;
+
+	public MDFFileTest(String name) {
+		super(name);
+	}
+
+	protected void setUp() throws Exception {
+		super.setUp();
+		mdfFile = MDFFile.open(new File("src/test/resources/junit1.dat"));
+	}
+
+	public void testBlocks() throws Exception {
+		assertThat(mdfFile.getIDBlock().getVersionNumber()).isEqualTo(330);
+		assertThat(mdfFile.getHDBlock().getPointerToFirstDGBlock()).isEqualTo(1188);
+		assertThat(mdfFile.getPRBlock()).isNull();
+		assertThat(mdfFile.getDGBlocks()).hasSize(1);
+		assertThat(mdfFile.getDGBlocks().get(0).getCgBlocks().get(0).getCNBlocks()).hasSize(2);
+	}
+
+	public void testSameValuesAsInputStream() throws Exception {
+		MDFInputStream is = new MDFInputStream(new File("src/test/resources/junit1.dat"));
+		try {
+			is.readFile();
+			DGBlock dgBlock = mdfFile.getDGBlocks().get(0);
+			CGBlock cgBlock = dgBlock.getCgBlocks().get(0);
+			DGBlock expectedDGBlock = is.getDGBlocks().get(0);
+			CGBlock expectedCGBlock = expectedDGBlock.getCgBlocks().get(0);
+			for (int i = 0; i < cgBlock.getCNBlocks().size(); i++) {
+				assertThat(mdfFile.readChannel(dgBlock, cgBlock, cgBlock.getCNBlocks().get(i))).isEqualTo(
+						is.readChannel(expectedDGBlock, expectedCGBlock, expectedCGBlock.getCNBlocks().get(i)));
+			}
+		} finally {
+			is.close();
+		}
+	}
+
+	public void testConcurrentReaders() throws Exception {
+		final DGBlock dgBlock = mdfFile.getDGBlocks().get(0);
+		final CGBlock cgBlock = dgBlock.getCgBlocks().get(0);
+		final CNBlock cnBlock = cgBlock.getCNBlocks().get(1);
+		double[] expected = mdfFile.readChannel(dgBlock, cgBlock, cnBlock);
+
+		ExecutorService executor = Executors.newFixedThreadPool(4);
+		try {
+			List<Future<double[]>> futures = new ArrayList<Future<double[]>>();
+			for (int i = 0; i < 16; i++) {
+				futures.add(executor.submit(new Callable<double[]>() {
+					@Override
+					public double[] call() throws Exception {
+						return mdfFile.readChannel(dgBlock, cgBlock, cnBlock);
+					}
+				}));
+			}
+			for (Future<double[]> future : futures) {
+				assertThat(future.get()).isEqualTo(expected);
+			}
+		} finally {
+			executor.shutdown();
+		}
+	}
+
+}
@@ -0,0 +1,103 @@
+package de.justeazy.jmdflib;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.file.Files;
+import java.nio.file.Paths;
+import java.util.Arrays;
+
+import de.justeazy.jmdflib.metrics.MDFMetrics;
+import junit.framework.TestCase;
+
+public class MDFHeaderTest extends TestCase {
+
+	File file = new File("src/test/resources/junit1.dat");
+
+	public MDFHeaderTest(String name) {
+		super(name);
+	}
+
+	public void testProbe() throws Exception {
+		MDFHeader header = MDFHeader.probe(file);
+		assertThat(header.getIDBlock().getVersionNumber()).isEqualTo(330);
+		assertThat(header.getIDBlock().getDefaultByteOrder()).isEqualTo(ByteOrder.LITTLE_ENDIAN);
+		assertThat(header.getIDBlock().getProgramIdentifier())
+				.isEqualTo(MDFFile.open(file).getIDBlock().getProgramIdentifier());
+		assertThat(header.getHDBlock()).isNull();
+		assertThat(header.isSupported()).isTrue();
+	}
+
+	public void testProbeWithHDBlock() throws Exception {
+		MDFHeader header = MDFHeader.probe(file, true);
+		assertThat(header.getHDBlock().getPointerToFirstDGBlock()).isEqualTo(1188);
+		assertThat(header.getHDBlock().getPointerToTXBlock()).isEqualTo(567);
+		assertThat(header.getHDBlock().getTXBlock()).isNull();
+	}
+
+	public void testReadsHeaderOnly() throws Exception {
+		boolean enabled = MDFMetrics.isEnabled();
+		MDFMetrics.setEnabled(true);
+		try {
+			MDFMetrics.reset();
+			MDFHeader.probe(file, true);
+			assertThat(MDFMetrics.getBytesRead()).isEqualTo(64 + 208);
+		} finally {
+			MDFMetrics.setEnabled(enabled);
+		}
+	}
+
+	public void testProbeMDF4() throws Exception {
+		File mdf4 = File.createTempFile("junit4", ".mf4");
+		try {
+			MDF4ParserTest.write(mdf4, true);
+			MDFHeader header = MDFHeader.probe(mdf4, true);
+			assertThat(header.getIDBlock().getVersionNumber()).isEqualTo(410);
+			assertThat(header.getHDBlock()).isNull();
+			assertThat(header.isSupported()).isTrue();
+			assertThat(MDFFile.open(mdf4).getIDBlock().getVersionNumber()).isEqualTo(410);
+
+			// unfinalized
+			ByteBuffer content = ByteBuffer.wrap(Files.readAllBytes(mdf4.toPath())).order(ByteOrder.LITTLE_ENDIAN);
+			content.putShort(60, (short) 1);
+			Files.write(mdf4.toPath(), content.array());
+			assertThat(MDFHeader.probe(mdf4).isSupported()).isFalse();
+		} finally {
+			mdf4.delete();
+		}
+	}
+
+	public void testUnsupported() throws Exception {
+		byte[] content = Arrays.copyOf(Files.readAllBytes(Paths.get(file.getPath())), 64);
+		ByteBuffer buffer = ByteBuffer.wrap(content).order(ByteOrder.LITTLE_ENDIAN);
+		buffer.putShort(24, (short) 1);
+		buffer.putShort(60, (short) 1);
+		File unsupported = File.createTempFile("junit1-be", ".dat");
+		try {
+			Files.write(unsupported.toPath(), content);
+			MDFHeader header = MDFHeader.probe(unsupported);
+			assertThat(header.getIDBlock().getDefaultByteOrder()).isEqualTo(ByteOrder.BIG_ENDIAN);
+			assertThat(header.isSupported()).isFalse();
+			assertThat(MDFHeader.probe(unsupported, true).getHDBlock()).isNull();
+		} finally {
+			unsupported.delete();
+		}
+	}
+
+	public void testNoMDFFile() throws Exception {
+		File text = File.createTempFile("no-mdf", ".txt");
+		try {
+			Files.write(text.toPath(), "no MDF file".getBytes("US-ASCII"));
+			MDFHeader.probe(text);
+			fail();
+		} catch (IOException e) {
+			assertThat(e.getMessage()).contains("too short");
+		} finally {
+			text.delete();
+		}
+	}
+
+}
@@ -3,6 +3,7 @@ package de.justeazy.jmdflib;
 import static org.assertj.core.api.Assertions.assertThat;
 
 import java.io.File;
+import java.io.IOException;
 import java.math.BigInteger;
 
 import de.justeazy.jmdflib.blocktypes.CCBlock;
@@ -53,6 +54,44 @@ public class MDFInputStreamTest extends TestCase {
 		// TODO write test case
 	}
 
+	public void testReadChannel() throws Exception {
+		DGBlock dgBlock = is.getDGBlocks().get(0);
+		CGBlock cgBlock = dgBlock.getCgBlocks().get(0);
+		double[] t = is.readChannel(dgBlock, cgBlock, cgBlock.getTimeChannel());
+		assertThat(t).hasSize(76326);
+		for (int i = 1; i < t.length; i++) {
+			assertThat(t[i]).isGreaterThanOrEqualTo(t[i - 1]);
+		}
+		double[] v = is.readChannel(dgBlock, cgBlock, cgBlock.getCNBlocks().get(1));
+		assertThat(v).hasSize(76326);
+	}
+
+	public void testProjection() throws Exception {
+		MDFInputStream projected = new MDFInputStream(new File("src/test/resources/junit1.dat"),
+				ChannelProjection.byName("x.*"));
+		try {
+			projected.readFile();
+			DGBlock dgBlock = projected.getDGBlocks().get(0);
+			CGBlock cgBlock = dgBlock.getCgBlocks().get(0);
+			CNBlock t = cgBlock.getCNBlocks().get(0);
+			CNBlock v = cgBlock.getCNBlocks().get(1);
+			assertThat(t.isProjected()).isTrue();
+			assertThat(t.getCcBlock()).isNotNull();
+			assertThat(v.isProjected()).isFalse();
+			assertThat(v.getShortSignalName().trim()).isEqualTo("v");
+			assertThat(v.getCcBlock()).isNull();
+			assertThat(v.getTXBlock()).isNull();
+			try {
+				projected.readChannel(dgBlock, cgBlock, v);
+				fail();
+			} catch (IOException e) {
+				assertThat(e.getMessage()).contains("projection");
+			}
+		} finally {
+			projected.close();
+		}
+	}
+
 	public void testIdBlock() throws Exception {
 		IDBlock idBlock = is.getIDBlock();
 		assertThat(idBlock.getFileIdentifier()).isEqualTo("MDF     ");
@@ -176,8 +215,8 @@ public class MDFInputStreamTest extends TestCase {
 
 		TXBlock txBlock0LongSignalName = cnBlock0.getTxBlockLongSignalName();
 		assertThat(txBlock0LongSignalName.getBlockTypeIdentifier()).isEqualTo("TX");
-		assertThat(txBlock0LongSignalName.getBlockSize()).isEqualTo(5);
-		assertThat(txBlock0LongSignalName.getText()).isEmpty();
+		assertThat(txBlock0LongSignalName.getBlockSize()).isEqualTo(7);
+		assertThat(txBlock0LongSignalName.getText()).isEqualTo("t");
 
 		TXBlock txBlock0DisplayName = cnBlock0.getTxBlockDisplayName();
 		assertThat(txBlock0DisplayName.getBlockTypeIdentifier()).isEqualTo("TX");
@@ -227,13 +266,13 @@ public class MDFInputStreamTest extends TestCase {
 
 		TXBlock txBlock1LongSignalName = cnBlock1.getTxBlockLongSignalName();
 		assertThat(txBlock1LongSignalName.getBlockTypeIdentifier()).isEqualTo("TX");
-		assertThat(txBlock1LongSignalName.getBlockSize()).isEqualTo(5);
-		assertThat(txBlock1LongSignalName.getText()).isEmpty();
+		assertThat(txBlock1LongSignalName.getBlockSize()).isEqualTo(7);
+		assertThat(txBlock1LongSignalName.getText()).isEqualTo("v");
 
 		TXBlock txBlock1DisplayName = cnBlock1.getTxBlockDisplayName();
 		assertThat(txBlock1DisplayName.getBlockTypeIdentifier()).isEqualTo("TX");
-		assertThat(txBlock1DisplayName.getBlockSize()).isEqualTo(5);
-		assertThat(txBlock1DisplayName.getText()).isEmpty();
+		assertThat(txBlock1DisplayName.getBlockSize()).isEqualTo(7);
+		assertThat(txBlock1DisplayName.getText()).isEqualTo("v");
 	}
 
 }
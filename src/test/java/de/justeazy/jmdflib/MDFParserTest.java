@@ -0,0 +1,160 @@
+package de.justeazy.jmdflib;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.charset.Charset;
+import java.nio.file.Files;
+import java.nio.file.Paths;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+import de.justeazy.jmdflib.blocktypes.CGBlock;
+import de.justeazy.jmdflib.blocktypes.CNBlock;
+import de.justeazy.jmdflib.blocktypes.DGBlock;
+import de.justeazy.jmdflib.blocktypes.TXBlock;
+import de.justeazy.jmdflib.text.BlockText;
+import junit.framework.TestCase;
+
+public class MDFParserTest extends TestCase {
+
+	ByteBuffer source;
+
+	public MDFParserTest(String name) {
+		super(name);
+	}
+
+	protected void setUp() throws Exception {
+		super.setUp();
+		source = ByteBuffer.wrap(Files.readAllBytes(Paths.get("src/test/resources/junit1.dat")))
+				.order(ByteOrder.LITTLE_ENDIAN);
+	}
+
+	public void testReadBlocksAtOffset() throws Exception {
+		DGBlock dgBlock = MDFParser.readDGBlock(source, 1188);
+		assertThat(dgBlock.getPointerToDataBlock()).isEqualTo(1216);
+		assertThat(dgBlock.getCgBlocks()).isNull();
+
+		CGBlock cgBlock = MDFParser.readCGBlock(source, (int) dgBlock.getPointerToFirstCGBlock());
+		assertThat(cgBlock.getNumberOfRecords()).isEqualTo(76326);
+		assertThat(cgBlock.getCNBlocks()).isNull();
+
+		CNBlock cnBlock = MDFParser.readCNBlock(source, (int) cgBlock.getPointerToFirstCNBlock());
+		assertThat(cnBlock.getShortSignalName().trim()).isEqualTo("t");
+		assertThat(cnBlock.getCcBlock()).isNull();
+
+		assertThat(MDFParser.readTXBlock(source, 553).getText()).isEqualTo("t");
+		assertThat(source.position()).isEqualTo(0);
+	}
+
+	public void testWrongOffset() throws Exception {
+		try {
+			MDFParser.readCGBlock(source, 1188);
+			fail();
+		} catch (IOException e) {
+			assertThat(e.getMessage()).contains("CG");
+		}
+		try {
+			MDFParser.readCNBlock(source, source.limit());
+			fail();
+		} catch (IOException e) {
+			assertThat(e.getMessage()).contains("outside");
+		}
+	}
+
+	public void testLazyTextFields() throws Exception {
+		DGBlock dgBlock = MDFParser.readDGBlock(source, 1188);
+		CGBlock cgBlock = MDFParser.readCGBlock(source, (int) dgBlock.getPointerToFirstCGBlock());
+		int cnPointer = (int) cgBlock.getPointerToFirstCNBlock();
+		CNBlock cnBlock = MDFParser.readCNBlock(source, cnPointer);
+		assertThat(cnBlock.getShortSignalName()).hasSize(32).startsWith("t");
+		assertThat(cnBlock.getShortSignalNameText().trim()).isEqualTo("t");
+		assertThat(cnBlock.getShortSignalNameText().intern()).isSameAs("t")
+				.isSameAs(cnBlock.getShortSignalNameText().intern());
+		assertThat(cnBlock.getSignalDescription()).hasSize(128);
+
+		// the fields of direct (mapped) buffers are decoded on first access
+		ByteBuffer direct = ByteBuffer.allocateDirect(source.limit()).order(ByteOrder.LITTLE_ENDIAN);
+		direct.put(source.duplicate()).clear();
+		TXBlock txBlock = MDFParser.readTXBlock(direct, 553);
+		String text = txBlock.getText();
+		direct.put(557, (byte) 'x');
+		assertThat(MDFParser.readTXBlock(direct, 553).getText()).isEqualTo("x");
+		assertThat(txBlock.getText()).isEqualTo(text);
+
+		// the fields of heap buffers are copied
+		txBlock = MDFParser.readTXBlock(source, 553);
+		source.put(557, (byte) 'x');
+		assertThat(txBlock.getText()).isEqualTo(text);
+		assertThat(MDFParser.readCNBlock(source, cnPointer).getShortSignalName()).startsWith("t");
+	}
+
+	public void testCodePage() throws Exception {
+		assertThat(MDFParser.charset(0)).isEqualTo(MDFParser.DEFAULT_CHARSET);
+		assertThat(MDFParser.charset(1252)).isEqualTo(Charset.forName("windows-1252"));
+		assertThat(MDFParser.charset(65001).name()).isEqualTo("UTF-8");
+		assertThat(MDFParser.charset(4711)).isEqualTo(MDFParser.DEFAULT_CHARSET);
+
+		ByteBuffer field = ByteBuffer.wrap(new byte[] { ' ', 'a', (byte) 0x80, ' ', 0, 0 });
+		assertThat(BlockText.of(field, 0, 6, MDFParser.charset(1252)).trim()).isEqualTo("a\u20ac");
+		assertThat(BlockText.of(field, 0, 6, MDFParser.DEFAULT_CHARSET).trim()).isEqualTo("a\u0080");
+		assertThat(BlockText.terminated(field, 0, 6, MDFParser.DEFAULT_CHARSET).toString()).hasSize(4);
+		assertThat(BlockText.of(ByteBuffer.allocateDirect(4), 0, 4, MDFParser.DEFAULT_CHARSET).trim()).isEmpty();
+
+		// fields of heap buffers are copied, decoded texts are kept
+		BlockText copied = BlockText.of(field, 0, 6, MDFParser.DEFAULT_CHARSET);
+		field.put(1, (byte) 'b');
+		assertThat(copied.trim()).isEqualTo("a\u0080").isSameAs(copied.trim());
+		assertThat(copied.toString()).isSameAs(copied.toString());
+		assertThat(copied.intern()).isSameAs(copied.trim());
+		ByteBuffer direct = ByteBuffer.allocateDirect(2);
+		BlockText mapped = BlockText.of(direct, 0, 2, MDFParser.DEFAULT_CHARSET);
+		direct.put(0, (byte) 'c');
+		assertThat(mapped.trim()).isEqualTo("c");
+	}
+
+	public void testConcurrentReaders() throws Exception {
+		final int[] offsets = { 1188, 920, 553, 560, 685 };
+		ExecutorService executor = Executors.newFixedThreadPool(4);
+		try {
+			List<Future<String>> results = new ArrayList<Future<String>>();
+			for (int i = 0; i < 64; i++) {
+				final int offset = offsets[i % offsets.length];
+				results.add(executor.submit(new Callable<String>() {
+					public String call() throws Exception {
+						if (offset == 1188) {
+							return String.valueOf(MDFParser.readDGBlock(source, offset).getPointerToDataBlock());
+						}
+						return MDFParser.readTXBlock(source, offset).getText();
+					}
+				}));
+			}
+			String[] expected = { "1216", "", "t", "v", "v" };
+			for (int i = 0; i < results.size(); i++) {
+				assertThat(results.get(i).get()).isEqualTo(expected[i % expected.length]);
+			}
+		} finally {
+			executor.shutdown();
+		}
+	}
+
+	public void testParseWithExecutor() throws Exception {
+		ExecutorService executor = Executors.newFixedThreadPool(2);
+		try {
+			MDFParser parser = new MDFParser(source, ChannelProjection.all(), executor);
+			parser.parse();
+			CGBlock cgBlock = parser.getDGBlocks().get(0).getCgBlocks().get(0);
+			assertThat(cgBlock.getCNBlocks()).hasSize(2);
+			assertThat(cgBlock.getCNBlocks().get(1).getTxBlockLongSignalName().getText()).isEqualTo("v");
+		} finally {
+			executor.shutdown();
+		}
+	}
+
+}
@@ -0,0 +1,131 @@
+package de.justeazy.jmdflib;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.file.Files;
+import java.nio.file.Paths;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+import de.justeazy.jmdflib.blocktypes.CGBlock;
+import de.justeazy.jmdflib.blocktypes.DGBlock;
+import junit.framework.TestCase;
+
+public class MDFSessionTest extends TestCase {
+
+	/**
+	 * First record of every chunk of junit1.dat and its number of records
+	 */
+	static final int[] BOUNDS = { 0, 30000, 60000, 76326 };
+
+	List<File> chunks;
+
+	MDFFile original;
+
+	public MDFSessionTest(String name) {
+		super(name);
+	}
+
+	/**
+	 * <p>
+	 * Splits the records of junit1.dat into three files with the blocks of
+	 * the original file.
+	 * </p>
+	 */
+	protected void setUp() throws Exception {
+		super.setUp();
+		byte[] content = Files.readAllBytes(Paths.get("src/test/resources/junit1.dat"));
+		chunks = new ArrayList<File>();
+		for (int i = 0; i + 1 < BOUNDS.length; i++) {
+			ByteBuffer chunk = ByteBuffer.allocate(1216 + 16 * (BOUNDS[i + 1] - BOUNDS[i]))
+					.order(ByteOrder.LITTLE_ENDIAN);
+			chunk.put(content, 0, 1216);
+			chunk.put(content, 1216 + 16 * BOUNDS[i], 16 * (BOUNDS[i + 1] - BOUNDS[i]));
+			chunk.putInt(1180, BOUNDS[i + 1] - BOUNDS[i]);
+			File file = File.createTempFile("junit", ".dat");
+			Files.write(file.toPath(), chunk.array());
+			chunks.add(file);
+		}
+		original = MDFFile.open(new File("src/test/resources/junit1.dat"));
+	}
+
+	protected void tearDown() throws Exception {
+		for (File file : chunks) {
+			file.delete();
+		}
+		super.tearDown();
+	}
+
+	double[] readOriginal(String name) throws Exception {
+		DGBlock dgBlock = original.getDGBlocks().get(0);
+		CGBlock cgBlock = dgBlock.getCgBlocks().get(0);
+		return original.readChannel(dgBlock, cgBlock, cgBlock.getCNBlocks().get(name.equals("t") ? 0 : 1));
+	}
+
+	public void testReadChannel() throws Exception {
+		MDFSession session = MDFSession.open(chunks);
+		assertThat(session.getNumberOfRecords("v")).isEqualTo(76326);
+		assertThat(session.getFirstRecord("v", 2)).isEqualTo(60000);
+		assertThat(session.readChannel("v")).isEqualTo(readOriginal("v"));
+		assertThat(session.readChannel("t", 29990, 30010))
+				.isEqualTo(Arrays.copyOfRange(readOriginal("t"), 29990, 30010));
+	}
+
+	public void testReadTimeRange() throws Exception {
+		MDFSession session = MDFSession.open(chunks);
+		double[] t = readOriginal("t");
+		double start = t[59000];
+		double end = t[61000];
+		assertThat(session.readChannel("t", start, end)).isEqualTo(Arrays.copyOfRange(t, 59000, 61001));
+		assertThat(session.readChannel("v", start, end)).isEqualTo(Arrays.copyOfRange(readOriginal("v"), 59000, 61001));
+		assertThat(session.isOpened(0)).isTrue();
+		assertThat(session.readChannel("v", t[76325] + 1, t[76325] + 2)).isEmpty();
+	}
+
+	public void testEmptyChunk() throws Exception {
+		// session of four files, the third one without records
+		ByteBuffer chunk = ByteBuffer.allocate(1216).order(ByteOrder.LITTLE_ENDIAN);
+		chunk.put(Files.readAllBytes(chunks.get(0).toPath()), 0, 1216);
+		chunk.putInt(1180, 0);
+		File empty = File.createTempFile("junit", ".dat");
+		Files.write(empty.toPath(), chunk.array());
+		chunks.add(2, empty);
+
+		MDFSession session = MDFSession.open(chunks);
+		double[] t = readOriginal("t");
+		double[] v = readOriginal("v");
+		assertThat(session.getNumberOfRecords("v")).isEqualTo(76326);
+		assertThat(session.readChannel("v", t[70000], t[70010])).isEqualTo(Arrays.copyOfRange(v, 70000, 70011));
+		assertThat(session.readChannel("v", t[59000], t[61000])).isEqualTo(Arrays.copyOfRange(v, 59000, 61001));
+		assertThat(session.readChannel("t", t[0], t[76325])).isEqualTo(t);
+	}
+
+	public void testLazyOpening() throws Exception {
+		MDFSession session = MDFSession.open(chunks);
+		assertThat(session.isOpened(0)).isFalse();
+		double[] t = readOriginal("t");
+		assertThat(session.readChannel("t", t[1000], t[1010])).hasSize(11);
+		assertThat(session.isOpened(0)).isTrue();
+		assertThat(session.isOpened(2)).isFalse();
+	}
+
+	public void testMismatchingLayout() throws Exception {
+		// second chunk with a smaller record size
+		ByteBuffer chunk = ByteBuffer.wrap(Files.readAllBytes(chunks.get(1).toPath())).order(ByteOrder.LITTLE_ENDIAN);
+		chunk.putShort(1178, (short) 8);
+		Files.write(chunks.get(1).toPath(), chunk.array());
+		MDFSession session = MDFSession.open(chunks);
+		try {
+			session.getFile(1);
+			fail();
+		} catch (IOException e) {
+			assertThat(e.getMessage()).contains("layout");
+		}
+	}
+
+}
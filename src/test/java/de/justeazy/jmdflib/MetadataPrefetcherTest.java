@@ -0,0 +1,130 @@
+package de.justeazy.jmdflib;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.file.Files;
+import java.util.function.Predicate;
+
+import de.justeazy.jmdflib.blocktypes.CGBlock;
+import de.justeazy.jmdflib.blocktypes.CNBlock;
+import de.justeazy.jmdflib.blocktypes.DGBlock;
+import de.justeazy.jmdflib.source.RangeReadSource;
+import junit.framework.TestCase;
+
+public class MetadataPrefetcherTest extends TestCase {
+
+	File file;
+
+	byte[] content;
+
+	RangeReadSource remote;
+
+	public MetadataPrefetcherTest(String name) {
+		super(name);
+	}
+
+	protected void setUp() throws Exception {
+		super.setUp();
+		file = new File("src/test/resources/junit1.dat");
+		content = Files.readAllBytes(file.toPath());
+		remote = new RangeReadSource(
+				(position, destination, offset, length) -> System.arraycopy(content, (int) position, destination,
+						offset, length),
+				content.length);
+	}
+
+	private static String describe(BlockContent content) throws Exception {
+		MDFParser parser = new MDFParser(content, ChannelProjection.all(), Runnable::run);
+		parser.parse();
+		StringBuilder result = new StringBuilder();
+		for (DGBlock dgBlock : parser.getDGBlocks()) {
+			for (CGBlock cgBlock : dgBlock.getCgBlocks()) {
+				result.append(cgBlock.getNumberOfRecords()).append(':');
+				for (CNBlock cnBlock : cgBlock.getCNBlocks()) {
+					result.append(cnBlock.getTxBlockLongSignalName().getText()).append(',');
+				}
+			}
+		}
+		return result.toString();
+	}
+
+	public void testCoalescedReads() throws Exception {
+		MetadataPrefetcher prefetcher = new MetadataPrefetcher(remote, ChannelProjection.all());
+		PrefetchedContent prefetched = prefetcher.prefetch();
+		assertThat(prefetcher.isComplete()).isFalse();
+		assertThat(prefetcher.getNumberOfReads()).isEqualTo(1);
+		assertThat(describe(prefetched)).isEqualTo(describe(BlockContent.of(ByteBuffer.wrap(content))))
+				.isEqualTo("76326:t,v,");
+		// only the blocks are kept, not a buffer of the size of the file
+		assertThat(prefetched.getBytes()).isEqualTo(prefetcher.getBytesRead()).isLessThan(content.length);
+		assertThat(prefetcher.getBytesRead()).isEqualTo(remote.getBytesRequested());
+	}
+
+	public void testBlockByBlock() throws Exception {
+		MetadataPrefetcher prefetcher = new MetadataPrefetcher(remote, ChannelProjection.all(), 0, 0);
+		PrefetchedContent prefetched = prefetcher.prefetch();
+		assertThat(prefetcher.getNumberOfReads()).isGreaterThan(5);
+		assertThat(remote.getNumberOfRequests()).isEqualTo(prefetcher.getNumberOfReads());
+		assertThat(describe(prefetched)).isEqualTo("76326:t,v,");
+		// the data block is not read
+		assertThat(remote.getBytesRequested()).isLessThan(1216);
+		assertThat(prefetcher.getBytesRead()).isEqualTo(remote.getBytesRequested());
+		assertThat(prefetched.getBytes()).isLessThan(1216);
+		assertThat(prefetched.getNumberOfRanges()).isGreaterThan(1);
+		try {
+			prefetched.at(1216);
+			fail();
+		} catch (IOException e) {
+			assertThat(e.getMessage()).contains("not prefetched");
+		}
+	}
+
+	public void testMergedGaps() throws Exception {
+		MetadataPrefetcher blocks = new MetadataPrefetcher(remote, ChannelProjection.all(), 0, 0);
+		blocks.prefetch();
+		MetadataPrefetcher merged = new MetadataPrefetcher(remote, ChannelProjection.all(), 1024, 0);
+		merged.prefetch();
+		assertThat(merged.getNumberOfReads()).isLessThan(blocks.getNumberOfReads());
+	}
+
+	public void testLazyData() throws Exception {
+		MDFFile mdfFile = MDFFile.open(remote, ChannelProjection.all(), Runnable::run);
+		assertThat(remote.getNumberOfRequests()).isEqualTo(1);
+		DGBlock dgBlock = mdfFile.getDGBlocks().get(0);
+		CGBlock cgBlock = dgBlock.getCgBlocks().get(0);
+		double[] part = mdfFile.readChannel(dgBlock, cgBlock, cgBlock.getCNBlocks().get(1), 1.0, 2.0);
+		assertThat(part).isNotEmpty();
+
+		MDFFile mapped = MDFFile.open(file);
+		DGBlock d = mapped.getDGBlocks().get(0);
+		CGBlock c = d.getCgBlocks().get(0);
+		assertThat(part).isEqualTo(mapped.readChannel(d, c, c.getCNBlocks().get(1), 1.0, 2.0));
+		assertThat(mdfFile.readChannel(dgBlock, cgBlock, cgBlock.getCNBlocks().get(1)))
+				.isEqualTo(mapped.readChannel(d, c, c.getCNBlocks().get(1)));
+		long requests = remote.getNumberOfRequests();
+		mdfFile.readChannel(dgBlock, cgBlock, cgBlock.getCNBlocks().get(0));
+		assertThat(remote.getNumberOfRequests()).isEqualTo(requests);
+	}
+
+	public void testCodePage() throws Exception {
+		CGBlock c = MDFFile.open(file).getDGBlocks().get(0).getCgBlocks().get(0);
+		long cnPointer = c.getCNBlocks().get(0).getPointerToNextCNBlock();
+
+		// code page 1252 and the name "v\u20ac", which is "v\u0080" in ISO-8859-1
+		ByteBuffer b = ByteBuffer.wrap(content).order(ByteOrder.LITTLE_ENDIAN);
+		b.putShort(30, (short) 1252);
+		b.put((int) cnPointer + 27, (byte) 0x80);
+		// block by block, so the CCBlock is only read if the name matches
+		Predicate<CNBlock> projection = ChannelProjection.byNames("v\u20ac");
+		PrefetchedContent prefetched = new MetadataPrefetcher(remote, projection, 0, 0).prefetch();
+		MDFParser parser = new MDFParser(prefetched, projection, Runnable::run);
+		parser.parse();
+		CNBlock cnBlock = parser.getDGBlocks().get(0).getCgBlocks().get(0).getCNBlocks().get(1);
+		assertThat(cnBlock.getShortSignalNameText().trim()).isEqualTo("v\u20ac");
+	}
+
+}
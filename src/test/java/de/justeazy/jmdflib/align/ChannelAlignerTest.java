@@ -0,0 +1,114 @@
+package de.justeazy.jmdflib.align;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.util.ArrayList;
+
+import de.justeazy.jmdflib.ChannelDecoder;
+import de.justeazy.jmdflib.blocktypes.CGBlock;
+import de.justeazy.jmdflib.blocktypes.CNBlock;
+import de.justeazy.jmdflib.enums.ChannelType;
+import de.justeazy.jmdflib.enums.Interpolation;
+import de.justeazy.jmdflib.enums.SignalDataType;
+import junit.framework.TestCase;
+
+public class ChannelAlignerTest extends TestCase {
+
+	private ChannelDecoder timeA;
+
+	private ChannelDecoder valueA;
+
+	private ChannelDecoder timeB;
+
+	private ChannelDecoder valueB;
+
+	public ChannelAlignerTest(String name) {
+		super(name);
+	}
+
+	protected void setUp() throws Exception {
+		super.setUp();
+		CGBlock groupA = group(new double[] { 0, 1, 2, 3 }, new double[] { 0, 10, 20, 30 });
+		ByteBuffer dataA = data(new double[] { 0, 1, 2, 3 }, new double[] { 0, 10, 20, 30 });
+		timeA = new ChannelDecoder(dataA, 0, groupA, groupA.getCNBlocks().get(0), ByteOrder.LITTLE_ENDIAN);
+		valueA = new ChannelDecoder(dataA, 0, groupA, groupA.getCNBlocks().get(1), ByteOrder.LITTLE_ENDIAN);
+
+		CGBlock groupB = group(new double[] { 0.5, 1.5, 2.5 }, new double[] { 1, 2, 3 });
+		ByteBuffer dataB = data(new double[] { 0.5, 1.5, 2.5 }, new double[] { 1, 2, 3 });
+		timeB = new ChannelDecoder(dataB, 0, groupB, groupB.getCNBlocks().get(0), ByteOrder.LITTLE_ENDIAN);
+		valueB = new ChannelDecoder(dataB, 0, groupB, groupB.getCNBlocks().get(1), ByteOrder.LITTLE_ENDIAN);
+	}
+
+	private static CGBlock group(double[] time, double[] values) {
+		CGBlock cgBlock = new CGBlock();
+		cgBlock.setSizeOfDataRecord(16);
+		cgBlock.setNumberOfRecords(time.length);
+		ArrayList<CNBlock> cnBlocks = new ArrayList<CNBlock>();
+		cnBlocks.add(channel("t", ChannelType.TIME_CHANNEL, 0));
+		cnBlocks.add(channel("v", ChannelType.DATA_CHANNEL, 64));
+		cgBlock.setCNBlocks(cnBlocks);
+		return cgBlock;
+	}
+
+	private static CNBlock channel(String name, ChannelType channelType, int startOffsetInBits) {
+		CNBlock cnBlock = new CNBlock();
+		cnBlock.setShortSignalName(name);
+		cnBlock.setChannelType(channelType);
+		cnBlock.setStartOffsetInBits(startOffsetInBits);
+		cnBlock.setNumberOfBits(64);
+		cnBlock.setSignalDataType(SignalDataType.IEEE_754_FLOATING_POINT_FORMAT_DOUBLE);
+		return cnBlock;
+	}
+
+	private static ByteBuffer data(double[] time, double[] values) {
+		ByteBuffer data = ByteBuffer.allocate(16 * time.length).order(ByteOrder.LITTLE_ENDIAN);
+		for (int i = 0; i < time.length; i++) {
+			data.putDouble(time[i]).putDouble(values[i]);
+		}
+		return data;
+	}
+
+	private ChannelAligner aligner(Interpolation interpolation) throws Exception {
+		ChannelAligner aligner = new ChannelAligner(interpolation);
+		int a = aligner.addGroup(timeA);
+		int b = aligner.addGroup(timeB);
+		aligner.addChannel(a, valueA);
+		aligner.addChannel(b, valueB);
+		return aligner;
+	}
+
+	public void testUnionZeroOrderHold() throws Exception {
+		AlignedChannels result = aligner(Interpolation.ZERO_ORDER_HOLD).alignToUnion();
+		assertThat(result.getTime()).containsExactly(0, 0.5, 1, 1.5, 2, 2.5, 3);
+		assertThat(result.getColumn(0)).containsExactly(0, 0, 10, 10, 20, 20, 30);
+		assertThat(result.getColumn(1)).containsExactly(Double.NaN, 1, 1, 2, 2, 3, 3);
+	}
+
+	public void testUnionLinear() throws Exception {
+		AlignedChannels result = aligner(Interpolation.LINEAR).alignToUnion();
+		assertThat(result.getColumn(0)).containsExactly(0, 5, 10, 15, 20, 25, 30);
+		assertThat(result.getColumn(1)).containsExactly(Double.NaN, 1, 1.5, 2, 2.5, 3, 3);
+	}
+
+	public void testCommon() throws Exception {
+		AlignedChannels result = aligner(Interpolation.LINEAR).alignToCommon(0.5);
+		assertThat(result.getTime()).containsExactly(0.5, 1, 1.5, 2, 2.5);
+		assertThat(result.getColumn(0)).containsExactly(5, 10, 15, 20, 25);
+		assertThat(result.getColumn(1)).containsExactly(1, 1.5, 2, 2.5, 3);
+	}
+
+	public void testMismatchingRecords() throws Exception {
+		ChannelAligner aligner = new ChannelAligner(Interpolation.LINEAR);
+		int a = aligner.addGroup(timeA);
+		try {
+			aligner.addChannel(a, valueB);
+			fail();
+		} catch (IOException e) {
+			assertThat(e.getMessage()).contains("v");
+		}
+	}
+
+}
@@ -0,0 +1,172 @@
+package de.justeazy.jmdflib.cache;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+import java.io.File;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.file.Files;
+import java.nio.file.Paths;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.Callable;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+import de.justeazy.jmdflib.MDFFile;
+import de.justeazy.jmdflib.blocktypes.CGBlock;
+import de.justeazy.jmdflib.blocktypes.CNBlock;
+import de.justeazy.jmdflib.blocktypes.DGBlock;
+import de.justeazy.jmdflib.enums.Conversion;
+import de.justeazy.jmdflib.metrics.MDFMetrics;
+import junit.framework.TestCase;
+
+public class ChannelCacheTest extends TestCase {
+
+	/**
+	 * Weight of a channel of the test file
+	 */
+	private final static long CHANNEL_BYTES = 16 + 8 * 76326L;
+
+	MDFFile mdfFile;
+
+	DGBlock dgBlock;
+
+	CGBlock cgBlock;
+
+	CNBlock t;
+
+	CNBlock v;
+
+	public ChannelCacheTest(String name) {
+		super(name);
+	}
+
+	protected void setUp() throws Exception {
+		super.setUp();
+		mdfFile = MDFFile.open(new File("src/test/resources/junit1.dat"));
+		dgBlock = mdfFile.getDGBlocks().get(0);
+		cgBlock = dgBlock.getCgBlocks().get(0);
+		t = cgBlock.getCNBlocks().get(0);
+		v = cgBlock.getCNBlocks().get(1);
+		MDFMetrics.reset();
+	}
+
+	protected void tearDown() throws Exception {
+		super.tearDown();
+		MDFMetrics.setEnabled(false);
+		MDFMetrics.reset();
+	}
+
+	public void testHitsAcrossOpenedFiles() throws Exception {
+		MDFMetrics.setEnabled(true);
+		ChannelCache cache = new ChannelCache(1 << 24);
+		double[] values = cache.get(mdfFile, dgBlock, cgBlock, v, Conversion.PHYSICAL);
+		assertThat(values).isEqualTo(mdfFile.readChannel(dgBlock, cgBlock, v));
+
+		MDFFile reopened = MDFFile.open(new File("src/test/resources/junit1.dat"));
+		DGBlock d = reopened.getDGBlocks().get(0);
+		CGBlock c = d.getCgBlocks().get(0);
+		assertThat(cache.get(reopened, d, c, c.getCNBlocks().get(1), Conversion.PHYSICAL)).isSameAs(values);
+		assertThat(cache.contains(ChannelKey.of(reopened, d, c, c.getCNBlocks().get(1), Conversion.PHYSICAL)))
+				.isTrue();
+		assertThat(cache.getHitCount()).isEqualTo(1);
+		assertThat(cache.getMissCount()).isEqualTo(1);
+		assertThat(cache.getHitRatio()).isEqualTo(0.5);
+		assertThat(MDFMetrics.getCacheHits()).isEqualTo(1);
+		assertThat(MDFMetrics.getCacheMisses()).isEqualTo(1);
+
+		// raw values are cached separately
+		assertThat(cache.get(mdfFile, dgBlock, cgBlock, v, Conversion.RAW)).isNotSameAs(values);
+		assertThat(cache.size()).isEqualTo(2);
+		assertThat(cache.getBytes()).isEqualTo(2 * CHANNEL_BYTES);
+
+		cache.invalidate(reopened);
+		assertThat(cache.size()).isEqualTo(0);
+		assertThat(cache.getBytes()).isEqualTo(0);
+	}
+
+	public void testLeastRecentlyUsedEviction() throws Exception {
+		ChannelCache cache = new ChannelCache(2 * CHANNEL_BYTES);
+		cache.get(mdfFile, dgBlock, cgBlock, t, Conversion.PHYSICAL);
+		cache.get(mdfFile, dgBlock, cgBlock, v, Conversion.PHYSICAL);
+		cache.get(mdfFile, dgBlock, cgBlock, t, Conversion.PHYSICAL);
+		cache.get(mdfFile, dgBlock, cgBlock, t, Conversion.RAW);
+		assertThat(cache.getEvictionCount()).isEqualTo(1);
+		assertThat(cache.getBytes()).isEqualTo(2 * CHANNEL_BYTES);
+		assertThat(cache.contains(ChannelKey.of(mdfFile, dgBlock, cgBlock, v, Conversion.PHYSICAL))).isFalse();
+		assertThat(cache.contains(ChannelKey.of(mdfFile, dgBlock, cgBlock, t, Conversion.PHYSICAL))).isTrue();
+
+		// channels larger than the budget are not kept
+		ChannelCache small = new ChannelCache(CHANNEL_BYTES - 1);
+		assertThat(small.get(mdfFile, dgBlock, cgBlock, t, Conversion.PHYSICAL)).hasSize(76326);
+		assertThat(small.size()).isEqualTo(0);
+		assertThat(small.getBytes()).isEqualTo(0);
+	}
+
+	public void testOversizedChannel() throws Exception {
+		// copy of the test file with only the first 1000 records
+		File file = File.createTempFile("junit", ".dat");
+		try {
+			ByteBuffer content = ByteBuffer.wrap(Files.readAllBytes(Paths.get("src/test/resources/junit1.dat")))
+					.order(ByteOrder.LITTLE_ENDIAN);
+			content.putInt(1158 + 22, 1000);
+			Files.write(file.toPath(), content.array());
+			MDFFile small = MDFFile.open(file);
+			DGBlock d = small.getDGBlocks().get(0);
+			CGBlock c = d.getCgBlocks().get(0);
+
+			ChannelCache cache = new ChannelCache(2 * (16 + 8 * 1000));
+			cache.get(small, d, c, c.getCNBlocks().get(0), Conversion.PHYSICAL);
+			cache.get(small, d, c, c.getCNBlocks().get(1), Conversion.PHYSICAL);
+			assertThat(cache.get(mdfFile, dgBlock, cgBlock, v, Conversion.PHYSICAL)).hasSize(76326);
+			assertThat(cache.size()).isEqualTo(2);
+			assertThat(cache.getBytes()).isEqualTo(2 * (16 + 8 * 1000));
+			assertThat(cache.getEvictionCount()).isEqualTo(0);
+			assertThat(cache.contains(ChannelKey.of(small, d, c, c.getCNBlocks().get(0), Conversion.PHYSICAL)))
+					.isTrue();
+			assertThat(cache.contains(ChannelKey.of(mdfFile, dgBlock, cgBlock, v, Conversion.PHYSICAL))).isFalse();
+		} finally {
+			file.delete();
+		}
+	}
+
+	public void testSingleFlight() throws Exception {
+		final ChannelCache cache = new ChannelCache(1 << 24);
+		final CountDownLatch start = new CountDownLatch(1);
+		ExecutorService executor = Executors.newFixedThreadPool(8);
+		try {
+			List<Future<double[]>> results = new ArrayList<Future<double[]>>();
+			for (int i = 0; i < 32; i++) {
+				results.add(executor.submit(new Callable<double[]>() {
+					public double[] call() throws Exception {
+						start.await();
+						return cache.get(mdfFile, dgBlock, cgBlock, v, Conversion.PHYSICAL);
+					}
+				}));
+			}
+			start.countDown();
+			double[] first = results.get(0).get();
+			for (Future<double[]> result : results) {
+				assertThat(result.get()).isSameAs(first);
+			}
+		} finally {
+			executor.shutdown();
+		}
+		assertThat(cache.getLoadCount()).isEqualTo(1);
+		assertThat(cache.getMissCount()).isEqualTo(1);
+		assertThat(cache.getHitCount()).isEqualTo(31);
+	}
+
+	public void testForeignChannel() throws Exception {
+		try {
+			new ChannelCache(1024).get(mdfFile, dgBlock, cgBlock, new CNBlock(), Conversion.PHYSICAL);
+			fail();
+		} catch (IllegalArgumentException e) {
+			assertThat(e.getMessage()).contains("not part");
+		}
+	}
+
+}
@@ -0,0 +1,154 @@
+package de.justeazy.jmdflib.column;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+import java.io.File;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.util.Random;
+
+import de.justeazy.jmdflib.ChannelDecoder;
+import de.justeazy.jmdflib.MDFFile;
+import de.justeazy.jmdflib.blocktypes.CCBlockLinear2Parameters;
+import de.justeazy.jmdflib.blocktypes.CGBlock;
+import de.justeazy.jmdflib.blocktypes.CNBlock;
+import de.justeazy.jmdflib.blocktypes.DGBlock;
+import de.justeazy.jmdflib.enums.ChannelType;
+import de.justeazy.jmdflib.enums.ColumnEncoding;
+import de.justeazy.jmdflib.enums.SignalDataType;
+import junit.framework.TestCase;
+
+public class CompressedColumnsTest extends TestCase {
+
+	private final static int RECORDS = 10000;
+
+	/**
+	 * Records of 8 bytes: uint32 time ticks of 10 ms, uint8 state flag, sint16
+	 * sawtooth and one unused byte
+	 */
+	ByteBuffer data;
+
+	CGBlock cgBlock;
+
+	public CompressedColumnsTest(String name) {
+		super(name);
+	}
+
+	protected void setUp() throws Exception {
+		super.setUp();
+		data = ByteBuffer.allocate(8 * RECORDS).order(ByteOrder.LITTLE_ENDIAN);
+		Random random = new Random(42);
+		for (int i = 0; i < RECORDS; i++) {
+			data.putInt(8 * i, 1000 + 10 * i + (i % 100 == 0 ? random.nextInt(3) : 0));
+			data.put(8 * i + 4, (byte) (i / 700 % 3 == 0 ? 0xFF : 1));
+			data.putShort(8 * i + 5, (short) (i % 500 - 250));
+		}
+		cgBlock = new CGBlock();
+		cgBlock.setSizeOfDataRecord(8);
+		cgBlock.setNumberOfRecords(RECORDS);
+	}
+
+	private ChannelDecoder decoder(String name, ChannelType channelType, SignalDataType signalDataType,
+			int startOffsetInBits, int numberOfBits, double factor) throws Exception {
+		CNBlock cnBlock = new CNBlock();
+		cnBlock.setShortSignalName(name);
+		cnBlock.setChannelType(channelType);
+		cnBlock.setSignalDataType(signalDataType);
+		cnBlock.setStartOffsetInBits(startOffsetInBits);
+		cnBlock.setNumberOfBits(numberOfBits);
+		if (factor != 1) {
+			CCBlockLinear2Parameters ccBlock = new CCBlockLinear2Parameters();
+			ccBlock.setP2(factor);
+			cnBlock.setCcBlock(ccBlock);
+		}
+		return new ChannelDecoder(data, 0, cgBlock, cnBlock, ByteOrder.LITTLE_ENDIAN);
+	}
+
+	private static void assertSameValues(CompressedColumn column, ChannelDecoder decoder) {
+		assertThat(column.size()).isEqualTo(decoder.getNumberOfRecords());
+		assertThat(column.toArray()).isEqualTo(decoder.readPhysical());
+	}
+
+	public void testDeltaOfDelta() throws Exception {
+		ChannelDecoder time = decoder("time", ChannelType.TIME_CHANNEL, SignalDataType.UNSIGNED_INTEGER, 0, 32,
+				0.001);
+		CompressedColumn column = CompressedColumns.compress(time);
+		assertThat(column.getEncoding()).isEqualTo(ColumnEncoding.DELTA_OF_DELTA);
+		assertThat(column.getName()).isEqualTo("time");
+		assertSameValues(column, time);
+		assertThat(column.getCompressedSize()).isLessThan(8L * RECORDS / 20);
+	}
+
+	public void testRunLength() throws Exception {
+		ChannelDecoder state = decoder("state", ChannelType.DATA_CHANNEL, SignalDataType.UNSIGNED_INTEGER, 32, 8, 1);
+		CompressedColumn column = CompressedColumns.compress(state);
+		assertThat(column.getEncoding()).isEqualTo(ColumnEncoding.RUN_LENGTH);
+		assertSameValues(column, state);
+		assertThat(column.get(0)).isEqualTo(255);
+		assertThat(column.getCompressedSize()).isLessThan(8L * RECORDS / 50);
+	}
+
+	public void testSignedDeltaOfDelta() throws Exception {
+		ChannelDecoder sawtooth = decoder("sawtooth", ChannelType.DATA_CHANNEL, SignalDataType.SIGNED_INTEGER, 40,
+				16, 1);
+		CompressedColumn column = CompressedColumns.compress(sawtooth);
+		assertThat(column.getEncoding()).isEqualTo(ColumnEncoding.DELTA_OF_DELTA);
+		assertSameValues(column, sawtooth);
+		assertThat(column.get(250)).isEqualTo(0);
+		assertThat(column.get(499)).isEqualTo(249);
+		assertSameValues(CompressedColumns.compress(sawtooth, ColumnEncoding.RUN_LENGTH), sawtooth);
+		assertSameValues(CompressedColumns.compress(sawtooth, ColumnEncoding.XOR), sawtooth);
+	}
+
+	public void testIntegerEncodingOfFloats() throws Exception {
+		ChannelDecoder floats = decoder("floats", ChannelType.DATA_CHANNEL,
+				SignalDataType.IEEE_754_FLOATING_POINT_FORMAT_FLOAT, 0, 32, 1);
+		try {
+			CompressedColumns.compress(floats, ColumnEncoding.RUN_LENGTH);
+			fail();
+		} catch (IllegalArgumentException e) {
+			assertThat(e.getMessage()).contains("floats");
+		}
+	}
+
+	public void testXor() throws Exception {
+		MDFFile mdfFile = MDFFile.open(new File("src/test/resources/junit1.dat"));
+		DGBlock dgBlock = mdfFile.getDGBlocks().get(0);
+		CGBlock cgBlock = dgBlock.getCgBlocks().get(0);
+		for (CNBlock cnBlock : cgBlock.getCNBlocks()) {
+			ChannelDecoder decoder = mdfFile.getChannelDecoder(dgBlock, cgBlock, cnBlock);
+			CompressedColumn column = CompressedColumns.compress(decoder);
+			assertThat(column.getEncoding()).isEqualTo(ColumnEncoding.XOR);
+			assertSameValues(column, decoder);
+		}
+		ChannelDecoder value = mdfFile.getChannelDecoder(dgBlock, cgBlock, cgBlock.getCNBlocks().get(1));
+		assertThat(CompressedColumns.compress(value).getCompressedSize())
+				.isLessThan(8L * value.getNumberOfRecords() / 2);
+	}
+
+	public void testRandomAccess() throws Exception {
+		ChannelDecoder time = decoder("time", ChannelType.TIME_CHANNEL, SignalDataType.UNSIGNED_INTEGER, 0, 32,
+				0.001);
+		CompressedColumn column = CompressedColumns.compress(time);
+		Random random = new Random(7);
+		for (int n = 0; n < 100; n++) {
+			int from = random.nextInt(RECORDS);
+			int to = from + random.nextInt(RECORDS - from + 1);
+			double[] expected = new double[to - from];
+			time.readPhysical(from, to, expected, 0);
+			double[] actual = new double[to - from + 3];
+			column.read(from, to, actual, 3);
+			for (int i = 0; i < expected.length; i++) {
+				assertThat(actual[i + 3]).isEqualTo(expected[i]);
+			}
+			assertThat(column.get(from % RECORDS)).isEqualTo(time.getPhysical(from % RECORDS));
+		}
+		try {
+			column.get(RECORDS);
+			fail();
+		} catch (IndexOutOfBoundsException e) {
+			assertThat(e.getMessage()).contains(String.valueOf(RECORDS));
+		}
+	}
+
+}
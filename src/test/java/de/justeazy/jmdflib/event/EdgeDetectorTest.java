@@ -0,0 +1,150 @@
+package de.justeazy.jmdflib.event;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.util.ArrayList;
+import java.util.Random;
+
+import de.justeazy.jmdflib.ChannelDecoder;
+import de.justeazy.jmdflib.blocktypes.CGBlock;
+import de.justeazy.jmdflib.blocktypes.CNBlock;
+import de.justeazy.jmdflib.enums.ChannelType;
+import de.justeazy.jmdflib.enums.Edge;
+import de.justeazy.jmdflib.enums.SignalDataType;
+import junit.framework.TestCase;
+
+public class EdgeDetectorTest extends TestCase {
+
+	private double[] values;
+
+	private ChannelDecoder time;
+
+	private ChannelDecoder value;
+
+	public EdgeDetectorTest(String name) {
+		super(name);
+	}
+
+	protected void setUp() throws Exception {
+		super.setUp();
+		int records = 3 * EdgeDetector.BLOCK_SIZE + 17;
+		values = new double[records];
+		Random random = new Random(42);
+		for (int i = 0; i < records; i++) {
+			values[i] = Math.sin(i / 50.0) + 0.2 * random.nextGaussian();
+		}
+		values[100] = Double.NaN;
+
+		CGBlock cgBlock = new CGBlock();
+		cgBlock.setSizeOfDataRecord(16);
+		cgBlock.setNumberOfRecords(records);
+		ArrayList<CNBlock> cnBlocks = new ArrayList<CNBlock>();
+		cnBlocks.add(channel("t", ChannelType.TIME_CHANNEL, 0));
+		cnBlocks.add(channel("v", ChannelType.DATA_CHANNEL, 64));
+		cgBlock.setCNBlocks(cnBlocks);
+		ByteBuffer data = ByteBuffer.allocate(16 * records).order(ByteOrder.LITTLE_ENDIAN);
+		for (int i = 0; i < records; i++) {
+			data.putDouble(i * 0.01).putDouble(values[i]);
+		}
+		time = new ChannelDecoder(data, 0, cgBlock, cnBlocks.get(0), ByteOrder.LITTLE_ENDIAN);
+		value = new ChannelDecoder(data, 0, cgBlock, cnBlocks.get(1), ByteOrder.LITTLE_ENDIAN);
+	}
+
+	private static CNBlock channel(String name, ChannelType channelType, int startOffsetInBits) {
+		CNBlock cnBlock = new CNBlock();
+		cnBlock.setShortSignalName(name);
+		cnBlock.setChannelType(channelType);
+		cnBlock.setStartOffsetInBits(startOffsetInBits);
+		cnBlock.setNumberOfBits(64);
+		cnBlock.setSignalDataType(SignalDataType.IEEE_754_FLOATING_POINT_FORMAT_DOUBLE);
+		return cnBlock;
+	}
+
+	/**
+	 * Straightforward hysteresis and debouncing
+	 */
+	private int[] expected(double lower, double upper, Edge edge, int minimumRecords) {
+		ArrayList<Integer> edges = new ArrayList<Integer>();
+		boolean state = values[0] >= upper;
+		boolean initial = state;
+		for (int i = 0; i < values.length; i++) {
+			boolean next = state ? values[i] > lower : values[i] >= upper;
+			if (next != state) {
+				edges.add(i);
+				state = next;
+			}
+		}
+		for (int i = 0; i < edges.size();) {
+			int end = i + 1 < edges.size() ? edges.get(i + 1) : values.length;
+			if (end - edges.get(i) < minimumRecords) {
+				edges.remove(i);
+				if (i < edges.size()) {
+					edges.remove(i);
+				}
+			} else {
+				i++;
+			}
+		}
+		ArrayList<Integer> result = new ArrayList<Integer>();
+		for (int i = 0; i < edges.size(); i++) {
+			boolean rising = (i % 2 == 0) != initial;
+			if (edge == Edge.BOTH || rising == (edge == Edge.RISING)) {
+				result.add(edges.get(i));
+			}
+		}
+		return result.stream().mapToInt(Integer::intValue).toArray();
+	}
+
+	public void testCrossings() throws Exception {
+		for (Edge edge : Edge.values()) {
+			int[] crossings = EdgeDetector.crossings(value, 0.5, edge);
+			assertThat(crossings).isEqualTo(expected(0.5, 0.5, edge, 1));
+			assertThat(EdgeDetector.crossings(values, 0.5, edge)).isEqualTo(crossings);
+		}
+		int[] rising = EdgeDetector.crossings(value, 0.5, Edge.RISING);
+		assertThat(rising.length).isGreaterThan(10);
+		for (int i : rising) {
+			assertThat(values[i]).isGreaterThanOrEqualTo(0.5);
+			assertThat(values[i - 1] < 0.5 || Double.isNaN(values[i - 1])).isTrue();
+		}
+	}
+
+	public void testHysteresis() throws Exception {
+		int[] noisy = EdgeDetector.crossings(value, 0, Edge.BOTH);
+		int[] crossings = EdgeDetector.crossings(value, -0.5, 0.5, Edge.BOTH, 1);
+		assertThat(crossings).isEqualTo(expected(-0.5, 0.5, Edge.BOTH, 1));
+		assertThat(crossings.length).isLessThan(noisy.length / 4);
+		assertThat(EdgeDetector.crossings(value, -0.5, 0.5, Edge.FALLING, 1))
+				.isEqualTo(expected(-0.5, 0.5, Edge.FALLING, 1));
+	}
+
+	public void testMinimumDuration() throws Exception {
+		int[] crossings = EdgeDetector.crossings(value, 0.5, 0.5, Edge.BOTH, 20);
+		assertThat(crossings).isEqualTo(expected(0.5, 0.5, Edge.BOTH, 20));
+		assertThat(crossings.length).isLessThan(EdgeDetector.crossings(value, 0.5, Edge.BOTH).length);
+		assertThat(EdgeDetector.crossings(value, time, 0.5, 0.5, Edge.RISING, 0.195))
+				.isEqualTo(expected(0.5, 0.5, Edge.RISING, 20));
+		try {
+			EdgeDetector.crossings(value, 0.5, 0.5, Edge.BOTH, 0);
+			fail();
+		} catch (IllegalArgumentException e) {
+			assertThat(e.getMessage()).contains("minimum");
+		}
+	}
+
+	public void testChanges() throws Exception {
+		assertThat(EdgeDetector.changes(time)).hasSize(values.length - 1);
+		double[] steps = new double[values.length];
+		for (int i = 0; i < steps.length; i++) {
+			steps[i] = i / 1000;
+		}
+		steps[4500] = Double.NaN;
+		steps[4501] = Double.NaN;
+		assertThat(EdgeDetector.changes(steps)).containsExactly(1000, 2000, 3000, 4000, 4500, 4502, 5000, 6000,
+				7000, 8000, 9000, 10000, 11000, 12000);
+		assertThat(EdgeDetector.toTimes(time, new int[] { 0, 1000 })).containsExactly(0, 10);
+	}
+
+}
@@ -0,0 +1,142 @@
+package de.justeazy.jmdflib.filter;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+import java.io.File;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.util.BitSet;
+import java.util.Random;
+
+import de.justeazy.jmdflib.ChannelDecoder;
+import de.justeazy.jmdflib.MDFFile;
+import de.justeazy.jmdflib.blocktypes.CCBlock;
+import de.justeazy.jmdflib.blocktypes.CCBlockLinear2Parameters;
+import de.justeazy.jmdflib.blocktypes.CGBlock;
+import de.justeazy.jmdflib.blocktypes.CNBlock;
+import de.justeazy.jmdflib.blocktypes.DGBlock;
+import de.justeazy.jmdflib.enums.ChannelType;
+import de.justeazy.jmdflib.enums.SignalDataType;
+import junit.framework.TestCase;
+
+public class RecordFilterTest extends TestCase {
+
+	private final static int RECORDS = 5000;
+
+	/**
+	 * Records of 4 bytes: uint16 speed in 0.01 km/h, sint16 temperature with
+	 * a negative factor
+	 */
+	ByteBuffer data;
+
+	CGBlock cgBlock;
+
+	ChannelDecoder speed;
+
+	ChannelDecoder temperature;
+
+	public RecordFilterTest(String name) {
+		super(name);
+	}
+
+	protected void setUp() throws Exception {
+		super.setUp();
+		data = ByteBuffer.allocate(4 * RECORDS).order(ByteOrder.LITTLE_ENDIAN);
+		Random random = new Random(3);
+		for (int i = 0; i < RECORDS; i++) {
+			data.putShort(4 * i, (short) random.nextInt(20000));
+			data.putShort(4 * i + 2, (short) (random.nextInt(2000) - 1000));
+		}
+		cgBlock = new CGBlock();
+		cgBlock.setSizeOfDataRecord(4);
+		cgBlock.setNumberOfRecords(RECORDS);
+		speed = decoder("speed", SignalDataType.UNSIGNED_INTEGER, 0, linear(0, 0.01));
+		temperature = decoder("temperature", SignalDataType.SIGNED_INTEGER, 16, linear(20, -0.1));
+	}
+
+	private static CCBlock linear(double p1, double p2) {
+		CCBlockLinear2Parameters ccBlock = new CCBlockLinear2Parameters();
+		ccBlock.setP1(p1);
+		ccBlock.setP2(p2);
+		return ccBlock;
+	}
+
+	private ChannelDecoder decoder(String name, SignalDataType signalDataType, int startOffsetInBits,
+			CCBlock ccBlock) throws Exception {
+		CNBlock cnBlock = new CNBlock();
+		cnBlock.setShortSignalName(name);
+		cnBlock.setChannelType(ChannelType.DATA_CHANNEL);
+		cnBlock.setSignalDataType(signalDataType);
+		cnBlock.setStartOffsetInBits(startOffsetInBits);
+		cnBlock.setNumberOfBits(16);
+		cnBlock.setCcBlock(ccBlock);
+		return new ChannelDecoder(data, 0, cgBlock, cnBlock, ByteOrder.LITTLE_ENDIAN);
+	}
+
+	private static BitSet expected(ChannelDecoder decoder, ValueRange range) {
+		BitSet result = new BitSet();
+		for (int i = 0; i < decoder.getNumberOfRecords(); i++) {
+			if (range.contains(decoder.getPhysical(i))) {
+				result.set(i);
+			}
+		}
+		return result;
+	}
+
+	private static void assertSameSelection(ChannelDecoder decoder, ValueRange range) {
+		assertThat(RecordFilter.select(decoder, range)).as(range.toString()).isEqualTo(expected(decoder, range));
+	}
+
+	public void testSpeed() throws Exception {
+		assertThat(RecordFilter.canPushDown(speed)).isTrue();
+		BitSet fast = RecordFilter.select(speed, ValueRange.greaterThan(80));
+		assertThat(fast.cardinality()).isGreaterThan(RECORDS / 2);
+		for (double threshold : new double[] { -1, 0, 0.01, 80, 80.01, 123.45, 199.99, 200, 1e9 }) {
+			assertSameSelection(speed, ValueRange.greaterThan(threshold));
+			assertSameSelection(speed, ValueRange.atLeast(threshold));
+			assertSameSelection(speed, ValueRange.lessThan(threshold));
+			assertSameSelection(speed, ValueRange.atMost(threshold));
+		}
+		assertSameSelection(speed, ValueRange.between(50.5, 50.5));
+		assertSameSelection(speed, ValueRange.between(100, 50));
+	}
+
+	public void testNegativeFactor() throws Exception {
+		for (double threshold : new double[] { -90, -80, 0, 19.9, 20, 20.05, 120 }) {
+			assertSameSelection(temperature, ValueRange.greaterThan(threshold));
+			assertSameSelection(temperature, ValueRange.atMost(threshold));
+		}
+		assertSameSelection(temperature, ValueRange.between(-30.3, 40.7));
+	}
+
+	public void testCandidatesAndRead() throws Exception {
+		BitSet fast = RecordFilter.select(speed, ValueRange.greaterThan(80));
+		BitSet fastAndCold = RecordFilter.select(temperature, ValueRange.lessThan(0), fast);
+		BitSet expected = expected(speed, ValueRange.greaterThan(80));
+		expected.and(expected(temperature, ValueRange.lessThan(0)));
+		assertThat(fastAndCold).isEqualTo(expected);
+
+		double[] temperatures = RecordFilter.read(temperature, fastAndCold);
+		assertThat(temperatures).hasSize(expected.cardinality());
+		int n = 0;
+		for (int i = expected.nextSetBit(0); i >= 0; i = expected.nextSetBit(i + 1)) {
+			assertThat(temperatures[n++]).isEqualTo(temperature.getPhysical(i));
+		}
+	}
+
+	public void testFloatingPoint() throws Exception {
+		MDFFile mdfFile = MDFFile.open(new File("src/test/resources/junit1.dat"));
+		DGBlock dgBlock = mdfFile.getDGBlocks().get(0);
+		CGBlock cgBlock = dgBlock.getCgBlocks().get(0);
+		for (CNBlock cnBlock : cgBlock.getCNBlocks()) {
+			ChannelDecoder decoder = mdfFile.getChannelDecoder(dgBlock, cgBlock, cnBlock);
+			assertThat(RecordFilter.canPushDown(decoder)).isTrue();
+			double between = decoder.getPhysical(1234);
+			assertSameSelection(decoder, ValueRange.greaterThan(between));
+			assertSameSelection(decoder, ValueRange.atMost(between));
+			assertSameSelection(decoder, ValueRange.between(between, between));
+			assertSameSelection(decoder, ValueRange.lessThan(Double.POSITIVE_INFINITY));
+		}
+	}
+
+}
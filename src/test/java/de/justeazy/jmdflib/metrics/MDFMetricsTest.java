@@ -0,0 +1,102 @@
+package de.justeazy.jmdflib.metrics;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+import java.io.File;
+import java.lang.management.ManagementFactory;
+import java.util.ArrayList;
+import java.util.List;
+
+import javax.management.Attribute;
+import javax.management.ObjectName;
+
+import de.justeazy.jmdflib.MDFInputStream;
+import junit.framework.TestCase;
+
+public class MDFMetricsTest extends TestCase {
+
+	public MDFMetricsTest(String name) {
+		super(name);
+	}
+
+	protected void setUp() throws Exception {
+		super.setUp();
+		MDFMetrics.reset();
+	}
+
+	protected void tearDown() throws Exception {
+		super.tearDown();
+		MDFMetrics.setEnabled(false);
+		MDFMetrics.reset();
+	}
+
+	private void readTestFile() throws Exception {
+		MDFInputStream is = new MDFInputStream(new File("src/test/resources/junit1.dat"));
+		try {
+			is.readFile();
+		} finally {
+			is.close();
+		}
+	}
+
+	public void testDisabled() throws Exception {
+		MDFMetrics.setEnabled(false);
+		readTestFile();
+		assertThat(MDFMetrics.getBytesRead()).isEqualTo(0);
+		assertThat(MDFMetrics.getBlocksParsed()).isEmpty();
+		assertThat(MDFMetrics.getRecordsDecoded()).isEqualTo(0);
+	}
+
+	public void testEnabled() throws Exception {
+		MDFMetrics.setEnabled(true);
+		readTestFile();
+		assertThat(MDFMetrics.getBytesRead()).isEqualTo(new File("src/test/resources/junit1.dat").length());
+		assertThat(MDFMetrics.getBlocksParsed()).containsEntry("DG", 1L).containsEntry("CG", 1L)
+				.containsEntry("CN", 2L).containsEntry("CC", 2L);
+		assertThat(MDFMetrics.getRecordsDecoded()).isEqualTo(2 * 76326L);
+		assertThat(MDFMetrics.getChannelDecodeNanos()).containsOnlyKeys("t", "v");
+	}
+
+	public void testTimerStartedWhileDisabled() throws Exception {
+		MetricsTimer timer = MDFMetrics.startDecodeTimer();
+		MDFMetrics.setEnabled(true);
+		MDFMetrics.channelDecoded("v", 76326, timer);
+		MDFMetrics.bytesRead("junit1.dat", 1216, MDFMetrics.startReadTimer());
+		assertThat(MDFMetrics.getRecordsDecoded()).isEqualTo(0);
+		assertThat(MDFMetrics.getBytesRead()).isEqualTo(1216);
+	}
+
+	public void testMBean() throws Exception {
+		// registered when the class is loaded, without jmdflib.metrics=true
+		ObjectName name = new ObjectName(MDFMetrics.OBJECT_NAME);
+		assertThat(ManagementFactory.getPlatformMBeanServer().isRegistered(name)).isTrue();
+		MDFMetrics.registerMBean();
+		assertThat(ManagementFactory.getPlatformMBeanServer().isRegistered(name)).isTrue();
+		ManagementFactory.getPlatformMBeanServer().setAttribute(name, new Attribute("Enabled", true));
+		assertThat(MDFMetrics.isEnabled()).isTrue();
+	}
+
+	public void testEvents() throws Exception {
+		List<MetricsEvents> events = new ArrayList<MetricsEvents>();
+		events.add(new MetricsEvents());
+		try {
+			// only on the class path of the jdk17 profile
+			events.add((MetricsEvents) Class.forName("de.justeazy.jmdflib.metrics.JfrEvents")
+					.getDeclaredConstructor().newInstance());
+		} catch (ClassNotFoundException e) {
+			// Java 8 build
+		}
+		String version = System.getProperty("java.specification.version");
+		boolean java17 = !version.startsWith("1.") && Integer.parseInt(version) >= 17;
+		assertThat(events).hasSize(java17 ? 2 : 1);
+		for (MetricsEvents e : events) {
+			e.fileRead(e.beginFileRead(), "junit1.dat", 1216, false);
+			e.channelDecoded(e.beginChannelDecode(), "v", 76326);
+			e.fileRead(null, "junit1.dat", 1216, true);
+		}
+		// the jdk17 profile tests the Java 17 classes of the multi-release JAR
+		assertThat(MetricsEvents.INSTANCE.getClass().getSimpleName())
+				.isEqualTo(java17 ? "JfrEvents" : "MetricsEvents");
+	}
+
+}
@@ -0,0 +1,246 @@
+package de.justeazy.jmdflib.profile;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.within;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.file.Files;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.Future;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import de.justeazy.jmdflib.ChannelProjection;
+import de.justeazy.jmdflib.MDFFile;
+import de.justeazy.jmdflib.blocktypes.CGBlock;
+import de.justeazy.jmdflib.blocktypes.DGBlock;
+import junit.framework.TestCase;
+
+public class ProfilerTest extends TestCase {
+
+	MDFFile file;
+
+	public ProfilerTest(String name) {
+		super(name);
+	}
+
+	protected void setUp() throws Exception {
+		super.setUp();
+		file = MDFFile.open(new File("src/test/resources/junit1.dat"));
+	}
+
+	public void testSketchQuantiles() throws Exception {
+		QuantileSketch sketch = new QuantileSketch(0.01);
+		for (int i = -1000; i <= 1000; i++) {
+			sketch.add(i);
+		}
+		sketch.add(Double.NaN);
+		assertThat(sketch.getCount()).isEqualTo(2001);
+		assertThat(sketch.getQuantile(0.5)).isEqualTo(0.0);
+		assertThat(sketch.getQuantile(0)).isCloseTo(-1000, within(10.0));
+		assertThat(sketch.getQuantile(0.75)).isCloseTo(500, within(5.0));
+		assertThat(sketch.getQuantile(1)).isCloseTo(1000, within(10.0));
+		long[] histogram = sketch.histogram(-1000, 1000, 4);
+		assertThat(Arrays.stream(histogram).sum()).isEqualTo(2001);
+		for (long bin : histogram) {
+			assertThat(bin).isBetween(480L, 520L);
+		}
+	}
+
+	public void testSketchMerge() throws Exception {
+		QuantileSketch a = new QuantileSketch(0.01);
+		QuantileSketch b = new QuantileSketch(0.01);
+		QuantileSketch all = new QuantileSketch(0.01);
+		for (int i = 1; i <= 10000; i++) {
+			(i % 3 == 0 ? a : b).add(i * 0.001);
+			all.add(i * 0.001);
+		}
+		a.merge(b);
+		assertThat(a.getCount()).isEqualTo(10000);
+		assertThat(a.getQuantiles(0.1, 0.5, 0.99)).containsExactly(all.getQuantiles(0.1, 0.5, 0.99));
+		try {
+			a.merge(new QuantileSketch(0.02));
+			fail();
+		} catch (IllegalArgumentException e) {
+			assertThat(e.getMessage()).contains("merged");
+		}
+	}
+
+	public void testProfileMerge() throws Exception {
+		ChannelProfile a = new ChannelProfile("x", 0.01, 0, 10);
+		ChannelProfile b = new ChannelProfile("x", 0.01, 0, 10);
+		a.add(1);
+		a.add(2);
+		a.add(Double.NaN);
+		b.add(3);
+		b.add(4);
+		b.add(11);
+		a.merge(b);
+		assertThat(a.getCount()).isEqualTo(5);
+		assertThat(a.getNanCount()).isEqualTo(1);
+		assertThat(a.getMinimum()).isEqualTo(1.0);
+		assertThat(a.getMaximum()).isEqualTo(11.0);
+		assertThat(a.getMean()).isCloseTo(4.2, within(1e-12));
+		assertThat(a.getVariance()).isCloseTo(12.56, within(1e-12));
+		assertThat(a.isRangeViolated()).isTrue();
+	}
+
+	public void testProfileFile() throws Exception {
+		FileProfile profile = new Profiler().profile(file);
+		assertThat(profile.getChannelProfiles()).extracting("name").containsExactly("t", "v");
+
+		DGBlock dgBlock = file.getDGBlocks().get(0);
+		CGBlock cgBlock = dgBlock.getCgBlocks().get(0);
+		for (int c = 0; c < 2; c++) {
+			double[] values = file.readChannel(dgBlock, cgBlock, cgBlock.getCNBlocks().get(c));
+			ChannelProfile p = profile.getChannelProfiles().get(c);
+			double mean = Arrays.stream(values).average().getAsDouble();
+			double variance = Arrays.stream(values).map(v -> (v - mean) * (v - mean)).sum() / values.length;
+			double[] sorted = values.clone();
+			Arrays.sort(sorted);
+
+			assertThat(p.getCount()).isEqualTo(76326);
+			assertThat(p.getNanCount()).isEqualTo(0);
+			assertThat(p.getMinimum()).isEqualTo(sorted[0]);
+			assertThat(p.getMaximum()).isEqualTo(sorted[sorted.length - 1]);
+			assertThat(p.getMean()).isCloseTo(mean, within(1e-9 * Math.max(1, Math.abs(mean))));
+			assertThat(p.getVariance()).isCloseTo(variance, within(1e-9 * Math.max(1, variance)));
+			double median = sorted[(sorted.length - 1) / 2];
+			assertThat(p.getQuantile(0.5)).isCloseTo(median, within(0.011 * Math.abs(median)));
+		}
+	}
+
+	public void testCache() throws Exception {
+		File directory = Files.createTempDirectory("profiles").toFile();
+		try {
+			ProfileCache cache = new ProfileCache(new Profiler(), directory);
+			assertThat(cache.contains(file)).isFalse();
+			FileProfile profile = cache.get(file);
+			assertThat(cache.get(file)).isSameAs(profile);
+			assertThat(cache.contains(file)).isTrue();
+			assertThat(directory.listFiles()).hasSize(1);
+
+			FileProfile loaded = new ProfileCache(new Profiler(), directory).get(file);
+			assertThat(loaded).isNotSameAs(profile);
+			assertThat(loaded.get("v").getMean()).isEqualTo(profile.get("v").getMean());
+			assertThat(loaded.get("v").getQuantile(0.9)).isEqualTo(profile.get("v").getQuantile(0.9));
+		} finally {
+			for (File f : directory.listFiles()) {
+				f.delete();
+			}
+			directory.delete();
+		}
+	}
+
+	/**
+	 * <p>
+	 * Appends a second data group to junit1.dat, sharing the channels of the
+	 * first one and holding records 20000 to 20999.
+	 * </p>
+	 */
+	public void testProfileByLocation() throws Exception {
+		byte[] content = Files.readAllBytes(file.getFile().toPath());
+		ByteBuffer b = ByteBuffer.allocate(content.length + 28 + 30).order(ByteOrder.LITTLE_ENDIAN);
+		b.put(content);
+		int dg2 = b.position();
+		b.put(content, 1188, 28);
+		int cg2 = b.position();
+		b.put(content, 1158, 30);
+		b.putInt(dg2 + 4, 0);
+		b.putInt(dg2 + 8, cg2);
+		b.putInt(dg2 + 16, 1216 + 16 * 20000);
+		b.putInt(cg2 + 22, 1000);
+		b.putInt(1188 + 4, dg2);
+		b.putShort(64 + 16, (short) 2);
+		File twoGroups = File.createTempFile("junit", ".dat");
+		try {
+			Files.write(twoGroups.toPath(), b.array());
+			MDFFile f = MDFFile.open(twoGroups);
+			assertThat(f.getDGBlocks()).hasSize(2);
+			FileProfile profile = new Profiler().profile(f);
+			assertThat(profile.getChannelProfiles()).extracting("name").containsExactly("t", "v", "t", "v");
+
+			double[] values = file.readChannel(file.getDGBlocks().get(0), file.getDGBlocks().get(0).getCgBlocks().get(0),
+					file.getDGBlocks().get(0).getCgBlocks().get(0).getCNBlocks().get(1));
+			ChannelProfile first = profile.get(0, 0, 1);
+			ChannelProfile second = profile.get(1, 0, 1);
+			assertThat(first.getCount()).isEqualTo(76326);
+			assertThat(second.getCount()).isEqualTo(1000);
+			assertThat(second.getMaximum()).isEqualTo(Arrays.stream(values, 20000, 21000).max().getAsDouble());
+			assertThat(profile.get("v")).isSameAs(first);
+			assertThat(profile.get(1, 0, 2)).isNull();
+
+			// merged by name and occurrence across files
+			FileProfile session = new Profiler().profile(f);
+			session.merge(profile);
+			assertThat(session.getChannelProfiles()).hasSize(4);
+			assertThat(session.get(0, 0, 1).getCount()).isEqualTo(2 * 76326);
+			assertThat(session.get(1, 0, 1).getCount()).isEqualTo(2000);
+			session.merge(new Profiler().profile(file));
+			assertThat(session.get(0, 0, 1).getCount()).isEqualTo(3 * 76326);
+			assertThat(session.get(1, 0, 1).getCount()).isEqualTo(2000);
+		} finally {
+			twoGroups.delete();
+		}
+	}
+
+	public void testCacheKey() throws Exception {
+		File directory = Files.createTempDirectory("profiles").toFile();
+		try {
+			ProfileCache cache = new ProfileCache(new Profiler(), directory);
+			MDFFile projected = MDFFile.open(file.getFile(), ChannelProjection.byNames("t"));
+			FileProfile full = cache.get(file);
+			assertThat(cache.contains(projected)).isFalse();
+			FileProfile partial = cache.get(projected);
+			assertThat(partial.getChannelProfiles()).extracting("name").containsExactly("t");
+			assertThat(cache.get(file)).isSameAs(full);
+
+			ProfileCache coarse = new ProfileCache(new Profiler(0.05, ForkJoinPool.commonPool()), directory);
+			assertThat(coarse.get(file).get("v").getSketch().getAccuracy()).isEqualTo(0.05);
+			assertThat(directory.listFiles()).hasSize(3);
+		} finally {
+			for (File f : directory.listFiles()) {
+				f.delete();
+			}
+			directory.delete();
+		}
+	}
+
+	public void testCacheSingleFlight() throws Exception {
+		final AtomicInteger passes = new AtomicInteger();
+		final ProfileCache cache = new ProfileCache(new Profiler() {
+			@Override
+			public FileProfile profile(MDFFile file) throws IOException {
+				passes.incrementAndGet();
+				return super.profile(file);
+			}
+		});
+		final CountDownLatch start = new CountDownLatch(1);
+		ExecutorService executor = Executors.newFixedThreadPool(8);
+		try {
+			List<Future<FileProfile>> results = new ArrayList<Future<FileProfile>>();
+			for (int i = 0; i < 16; i++) {
+				results.add(executor.submit(() -> {
+					start.await();
+					return cache.get(file);
+				}));
+			}
+			start.countDown();
+			for (Future<FileProfile> result : results) {
+				assertThat(result.get()).isSameAs(results.get(0).get());
+			}
+		} finally {
+			executor.shutdown();
+		}
+		assertThat(passes.get()).isEqualTo(1);
+	}
+
+}
@@ -0,0 +1,189 @@
+package de.justeazy.jmdflib.reduction;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+import java.io.ByteArrayOutputStream;
+import java.io.File;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.file.Files;
+import java.nio.file.Paths;
+
+import de.justeazy.jmdflib.MDFFile;
+import de.justeazy.jmdflib.blocktypes.CGBlock;
+import de.justeazy.jmdflib.blocktypes.CNBlock;
+import de.justeazy.jmdflib.blocktypes.DGBlock;
+import de.justeazy.jmdflib.blocktypes.SRBlock;
+import de.justeazy.jmdflib.source.RangeReadSource;
+import junit.framework.TestCase;
+
+public class SampleReductionTest extends TestCase {
+
+	private final static int CG = 1158;
+
+	private final static int DATA = 1216;
+
+	private final static int RECORDS = 76326;
+
+	File file;
+
+	MDFFile mdfFile;
+
+	DGBlock dgBlock;
+
+	CGBlock cgBlock;
+
+	CNBlock value;
+
+	public SampleReductionTest(String name) {
+		super(name);
+	}
+
+	protected void setUp() throws Exception {
+		super.setUp();
+		file = File.createTempFile("junit1-sr", ".dat");
+		file.deleteOnExit();
+		Files.write(file.toPath(), withReductions(Files.readAllBytes(Paths.get("src/test/resources/junit1.dat")),
+				1.0, 10.0));
+		mdfFile = MDFFile.open(file);
+		dgBlock = mdfFile.getDGBlocks().get(0);
+		cgBlock = dgBlock.getCgBlocks().get(0);
+		value = cgBlock.getCNBlocks().get(1);
+	}
+
+	protected void tearDown() throws Exception {
+		file.delete();
+		super.tearDown();
+	}
+
+	public void testSRBlocks() throws Exception {
+		assertThat(cgBlock.getSRBlocks()).hasSize(2);
+		SRBlock srBlock = cgBlock.getSRBlocks().get(1);
+		assertThat(srBlock.getBlockTypeIdentifier()).isEqualTo("SR");
+		assertThat(srBlock.getBlockSize()).isEqualTo(24);
+		assertThat(srBlock.getTimeIntervalLength()).isEqualTo(10.0);
+		assertThat(srBlock.getNumberOfReducedSamples()).isEqualTo(153);
+	}
+
+	public void testSelect() throws Exception {
+		assertThat(SampleReduction.select(cgBlock, 5).getTimeIntervalLength()).isEqualTo(1.0);
+		assertThat(SampleReduction.select(cgBlock, 100).getTimeIntervalLength()).isEqualTo(10.0);
+		assertThat(SampleReduction.select(cgBlock, 0.5)).isNull();
+	}
+
+	public void testReduced() throws Exception {
+		double[] raw = mdfFile.readChannel(dgBlock, cgBlock, value);
+		ReducedChannel reduced = mdfFile.readReduced(dgBlock, cgBlock, value, 0, 2000, 20);
+		assertThat(reduced.isRaw()).isFalse();
+		assertThat(reduced.getTimeIntervalLength()).isEqualTo(10.0);
+		assertThat(reduced.size()).isEqualTo(153);
+
+		double min = Double.POSITIVE_INFINITY;
+		double max = Double.NEGATIVE_INFINITY;
+		double mean = 0;
+		for (double v : raw) {
+			min = Math.min(min, v);
+			max = Math.max(max, v);
+			mean += v / raw.length;
+		}
+		double reducedMin = Double.POSITIVE_INFINITY;
+		double reducedMax = Double.NEGATIVE_INFINITY;
+		for (int i = 0; i < reduced.size(); i++) {
+			reducedMin = Math.min(reducedMin, reduced.getMin()[i]);
+			reducedMax = Math.max(reducedMax, reduced.getMax()[i]);
+			assertThat(reduced.getMean()[i]).isBetween(reduced.getMin()[i], reduced.getMax()[i]);
+		}
+		assertThat(reducedMin).isEqualTo(min);
+		assertThat(reducedMax).isEqualTo(max);
+	}
+
+	public void testRange() throws Exception {
+		ReducedChannel reduced = mdfFile.readReduced(dgBlock, cgBlock, value, 100, 200, 1);
+		assertThat(reduced.getTimeIntervalLength()).isEqualTo(1.0);
+		assertThat(reduced.size()).isBetween(99, 101);
+		assertThat(reduced.getTime()[0]).isGreaterThanOrEqualTo(100);
+		assertThat(reduced.getTime()[reduced.size() - 1]).isLessThanOrEqualTo(200);
+	}
+
+	public void testRaw() throws Exception {
+		double[] time = mdfFile.readChannel(dgBlock, cgBlock, cgBlock.getTimeChannel());
+		ReducedChannel reduced = mdfFile.readReduced(dgBlock, cgBlock, value, 100, 101, 0.1);
+		assertThat(reduced.isRaw()).isTrue();
+		assertThat(reduced.getMin()).isSameAs(reduced.getMean());
+		int expected = 0;
+		for (double t : time) {
+			if (t >= 100 && t <= 101) {
+				expected++;
+			}
+		}
+		assertThat(reduced.size()).isEqualTo(expected);
+		assertThat(reduced.getTime()[0]).isGreaterThanOrEqualTo(100);
+	}
+
+	public void testDataSource() throws Exception {
+		byte[] content = Files.readAllBytes(file.toPath());
+		MDFFile remote = MDFFile.open(new RangeReadSource((position, destination, offset, length) -> System
+				.arraycopy(content, (int) position, destination, offset, length), content.length));
+		DGBlock d = remote.getDGBlocks().get(0);
+		CGBlock c = d.getCgBlocks().get(0);
+		ReducedChannel expected = mdfFile.readReduced(dgBlock, cgBlock, value, 0, 2000, 20);
+		ReducedChannel reduced = remote.readReduced(d, c, c.getCNBlocks().get(1), 0, 2000, 20);
+		assertThat(reduced.getTimeIntervalLength()).isEqualTo(10.0);
+		assertThat(reduced.getTime()).isEqualTo(expected.getTime());
+		assertThat(reduced.getMin()).isEqualTo(expected.getMin());
+		assertThat(reduced.getMean()).isEqualTo(expected.getMean());
+		assertThat(reduced.getMax()).isEqualTo(expected.getMax());
+	}
+
+	/**
+	 * Appends one SR block per interval length, computed from the records of
+	 * the single CG of junit1.dat.
+	 */
+	static byte[] withReductions(byte[] content, double... intervals) throws Exception {
+		ByteBuffer records = ByteBuffer.wrap(content).order(ByteOrder.LITTLE_ENDIAN);
+		ByteArrayOutputStream out = new ByteArrayOutputStream();
+		out.write(content);
+		int previous = CG + 26;
+		for (double interval : intervals) {
+			ByteArrayOutputStream data = new ByteArrayOutputStream();
+			int samples = 0;
+			int i = 0;
+			while (i < RECORDS) {
+				long k = (long) Math.floor(records.getDouble(DATA + 16 * i) / interval);
+				double[] sum = new double[2];
+				double[] min = { Double.POSITIVE_INFINITY, Double.POSITIVE_INFINITY };
+				double[] max = { Double.NEGATIVE_INFINITY, Double.NEGATIVE_INFINITY };
+				int n = 0;
+				for (; i < RECORDS && (long) Math.floor(records.getDouble(DATA + 16 * i) / interval) == k; i++, n++) {
+					for (int c = 0; c < 2; c++) {
+						double v = records.getDouble(DATA + 16 * i + 8 * c);
+						sum[c] += v;
+						min[c] = Math.min(min[c], v);
+						max[c] = Math.max(max[c], v);
+					}
+				}
+				ByteBuffer sample = ByteBuffer.allocate(48).order(ByteOrder.LITTLE_ENDIAN);
+				sample.putDouble(sum[0] / n).putDouble(sum[1] / n);
+				sample.putDouble(min[0]).putDouble(min[1]);
+				sample.putDouble(max[0]).putDouble(max[1]);
+				data.write(sample.array());
+				samples++;
+			}
+
+			int position = out.size();
+			ByteBuffer srBlock = ByteBuffer.allocate(24).order(ByteOrder.LITTLE_ENDIAN);
+			srBlock.put((byte) 'S').put((byte) 'R').putShort((short) 24).putInt(0).putInt(position + 24)
+					.putInt(samples).putDouble(interval);
+			out.write(srBlock.array());
+			out.write(data.toByteArray());
+
+			byte[] result = out.toByteArray();
+			ByteBuffer.wrap(result).order(ByteOrder.LITTLE_ENDIAN).putInt(previous, position);
+			out.reset();
+			out.write(result);
+			previous = position + 4;
+		}
+		return out.toByteArray();
+	}
+
+}
@@ -0,0 +1,128 @@
+package de.justeazy.jmdflib.source;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+import java.io.File;
+import java.nio.ByteBuffer;
+import java.nio.file.Files;
+import java.util.Arrays;
+import java.util.Random;
+
+import de.justeazy.jmdflib.MDFFile;
+import de.justeazy.jmdflib.ChannelProjection;
+import de.justeazy.jmdflib.blocktypes.CGBlock;
+import de.justeazy.jmdflib.blocktypes.DGBlock;
+import junit.framework.TestCase;
+
+public class DataSourceTest extends TestCase {
+
+	File file;
+
+	byte[] content;
+
+	RangeReadSource remote;
+
+	public DataSourceTest(String name) {
+		super(name);
+	}
+
+	protected void setUp() throws Exception {
+		super.setUp();
+		file = new File("src/test/resources/junit1.dat");
+		content = Files.readAllBytes(file.toPath());
+		remote = new RangeReadSource(
+				(position, destination, offset, length) -> System.arraycopy(content, (int) position, destination,
+						offset, length),
+				content.length);
+	}
+
+	private static byte[] read(DataSource source, long position, int length) throws Exception {
+		ByteBuffer buffer = ByteBuffer.allocate(length);
+		DataSources.readFully(source, position, buffer);
+		return buffer.array();
+	}
+
+	public void testSources() throws Exception {
+		DataSource[] sources = { new MappedFileSource(file), new HeapSource(content), remote,
+				new ReadAheadSource(remote, 1024, 8192) };
+		for (DataSource source : sources) {
+			assertThat(source.size()).isEqualTo(content.length);
+			assertThat(read(source, 1188, 28)).isEqualTo(Arrays.copyOfRange(content, 1188, 1216));
+			assertThat(read(source, content.length - 5, 5))
+					.isEqualTo(Arrays.copyOfRange(content, content.length - 5, content.length));
+			assertThat(source.read(content.length, ByteBuffer.allocate(1))).isEqualTo(-1);
+			source.close();
+		}
+		assertThat(new HeapSource(content).getBuffer().isReadOnly()).isTrue();
+		assertThat(remote.getBuffer()).isNull();
+	}
+
+	public void testSequentialReadAhead() throws Exception {
+		ReadAheadSource source = new ReadAheadSource(remote, 1024, 64 << 10);
+		for (int position = 0; position < content.length; position += 8) {
+			assertThat(read(source, position, Math.min(8, content.length - position)))
+					.isEqualTo(Arrays.copyOfRange(content, position, Math.min(position + 8, content.length)));
+		}
+		// 1, 2, 4, ... 64 KB, then 64 KB per read
+		int expected = 7 + (content.length - 127 * 1024 + (64 << 10) - 1) / (64 << 10);
+		assertThat(source.getNumberOfReads()).isEqualTo(expected);
+		assertThat(remote.getNumberOfRequests()).isEqualTo(expected);
+		assertThat(remote.getBytesRequested()).isEqualTo(content.length);
+	}
+
+	public void testRandomReads() throws Exception {
+		ReadAheadSource source = new ReadAheadSource(remote, 4096, 4096);
+		Random random = new Random(1);
+		for (int i = 0; i < 1000; i++) {
+			int position = random.nextInt(content.length - 100);
+			int length = 1 + random.nextInt(100);
+			assertThat(read(source, position, length))
+					.isEqualTo(Arrays.copyOfRange(content, position, position + length));
+		}
+		// at most 4 windows of 4 KB are kept
+		assertThat(remote.getNumberOfRequests()).isGreaterThan(100).isLessThan(1000);
+	}
+
+	public void testCoalescedHeader() throws Exception {
+		ReadAheadSource source = new ReadAheadSource(remote);
+		assertThat(new String(read(source, 0, 3), "US-ASCII")).isEqualTo("MDF");
+		for (int position = 64; position < 1216; position += 20) {
+			read(source, position, 20);
+		}
+		assertThat(remote.getNumberOfRequests()).isEqualTo(1);
+	}
+
+	public void testOpenFromSources() throws Exception {
+		MDFFile mapped = MDFFile.open(file);
+		DGBlock dgBlock = mapped.getDGBlocks().get(0);
+		CGBlock cgBlock = dgBlock.getCgBlocks().get(0);
+		double[] expected = mapped.readChannel(dgBlock, cgBlock, cgBlock.getCNBlocks().get(1));
+
+		for (DataSource source : new DataSource[] { new HeapSource(content), remote, new MappedFileSource(file) }) {
+			MDFFile opened = MDFFile.open(source, ChannelProjection.all(), Runnable::run);
+			DGBlock d = opened.getDGBlocks().get(0);
+			CGBlock c = d.getCgBlocks().get(0);
+			assertThat(opened.readChannel(d, c, c.getCNBlocks().get(1))).isEqualTo(expected);
+			assertThat(opened.getFile()).isEqualTo(source instanceof MappedFileSource ? file : null);
+		}
+		// the blocks and the data block
+		assertThat(remote.getNumberOfRequests()).isEqualTo(2);
+	}
+
+	public void testForeignDataGroup() throws Exception {
+		DGBlock foreign = MDFFile.open(file).getDGBlocks().get(0);
+		DataSource[] sources = { new HeapSource(content), remote };
+		for (DataSource source : sources) {
+			MDFFile opened = MDFFile.open(source);
+			assertThat(opened.getFile()).isNull();
+			try {
+				opened.getChannelDecoder(foreign, foreign.getCgBlocks().get(0),
+						foreign.getCgBlocks().get(0).getCNBlocks().get(1));
+				fail();
+			} catch (IllegalArgumentException e) {
+				assertThat(e.getMessage()).contains("not part of").contains("bytes");
+			}
+		}
+	}
+
+}
@@ -0,0 +1,96 @@
+package de.justeazy.jmdflib.stream;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+import java.io.File;
+import java.util.Spliterator;
+
+import de.justeazy.jmdflib.ChannelDecoder;
+import de.justeazy.jmdflib.MDFFile;
+import de.justeazy.jmdflib.blocktypes.CGBlock;
+import de.justeazy.jmdflib.blocktypes.CNBlock;
+import de.justeazy.jmdflib.blocktypes.DGBlock;
+import junit.framework.TestCase;
+
+public class ChannelStreamsTest extends TestCase {
+
+	MDFFile mdfFile;
+
+	DGBlock dgBlock;
+
+	CGBlock cgBlock;
+
+	CNBlock time;
+
+	CNBlock value;
+
+	public ChannelStreamsTest(String name) {
+		super(name);
+	}
+
+	protected void setUp() throws Exception {
+		super.setUp();
+		mdfFile = MDFFile.open(new File("src/test/resources/junit1.dat"));
+		dgBlock = mdfFile.getDGBlocks().get(0);
+		cgBlock = dgBlock.getCgBlocks().get(0);
+		time = cgBlock.getCNBlocks().get(0);
+		value = cgBlock.getCNBlocks().get(1);
+	}
+
+	public void testPhysical() throws Exception {
+		double[] expected = mdfFile.readChannel(dgBlock, cgBlock, value);
+		assertThat(mdfFile.streamChannel(dgBlock, cgBlock, value).toArray()).isEqualTo(expected);
+		assertThat(mdfFile.streamChannel(dgBlock, cgBlock, value).parallel().toArray()).isEqualTo(expected);
+
+		double max = Double.NEGATIVE_INFINITY;
+		for (double v : expected) {
+			max = Math.max(max, v);
+		}
+		assertThat(mdfFile.streamChannel(dgBlock, cgBlock, value).parallel().max().getAsDouble()).isEqualTo(max);
+	}
+
+	public void testRaw() throws Exception {
+		ChannelDecoder decoder = mdfFile.getChannelDecoder(dgBlock, cgBlock, value);
+		long[] raw = ChannelStreams.raw(decoder).parallel().toArray();
+		assertThat(raw).hasSize(76326);
+		for (int i = 0; i < raw.length; i += 1000) {
+			assertThat(Double.longBitsToDouble(raw[i])).isEqualTo(decoder.getValue(i));
+		}
+	}
+
+	public void testRecords() throws Exception {
+		double[] times = mdfFile.readChannel(dgBlock, cgBlock, time);
+		double[] values = mdfFile.readChannel(dgBlock, cgBlock, value);
+		assertThat(mdfFile.streamRecords(dgBlock, cgBlock, time, value).parallel()
+				.filter(r -> r.getPhysical("t") >= 100 && r.getPhysical("t") < 200).count())
+						.isEqualTo(countBetween(times, 100, 200));
+		mdfFile.streamRecords(dgBlock, cgBlock, time, value).parallel().forEach(r -> {
+			assertThat(r.getPhysical(0)).isEqualTo(times[r.getIndex()]);
+			assertThat(r.getPhysical(1)).isEqualTo(values[r.getIndex()]);
+		});
+		assertThat(mdfFile.streamRecords(dgBlock, cgBlock, value).findFirst().get().getNames()).containsExactly("v");
+	}
+
+	public void testSplit() throws Exception {
+		Spliterator.OfDouble spliterator = mdfFile.streamChannel(dgBlock, cgBlock, value).spliterator();
+		assertThat(spliterator.hasCharacteristics(Spliterator.SUBSIZED)).isTrue();
+		Spliterator.OfDouble prefix = spliterator.trySplit();
+		assertThat(prefix.estimateSize()).isEqualTo(76326 / 2);
+		assertThat(spliterator.estimateSize()).isEqualTo(76326 - 76326 / 2);
+
+		Spliterator.OfDouble small = new PhysicalSpliterator(mdfFile.getChannelDecoder(dgBlock, cgBlock, value), 0,
+				IndexSpliterator.MINIMUM_SPLIT);
+		assertThat(small.trySplit()).isNull();
+	}
+
+	private static long countBetween(double[] values, double from, double to) {
+		long count = 0;
+		for (double v : values) {
+			if (v >= from && v < to) {
+				count++;
+			}
+		}
+		return count;
+	}
+
+}
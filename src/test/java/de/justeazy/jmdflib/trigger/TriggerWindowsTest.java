@@ -0,0 +1,121 @@
+package de.justeazy.jmdflib.trigger;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+import java.io.ByteArrayOutputStream;
+import java.io.File;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.file.Files;
+import java.nio.file.Paths;
+
+import de.justeazy.jmdflib.MDFFile;
+import de.justeazy.jmdflib.blocktypes.CGBlock;
+import de.justeazy.jmdflib.blocktypes.DGBlock;
+import de.justeazy.jmdflib.blocktypes.TRBlock;
+import junit.framework.TestCase;
+
+public class TriggerWindowsTest extends TestCase {
+
+	private final static int DG = 1188;
+
+	File file;
+
+	MDFFile mdfFile;
+
+	DGBlock dgBlock;
+
+	CGBlock cgBlock;
+
+	public TriggerWindowsTest(String name) {
+		super(name);
+	}
+
+	protected void setUp() throws Exception {
+		super.setUp();
+		file = File.createTempFile("junit1-tr", ".dat");
+		file.deleteOnExit();
+		Files.write(file.toPath(), withTriggers(Files.readAllBytes(Paths.get("src/test/resources/junit1.dat")),
+				100, 1, 2, 500, 0.5, 0.5, 2000, 1, 1));
+		mdfFile = MDFFile.open(file);
+		dgBlock = mdfFile.getDGBlocks().get(0);
+		cgBlock = dgBlock.getCgBlocks().get(0);
+	}
+
+	protected void tearDown() throws Exception {
+		file.delete();
+		super.tearDown();
+	}
+
+	public void testTRBlock() throws Exception {
+		TRBlock trBlock = dgBlock.getTRBlock();
+		assertThat(trBlock.getBlockTypeIdentifier()).isEqualTo("TR");
+		assertThat(trBlock.getBlockSize()).isEqualTo(10 + 3 * 24);
+		assertThat(trBlock.getNumberOfTriggerEvents()).isEqualTo(3);
+		assertThat(trBlock.getTriggerTimes()).containsExactly(100, 500, 2000);
+		assertThat(trBlock.getPreTriggerTimes()).containsExactly(1, 0.5, 1);
+		assertThat(trBlock.getPostTriggerTimes()).containsExactly(2, 0.5, 1);
+		assertThat(trBlock.getTXBlock().getText()).isEmpty();
+		assertThat(TriggerWindows.getNumberOfTriggerEvents(dgBlock)).isEqualTo(3);
+	}
+
+	public void testWindow() throws Exception {
+		double[] time = mdfFile.readChannel(dgBlock, cgBlock, cgBlock.getCNBlocks().get(0));
+		double[] value = mdfFile.readChannel(dgBlock, cgBlock, cgBlock.getCNBlocks().get(1));
+
+		TriggerWindow window = mdfFile.readTriggerWindow(dgBlock, cgBlock, 0, cgBlock.getCNBlocks().get(1));
+		assertThat(window.getTrigger()).isEqualTo(0);
+		assertThat(window.getTriggerTime()).isEqualTo(100);
+		assertThat(window.getNames()).containsExactly("v");
+
+		int first = -1;
+		int count = 0;
+		for (int i = 0; i < time.length; i++) {
+			if (time[i] >= 99 && time[i] <= 102) {
+				first = first < 0 ? i : first;
+				count++;
+			}
+		}
+		assertThat(window.getFirstRecord()).isEqualTo(first);
+		assertThat(window.size()).isEqualTo(count);
+		for (int i = 0; i < window.size(); i++) {
+			assertThat(window.getTime()[i]).isEqualTo(time[first + i]);
+			assertThat(window.getColumn("v")[i]).isEqualTo(value[first + i]);
+		}
+	}
+
+	public void testWindowOutsideOfRecords() throws Exception {
+		TriggerWindow window = mdfFile.readTriggerWindow(dgBlock, cgBlock, 2, cgBlock.getCNBlocks().get(1));
+		assertThat(window.size()).isEqualTo(0);
+		assertThat(window.getColumn(0)).isEmpty();
+	}
+
+	public void testWrongTrigger() throws Exception {
+		try {
+			mdfFile.readTriggerWindow(dgBlock, cgBlock, 3);
+			fail();
+		} catch (IllegalArgumentException e) {
+			assertThat(e.getMessage()).contains("3");
+		}
+	}
+
+	/**
+	 * Appends a TR block with the given (time, pre, post) triples and links it
+	 * to the single DG of junit1.dat. Its comment is the empty TX block at 567.
+	 */
+	static byte[] withTriggers(byte[] content, double... events) throws Exception {
+		int n = events.length / 3;
+		ByteBuffer trBlock = ByteBuffer.allocate(10 + 24 * n).order(ByteOrder.LITTLE_ENDIAN);
+		trBlock.put((byte) 'T').put((byte) 'R').putShort((short) (10 + 24 * n)).putInt(567).putShort((short) n);
+		for (double event : events) {
+			trBlock.putDouble(event);
+		}
+		ByteArrayOutputStream out = new ByteArrayOutputStream();
+		out.write(content);
+		out.write(trBlock.array());
+		byte[] result = out.toByteArray();
+		ByteBuffer.wrap(result).order(ByteOrder.LITTLE_ENDIAN).putInt(DG + 12, content.length);
+		return result;
+	}
+
+}
@@ -0,0 +1,210 @@
+package de.justeazy.jmdflib.window;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.within;
+
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.util.ArrayList;
+import java.util.Random;
+
+import de.justeazy.jmdflib.ChannelDecoder;
+import de.justeazy.jmdflib.blocktypes.CGBlock;
+import de.justeazy.jmdflib.blocktypes.CNBlock;
+import de.justeazy.jmdflib.enums.ChannelType;
+import de.justeazy.jmdflib.enums.RollingStatistic;
+import de.justeazy.jmdflib.enums.SignalDataType;
+import junit.framework.TestCase;
+
+public class RollingWindowTest extends TestCase {
+
+	private double[] times;
+
+	private double[] values;
+
+	private ChannelDecoder time;
+
+	private ChannelDecoder value;
+
+	public RollingWindowTest(String name) {
+		super(name);
+	}
+
+	protected void setUp() throws Exception {
+		super.setUp();
+		int records = 2 * RollingStatistics.BLOCK_SIZE + 33;
+		times = new double[records];
+		values = new double[records];
+		Random random = new Random(42);
+		double t = 0;
+		for (int i = 0; i < records; i++) {
+			// irregular sampling
+			t += 0.001 + 0.004 * random.nextDouble();
+			times[i] = t;
+			values[i] = 1000 + Math.sin(i / 40.0) + 0.1 * random.nextGaussian();
+		}
+		values[500] = Double.NaN;
+
+		CGBlock cgBlock = new CGBlock();
+		cgBlock.setSizeOfDataRecord(16);
+		cgBlock.setNumberOfRecords(records);
+		ArrayList<CNBlock> cnBlocks = new ArrayList<CNBlock>();
+		cnBlocks.add(channel("t", ChannelType.TIME_CHANNEL, 0));
+		cnBlocks.add(channel("v", ChannelType.DATA_CHANNEL, 64));
+		cgBlock.setCNBlocks(cnBlocks);
+		ByteBuffer data = ByteBuffer.allocate(16 * records).order(ByteOrder.LITTLE_ENDIAN);
+		for (int i = 0; i < records; i++) {
+			data.putDouble(times[i]).putDouble(values[i]);
+		}
+		time = new ChannelDecoder(data, 0, cgBlock, cnBlocks.get(0), ByteOrder.LITTLE_ENDIAN);
+		value = new ChannelDecoder(data, 0, cgBlock, cnBlocks.get(1), ByteOrder.LITTLE_ENDIAN);
+	}
+
+	private static CNBlock channel(String name, ChannelType channelType, int startOffsetInBits) {
+		CNBlock cnBlock = new CNBlock();
+		cnBlock.setShortSignalName(name);
+		cnBlock.setChannelType(channelType);
+		cnBlock.setStartOffsetInBits(startOffsetInBits);
+		cnBlock.setNumberOfBits(64);
+		cnBlock.setSignalDataType(SignalDataType.IEEE_754_FLOATING_POINT_FORMAT_DOUBLE);
+		return cnBlock;
+	}
+
+	/**
+	 * Straightforward statistics of the values {@code from} to {@code to}
+	 * (inclusive), without NaN values
+	 */
+	private double[] expected(int from, int to) {
+		double min = Double.POSITIVE_INFINITY;
+		double max = Double.NEGATIVE_INFINITY;
+		double sum = 0;
+		double squares = 0;
+		int n = 0;
+		for (int i = from; i <= to; i++) {
+			if (!Double.isNaN(values[i])) {
+				min = Math.min(min, values[i]);
+				max = Math.max(max, values[i]);
+				sum += values[i];
+				squares += values[i] * values[i];
+				n++;
+			}
+		}
+		double mean = sum / n;
+		double variance = 0;
+		for (int i = from; i <= to; i++) {
+			if (!Double.isNaN(values[i])) {
+				variance += (values[i] - mean) * (values[i] - mean);
+			}
+		}
+		return new double[] { mean, Math.sqrt(squares / n), min, max, Math.sqrt(variance / n) };
+	}
+
+	private void assertStatistics(double[][] results, int i, int from) {
+		double[] expected = expected(from, i);
+		assertThat(results[0][i]).isCloseTo(expected[0], within(1e-9));
+		assertThat(results[1][i]).isCloseTo(expected[1], within(1e-9));
+		assertThat(results[2][i]).isEqualTo(expected[2]);
+		assertThat(results[3][i]).isEqualTo(expected[3]);
+		assertThat(results[4][i]).isCloseTo(expected[4], within(1e-9));
+	}
+
+	public void testSampleWindow() throws Exception {
+		int samples = 100;
+		double[][] results = RollingStatistics.compute(value, RollingWindow.ofSamples(samples),
+				RollingStatistic.values());
+		assertThat(results).hasSize(5);
+		for (int i = 0; i < values.length; i += 7) {
+			// the NaN value does not count as sample
+			int from = Math.max(0, i - samples + 1);
+			if (from <= 500 && i >= 500 && i - samples >= 0) {
+				from--;
+			}
+			assertStatistics(results, i, from);
+		}
+	}
+
+	public void testDurationWindow() throws Exception {
+		double duration = 0.25;
+		double[][] results = RollingStatistics.compute(value, time, RollingWindow.ofDuration(duration),
+				RollingStatistic.values());
+		int from = 0;
+		for (int i = 0; i < values.length; i++) {
+			while (times[from] <= times[i] - duration) {
+				from++;
+			}
+			if (i % 7 == 0) {
+				assertStatistics(results, i, from);
+			}
+		}
+	}
+
+	public void testSamePassAsExtraction() throws Exception {
+		RollingWindow window = RollingWindow.ofDuration(0.1);
+		RollingStatistic[] statistics = { RollingStatistic.MAXIMUM };
+		double[][] results = new double[1][values.length];
+		double[] extracted = new double[values.length];
+		double[] t = new double[values.length];
+		for (int first = 0; first < values.length; first += 1000) {
+			int last = Math.min(values.length, first + 1000);
+			value.readPhysical(first, last, extracted, first);
+			time.readPhysical(first, last, t, first);
+			RollingStatistics.apply(window, t, extracted, first, last - first, statistics, results, first);
+		}
+		assertThat(results[0]).isEqualTo(
+				RollingStatistics.compute(value, time, RollingWindow.ofDuration(0.1), RollingStatistic.MAXIMUM)[0]);
+	}
+
+	public void testWindow() throws Exception {
+		RollingWindow window = RollingWindow.ofSamples(3);
+		assertThat(window.getMean()).isNaN();
+		assertThat(window.getMinimum()).isNaN();
+		for (double v : new double[] { 5, 1, 3, 4 }) {
+			window.add(v);
+		}
+		assertThat(window.getCount()).isEqualTo(3);
+		assertThat(window.getMinimum()).isEqualTo(1);
+		assertThat(window.getMaximum()).isEqualTo(4);
+		window.add(2);
+		assertThat(window.getMinimum()).isEqualTo(2);
+		assertThat(window.getMean()).isEqualTo(3);
+		assertThat(window.getVariance()).isCloseTo(2.0 / 3, within(1e-15));
+
+		// no cancellation for large offsets
+		RollingWindow offset = RollingWindow.ofSamples(2);
+		for (int i = 0; i < 100000; i++) {
+			offset.add(1e9 + (i % 2));
+		}
+		assertThat(offset.getVariance()).isEqualTo(0.25);
+
+		// the shift follows drifting values
+		RollingWindow drift = RollingWindow.ofSamples(8);
+		for (int i = 0; i < 2000000; i++) {
+			drift.add(1e6 * i + (i % 2));
+		}
+		double mean = 0;
+		for (int i = 2000000 - 8; i < 2000000; i++) {
+			mean += (1e6 * i + (i % 2)) / 8;
+		}
+		double variance = 0;
+		for (int i = 2000000 - 8; i < 2000000; i++) {
+			double d = 1e6 * i + (i % 2) - mean;
+			variance += d * d / 8;
+		}
+		assertThat(drift.getMean()).isCloseTo(mean, within(1e-3));
+		assertThat(drift.getVariance()).isCloseTo(variance, within(variance * 1e-12));
+
+		window.clear();
+		assertThat(window.getCount()).isEqualTo(0);
+		try {
+			RollingWindow.ofDuration(1).add(1);
+			fail();
+		} catch (IllegalStateException e) {
+		}
+		try {
+			RollingStatistics.compute(value, RollingWindow.ofDuration(1), RollingStatistic.MEAN);
+			fail();
+		} catch (IllegalArgumentException e) {
+		}
+	}
+
+}
@@ -0,0 +1,169 @@
+package de.justeazy.jmdflib.writer;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+import java.io.File;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.file.Files;
+import java.nio.file.Paths;
+import java.util.Arrays;
+
+import de.justeazy.jmdflib.MDFFile;
+import de.justeazy.jmdflib.blocktypes.CGBlock;
+import de.justeazy.jmdflib.blocktypes.DGBlock;
+import de.justeazy.jmdflib.enums.Backpressure;
+import junit.framework.TestCase;
+
+public class CaptureWriterTest extends TestCase {
+
+	static final int RECORDS = 76326;
+
+	byte[] content;
+
+	File captured;
+
+	File sorted;
+
+	double[][] expected;
+
+	public CaptureWriterTest(String name) {
+		super(name);
+	}
+
+	protected void setUp() throws Exception {
+		super.setUp();
+		content = Files.readAllBytes(Paths.get("src/test/resources/junit1.dat"));
+		captured = File.createTempFile("junit", ".dat");
+		sorted = File.createTempFile("junit", ".dat");
+
+		MDFFile original = MDFFile.open(new File("src/test/resources/junit1.dat"));
+		DGBlock dgBlock = original.getDGBlocks().get(0);
+		CGBlock cgBlock = dgBlock.getCgBlocks().get(0);
+		expected = new double[2][];
+		for (int c = 0; c < 2; c++) {
+			expected[c] = original.readChannel(dgBlock, cgBlock, cgBlock.getCNBlocks().get(c));
+		}
+	}
+
+	protected void tearDown() throws Exception {
+		captured.delete();
+		sorted.delete();
+		super.tearDown();
+	}
+
+	/**
+	 * <p>
+	 * Starts a producer offering records {@code first} to
+	 * {@code first + count - 1} of junit1.dat.
+	 * </p>
+	 */
+	private Thread produce(final RecordRing ring, final int first, final int count) {
+		Thread producer = new Thread(() -> {
+			ByteBuffer records = ByteBuffer.wrap(content, 1216 + 16 * first, 16 * count);
+			while (records.hasRemaining()) {
+				ring.offer(records);
+			}
+		});
+		producer.start();
+		return producer;
+	}
+
+	public void testCapture() throws Exception {
+		CaptureWriter writer = CaptureWriter.open(MDFFile.open(new File("src/test/resources/junit1.dat")), captured,
+				64, Backpressure.BLOCK);
+		assertThat(writer.getRings()).hasSize(1);
+		assertThat(writer.getRing(0).getCapacity()).isEqualTo(64);
+		produce(writer.getRing(0), 0, RECORDS).join();
+		writer.close();
+		writer.close();
+		assertThat(writer.getWrittenRecords()).isEqualTo(RECORDS);
+		assertThat(writer.getDroppedRecords()).isEqualTo(0);
+
+		MDFFile source = MDFFile.open(captured);
+		assertThat(UnsortedFiles.isSorted(source)).isFalse();
+		assertThat(source.getDGBlocks().get(0).getCgBlocks().get(0).getNumberOfRecords()).isEqualTo(RECORDS);
+		UnsortedFiles.sort(source, sorted);
+
+		MDFFile result = MDFFile.open(sorted);
+		DGBlock dgBlock = result.getDGBlocks().get(0);
+		CGBlock cgBlock = dgBlock.getCgBlocks().get(0);
+		for (int c = 0; c < 2; c++) {
+			assertThat(result.readChannel(dgBlock, cgBlock, cgBlock.getCNBlocks().get(c))).isEqualTo(expected[c]);
+		}
+		try {
+			writer.getRing(0).offer(content, 1216);
+			fail();
+		} catch (IllegalStateException e) {
+			assertThat(e.getMessage()).contains("closed");
+		}
+	}
+
+	/**
+	 * <p>
+	 * Captures records 0 to 29999 and 40000 to 49999 of junit1.dat
+	 * concurrently into the two channel groups of a template derived from
+	 * junit1.dat.
+	 * </p>
+	 */
+	public void testConcurrentChannelGroups() throws Exception {
+		ByteBuffer b = ByteBuffer.allocate(1216 + 30).order(ByteOrder.LITTLE_ENDIAN);
+		b.put(content, 0, 1216);
+		b.put(content, 1158, 30);
+		b.putInt(1216 + 4, 0);
+		b.putShort(1188 + 20, (short) 2);
+		b.putInt(1158 + 4, 1216);
+		b.putInt(1158 + 22, 0);
+		b.putInt(1216 + 22, 0);
+		b.putInt(1188 + 16, 0);
+		File template = File.createTempFile("junit", ".dat");
+		try {
+			Files.write(template.toPath(), b.array());
+			CaptureWriter writer = CaptureWriter.open(MDFFile.open(template), captured, 128, Backpressure.BLOCK);
+			assertThat(writer.getRings()).hasSize(2);
+			Thread first = produce(writer.getRing(0), 0, 30000);
+			Thread second = produce(writer.getRing(1), 40000, 10000);
+			first.join();
+			second.join();
+			writer.close();
+			assertThat(writer.getRing(0).getWrittenRecords()).isEqualTo(30000);
+			assertThat(writer.getRing(1).getWrittenRecords()).isEqualTo(10000);
+		} finally {
+			template.delete();
+		}
+
+		UnsortedFiles.sort(MDFFile.open(captured), sorted);
+		MDFFile result = MDFFile.open(sorted);
+		assertThat(result.getDGBlocks()).hasSize(2);
+		int[] offsets = { 0, 40000 };
+		int[] counts = { 30000, 10000 };
+		for (int d = 0; d < 2; d++) {
+			DGBlock dgBlock = result.getDGBlocks().get(d);
+			CGBlock cgBlock = dgBlock.getCgBlocks().get(0);
+			assertThat(cgBlock.getNumberOfRecords()).isEqualTo(counts[d]);
+			for (int c = 0; c < 2; c++) {
+				assertThat(result.readChannel(dgBlock, cgBlock, cgBlock.getCNBlocks().get(c)))
+						.isEqualTo(Arrays.copyOfRange(expected[c], offsets[d], offsets[d] + counts[d]));
+			}
+		}
+	}
+
+	public void testDrop() throws Exception {
+		RecordRing ring = new RecordRing(16, 3, Backpressure.DROP);
+		assertThat(ring.getCapacity()).isEqualTo(4);
+		for (int i = 0; i < 6; i++) {
+			assertThat(ring.offer(content, 1216 + 16 * i)).isEqualTo(i < 4);
+		}
+		assertThat(ring.getDroppedRecords()).isEqualTo(2);
+
+		ByteBuffer batch = ByteBuffer.allocate(2 * 17 + 5);
+		assertThat(ring.drain(batch, 7)).isEqualTo(2);
+		assertThat(batch.get(0)).isEqualTo((byte) 7);
+		assertThat(Arrays.copyOfRange(batch.array(), 1, 17)).isEqualTo(Arrays.copyOfRange(content, 1216, 1232));
+		assertThat(ring.getWrittenRecords()).isEqualTo(2);
+
+		assertThat(ring.offer(content, 1216)).isTrue();
+		assertThat(ring.getDroppedRecords()).isEqualTo(2);
+	}
+
+}
@@ -0,0 +1,71 @@
+package de.justeazy.jmdflib.writer;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+import java.io.File;
+
+import de.justeazy.jmdflib.ChannelProjection;
+import de.justeazy.jmdflib.MDFFile;
+import de.justeazy.jmdflib.blocktypes.CGBlock;
+import de.justeazy.jmdflib.blocktypes.CNBlock;
+import de.justeazy.jmdflib.blocktypes.DGBlock;
+import junit.framework.TestCase;
+
+public class ChannelSubsetTest extends TestCase {
+
+	MDFFile source;
+
+	File target;
+
+	public ChannelSubsetTest(String name) {
+		super(name);
+	}
+
+	protected void setUp() throws Exception {
+		super.setUp();
+		source = MDFFile.open(new File("src/test/resources/junit1.dat"));
+		target = File.createTempFile("junit", ".dat");
+	}
+
+	protected void tearDown() throws Exception {
+		target.delete();
+		super.tearDown();
+	}
+
+	double[] read(MDFFile file, int channel) throws Exception {
+		DGBlock dgBlock = file.getDGBlocks().get(0);
+		CGBlock cgBlock = dgBlock.getCgBlocks().get(0);
+		return file.readChannel(dgBlock, cgBlock, cgBlock.getCNBlocks().get(channel));
+	}
+
+	public void testCompactRecords() throws Exception {
+		ChannelSubset.write(source, ChannelProjection.byNames("t"), target);
+		MDFFile subset = MDFFile.open(target);
+		CGBlock cgBlock = subset.getDGBlocks().get(0).getCgBlocks().get(0);
+		assertThat(cgBlock.getCNBlocks()).hasSize(1);
+		assertThat(cgBlock.getSizeOfDataRecord()).isEqualTo(8);
+		assertThat(cgBlock.getNumberOfRecords()).isEqualTo(76326);
+		CNBlock cnBlock = cgBlock.getCNBlocks().get(0);
+		assertThat(cnBlock.getTxBlockLongSignalName().getText()).isEqualTo("t");
+		assertThat(read(subset, 0)).isEqualTo(read(source, 0));
+		assertThat(target.length()).isLessThan(source.getFile().length() * 6 / 10);
+	}
+
+	public void testCompleteDataGroup() throws Exception {
+		ChannelSubset.write(source, ChannelProjection.byNames("v"), target);
+		MDFFile subset = MDFFile.open(target);
+		CGBlock cgBlock = subset.getDGBlocks().get(0).getCgBlocks().get(0);
+		assertThat(cgBlock.getCNBlocks()).hasSize(2);
+		assertThat(cgBlock.getSizeOfDataRecord()).isEqualTo(16);
+		assertThat(read(subset, 1)).isEqualTo(read(source, 1));
+		assertThat(subset.getHDBlock().getNumberOfDataGroups()).isEqualTo(1);
+	}
+
+	public void testNoChannels() throws Exception {
+		ChannelSubset.write(source, ChannelProjection.byNames("x"), target);
+		MDFFile subset = MDFFile.open(target);
+		assertThat(subset.getDGBlocks()).isEmpty();
+		assertThat(subset.getHDBlock().getNumberOfDataGroups()).isEqualTo(0);
+	}
+
+}
@@ -0,0 +1,130 @@
+package de.justeazy.jmdflib.writer;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.file.Files;
+import java.nio.file.Paths;
+import java.util.Arrays;
+
+import de.justeazy.jmdflib.MDFFile;
+import de.justeazy.jmdflib.blocktypes.CGBlock;
+import de.justeazy.jmdflib.blocktypes.DGBlock;
+import junit.framework.TestCase;
+
+public class UnsortedFilesTest extends TestCase {
+
+	static final int FIRST = 10000;
+
+	static final int SECOND = 3334;
+
+	File unsorted;
+
+	File sorted;
+
+	double[][] expected;
+
+	public UnsortedFilesTest(String name) {
+		super(name);
+	}
+
+	/**
+	 * <p>
+	 * Writes an unsorted file with two channel groups sharing the channels of
+	 * junit1.dat: the first one (record ID 1) holds records 0 to 9999, the
+	 * second one (record ID 2) records 20000 to 23333, interleaved after
+	 * every third record of the first one.
+	 * </p>
+	 */
+	protected void setUp() throws Exception {
+		super.setUp();
+		byte[] content = Files.readAllBytes(Paths.get("src/test/resources/junit1.dat"));
+		ByteBuffer b = ByteBuffer.allocate(1216 + 17 * (FIRST + SECOND) + 30).order(ByteOrder.LITTLE_ENDIAN);
+		b.put(content, 0, 1216);
+		int second = 0;
+		for (int i = 0; i < FIRST; i++) {
+			b.put((byte) 1).put(content, 1216 + 16 * i, 16);
+			if (i % 3 == 0) {
+				b.put((byte) 2).put(content, 1216 + 16 * (20000 + second++), 16);
+			}
+		}
+		int cg2 = b.position();
+		b.put(content, 1158, 30);
+		b.putInt(cg2 + 4, 0);
+		b.putShort(cg2 + 16, (short) 2);
+		b.putInt(cg2 + 22, SECOND);
+
+		b.putShort(1188 + 20, (short) 2);
+		b.putShort(1188 + 22, (short) 1);
+		b.putInt(1158 + 4, cg2);
+		b.putShort(1158 + 16, (short) 1);
+		b.putInt(1158 + 22, FIRST);
+
+		unsorted = File.createTempFile("junit", ".dat");
+		sorted = File.createTempFile("junit", ".dat");
+		Files.write(unsorted.toPath(), b.array());
+
+		MDFFile original = MDFFile.open(new File("src/test/resources/junit1.dat"));
+		DGBlock dgBlock = original.getDGBlocks().get(0);
+		CGBlock cgBlock = dgBlock.getCgBlocks().get(0);
+		expected = new double[2][];
+		for (int c = 0; c < 2; c++) {
+			expected[c] = original.readChannel(dgBlock, cgBlock, cgBlock.getCNBlocks().get(c));
+		}
+	}
+
+	protected void tearDown() throws Exception {
+		unsorted.delete();
+		sorted.delete();
+		super.tearDown();
+	}
+
+	public void testSort() throws Exception {
+		MDFFile source = MDFFile.open(unsorted);
+		assertThat(UnsortedFiles.isSorted(source)).isFalse();
+		UnsortedFiles.sort(source, sorted, 4096);
+
+		MDFFile result = MDFFile.open(sorted);
+		assertThat(UnsortedFiles.isSorted(result)).isTrue();
+		assertThat(result.getDGBlocks()).hasSize(2);
+		int[] offsets = { 0, 20000 };
+		int[] counts = { FIRST, SECOND };
+		for (int d = 0; d < 2; d++) {
+			DGBlock dgBlock = result.getDGBlocks().get(d);
+			CGBlock cgBlock = dgBlock.getCgBlocks().get(0);
+			assertThat(cgBlock.getNumberOfRecords()).isEqualTo(counts[d]);
+			for (int c = 0; c < 2; c++) {
+				assertThat(result.readChannel(dgBlock, cgBlock, cgBlock.getCNBlocks().get(c)))
+						.isEqualTo(Arrays.copyOfRange(expected[c], offsets[d], offsets[d] + counts[d]));
+			}
+		}
+	}
+
+	public void testReadUnsorted() throws Exception {
+		MDFFile source = MDFFile.open(unsorted);
+		DGBlock dgBlock = source.getDGBlocks().get(0);
+		CGBlock cgBlock = dgBlock.getCgBlocks().get(0);
+		try {
+			source.readChannel(dgBlock, cgBlock, cgBlock.getCNBlocks().get(1));
+			fail();
+		} catch (IOException e) {
+			assertThat(e.getMessage()).contains("UnsortedFiles");
+		}
+	}
+
+	public void testWrongNumberOfRecords() throws Exception {
+		ByteBuffer b = ByteBuffer.wrap(Files.readAllBytes(unsorted.toPath())).order(ByteOrder.LITTLE_ENDIAN);
+		b.putInt(1158 + 22, FIRST + 1);
+		Files.write(unsorted.toPath(), b.array());
+		try {
+			UnsortedFiles.sort(MDFFile.open(unsorted), sorted, 4096);
+			fail();
+		} catch (IOException e) {
+			assertThat(e.getMessage()).contains("channel group");
+		}
+	}
+
+}